@@ -3,12 +3,17 @@ package io.github.ensgijs.nbt.mca;
 import io.github.ensgijs.nbt.io.BinaryNbtDeserializer;
 import io.github.ensgijs.nbt.io.BinaryNbtSerializer;
 import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.LazyBinaryNbt;
 import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.SilentIOException;
+import io.github.ensgijs.nbt.mca.io.ChunkWriteBuffer;
 import io.github.ensgijs.nbt.mca.io.LoadFlags;
 import io.github.ensgijs.nbt.mca.io.MoveChunkFlags;
 import io.github.ensgijs.nbt.mca.util.*;
 import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.IntTag;
 import io.github.ensgijs.nbt.tag.Tag;
+import io.github.ensgijs.nbt.util.BinaryNbtPatcher;
 import io.github.ensgijs.nbt.util.ObservedCompoundTag;
 import io.github.ensgijs.nbt.query.NbtPath;
 
@@ -115,10 +120,28 @@ public abstract class ChunkBase implements VersionedDataContainer, TagWrapper<Co
 		initReferences0(loadFlags);
 	}
 
+	/** Reads the data version without decoding the lazy root, so raw chunks can be patched in binary form. */
+	private static final BinaryNbtPatcher<int[]> DATA_VERSION_READER = BinaryNbtPatcher.<int[]>builder()
+			.on("DataVersion", (field, out) -> {
+				if (field.type() == IntTag.ID) out[0] = field.getInt();
+			})
+			.build();
+
+	private static int peekDataVersion(CompoundTag lazyData) {
+		int[] out = new int[1];
+		try {
+			lazyData.patchLazyPayload(DATA_VERSION_READER, out);
+		} catch (IOException ex) {
+			// the payload was validated when it was read
+			throw new SilentIOException(ex);
+		}
+		return out[0];
+	}
+
 	private void initReferences0(long loadFlags) {
 		Objects.requireNonNull(data, "data cannot be null");
 		if ((loadFlags & LoadFlags.RAW) != 0) {
-			dataVersion = data.getInt("DataVersion");
+			dataVersion = data.isLazy() ? peekDataVersion(data) : data.getInt("DataVersion");
 			raw = true;
 		} else {
 			final ObservedCompoundTag observedData = new ObservedCompoundTag(data);
@@ -249,20 +272,31 @@ public abstract class ChunkBase implements VersionedDataContainer, TagWrapper<Co
 	 * @throws IOException When something went wrong during writing.
 	 */
 	public int serialize(DataOutput sink, int xPos, int zPos, CompressionType compressionType, boolean writeByteLengthPrefixInt) throws IOException {
+		ChunkWriteBuffer buffer = ChunkWriteBuffer.local();
+		int bytes = serialize(buffer, xPos, zPos, compressionType);
+		buffer.writeTo(sink, writeByteLengthPrefixInt, false);
+		return writeByteLengthPrefixInt ? bytes : bytes - 4;
+	}
+
+	/**
+	 * Serializes this chunk into the given buffer, encoding the nbt directly into it. On return the buffer holds
+	 * the finished chunk, ready to be written to an mca file.
+	 * @param buffer The buffer to serialize into, any data it held is discarded.
+	 * @param xPos The x-coordinate of the chunk.
+	 * @param zPos The z-coordinate of the chunk.
+	 * @param compressionType Chunk compression strategy to use.
+	 * @return The amount of bytes of chunk data, including the byte size int, excluding sector padding.
+	 * @throws UnsupportedOperationException When something went wrong during writing.
+	 * @throws IOException When something went wrong during writing.
+	 * @see ChunkWriteBuffer#finishChunk()
+	 */
+	public int serialize(ChunkWriteBuffer buffer, int xPos, int zPos, CompressionType compressionType) throws IOException {
 		if (partial) {
 			throw new UnsupportedOperationException("Partially loaded chunks cannot be serialized");
 		}
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(4096);
-		new BinaryNbtSerializer(compressionType).toStream(new NamedTag(null, updateHandle(xPos, zPos)), baos);
-//		try (BufferedOutputStream nbtOut = new BufferedOutputStream(compressionType.compress(baos))) {
-//			new BinaryNbtSerializer(false).toStream(new NamedTag(null, updateHandle(xPos, zPos)), nbtOut);
-//		}
-		byte[] rawData = baos.toByteArray();
-		if (writeByteLengthPrefixInt)
-			sink.writeInt(rawData.length + 1); // including the byte to store the compression type
-		sink.writeByte(compressionType.getID());
-		sink.write(rawData);
-		return rawData.length + (writeByteLengthPrefixInt ? 5 : 1);
+		new BinaryNbtSerializer(compressionType).toStream(new NamedTag(null, updateHandle(xPos, zPos)),
+				buffer.beginChunk(compressionType));
+		return buffer.finishChunk();
 	}
 
 	/**
@@ -301,7 +335,13 @@ public abstract class ChunkBase implements VersionedDataContainer, TagWrapper<Co
 		if (compressionType == null) {
 			throw new IOException("invalid compression type " + compressionTypeByte);
 		}
-		NamedTag tag = new BinaryNbtDeserializer(compressionType).fromStream(inputStream);
+		NamedTag tag;
+		if ((loadFlags & LoadFlags.RAW) != 0) {
+			// raw chunks are mostly passed through as is, only decode the subtrees which are actually accessed
+			tag = LazyBinaryNbt.read(compressionType.decompress(inputStream), Tag.DEFAULT_MAX_DEPTH);
+		} else {
+			tag = new BinaryNbtDeserializer(compressionType).fromStream(inputStream);
+		}
 		if (tag != null && tag.getTag() instanceof CompoundTag) {
 			data = (CompoundTag) tag.getTag();
 			this.lastMCAUpdate = lastMCAUpdateTimestamp >= 0 ? lastMCAUpdateTimestamp : (int)(System.currentTimeMillis() / 1000);
@@ -388,6 +428,16 @@ public abstract class ChunkBase implements VersionedDataContainer, TagWrapper<Co
 		return path.getTag(data);
 	}
 
+	/**
+	 * Extracts all paths of the given set from {@link #data} with a single traversal. Prefer this over
+	 * repeated {@link #getTag(VersionAware)} calls when reading many paths.
+	 * @param paths version aware paths, compiled for {@link #dataVersion} on first use
+	 * @return extracted values, looked up by path
+	 */
+	protected VersionAwareNbtPathSet.Values extractTags(VersionAwareNbtPathSet paths) {
+		return paths.extract(dataVersion, data);
+	}
+
 	/**
 	 * Simple but powerful helper - example usage
 	 * <pre>{@code long myLong = getTagValue(vaPath, LongTag::asLong, 0L);}</pre>
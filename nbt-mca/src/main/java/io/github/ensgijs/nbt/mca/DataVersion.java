@@ -970,6 +970,8 @@ public enum DataVersion {
     JAVA_26_3_0_SNAPSHOT4(5003, 26, 3, 0, "SNAPSHOT-4"),
     ;
 
+    /** Cached copy of {@link #values()}, which clones its result on every call. */
+    private static final DataVersion[] VALUES;
     private static final int[] ids;
     private static final DataVersion latestFullReleaseVersion;
     private final int id;
@@ -984,8 +986,9 @@ public enum DataVersion {
 
     static {
         // enum is maintained in order with a unit test to enforce the convention - so no need to sort
-        ids = Arrays.stream(values()).mapToInt(DataVersion::id).toArray();
-        latestFullReleaseVersion = Arrays.stream(values())
+        VALUES = values();
+        ids = Arrays.stream(VALUES).mapToInt(DataVersion::id).toArray();
+        latestFullReleaseVersion = Arrays.stream(VALUES)
                 .sorted(Comparator.reverseOrder())
                 .filter(DataVersion::isFullRelease)
                 .findFirst().get();
@@ -1120,7 +1123,7 @@ public enum DataVersion {
             found = (found + 2) * -1;
             if (found < 0) return UNKNOWN;
         }
-        return values()[found];
+        return VALUES[found];
     }
 
     /**
@@ -1129,7 +1132,7 @@ public enum DataVersion {
      */
     public static DataVersion find(String simpleVersionStr) {
         final String seeking = simpleVersionStr.toLowerCase(Locale.ENGLISH);
-        return Arrays.stream(values()).filter(v -> v.simpleStr.equals(seeking)).findFirst().orElse(null);
+        return Arrays.stream(VALUES).filter(v -> v.simpleStr.equals(seeking)).findFirst().orElse(null);
     }
 
     /**
@@ -1137,7 +1140,7 @@ public enum DataVersion {
      */
     public DataVersion previous() {
         if (this.ordinal() > 0)
-            return values()[this.ordinal() - 1];
+            return VALUES[this.ordinal() - 1];
         else
             return null;
     }
@@ -1147,7 +1150,7 @@ public enum DataVersion {
      */
     public DataVersion next() {
         if (this.ordinal() < ids.length - 1)
-            return values()[this.ordinal() + 1];
+            return VALUES[this.ordinal() + 1];
         else
             return null;
     }
@@ -1,6 +1,7 @@
 package io.github.ensgijs.nbt.mca;
 
 import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.SilentIOException;
 import io.github.ensgijs.nbt.mca.io.LoadFlags;
 import io.github.ensgijs.nbt.mca.io.McaFileHelpers;
 import io.github.ensgijs.nbt.mca.io.MoveChunkFlags;
@@ -14,9 +15,11 @@ import io.github.ensgijs.nbt.mca.entities.EntityFactory;
 import io.github.ensgijs.nbt.mca.entities.EntityUtil;
 import io.github.ensgijs.nbt.mca.util.RegionBoundingRectangle;
 import io.github.ensgijs.nbt.util.ArgValidator;
+import io.github.ensgijs.nbt.util.BinaryNbtPatcher;
 import io.github.ensgijs.nbt.mca.util.ChunkBoundingRectangle;
 import io.github.ensgijs.nbt.mca.util.VersionAware;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -229,6 +232,9 @@ public abstract class EntitiesChunkBase<ET extends Entity> extends ChunkBase imp
             throw new IllegalArgumentException("Chunk XZ must be within the maximum world bounds.");
         }
         if (this.chunkX == newChunkX && this.chunkZ == newChunkZ) return false;
+        if (raw && data.isLazy() && moveChunkInPlace(newChunkX, newChunkZ, moveChunkFlags)) {
+            return true;
+        }
         this.chunkX = newChunkX;
         this.chunkZ = newChunkZ;
         if (raw) {
@@ -242,6 +248,49 @@ public abstract class EntitiesChunkBase<ET extends Entity> extends ChunkBase imp
         return true;
     }
 
+    /**
+     * Relocates entities as {@link #fixEntityLocations(int, long, ListTag, ChunkBoundingRectangle)} does, but in the
+     * binary nbt of raw chunks. Deeper passenger stacks and new entity UUIDs need the tree code.
+     */
+    private static final BinaryNbtPatcher<ChunkBoundingRectangle> MOVE_CHUNK_PATCHER = createMoveChunkPatcher();
+
+    private static BinaryNbtPatcher<ChunkBoundingRectangle> createMoveChunkPatcher() {
+        BinaryNbtPatcher.Builder<ChunkBoundingRectangle> builder = BinaryNbtPatcher.<ChunkBoundingRectangle>builder()
+                .on("Position[0]", (field, cbr) -> field.setInt(cbr.getMinBlockX() >> 4))
+                .on("Position[1]", (field, cbr) -> field.setInt(cbr.getMinBlockZ() >> 4))
+                .treeModeIfPresent("Entities[*].Passengers[*].Passengers[*]");
+        for (String entity : List.of("Entities[*]", "Entities[*].Passengers[*]")) {
+            builder.on(entity + ".Pos[0]", (field, cbr) -> field.setDouble(cbr.relocateX(field.getDouble())))
+                    .on(entity + ".Pos[2]", (field, cbr) -> field.setDouble(cbr.relocateZ(field.getDouble())))
+                    .on(entity + ".Brain.memories.*.value.pos[0]", (field, cbr) -> field.setInt(cbr.relocateX(field.getInt())))
+                    .on(entity + ".Brain.memories.*.value.pos[2]", (field, cbr) -> field.setInt(cbr.relocateZ(field.getInt())));
+        }
+        return builder.build();
+    }
+
+    /** @return false if the move requires the tree code, in which case nothing was changed. */
+    private boolean moveChunkInPlace(int newChunkX, int newChunkZ, long moveChunkFlags) {
+        if ((moveChunkFlags & MoveChunkFlags.RANDOMIZE_ENTITY_UUID) > 0) {
+            return false;
+        }
+        BinaryNbtPatcher.Result result;
+        try {
+            result = data.patchLazyPayload(MOVE_CHUNK_PATCHER, new ChunkBoundingRectangle(newChunkX, newChunkZ));
+        } catch (IOException ex) {
+            // the payload was validated when it was read
+            throw new SilentIOException(ex);
+        }
+        if (result == BinaryNbtPatcher.Result.NEEDS_TREE_MODE) {
+            return false;
+        }
+        this.chunkX = newChunkX;
+        this.chunkZ = newChunkZ;
+        if ((moveChunkFlags & MoveChunkFlags.AUTOMATICALLY_UPDATE_HANDLE) > 0) {
+            updateHandle();
+        }
+        return true;
+    }
+
     /**
      * Scans all entities and moves any which are outside this chunks bounds into it preserving their
      * relative location from their source chunk.
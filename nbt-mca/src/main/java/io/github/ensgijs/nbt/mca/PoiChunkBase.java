@@ -1,6 +1,7 @@
 package io.github.ensgijs.nbt.mca;
 
 import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.SilentIOException;
 import io.github.ensgijs.nbt.mca.io.LoadFlags;
 import io.github.ensgijs.nbt.mca.io.McaFileHelpers;
 import io.github.ensgijs.nbt.mca.io.MoveChunkFlags;
@@ -9,7 +10,9 @@ import io.github.ensgijs.nbt.tag.IntArrayTag;
 import io.github.ensgijs.nbt.tag.ListTag;
 import io.github.ensgijs.nbt.mca.util.ChunkBoundingRectangle;
 import io.github.ensgijs.nbt.mca.util.RegionBoundingRectangle;
+import io.github.ensgijs.nbt.util.BinaryNbtPatcher;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -109,6 +112,13 @@ public abstract class PoiChunkBase<T extends PoiRecord> extends ChunkBase implem
         return false;
     }
 
+    /** Relocates the record positions of raw poi chunks without deserializing them. */
+    private static final BinaryNbtPatcher<ChunkBoundingRectangle> FIX_POI_LOCATIONS_PATCHER =
+            BinaryNbtPatcher.<ChunkBoundingRectangle>builder()
+                    .on("Sections.*.Records[*].pos[0]", (field, cbr) -> field.setInt(cbr.relocateX(field.getInt())))
+                    .on("Sections.*.Records[*].pos[2]", (field, cbr) -> field.setInt(cbr.relocateZ(field.getInt())))
+                    .build();
+
     public boolean fixPoiLocations(long moveChunkFlags) {
         if (!moveChunkImplemented())
             throw new UnsupportedOperationException("Missing the data required to move this chunk!");
@@ -130,6 +140,18 @@ public abstract class PoiChunkBase<T extends PoiRecord> extends ChunkBase implem
                 throw new UnsupportedOperationException(
                         "Cannot fix POI locations when RELEASE_CHUNK_DATA_TAG was set and POI_RECORDS was not set.");
             }
+            if (data.isLazy()) {
+                BinaryNbtPatcher.Result result;
+                try {
+                    result = data.patchLazyPayload(FIX_POI_LOCATIONS_PATCHER, cbr);
+                } catch (IOException ex) {
+                    // the payload was validated when it was read
+                    throw new SilentIOException(ex);
+                }
+                if (result != BinaryNbtPatcher.Result.NEEDS_TREE_MODE) {
+                    return result == BinaryNbtPatcher.Result.PATCHED;
+                }
+            }
             CompoundTag sectionsTag = data.getCompoundTag("Sections");
             if (sectionsTag == null) {
                 throw new IllegalArgumentException("Sections tag not found!");
@@ -1,5 +1,6 @@
 package io.github.ensgijs.nbt.mca;
 
+import io.github.ensgijs.nbt.mca.io.LoadFlags;
 import io.github.ensgijs.nbt.tag.CompoundTag;
 import io.github.ensgijs.nbt.mca.util.SectionIterator;
 
@@ -12,8 +13,11 @@ import java.util.stream.StreamSupport;
  * @param <T> Concrete type of section.
  */
 public abstract class SectionedChunkBase<T extends SectionBase<?>> extends ChunkBase implements Iterable<T> {
-	private final TreeMap<Integer, T> sections = new TreeMap<>();
-	private final Map<T, Integer> sectionHeightLookup = new HashMap<>();
+	// initialized by initMembers, field initializers would run after initReferences has populated them
+	private TreeMap<Integer, T> sections;
+	private Map<T, Integer> sectionHeightLookup;
+	/** Section tags which have not been turned into sections yet, see {@link LoadFlags#LAZY_SECTIONS}. */
+	private TreeMap<Integer, CompoundTag> unloadedSections;
 
 	protected SectionedChunkBase(int dataVersion) {
 		super(dataVersion);
@@ -31,14 +35,87 @@ public abstract class SectionedChunkBase<T extends SectionBase<?>> extends Chunk
 		super(data, loadFlags);
 	}
 
+	@Override
+	protected void initMembers() {
+		sections = new TreeMap<>();
+		sectionHeightLookup = new HashMap<>();
+		unloadedSections = new TreeMap<>();
+	}
+
 	public boolean hasSections() {
-		return !sections.isEmpty();
+		return !sections.isEmpty() || !unloadedSections.isEmpty();
 	}
 
 	public boolean containsSection(int sectionY) {
+		return sections.containsKey(sectionY) || unloadedSections.containsKey(sectionY);
+	}
+
+	/**
+	 * @return true if there is a section at the given section-y and it has been created. This is only ever false
+	 * for existing sections when the chunk was loaded with {@link LoadFlags#LAZY_SECTIONS}.
+	 */
+	public boolean isSectionLoaded(int sectionY) {
 		return sections.containsKey(sectionY);
 	}
 
+	/**
+	 * Registers a section tag to be turned into a section by {@link #loadSection(int, CompoundTag)} the first time
+	 * the section is accessed. Until then the tag is written back out as-is by {@link #updateSectionHandles()}.
+	 * @see LoadFlags#LAZY_SECTIONS
+	 */
+	protected void putUnloadedSection(int sectionY, CompoundTag sectionTag) {
+		T oldSection = sections.remove(sectionY);
+		if (oldSection != null) sectionHeightLookup.remove(oldSection);
+		unloadedSections.put(sectionY, sectionTag);
+	}
+
+	/**
+	 * Creates the section for a tag registered with {@link #putUnloadedSection(int, CompoundTag)}.
+	 * Implementations which call {@link #putUnloadedSection(int, CompoundTag)} must override this method.
+	 */
+	protected T loadSection(int sectionY, CompoundTag sectionTag) {
+		throw new UnsupportedOperationException();
+	}
+
+	private void ensureSectionLoaded(int sectionY) {
+		CompoundTag sectionTag = unloadedSections.remove(sectionY);
+		if (sectionTag != null) {
+			T section = loadSection(sectionY, sectionTag);
+			section.syncHeight(sectionY);
+			sectionHeightLookup.put(section, sectionY);
+			sections.put(sectionY, section);
+		}
+	}
+
+	private void ensureAllSectionsLoaded() {
+		while (!unloadedSections.isEmpty()) {
+			ensureSectionLoaded(unloadedSections.firstKey());
+		}
+	}
+
+	/**
+	 * Calls {@link SectionBase#updateHandle()} on every section and collects the results in section-y order.
+	 * Sections which were never loaded contribute their original tag, unchanged.
+	 */
+	protected List<CompoundTag> updateSectionHandles() {
+		List<CompoundTag> handles = new ArrayList<>(sections.size() + unloadedSections.size());
+		Iterator<Map.Entry<Integer, T>> loaded = sections.entrySet().iterator();
+		Iterator<Map.Entry<Integer, CompoundTag>> unloaded = unloadedSections.entrySet().iterator();
+		Map.Entry<Integer, T> nextLoaded = loaded.hasNext() ? loaded.next() : null;
+		Map.Entry<Integer, CompoundTag> nextUnloaded = unloaded.hasNext() ? unloaded.next() : null;
+		while (nextLoaded != null || nextUnloaded != null) {
+			if (nextUnloaded == null || (nextLoaded != null && nextLoaded.getKey() < nextUnloaded.getKey())) {
+				nextLoaded.getValue().syncHeight(nextLoaded.getKey());
+				handles.add(nextLoaded.getValue().updateHandle());
+				nextLoaded = loaded.hasNext() ? loaded.next() : null;
+			} else {
+				handles.add(nextUnloaded.getValue());
+				nextUnloaded = unloaded.hasNext() ? unloaded.next() : null;
+			}
+		}
+		return handles;
+	}
+
 	public boolean containsSection(T section) {
 		return sectionHeightLookup.containsKey(section);
 	}
@@ -64,6 +141,7 @@ public abstract class SectionedChunkBase<T extends SectionBase<?>> extends Chunk
 			throw new IllegalArgumentException(
 					"sectionY must be in the range of a BYTE [-128..127], given value " + sectionY);
 		}
+		ensureSectionLoaded(sectionY);
 		if (section != null) {
 			if (sectionHeightLookup.containsKey(section)) {
 				final int oldY = sectionHeightLookup.getOrDefault(section, SectionBase.NO_SECTION_Y_SENTINEL);
@@ -113,6 +191,7 @@ public abstract class SectionedChunkBase<T extends SectionBase<?>> extends Chunk
 	 * @return The Section.
 	 */
 	public T getSection(int sectionY) {
+		ensureSectionLoaded(sectionY);
 		T section = sections.get(sectionY);
 		if (section != null) {
 			section.syncHeight(sectionY);
@@ -159,8 +238,10 @@ public abstract class SectionedChunkBase<T extends SectionBase<?>> extends Chunk
 	 * @see #getSectionY(SectionBase)
 	 */
 	public int getMinSectionY() {
-		if (!sections.isEmpty()) {
-			return sections.firstKey();
+		if (!sections.isEmpty() || !unloadedSections.isEmpty()) {
+			return Math.min(
+					sections.isEmpty() ? Integer.MAX_VALUE : sections.firstKey(),
+					unloadedSections.isEmpty() ? Integer.MAX_VALUE : unloadedSections.firstKey());
 		}
 		return SectionBase.NO_SECTION_Y_SENTINEL;
 	}
@@ -170,8 +251,10 @@ public abstract class SectionedChunkBase<T extends SectionBase<?>> extends Chunk
 	 * @return The y of the highest populated section in the chunk or {@link SectionBase#NO_SECTION_Y_SENTINEL} if there is none.
 	 */
 	public int getMaxSectionY() {
-		if (!sections.isEmpty()) {
-			return sections.lastKey();
+		if (!sections.isEmpty() || !unloadedSections.isEmpty()) {
+			return Math.max(
+					sections.isEmpty() ? Integer.MIN_VALUE : sections.lastKey(),
+					unloadedSections.isEmpty() ? Integer.MIN_VALUE : unloadedSections.lastKey());
 		}
 		return SectionBase.NO_SECTION_Y_SENTINEL;
 	}
@@ -201,10 +284,12 @@ public abstract class SectionedChunkBase<T extends SectionBase<?>> extends Chunk
 	 * Sections provided by {@link Iterator#next()} are guaranteed to have correct values returned from
 	 * calls to {@link SectionBase#getSectionY()}. Also note that the iterator itself can be queried via
 	 * {@link SectionIterator#sectionY()} for the true section-y without calling a deprecated method.
+	 * <p>Any sections which have not been loaded yet are loaded by this call.</p>
 	 * @return Section iterator. Supports {@link Iterator#remove()}.
 	 */
 	@Override
 	public SectionIterator<T> iterator() {
+		ensureAllSectionsLoaded();
 		return new SectionIteratorImpl();
 	}
 
@@ -1,12 +1,15 @@
 package io.github.ensgijs.nbt.mca;
 
 import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.SilentIOException;
 import io.github.ensgijs.nbt.mca.util.*;
 import io.github.ensgijs.nbt.tag.*;
 import io.github.ensgijs.nbt.mca.io.MoveChunkFlags;
 import io.github.ensgijs.nbt.query.NbtPath;
 import io.github.ensgijs.nbt.util.ArgValidator;
+import io.github.ensgijs.nbt.util.BinaryNbtPatcher;
 
+import java.io.IOException;
 import java.util.*;
 
 import static io.github.ensgijs.nbt.mca.DataVersion.*;
@@ -191,6 +194,22 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 	public static final VersionAware<NbtPath> BLENDING_DATA_PATH = new VersionAware<NbtPath>()
 			.register(JAVA_1_18_21W43A.id(), NbtPath.of("blending_data"));
 
+	/** Data version and load flags sections were read with, used to create them on demand. See {@link #LAZY_SECTIONS}. */
+	private int lazySectionDataVersion;
+	private long lazySectionLoadFlags;
+
+	/**
+	 * Everything read by {@link #initReferences(long)}, extracted with one traversal of the chunk data.
+	 * Must be declared after the paths it references.
+	 */
+	private static final VersionAwareNbtPathSet INIT_REFERENCES_PATHS = new VersionAwareNbtPathSet(
+			INHABITED_TIME_TICKS_PATH, LAST_UPDATE_TICK_PATH, LEGACY_BIOMES_PATH, LEGACY_HEIGHT_MAP_PATH,
+			HEIGHT_MAPS_PATH, CARVING_MASKS_PATH, ENTITIES_PATH, TILE_ENTITIES_PATH, TILE_TICKS_PATH,
+			TO_BE_TICKED_PATH, LIGHTS_PATH, LIQUID_TICKS_PATH, LIQUIDS_TO_BE_TICKED_PATH, POST_PROCESSING_PATH,
+			STATUS_PATH, IS_LIGHT_ON_PATH, TERRAIN_POPULATED_PATH, UPGRADE_DATA_PATH, STRUCTURES_PATH,
+			HAS_LEGACY_STRUCTURE_DATA_PATH, X_POS_PATH, Z_POS_PATH, Y_POS_PATH, SECTIONS_PATH,
+			BELOW_ZERO_RETROGEN_PATH, BLENDING_DATA_PATH);
+
 
 	protected TerrainChunkBase(int dataVersion) {
 		super(dataVersion);
@@ -210,6 +229,7 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 
 	@Override
 	protected void initMembers() {
+		super.initMembers();
 		// give this a reasonable default
 		yPos = DEFAULT_WORLD_BOTTOM_Y_POS.get(dataVersion);
 	}
@@ -222,13 +242,14 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 			}
 		}
 
-		inhabitedTimeTicks = getTagValue(INHABITED_TIME_TICKS_PATH, LongTag::asLong, 0L);
-		lastUpdateTick = getTagValue(LAST_UPDATE_TICK_PATH, LongTag::asLong, 0L);
+		final VersionAwareNbtPathSet.Values tags = extractTags(INIT_REFERENCES_PATHS);
+		inhabitedTimeTicks = tags.getTagValue(INHABITED_TIME_TICKS_PATH, LongTag::asLong, 0L);
+		lastUpdateTick = tags.getTagValue(LAST_UPDATE_TICK_PATH, LongTag::asLong, 0L);
 		if (dataVersion < JAVA_1_18_21W37A.id() && (loadFlags & BIOMES) != 0) {
 			if (dataVersion >= DataVersion.JAVA_1_13_18W06A.id()) {
-				legacyBiomes = getTagValue(LEGACY_BIOMES_PATH, IntArrayTag::getValue);
+				legacyBiomes = tags.getTagValue(LEGACY_BIOMES_PATH, IntArrayTag::getValue);
 			} else {
-				byte[] byteBiomes = getTagValue(LEGACY_BIOMES_PATH, ByteArrayTag::getValue);
+				byte[] byteBiomes = tags.getTagValue(LEGACY_BIOMES_PATH, ByteArrayTag::getValue);
 				legacyBiomes = new int[byteBiomes.length];
 				for (int i = 0; i < legacyBiomes.length; i++) {
 					legacyBiomes[i] = byteBiomes[i];
@@ -238,68 +259,76 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 		} // palette biomes are stored at the section, not chunk, level.
 
 		if ((loadFlags & HEIGHTMAPS) != 0) {
-			legacyHeightMap = getTag(LEGACY_HEIGHT_MAP_PATH);
-			heightMaps = getTag(HEIGHT_MAPS_PATH);
+			legacyHeightMap = tags.getTag(LEGACY_HEIGHT_MAP_PATH);
+			heightMaps = tags.getTag(HEIGHT_MAPS_PATH);
 		}
 		if ((loadFlags & CARVING_MASKS) != 0) {
-			carvingMasks = getTag(CARVING_MASKS_PATH);
+			carvingMasks = tags.getTag(CARVING_MASKS_PATH);
 		}
 		if ((loadFlags & ENTITIES) != 0) {
-			entities = getTag(ENTITIES_PATH);
+			entities = tags.getTag(ENTITIES_PATH);
 		}
 		if ((loadFlags & TILE_ENTITIES) != 0) {
-			tileEntities = getTag(TILE_ENTITIES_PATH);
+			tileEntities = tags.getTag(TILE_ENTITIES_PATH);
 		}
 		if ((loadFlags & TILE_TICKS) != 0) {
-			tileTicks = getTag(TILE_TICKS_PATH);
+			tileTicks = tags.getTag(TILE_TICKS_PATH);
 		}
 		if ((loadFlags & TO_BE_TICKED) != 0) {
-			toBeTicked = getTag(TO_BE_TICKED_PATH);
+			toBeTicked = tags.getTag(TO_BE_TICKED_PATH);
 		}
 		if ((loadFlags & LIGHTS) != 0) {
-			lights = getTag(LIGHTS_PATH);
+			lights = tags.getTag(LIGHTS_PATH);
 		}
 		if ((loadFlags & LIQUID_TICKS) != 0) {
-			liquidTicks = getTag(LIQUID_TICKS_PATH);
+			liquidTicks = tags.getTag(LIQUID_TICKS_PATH);
 		}
 		if ((loadFlags & LIQUIDS_TO_BE_TICKED) != 0) {
-			liquidsToBeTicked = getTag(LIQUIDS_TO_BE_TICKED_PATH);
+			liquidsToBeTicked = tags.getTag(LIQUIDS_TO_BE_TICKED_PATH);
 		}
 		if ((loadFlags & POST_PROCESSING) != 0) {
-			postProcessing = getTag(POST_PROCESSING_PATH);
+			postProcessing = tags.getTag(POST_PROCESSING_PATH);
 		}
 
-		status = getTagValue(STATUS_PATH, StringTag::getValue);
-		isLightOn = getTagValue(IS_LIGHT_ON_PATH, ByteTag::asBoolean);
-		isTerrainPopulated = getTagValue(TERRAIN_POPULATED_PATH, ByteTag::asBoolean);
+		status = tags.getTagValue(STATUS_PATH, StringTag::getValue);
+		isLightOn = tags.getTagValue(IS_LIGHT_ON_PATH, ByteTag::asBoolean);
+		isTerrainPopulated = tags.getTagValue(TERRAIN_POPULATED_PATH, ByteTag::asBoolean);
 
 		// TODO: add load flag for this
-		upgradeData = getTag(UPGRADE_DATA_PATH);
+		upgradeData = tags.getTag(UPGRADE_DATA_PATH);
 
 		if ((loadFlags & STRUCTURES) != 0) {
-			structures = getTag(STRUCTURES_PATH);
-			hasLegacyStructureData = getTagValue(HAS_LEGACY_STRUCTURE_DATA_PATH, ByteTag::asBoolean);
+			structures = tags.getTag(STRUCTURES_PATH);
+			hasLegacyStructureData = tags.getTagValue(HAS_LEGACY_STRUCTURE_DATA_PATH, ByteTag::asBoolean);
 		}
 
 		// chunkXZ may be pre-populated with a solid guess so don't overwrite that guess if we don't have values.
-		if (X_POS_PATH.get(dataVersion).exists(data)) {
-			chunkX = getTagValue(X_POS_PATH, t -> ((NumberTag<?>)t).asInt());
+		if (tags.get(X_POS_PATH) != null) {
+			chunkX = tags.getTagValue(X_POS_PATH, t -> ((NumberTag<?>)t).asInt());
 		}
-		if (Z_POS_PATH.get(dataVersion).exists(data)) {
-			chunkZ = getTagValue(Z_POS_PATH, t -> ((NumberTag<?>)t).asInt());
+		if (tags.get(Z_POS_PATH) != null) {
+			chunkZ = tags.getTagValue(Z_POS_PATH, t -> ((NumberTag<?>)t).asInt());
 		}
 
-		yPos = getTagValue(Y_POS_PATH, t -> ((NumberTag<?>)t).asInt(), DEFAULT_WORLD_BOTTOM_Y_POS.get(dataVersion));
+		yPos = tags.getTagValue(Y_POS_PATH, t -> ((NumberTag<?>)t).asInt(), DEFAULT_WORLD_BOTTOM_Y_POS.get(dataVersion));
 
 		boolean loadSections = ((loadFlags & (BLOCK_LIGHTS|BLOCK_STATES|SKY_LIGHT)) != 0)
 				|| (dataVersion >= JAVA_1_18_21W37A.id() && ((loadFlags & BIOMES) != 0));
 		if (loadSections) {
 			try {
-				ListTag<CompoundTag> sections = getTag(SECTIONS_PATH);
+				ListTag<CompoundTag> sections = tags.getTag(SECTIONS_PATH);
 				if (sections != null) {
-					for (CompoundTag section : sections) {
-						T newSection = createSection(section, dataVersion, loadFlags);
-						putSection(newSection.getSectionY(), newSection, false);
+					if ((loadFlags & LAZY_SECTIONS) != 0) {
+						lazySectionDataVersion = dataVersion;
+						lazySectionLoadFlags = loadFlags;
+						for (CompoundTag section : sections) {
+							putUnloadedSection(section.getNumber("Y").byteValue(), section);
+						}
+					} else {
+						for (CompoundTag section : sections) {
+							T newSection = createSection(section, dataVersion, loadFlags);
+							putSection(newSection.getSectionY(), newSection, false);
+						}
 					}
 				}
 			} catch (Exception ex) {
@@ -307,13 +336,23 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 			}
 		}
 		if ((loadFlags & WORLD_UPGRADE_HINTS) != 0) {
-			belowZeroRetrogen = getTag(BELOW_ZERO_RETROGEN_PATH);
-			blendingData = getTag(BLENDING_DATA_PATH);
+			belowZeroRetrogen = tags.getTag(BELOW_ZERO_RETROGEN_PATH);
+			blendingData = tags.getTag(BLENDING_DATA_PATH);
 		}
 	}
 
 	protected abstract T createSection(CompoundTag section, int dataVersion, long loadFlags);
 
+	/** {@inheritDoc} */
+	@Override
+	protected T loadSection(int sectionY, CompoundTag sectionTag) {
+		try {
+			return createSection(sectionTag, lazySectionDataVersion, lazySectionLoadFlags);
+		} catch (Exception ex) {
+			throw new RuntimeException("Chunk " + getChunkX() + " " + getChunkZ() + "\n" + ex.getMessage(), ex);
+		}
+	}
+
 	/** {@inheritDoc} */
 	public String getMcaType() {
 		return "region";
@@ -953,6 +992,25 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 		}
 		if (this.chunkX == newChunkX && this.chunkZ == newChunkZ) return false;
 
+		if (raw && data != null && data.isLazy()) {
+			MoveChunkPatch patch = new MoveChunkPatch(this.chunkX, this.chunkZ, newChunkX, newChunkZ, moveChunkFlags);
+			BinaryNbtPatcher.Result result;
+			try {
+				result = data.patchLazyPayload(MOVE_CHUNK_PATCHER, patch);
+			} catch (IOException ex) {
+				// the payload was validated when it was read
+				throw new SilentIOException(ex);
+			}
+			if (result != BinaryNbtPatcher.Result.NEEDS_TREE_MODE) {
+				this.chunkX = newChunkX;
+				this.chunkZ = newChunkZ;
+				if (patch.changed && (moveChunkFlags & MoveChunkFlags.AUTOMATICALLY_UPDATE_HANDLE) > 0) {
+					updateHandle();
+				}
+				return patch.changed;
+			}
+		}
+
 		IntPointXZ chunkDeltaXZ;
 		if (raw) {
 			// read the old data values so we can compute deltaXZ
@@ -997,6 +1055,121 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 
 	}
 
+	/** State of one {@link #MOVE_CHUNK_PATCHER} call. */
+	private static final class MoveChunkPatch {
+		final int oldChunkX, oldChunkZ;
+		final int newChunkX, newChunkZ;
+		final long moveChunkFlags;
+		final ChunkBoundingRectangle cbr;
+		final IntPointXZ chunkDeltaXZ;
+		final ChunkBoundingRectangle clippingRect;
+		/** Same meaning as the return value of moveChunk - the xPos and zPos changes don't count. */
+		boolean changed;
+
+		MoveChunkPatch(int oldChunkX, int oldChunkZ, int newChunkX, int newChunkZ, long moveChunkFlags) {
+			this.oldChunkX = oldChunkX;
+			this.oldChunkZ = oldChunkZ;
+			this.newChunkX = newChunkX;
+			this.newChunkZ = newChunkZ;
+			this.moveChunkFlags = moveChunkFlags;
+			this.cbr = new ChunkBoundingRectangle(newChunkX, newChunkZ);
+			this.chunkDeltaXZ = new IntPointXZ(newChunkX - oldChunkX, newChunkZ - oldChunkZ);
+			this.clippingRect = (moveChunkFlags & DISCARD_STRUCTURE_REFERENCES_OUTSIDE_REGION) > 0
+					? RegionBoundingRectangle.forChunk(newChunkX, newChunkZ) : null;
+		}
+
+		void patchChunkCoord(BinaryNbtPatcher.Field field, int oldValue, int newValue) {
+			if (field.type() != IntTag.ID || field.getInt() != oldValue) {
+				// the chunk isn't where it was expected to be, let the tree code deal with it
+				field.requireTreeMode();
+			} else {
+				field.setInt(newValue);
+			}
+		}
+
+		void patchBlockX(BinaryNbtPatcher.Field field) {
+			if (field.type() == IntTag.ID && !cbr.containsBlock(field.getInt(), cbr.getMinBlockZ())) {
+				field.setInt(cbr.relocateX(field.getInt()));
+				changed = true;
+			}
+		}
+
+		void patchBlockZ(BinaryNbtPatcher.Field field) {
+			if (field.type() == IntTag.ID && !cbr.containsBlock(cbr.getMinBlockX(), field.getInt())) {
+				field.setInt(cbr.relocateZ(field.getInt()));
+				changed = true;
+			}
+		}
+
+		void patchStructureReference(BinaryNbtPatcher.Field field) {
+			if (field.type() != LongTag.ID) {
+				field.requireTreeMode();
+				return;
+			}
+			IntPointXZ newXZ = IntPointXZ.unpack(field.getLong()).add(chunkDeltaXZ);
+			if (clippingRect != null && !clippingRect.containsChunk(newXZ)) {
+				// removing it changes the length of the array
+				field.requireTreeMode();
+			} else {
+				field.setLong(IntPointXZ.pack(newXZ));
+				changed = true;
+			}
+		}
+	}
+
+	/**
+	 * Performs moveChunk on the binary nbt of raw chunks, see {@link BinaryNbtPatcher}. Everything which can't be
+	 * done in place - removing structure data or references, relocating entities (which may also change their
+	 * UUIDs), or a chunk which isn't where it claims to be - falls back to moving the deserialized chunk.
+	 */
+	private static final BinaryNbtPatcher<MoveChunkPatch> MOVE_CHUNK_PATCHER = createMoveChunkPatcher();
+
+	private static BinaryNbtPatcher<MoveChunkPatch> createMoveChunkPatcher() {
+		BinaryNbtPatcher.Builder<MoveChunkPatch> builder = BinaryNbtPatcher.builder();
+		for (String path : allPaths(X_POS_PATH)) {
+			builder.on(path, (field, patch) -> patch.patchChunkCoord(field, patch.oldChunkX, patch.newChunkX));
+		}
+		for (String path : allPaths(Z_POS_PATH)) {
+			builder.on(path, (field, patch) -> patch.patchChunkCoord(field, patch.oldChunkZ, patch.newChunkZ));
+		}
+		List<String> tileLists = new ArrayList<>();
+		tileLists.addAll(allPaths(TILE_ENTITIES_PATH));
+		tileLists.addAll(allPaths(TILE_TICKS_PATH));
+		tileLists.addAll(allPaths(LIQUID_TICKS_PATH));
+		for (String path : allPaths(UPGRADE_DATA_PATH)) {
+			tileLists.add(path + ".*");
+			builder.treeModeIfPresent(path + ".*", patch -> (patch.moveChunkFlags & DISCARD_UPGRADE_DATA) > 0);
+		}
+		for (String path : tileLists) {
+			builder.on(path + "[*].x", (field, patch) -> patch.patchBlockX(field));
+			builder.on(path + "[*].z", (field, patch) -> patch.patchBlockZ(field));
+		}
+		for (String structures : allPaths(STRUCTURES_PATH)) {
+			for (String references : allPaths(STRUCTURES_REFERENCES_PATH)) {
+				builder.treeModeIfPresent(structures + "." + references + ".*",
+						patch -> (patch.moveChunkFlags & DISCARD_STRUCTURE_DATA) > 0);
+				builder.on(structures + "." + references + ".*[*]", (field, patch) -> patch.patchStructureReference(field));
+			}
+			for (String starts : allPaths(STRUCTURES_STARTS_PATH)) {
+				builder.treeModeIfPresent(structures + "." + starts + ".*");
+			}
+		}
+		for (String path : allPaths(ENTITIES_PATH)) {
+			builder.treeModeIfPresent(path + "[*]");
+		}
+		return builder.build();
+	}
+
+	/** @return every distinct path the given path has across all data versions. */
+	private static List<String> allPaths(VersionAware<NbtPath> path) {
+		return Arrays.stream(path.registeredVersions())
+				.mapToObj(path::get)
+				.filter(Objects::nonNull)
+				.map(NbtPath::toString)
+				.distinct()
+				.toList();
+	}
+
 	protected boolean fixEntitiesLocations(long moveChunkFlags, ChunkBoundingRectangle cbr, ListTag<CompoundTag> entitiesTagList) {
 		return EntitiesChunkBase.fixEntityLocations(dataVersion, moveChunkFlags, entitiesTagList, cbr);
 	}
@@ -1296,10 +1469,8 @@ public abstract class TerrainChunkBase<T extends TerrainSectionBase> extends Sec
 		// 		 simply "fixing" it may break consumers... I no longer care about existing consumers and
 		//       need to figure out what that "fix" I was referring to was -.-
 		ListTag<CompoundTag> sections = new ListTag<>(CompoundTag.class);
-		for (T section : this) {
-			if (section != null) {
-				sections.add(section.updateHandle());  // contract of iterator assures correctness of "height" aka section-y
-			}
+		for (CompoundTag section : updateSectionHandles()) {
+			sections.add(section);
 		}
 		setTag(SECTIONS_PATH, sections);
 
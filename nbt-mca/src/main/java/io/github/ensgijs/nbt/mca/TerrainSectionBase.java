@@ -11,11 +11,12 @@ import static io.github.ensgijs.nbt.mca.io.LoadFlags.*;
  * Provides the base for all terrain section classes.
  */
 public abstract class TerrainSectionBase extends SectionBase<TerrainSectionBase> {
-    protected static final CompoundTag AIR_PALETTE_TAG = TextNbtParser.parseInline("{Name: \"minecraft:air\"}");
-    /** Use with care! Be sure to clone this value when used or really bad bugs are going to happen. */
-    protected static final CompoundTag DEFAULT_BLOCK_SATES_TAG = new PalettizedCuboid<>(16, AIR_PALETTE_TAG).toCompoundTag();
-    /** Use with care! Be sure to clone this value when used or really bad bugs are going to happen. */
-    protected static final CompoundTag DEFAULT_BIOMES_TAG = new PalettizedCuboid<>(4, new StringTag("minecraft:plains")).toCompoundTag();
+    /** Frozen - clone this value to obtain a modifiable copy. */
+    protected static final CompoundTag AIR_PALETTE_TAG = TextNbtParser.<CompoundTag>parseInline("{Name: \"minecraft:air\"}").freeze();
+    /** Frozen - clone this value (cheap, copy-on-write) to obtain a modifiable copy. */
+    protected static final CompoundTag DEFAULT_BLOCK_SATES_TAG = new PalettizedCuboid<>(16, AIR_PALETTE_TAG).toCompoundTag().freeze();
+    /** Frozen - clone this value (cheap, copy-on-write) to obtain a modifiable copy. */
+    protected static final CompoundTag DEFAULT_BIOMES_TAG = new PalettizedCuboid<>(4, new StringTag("minecraft:plains")).toCompoundTag().freeze();
 
     /** Only populated for MC version &lt; 1.13  - 4096 (16^3) block id's */
     protected byte[] legacyBlockIds;
@@ -1,6 +1,8 @@
 package io.github.ensgijs.nbt.mca.entities;
 
 import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.DoubleTag;
+import io.github.ensgijs.nbt.tag.FloatTag;
 import io.github.ensgijs.nbt.tag.ListTag;
 import io.github.ensgijs.nbt.mca.util.VersionedDataContainer;
 import io.github.ensgijs.nbt.util.ArgValidator;
@@ -168,22 +170,23 @@ public class EntityBase implements Entity, VersionedDataContainer {
         this.hasVisualFire = data.getBoolean("HasVisualFire");
         this.isOnGround = data.getBoolean("OnGround");
         this.noGravity = data.getBoolean("NoGravity");
-        double[] pos = data.getDoubleTagListAsArray("Pos");
-        if (pos != null && pos.length == 3) {
-            this.x = pos[0];
-            this.y = pos[1];
-            this.z = pos[2];
+        // read through the primitive accessors - lists read from binary nbt never create per element tags
+        ListTag<DoubleTag> pos = data.getListTagAutoCast("Pos");
+        if (pos != null && pos.size() == 3) {
+            this.x = pos.getDouble(0);
+            this.y = pos.getDouble(1);
+            this.z = pos.getDouble(2);
         }
-        float[] rotation = data.getFloatTagListAsArray("Rotation");
-        if (rotation != null && rotation.length == 2) {
-            this.yaw = rotation[0];
-            this.pitch = rotation[1];
+        ListTag<FloatTag> rotation = data.getListTagAutoCast("Rotation");
+        if (rotation != null && rotation.size() == 2) {
+            this.yaw = rotation.getFloat(0);
+            this.pitch = rotation.getFloat(1);
         }
-        double[] motion = data.getDoubleTagListAsArray("Motion");
-        if (motion != null && motion.length == 3) {
-            this.dx = motion[0];
-            this.dy = motion[1];
-            this.dz = motion[2];
+        ListTag<DoubleTag> motion = data.getListTagAutoCast("Motion");
+        if (motion != null && motion.size() == 3) {
+            this.dx = motion.getDouble(0);
+            this.dy = motion.getDouble(1);
+            this.dz = motion.getDouble(2);
         }
         ListTag<CompoundTag> passengersTag = data.getListTagAutoCast("Passengers");
         if (passengersTag != null && passengersTag.size() > 0) {
@@ -0,0 +1,177 @@
+package io.github.ensgijs.nbt.mca.io;
+
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.util.ArgValidator;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Growable buffer that holds exactly one chunk as it is stored in an mca file: the byte size int, the compression
+ * type byte, the compressed nbt data and zero padding up to the next 4KiB sector boundary.
+ *
+ * <p>Chunk nbt is encoded straight into this buffer. Space for the size int and compression byte is reserved by
+ * {@link #beginChunk(CompressionType)} and patched in place by {@link #finishChunk()} so the data never needs to
+ * be copied into a separately allocated array before it's written.</p>
+ *
+ * <p>The backing array is on heap so that it can be handed to any {@link DataOutput} without a copy; when writing to
+ * a {@link FileChannel} the JDK's cached direct buffer is used for the transfer. Use {@link #local()} to borrow a
+ * per-thread instance instead of allocating a new one for every chunk.</p>
+ *
+ * <p>Instances are not thread safe.</p>
+ */
+public final class ChunkWriteBuffer extends OutputStream {
+    public static final int SECTOR_SIZE = 4096;
+    /** Largest chunk, including its header, that fits in an mca file - anything larger has to be stored externally. */
+    public static final int MAX_CHUNK_BYTES = 255 * SECTOR_SIZE;
+    /** Per-thread buffers that grew larger than this are dropped instead of being retained for reuse. */
+    static final int MAX_RETAINED_CAPACITY = MAX_CHUNK_BYTES + SECTOR_SIZE;
+    private static final int HEADER_BYTES = 4 /*size*/ + 1 /*compression sig*/;
+
+    private static final ThreadLocal<ChunkWriteBuffer> LOCAL = ThreadLocal.withInitial(ChunkWriteBuffer::new);
+
+    private byte[] buf;
+    private int count;
+    private CompressionType compressionType;
+    private boolean finished;
+
+    public ChunkWriteBuffer() {
+        this(2 * SECTOR_SIZE);
+    }
+
+    public ChunkWriteBuffer(int initialCapacity) {
+        buf = new byte[Math.max(initialCapacity, SECTOR_SIZE)];
+    }
+
+    /**
+     * Borrows this thread's shared buffer. The returned buffer is only valid until the next call to {@link #local()}
+     * by the same thread, so it must not be held on to or used re-entrantly.
+     */
+    public static ChunkWriteBuffer local() {
+        ChunkWriteBuffer buffer = LOCAL.get();
+        if (buffer.buf.length > MAX_RETAINED_CAPACITY) {
+            buffer = new ChunkWriteBuffer();
+            LOCAL.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Discards any buffered data and reserves room for the chunk header.
+     * @param compressionType compression type the chunk data written next will be compressed with.
+     * @return this
+     */
+    public ChunkWriteBuffer beginChunk(CompressionType compressionType) {
+        this.compressionType = ArgValidator.requireValue(compressionType, "compressionType");
+        count = HEADER_BYTES;
+        finished = false;
+        return this;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureWritable(1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureWritable(len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    private void ensureWritable(int len) {
+        if (compressionType == null || finished) {
+            throw new IllegalStateException("beginChunk must be called before writing chunk data");
+        }
+        if (count + len > buf.length) {
+            // leave room for the padding finishChunk will add
+            int required = ((count + len + SECTOR_SIZE - 1) / SECTOR_SIZE) * SECTOR_SIZE;
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+        }
+    }
+
+    /**
+     * Patches the size and compression type into the chunk header and zero pads the data to a whole sector.
+     * @return number of bytes of chunk data, including the size int and compression byte, but excluding padding.
+     */
+    public int finishChunk() {
+        if (compressionType == null || finished) {
+            throw new IllegalStateException("beginChunk must be called before finishChunk");
+        }
+        int size = count - 4;  // don't count the size int itself
+        buf[0] = (byte) (size >>> 24);
+        buf[1] = (byte) (size >>> 16);
+        buf[2] = (byte) (size >>> 8);
+        buf[3] = (byte) size;
+        buf[4] = compressionType.getID();
+        int padded = paddedSize();
+        if (padded > buf.length) {
+            buf = Arrays.copyOf(buf, padded);
+        } else {
+            Arrays.fill(buf, count, padded, (byte) 0);
+        }
+        finished = true;
+        return count;
+    }
+
+    /** @return number of bytes of chunk data written so far, including the size int and compression byte. */
+    public int size() {
+        return count;
+    }
+
+    /** @return number of 4KiB sectors the chunk data occupies. */
+    public int sectors() {
+        return paddedSize() / SECTOR_SIZE;
+    }
+
+    private int paddedSize() {
+        return ((count + SECTOR_SIZE - 1) / SECTOR_SIZE) * SECTOR_SIZE;
+    }
+
+    private void requireFinished() {
+        if (!finished) {
+            throw new IllegalStateException("finishChunk must be called first");
+        }
+    }
+
+    /**
+     * Writes the finished chunk, including its padding, at the given file position with as few channel writes as
+     * the OS allows. The channel's own position is not changed.
+     */
+    public void writeTo(FileChannel channel, long position) throws IOException {
+        requireFinished();
+        ByteBuffer bb = ByteBuffer.wrap(buf, 0, paddedSize());
+        while (bb.hasRemaining()) {
+            position += channel.write(bb, position);
+        }
+    }
+
+    /**
+     * Copies the finished chunk, including its padding, into a new buffer. For writes which outlive the use of
+     * this buffer, such as asynchronous ones.
+     */
+    public ByteBuffer toByteBuffer() {
+        requireFinished();
+        return ByteBuffer.wrap(Arrays.copyOf(buf, paddedSize()));
+    }
+
+    /**
+     * Writes the finished chunk to the given sink.
+     * @param includeSizePrefix if false the leading size int is skipped.
+     * @param includePadding if true the zero padding to the sector boundary is written too.
+     */
+    public void writeTo(DataOutput sink, boolean includeSizePrefix, boolean includePadding) throws IOException {
+        requireFinished();
+        int start = includeSizePrefix ? 0 : 4;
+        int end = includePadding ? paddedSize() : count;
+        sink.write(buf, start, end - start);
+    }
+}
@@ -60,11 +60,24 @@ public final class LoadFlags {
 	 */
 	public static final long RELEASE_CHUNK_DATA_TAG = 0x4000_0000_0000_0000L;
 
+	/**
+	 * When set, sections are not created while the chunk loads. Instead the section tags are indexed by
+	 * section-y and each section is created the first time it's requested by
+	 * {@link io.github.ensgijs.nbt.mca.SectionedChunkBase#getSection(int)} (or similar), or when the sections are
+	 * iterated. Sections which were never accessed are written back out unchanged.
+	 * <p>Useful when only a few sections of each chunk are looked at. Note that this makes
+	 * {@code getSection} mutate the chunk, so concurrent reads of a chunk need external synchronization.</p>
+	 * <p>Flags given with this flag are used to create the sections later.</p>
+	 */
+	public static final long LAZY_SECTIONS          = 0x2000_0000_0000_0000L;
+
 	/**
 	 * Setting the RAW bit causes all other flag settings to be ignored and for only {@link ChunkBase#data}
 	 * and {@link ChunkBase#dataVersion} to be populated. {@link ChunkBase#initReferences(long)} will NOT be
 	 * called and therefore any child classes of {@link ChunkBase} will also not have a chance to perform
 	 * any tag processing.
+	 * <p>Raw chunk data is read lazily, see {@link io.github.ensgijs.nbt.io.LazyBinaryNbt}: nested compounds are only
+	 * decoded when accessed, and written back verbatim when they weren't.</p>
 	 */
 	public static final long RAW                    = 0x8000_0000_0000_0000L;
 
@@ -0,0 +1,371 @@
+package io.github.ensgijs.nbt.mca.io;
+
+import io.github.ensgijs.nbt.mca.ChunkBase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes every chunk of every .mca file in a directory, such as a world's "region" folder, to
+ * {@link Flow.Subscriber}s.
+ *
+ * <p>Up to {@link #getReadParallelism()} region files are read concurrently on the {@link #getExecutor() executor},
+ * each one in file-order by a {@link McaFileChunkIterator}. Readers stop decoding once
+ * {@link #getMaxChunksInFlight()} chunks have been decoded but not yet delivered to the subscriber and resume as the
+ * subscriber requests more; so a slow subscriber holds back reading instead of piling up decoded chunks.
+ * No thread is blocked while waiting on demand.</p>
+ *
+ * <p>The publisher is cold and may be subscribed to more than once, each subscription walks the directory from the
+ * start. Reading starts on the first {@link Flow.Subscription#request(long)}. Chunks are delivered in no particular
+ * order and {@link Flow.Subscriber#onNext(Object)} may be called from any reader thread, but never concurrently.
+ * Any read error cancels the subscription and is passed to {@link Flow.Subscriber#onError(Throwable)}.</p>
+ *
+ * <p>Reading blocks on file IO; for large worlds consider giving the publisher its own executor instead of the
+ * default {@link ForkJoinPool#commonPool()}.</p>
+ * @see McaFileChunkIterator
+ */
+public class McaChunkPublisher<T extends ChunkBase> implements Flow.Publisher<T> {
+    public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = 256;
+
+    private final File directory;
+    private final long loadFlags;
+    private final Supplier<T> chunkCreator;
+    private Executor executor = ForkJoinPool.commonPool();
+    private int readParallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private int maxChunksInFlight = DEFAULT_MAX_CHUNKS_IN_FLIGHT;
+
+    /**
+     * Uses {@link McaFileChunkIterator#DEFAULT_CHUNK_CREATORS} to pick the chunk type by the name of the directory.
+     * @param directory folder containing .mca files, such as "world/region", "world/poi", or "world/entities".
+     * @param loadFlags {@link LoadFlags} to use when loading the chunks.
+     */
+    @SuppressWarnings("unchecked")
+    public McaChunkPublisher(File directory, long loadFlags) {
+        this(directory, loadFlags, (Supplier<T>) McaFileChunkIterator.DEFAULT_CHUNK_CREATORS.get(directory.getName()));
+    }
+
+    /**
+     * @param directory    folder containing .mca files.
+     * @param loadFlags    {@link LoadFlags} to use when loading the chunks.
+     * @param chunkCreator Supplies new instances of type {@link T}
+     */
+    public McaChunkPublisher(File directory, long loadFlags, Supplier<T> chunkCreator) {
+        this.directory = Objects.requireNonNull(directory);
+        this.loadFlags = loadFlags;
+        if (chunkCreator == null) {
+            throw new IllegalArgumentException("no chunk creator for directory " + directory.getName());
+        }
+        this.chunkCreator = chunkCreator;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /** Sets the executor region files are read on. Only affects later subscriptions. */
+    public McaChunkPublisher<T> setExecutor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+        return this;
+    }
+
+    public int getReadParallelism() {
+        return readParallelism;
+    }
+
+    /** Sets the max number of region files read concurrently. Only affects later subscriptions. */
+    public McaChunkPublisher<T> setReadParallelism(int readParallelism) {
+        if (readParallelism < 1) throw new IllegalArgumentException("readParallelism must be > 0");
+        this.readParallelism = readParallelism;
+        return this;
+    }
+
+    public int getMaxChunksInFlight() {
+        return maxChunksInFlight;
+    }
+
+    /**
+     * Sets the max number of chunks which may be decoded, or being decoded, but not yet delivered to the
+     * subscriber. Only affects later subscriptions.
+     */
+    public McaChunkPublisher<T> setMaxChunksInFlight(int maxChunksInFlight) {
+        if (maxChunksInFlight < 1) throw new IllegalArgumentException("maxChunksInFlight must be > 0");
+        this.maxChunksInFlight = maxChunksInFlight;
+        return this;
+    }
+
+    /** Non-empty, validly named (r.X.Z.mca) mca files in the directory, ordered by name. */
+    private Deque<File> listMcaFiles() {
+        File[] files = directory.listFiles((dir, name) -> McaFileHelpers.isValidMcaFileName(name));
+        Deque<File> deque = new ArrayDeque<>();
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparing(File::getName));
+            for (File file : files) {
+                if (file.isFile() && file.length() > 0) deque.add(file);
+            }
+        }
+        return deque;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        ChunkSubscription subscription = new ChunkSubscription(subscriber, executor, readParallelism, maxChunksInFlight);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class ChunkSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Executor executor;
+        private final int readParallelism;
+        private final int maxChunksInFlight;
+        private final Queue<T> ready = new ConcurrentLinkedQueue<>();
+        /** Chunks reserved by readers which haven't been delivered yet. */
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        /** Serializes {@link #drain()}, standard work-in-progress counter. */
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Object lock = new Object();
+        // guarded by lock
+        private Deque<File> files;
+        private final Deque<Reader> parkedReaders = new ArrayDeque<>();
+        private int activeReaders;
+        private volatile boolean readersDone;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private boolean terminated;
+
+        ChunkSubscription(Flow.Subscriber<? super T> subscriber, Executor executor, int readParallelism, int maxChunksInFlight) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.readParallelism = readParallelism;
+            this.maxChunksInFlight = maxChunksInFlight;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("non-positive subscription request: " + n));
+                return;
+            }
+            demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            if (started.compareAndSet(false, true)) {
+                start();
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            closeParkedReaders();
+            drain();
+        }
+
+        private void start() {
+            int readers;
+            synchronized (lock) {
+                files = listMcaFiles();
+                readers = Math.min(readParallelism, files.size());
+                activeReaders = readers;
+            }
+            if (readers == 0) {
+                readersDone = true;
+                return;
+            }
+            try {
+                for (int i = 0; i < readers; i++) {
+                    executor.execute(new Reader());
+                }
+            } catch (RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        private void fail(Throwable ex) {
+            synchronized (lock) {
+                if (error == null) error = ex;
+            }
+            cancelled = true;
+            closeParkedReaders();
+            drain();
+        }
+
+        /** Takes one in-flight slot, false if all are taken. */
+        private boolean tryReserve() {
+            int n;
+            do {
+                n = inFlight.get();
+                if (n >= maxChunksInFlight) return false;
+            } while (!inFlight.compareAndSet(n, n + 1));
+            return true;
+        }
+
+        /** Frees an in-flight slot and resumes a reader which ran out of them. */
+        private void release() {
+            inFlight.decrementAndGet();
+            Reader reader;
+            synchronized (lock) {
+                reader = parkedReaders.poll();
+            }
+            if (reader != null) resume(reader);
+        }
+
+        private void resume(Reader reader) {
+            try {
+                executor.execute(reader);
+            } catch (RuntimeException ex) {
+                reader.close();
+                fail(ex);
+            }
+        }
+
+        /**
+         * Parks a reader until a slot is released. A slot released between the failed {@link #tryReserve()} and
+         * parking is noticed here, since {@link #release()} frees the slot before polling for parked readers.
+         */
+        private void park(Reader reader) {
+            synchronized (lock) {
+                if (!cancelled && inFlight.get() >= maxChunksInFlight) {
+                    parkedReaders.add(reader);
+                    return;
+                }
+            }
+            if (cancelled) {
+                reader.close();
+                readerFinished();
+            } else {
+                resume(reader);
+            }
+        }
+
+        private void closeParkedReaders() {
+            List<Reader> readers;
+            synchronized (lock) {
+                readers = new ArrayList<>(parkedReaders);
+                parkedReaders.clear();
+            }
+            for (Reader reader : readers) {
+                reader.close();
+                readerFinished();
+            }
+        }
+
+        private File nextFile() {
+            synchronized (lock) {
+                return cancelled ? null : files.poll();
+            }
+        }
+
+        private void readerFinished() {
+            boolean last;
+            synchronized (lock) {
+                last = --activeReaders == 0;
+            }
+            if (last) {
+                readersDone = true;
+                drain();
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            int missed = 1;
+            while (true) {
+                if (terminated) return;
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested && !cancelled) {
+                    T chunk = ready.poll();
+                    if (chunk == null) break;
+                    emitted++;
+                    try {
+                        subscriber.onNext(chunk);
+                    } catch (Throwable ex) {
+                        release();
+                        fail(ex);
+                        break;
+                    }
+                    release();
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    ready.clear();
+                    terminated = true;
+                    if (error != null) subscriber.onError(error);
+                    return;
+                }
+                if (readersDone && ready.isEmpty()) {
+                    terminated = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) return;
+            }
+        }
+
+        /** Reads region files one after another until none are left or it runs out of in-flight slots. */
+        private final class Reader implements Runnable {
+            private McaFileChunkIterator<T> iter;
+
+            @Override
+            public void run() {
+                try {
+                    while (!cancelled) {
+                        if (!tryReserve()) {
+                            park(this);
+                            return;
+                        }
+                        if (iter == null || !iter.hasNext()) {
+                            release();
+                            close();
+                            File file = nextFile();
+                            if (file == null) break;
+                            iter = McaFileChunkIterator.iterate(file, loadFlags, chunkCreator);
+                            continue;
+                        }
+                        ready.add(iter.next());
+                        drain();
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    fail(ex);
+                }
+                close();
+                readerFinished();
+            }
+
+            void close() {
+                if (iter != null) {
+                    try {
+                        iter.close();
+                    } catch (IOException ignore) {
+                    }
+                    iter = null;
+                }
+            }
+        }
+    }
+}
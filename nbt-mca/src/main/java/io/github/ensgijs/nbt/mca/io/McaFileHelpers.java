@@ -15,6 +15,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -236,9 +237,22 @@ public final class McaFileHelpers {
 	 * @throws IOException if something during deserialization goes wrong.
 	 */
 	public static <T extends McaFileBase<?>> T readAuto(File file, long loadFlags) throws IOException {
+		return readAuto(file, loadFlags, null);
+	}
+
+	/**
+	 * Reads an MCA file and loads all of its chunks, decoding them on the given executor.
+	 * @param file The file to read the data from.
+	 * @return An in-memory representation of the MCA file with decompressed chunk data
+	 * @param loadFlags A logical or of {@link LoadFlags} constants indicating what data should be loaded
+	 * @param executor Executor to decode chunks on, or null to decode them on the calling thread.
+	 * @throws IOException if something during deserialization goes wrong.
+	 * @see McaFileBase#deserialize(RandomAccessFile, long, Executor)
+	 */
+	public static <T extends McaFileBase<?>> T readAuto(File file, long loadFlags, Executor executor) throws IOException {
 		T mcaFile = autoMCAFile(file);
 		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
-			mcaFile.deserialize(raf, loadFlags);
+			mcaFile.deserialize(raf, loadFlags, executor);
 			return mcaFile;
 		}
 	}
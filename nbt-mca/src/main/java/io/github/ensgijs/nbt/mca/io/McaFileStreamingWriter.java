@@ -2,6 +2,7 @@ package io.github.ensgijs.nbt.mca.io;
 
 import io.github.ensgijs.nbt.io.CompressionType;
 import io.github.ensgijs.nbt.mca.ChunkBase;
+import io.github.ensgijs.nbt.mca.util.McaWorldManifest;
 import io.github.ensgijs.nbt.util.ArgValidator;
 import io.github.ensgijs.nbt.util.Stopwatch;
 
@@ -16,6 +17,8 @@ import java.nio.file.Path;
  * Attempting to write a chunk (XZ) that has already been written will throw {@link IOException}.
  * <p>You must remember to call {@link McaFileStreamingWriter#close()}! Close writes the file
  * index and without this index the region will appear to contain no chunk data.</p>
+ * <p>When opened from a file, close also updates the {@link McaWorldManifest} of the world the file belongs to,
+ * if it has one.</p>
  * @see McaFileHelpers
  * @see McaFileChunkIterator
  */
@@ -24,6 +27,9 @@ public class McaFileStreamingWriter implements Closeable {
     private final int[] chunkSectors = new int[1024];
     private final int[] chunkTimestamps = new int[1024];
     private final RandomAccessFile raf;
+    /** Null if constructed from a {@link RandomAccessFile}. */
+    private final File file;
+    private final McaWorldManifest.WrittenChunks writtenChunks = new McaWorldManifest.WrittenChunks();
     private final Stopwatch fileInitializationStopwatch = Stopwatch.createUnstarted();
     private final Stopwatch totalWriteStopwatch = Stopwatch.createUnstarted();
     private final Stopwatch chunkSerializationStopwatch = Stopwatch.createUnstarted();
@@ -33,11 +39,15 @@ public class McaFileStreamingWriter implements Closeable {
     private boolean fileFinalized = false;
 
     public McaFileStreamingWriter(RandomAccessFile raf) {
-        ArgValidator.requireValue(raf);
-        this.raf = raf;
+        this(raf, null);
     }
     public McaFileStreamingWriter(File file) throws IOException {
-        this(new RandomAccessFile(file, "rw"));
+        this(new RandomAccessFile(file, "rw"), file);
+    }
+    private McaFileStreamingWriter(RandomAccessFile raf, File file) {
+        ArgValidator.requireValue(raf);
+        this.raf = raf;
+        this.file = file;
     }
     public McaFileStreamingWriter(String file) throws IOException {
         this(new File(file));
@@ -70,23 +80,18 @@ public class McaFileStreamingWriter implements Closeable {
                 throw new IllegalStateException();
             final int startSector = (int) (raf.getFilePointer() >> 12);
 
-            int bytesWritten;
+            ChunkWriteBuffer buffer = ChunkWriteBuffer.local();
             try (Stopwatch.LapToken lap2 = chunkSerializationStopwatch.startLap()) {
-                bytesWritten = chunk.serialize(raf, chunk.getChunkX(), chunk.getChunkZ(), CompressionType.ZLIB, true);
+                chunk.serialize(buffer, chunk.getChunkX(), chunk.getChunkZ(), CompressionType.ZLIB);
             }
 
-            // compute the count of 4kb sectors the chunk data occupies
-            int sectors = (bytesWritten >> 12) + (bytesWritten % 4096 == 0 ? 0 : 1);
+            int sectors = buffer.sectors();
             if (sectors > 255) throw new IOException("Chunk " + chunk.getChunkXZ() + " to large! 1MB maximum");
-            long roundedEof = ((long) (startSector + sectors) << 12);
-            while (roundedEof > raf.getFilePointer()) {
-                int gap = (int) Math.min(roundedEof - raf.getFilePointer(), ZERO_FILL_BUFFER.length);
-                raf.write(ZERO_FILL_BUFFER, 0, gap);
-            }
-            if (raf.getFilePointer() % 4096 != 0)
-                throw new IllegalStateException();
+            buffer.writeTo(raf.getChannel(), (long) startSector << 12);
+            raf.seek((long) (startSector + sectors) << 12);
             chunkSectors[index] = (startSector << 8) | sectors;
             chunkTimestamps[index] = chunk.getLastMCAUpdate();
+            writtenChunks.record(chunk);
             chunksWritten++;
         }
     }
@@ -107,6 +112,9 @@ public class McaFileStreamingWriter implements Closeable {
             raf.close();
             fileFinalized = true;
         }
+        if (file != null) {
+            McaWorldManifest.regionFileWritten(file, chunkSectors, chunkTimestamps, writtenChunks);
+        }
     }
 
     @Override
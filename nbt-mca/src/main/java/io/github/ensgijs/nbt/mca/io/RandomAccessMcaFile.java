@@ -7,7 +7,10 @@ import io.github.ensgijs.nbt.io.SilentIOException;
 import io.github.ensgijs.nbt.mca.*;
 import io.github.ensgijs.nbt.mca.util.ChunkIterator;
 import io.github.ensgijs.nbt.mca.util.IntPointXZ;
+import io.github.ensgijs.nbt.mca.util.McaWorldManifest;
+import io.github.ensgijs.nbt.query.NbtPathSet;
 import io.github.ensgijs.nbt.mca.util.RegionBoundingRectangle;
+import io.github.ensgijs.nbt.mca.util.VersionAwareNbtPathSet;
 import io.github.ensgijs.nbt.util.ArgValidator;
 import io.github.ensgijs.nbt.util.Stopwatch;
 
@@ -15,8 +18,21 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.IntBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides random access read and write operations for working with MCA files.
@@ -40,11 +56,19 @@ import java.util.*;
  *          ...
  *      }
  * }</pre>
+ *
+ * <p>{@link #readAsync(int)} and {@link #writeAsync(ChunkBase)} don't block the calling thread: chunk data is
+ * transferred with {@link AsynchronousFileChannel} positional I/O and decoded or encoded on the
+ * {@link #setAsyncExecutor(Executor) async executor}. Unlike the rest of this class the async methods may be called
+ * from any thread, but not concurrently with the blocking read and write methods. They are only available when
+ * the file was opened by path, not when a {@link RandomAccessFile} was passed in.</p>
  * @param <T> In truth, this class doesn't care what type of chunk it reads and writes - but being strict about
  *           which type of chunk is stored keeps users from shooting themselves in the foot.
  */
 public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iterable<T> {
-    private static final byte[] ZERO_FILL_BUFFER = new byte[4096];
+    /** Default for {@link #setReadAheadWindow(int)}, 1 MiB. */
+    public static final int DEFAULT_READ_AHEAD_WINDOW = 1 << 20;
+
     private final Class<T> chunkClass;
     protected final int[] chunkSectors = new int[1024];
     protected final int[] chunkTimestamps = new int[1024];
@@ -62,11 +86,28 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
     protected boolean autoOptimizeOnClose = false;
     protected boolean autoUpdateHandelOnWrite = true;
     protected boolean alwaysUpdateChunkLastUpdatedTimestamp = true;
+    protected int readAheadWindow = DEFAULT_READ_AHEAD_WINDOW;
     // TODO: use this flag to short-circuit file write operations if they are not necessary.
     //   Currently this flag is only ever set, never cleared.
     protected boolean isDirty = false;  // set true if any chunks were written or removed
+    /** Incremented whenever chunk data or sector locations change, lets iterators detect stale read-ahead. */
+    private int modCount;
     protected final boolean isReadOnly;
 
+    /** Null if constructed from a {@link RandomAccessFile}, in which case async I/O isn't available. */
+    private final Path path;
+    private Executor asyncExecutor = ForkJoinPool.commonPool();
+    // guarded by this
+    private AsynchronousFileChannel asyncChannel;
+    private int asyncReadsInFlight;
+    /** Sectors freed by async writes while async reads were in flight, they may still be reading them. */
+    private final List<SectorManager.SectorBlock> deferredReleases = new ArrayList<>();
+    private final Set<CompletableFuture<?>> pendingAsyncOps = ConcurrentHashMap.newKeySet();
+    /** DataVersion and Status of the chunks written, for the world manifest; guarded by this. */
+    private McaWorldManifest.WrittenChunks writtenChunks;
+    /** Set when chunks were written or removed since the world manifest was last updated; guarded by this. */
+    private boolean manifestDirty;
+
     private final Stopwatch fileInitializationStopwatch = Stopwatch.createUnstarted();
     private final Stopwatch totalReadStopwatch = Stopwatch.createUnstarted();
     private final Stopwatch totalWriteStopwatch = Stopwatch.createUnstarted();
@@ -85,6 +126,11 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
      *             fail with an exception and all calls to {@link #flush()} to silently do nothing.
      */
     public RandomAccessMcaFile(Class<T> chunkClass, RandomAccessFile raf, IntPointXZ regionXZ, String mode) {
+        this(chunkClass, raf, regionXZ, mode, null);
+    }
+
+    private RandomAccessMcaFile(Class<T> chunkClass, RandomAccessFile raf, IntPointXZ regionXZ, String mode, Path path) {
+        this.path = path;
         this.chunkClass = ArgValidator.requireValue(chunkClass, "chunkClass");
         this.raf = ArgValidator.requireValue(raf, "RandomAccessFile");
         this.regionXZ = ArgValidator.requireValue(regionXZ, "regionXZ");
@@ -102,7 +148,8 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
      *             and all calls to {@link #flush()} to silently do nothing.
      */
     public RandomAccessMcaFile(Class<T> chunkClass, File file, String mode) throws IOException {
-        this(chunkClass, new RandomAccessFile(file, mode), McaFileHelpers.regionXZFromFileName(file.getName()), mode);
+        this(chunkClass, new RandomAccessFile(file, mode), McaFileHelpers.regionXZFromFileName(file.getName()), mode,
+                file.toPath());
     }
 
     /**
@@ -214,6 +261,39 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
         return this;
     }
 
+    /**
+     * Max number of bytes {@link #fileOrderChunkIterator()} reads ahead in one sequential read. A single chunk
+     * larger than the window is still read in one go.
+     */
+    public int getReadAheadWindow() {
+        return readAheadWindow;
+    }
+
+    /**
+     * Max number of bytes {@link #fileOrderChunkIterator()} reads ahead in one sequential read. A single chunk
+     * larger than the window is still read in one go. Defaults to {@link #DEFAULT_READ_AHEAD_WINDOW}, set to
+     * 0 to read one chunk at a time.
+     */
+    public RandomAccessMcaFile<T> setReadAheadWindow(int readAheadWindow) {
+        ArgValidator.check(readAheadWindow >= 0, "readAheadWindow must be >= 0");
+        this.readAheadWindow = readAheadWindow;
+        return this;
+    }
+
+    /** Executor which async reads decode, and async writes encode, chunks on. */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Executor which async reads decode, and async writes encode, chunks on. Defaults to
+     * {@link ForkJoinPool#commonPool()}.
+     */
+    public RandomAccessMcaFile<T> setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = ArgValidator.requireValue(asyncExecutor, "asyncExecutor");
+        return this;
+    }
+
     /**
      * @return A diagnostic information string.
      * @see #chunkSectorTableToString()
@@ -345,24 +425,45 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
     @Override
     public void close() throws IOException {
         if (fileFinalized) return;
-        try {
-            if (!isReadOnly && fileInitialized) {
-                if (isAutoOptimizeOnClose())
-                    optimizeFile();
-                flush();
+        awaitAsyncOps();
+        synchronized (this) {
+            if (fileFinalized) return;
+            try {
+                releaseDeferredSectors();
+                if (!isReadOnly && fileInitialized) {
+                    if (isAutoOptimizeOnClose())
+                        optimizeFile();
+                    flush();
+                }
+            } finally {
+                try {
+                    if (asyncChannel != null) asyncChannel.close();
+                } finally {
+                    raf.close();
+                    sectorManager.freeSectors.clear();
+                    fileFinalized = true;
+                }
             }
-        } finally {
-            raf.close();
-            sectorManager.freeSectors.clear();
-            fileFinalized = true;
+        }
+    }
+
+    /** Waits for all async reads and writes which are still running. */
+    private void awaitAsyncOps() {
+        CompletableFuture<?>[] pending = pendingAsyncOps.toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(pending).join();
+        } catch (CompletionException | CancellationException ignored) {
+            // failures were reported through the futures returned to the callers
         }
     }
 
     /**
      * Forces immediate write of the chunk index and timestamp tables (file header information).
+     * If the world this file belongs to has a {@link McaWorldManifest}, and chunks were written or removed since the
+     * last flush, it's updated as well - a manifest which can't be updated is logged and doesn't fail the flush.
      * @see #touch()
      */
-    public void flush() throws IOException {
+    public synchronized void flush() throws IOException {
         if (!fileInitialized || isReadOnly)
             return;
         if (fileFinalized)
@@ -378,6 +479,9 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
             intBuffer.put(chunkTimestamps);
             raf.write(byteBuffer.array());
         }
+        if (path != null && manifestDirty) {
+            manifestDirty = !McaWorldManifest.regionFileWritten(path.toFile(), chunkSectors, chunkTimestamps, writtenChunks);
+        }
     }
 
     /**
@@ -400,6 +504,8 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
         try (Stopwatch.LapToken lap = fileOptimizationStopwatch.startLap()) {
             bytesRemoved = sectorManager.optimizeFile(raf, chunkSectors);
         }
+        modCount++;
+        if (bytesRemoved > 0) manifestDirty = true;
         return bytesRemoved;
     }
 
@@ -418,6 +524,8 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
             sectorManager.release(SectorManager.SectorBlock.unpack(chunkSectors[chunkIndex]));
             chunkSectors[chunkIndex] = 0;
             chunkTimestamps[chunkIndex] = 0;
+            modCount++;
+            manifestDirty = true;
             return true;
         }
         return false;
@@ -545,28 +653,9 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
             throw new IndexOutOfBoundsException();
         ensureFileInitialized();
         try (var lap = totalReadStopwatch.startLap()) {
-            int sectorOffset = chunkSectors[chunkIndex] >>> 8;
-            int sectorSize = chunkSectors[chunkIndex] & 0xFF;
-            if (sectorSize == 0) return null;
-            if (raf.length() < (sectorOffset + sectorSize) * 4096L) {
-                throw new EOFException();
-            }
-            raf.seek(sectorOffset * 4096L);  // +2 for the file header
-            int chunkByteSize = raf.readInt();
-            if (chunkByteSize > (sectorSize * 4096) - 4) {
-                throw new CorruptMcaFileException(String.format(
-                        "MCA file header sector size %d (%d bytes) for chunk %04d (at 0x%X) is too small to hold %d bytes!",
-                        sectorSize, sectorSize * 4096, chunkIndex, sectorOffset * 4096L, chunkByteSize));
-            }
+            if (seekChunk(chunkIndex) < 0) return null;
 
-            T chunk;
-            try {
-                chunk = chunkClass.getDeclaredConstructor().newInstance();
-            } catch (ReflectiveOperationException ex) {
-                // TODO should wrap with a custom chunk creation exception...
-                // given that this error is something exclusively under the control of the library user I'm OK(ish) with this hacky wrap and throw
-                throw new RuntimeException(ex);
-            }
+            T chunk = newChunk();
             IntPointXZ chunkXZ = McaRegionFile.getRelativeChunkXZ(chunkIndex).add(regionChunkOffsetXZ);
             chunksRead ++;
             chunk.deserialize(raf, loadFlags, chunkTimestamps[chunkIndex], chunkXZ.getX(), chunkXZ.getZ());
@@ -574,6 +663,150 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
         }
     }
 
+    private T newChunk() {
+        try {
+            return chunkClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            // TODO should wrap with a custom chunk creation exception...
+            // given that this error is something exclusively under the control of the library user I'm OK(ish) with this hacky wrap and throw
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reads the specified chunk without blocking, see the class documentation.
+     * @return Future of the chunk, or of null if it doesn't exist.
+     */
+    public CompletableFuture<T> readAsync(int chunkIndex) {
+        return readAsync(chunkIndex, loadFlags);
+    }
+
+    /**
+     * Reads the specified chunk without blocking, see the class documentation.
+     * @return Future of the chunk, or of null if it doesn't exist.
+     */
+    public CompletableFuture<T> readAsync(int chunkIndex, long loadFlags) {
+        if (chunkIndex < 0 || chunkIndex >= 1024)
+            throw new IndexOutOfBoundsException();
+        final int sectors;
+        final int timestamp;
+        final AsynchronousFileChannel channel;
+        try {
+            synchronized (this) {
+                ensureFileInitialized();
+                channel = asyncChannel();
+                sectors = chunkSectors[chunkIndex];
+                timestamp = chunkTimestamps[chunkIndex];
+                if ((sectors & 0xFF) == 0) return CompletableFuture.completedFuture(null);
+                asyncReadsInFlight++;
+            }
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        ByteBuffer bb = ByteBuffer.allocate((sectors & 0xFF) * 4096);
+        return trackAsyncOp(transferFully(channel, bb, (sectors >>> 8) * 4096L, false)
+                .whenComplete((r, ex) -> asyncReadFinished(ex == null))
+                .thenApplyAsync(r -> {
+                    try {
+                        return decodeChunk(chunkIndex, sectors, timestamp, bb.array(), loadFlags);
+                    } catch (IOException ex) {
+                        throw new CompletionException(ex);
+                    }
+                }, asyncExecutor));
+    }
+
+    private T decodeChunk(int chunkIndex, int sectors, int timestamp, byte[] data, long loadFlags) throws IOException {
+        return decodeChunk(chunkIndex, sectors, timestamp, data, 0, loadFlags);
+    }
+
+    /** @param offset where the chunk's sectors start in {@code data} */
+    private T decodeChunk(int chunkIndex, int sectors, int timestamp, byte[] data, int offset, long loadFlags) throws IOException {
+        int sectorBytes = (sectors & 0xFF) * 4096;
+        int chunkByteSize = ByteBuffer.wrap(data, offset, 4).getInt();
+        if (chunkByteSize > sectorBytes - 4) {
+            throw new CorruptMcaFileException(String.format(
+                    "MCA file header sector size %d (%d bytes) for chunk %04d (at 0x%X) is too small to hold %d bytes!",
+                    sectors & 0xFF, sectorBytes, chunkIndex, (sectors >>> 8) * 4096L, chunkByteSize));
+        }
+        T chunk = newChunk();
+        IntPointXZ chunkXZ = McaRegionFile.getRelativeChunkXZ(chunkIndex).add(regionChunkOffsetXZ);
+        chunk.deserialize(new ByteArrayInputStream(data, offset + 4, chunkByteSize), loadFlags, timestamp, chunkXZ.getX(), chunkXZ.getZ());
+        return chunk;
+    }
+
+    private synchronized void asyncReadFinished(boolean success) {
+        if (success) chunksRead ++;
+        if (--asyncReadsInFlight == 0) {
+            releaseDeferredSectors();
+        }
+    }
+
+    /**
+     * Reads only the values of the given paths from the specified chunk, without deserializing the chunk.
+     * The chunk data is decompressed and then scanned by {@link NbtPathSet#getAllFromBinary(byte[])}.
+     * <p>This is much cheaper than {@link #read(int)} when only a handful of fields, such as
+     * {@code DataVersion}, {@code Status} or {@code InhabitedTime}, are of interest.</p>
+     * @return One value per path, see {@link NbtPathSet#getAll(io.github.ensgijs.nbt.tag.Tag)},
+     * or null if the chunk doesn't exist.
+     */
+    public Object[] readProjection(int chunkIndex, NbtPathSet paths) throws IOException {
+        byte[] nbtData = readUncompressedChunkData(chunkIndex);
+        return nbtData != null ? paths.getAllFromBinary(nbtData) : null;
+    }
+
+    /**
+     * Version aware variant of {@link #readProjection(int, NbtPathSet)}.
+     * @return Extracted values or null if the chunk doesn't exist.
+     * @see VersionAwareNbtPathSet#extractFromBinary(byte[])
+     */
+    public VersionAwareNbtPathSet.Values readProjection(int chunkIndex, VersionAwareNbtPathSet paths) throws IOException {
+        byte[] nbtData = readUncompressedChunkData(chunkIndex);
+        return nbtData != null ? paths.extractFromBinary(nbtData) : null;
+    }
+
+    /** @return Decompressed nbt data of the specified chunk, or null if it doesn't exist. */
+    protected byte[] readUncompressedChunkData(int chunkIndex) throws IOException {
+        if (chunkIndex < 0 || chunkIndex >= 1024)
+            throw new IndexOutOfBoundsException();
+        ensureFileInitialized();
+        try (var lap = totalReadStopwatch.startLap()) {
+            int chunkByteSize = seekChunk(chunkIndex);
+            if (chunkByteSize < 0) return null;
+            int compressionTypeByte = raf.read();
+            CompressionType compressionType = CompressionType.getFromID((byte) compressionTypeByte);
+            if (compressionType == null) {
+                throw new IOException("invalid compression type " + compressionTypeByte);
+            }
+            byte[] compressed = new byte[chunkByteSize - 1];
+            raf.readFully(compressed);
+            chunksRead ++;
+            try (InputStream in = compressionType.decompress(new ByteArrayInputStream(compressed))) {
+                return in.readAllBytes();
+            }
+        }
+    }
+
+    /**
+     * Positions {@link #raf} at the compression type byte of the specified chunk.
+     * @return Byte size of the chunk data (including the compression type byte), or -1 if the chunk doesn't exist.
+     */
+    private int seekChunk(int chunkIndex) throws IOException {
+        int sectorOffset = chunkSectors[chunkIndex] >>> 8;
+        int sectorSize = chunkSectors[chunkIndex] & 0xFF;
+        if (sectorSize == 0) return -1;
+        if (raf.length() < (sectorOffset + sectorSize) * 4096L) {
+            throw new EOFException();
+        }
+        raf.seek(sectorOffset * 4096L);  // +2 for the file header
+        int chunkByteSize = raf.readInt();
+        if (chunkByteSize > (sectorSize * 4096) - 4) {
+            throw new CorruptMcaFileException(String.format(
+                    "MCA file header sector size %d (%d bytes) for chunk %04d (at 0x%X) is too small to hold %d bytes!",
+                    sectorSize, sectorSize * 4096, chunkIndex, sectorOffset * 4096L, chunkByteSize));
+        }
+        return chunkByteSize;
+    }
+
     /**
      * Reads the specified chunk if it exists.
      * @return The chunk if it exists, else null.
@@ -628,43 +861,24 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
      * @see #removeChunk
      */
     public void write(T chunk) throws IOException {
-        ArgValidator.requireValue(chunk);
-        if (isReadOnly)
-            throw new IOException("File was opened in read-only mode.");
-        if (chunk.getChunkX() == ChunkBase.NO_CHUNK_COORD_SENTINEL || chunk.getChunkZ() == ChunkBase.NO_CHUNK_COORD_SENTINEL) {
-            throw new IllegalArgumentException("Chunk XZ must be set!");
-        }
-        if (!this.regionBounds.containsChunk(chunk.getChunkX(), chunk.getChunkZ()))
-            throw new IndexOutOfBoundsException(String.format(
-                    "ChunkXZ(%s) does not exist within regionXZ(%s) inclusive bounds %s!",
-                    chunk.getChunkXZ(),
-                    regionXZ,
-                    regionBounds.asChunkBounds()));
+        checkWritable(chunk);
         ensureFileInitialized();
         isDirty = true;
-        if (isAlwaysUpdateChunkLastUpdatedTimestamp() || chunk.getLastMCAUpdate() <= 0) {
-            chunk.setLastMCAUpdate((int) (System.currentTimeMillis() / 1000));
-        }
+        updateTimestampForWrite(chunk);
 
         try (Stopwatch.LapToken lap1 = totalWriteStopwatch.startLap()) {
             final int index = chunk.getIndex();
             final int oldSectorOffset = chunkSectors[index] >>> 8;
             final int oldSectorSize = chunkSectors[index] & 0xFF;
-            ByteArrayOutputStream baos;
+            ChunkWriteBuffer buffer = ChunkWriteBuffer.local();
             SectorManager.SectorBlock writeToSector;
-            int totalBytes;
             final int newSectorSize;
             chunksWritten ++;
 
             try (Stopwatch.LapToken lap2 = chunkSerializationStopwatch.startLap()) {
-                baos = new ByteArrayOutputStream(Math.min(2, oldSectorSize) * 4096);
-                new BinaryNbtSerializer(CompressionType.ZLIB).toStream(
-                        new NamedTag(null, isAutoUpdateHandelOnWrite() ? chunk.updateHandle() : chunk.getHandle()), baos);
+                encodeChunk(buffer, chunk);
             }
-            // Note 'totalBytes' is count 4 larger than the value written at the chunk sector offset because it includes the byte size data too
-            totalBytes = baos.size() + 4 /*size*/ + 1 /*compression sig*/;
-            newSectorSize = (totalBytes >> 12) + (totalBytes % 4096 == 0 ? 0 : 1);
-            if (newSectorSize > 255) throw new IOException("Chunk " + chunk.getChunkXZ() + " to large! 1MB maximum");
+            newSectorSize = buffer.sectors();
 
             if (oldSectorSize == 0) {  // chunk has never been written to file
                 writeToSector = sectorManager.allocate(newSectorSize);
@@ -677,23 +891,185 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
                 writeToSector = sectorManager.allocate(newSectorSize);
                 sectorManager.release(oldSectorOffset, oldSectorSize);
             }
-            writeToSector.seekTo(raf);
-            raf.writeInt(totalBytes - 4);  // don't count the int we are writing here in the byte size
-            raf.write(CompressionType.ZLIB.getID());
-            raf.write(baos.toByteArray());
+            // size int, compression byte, data and zero padding all go out in one write
+            buffer.writeTo(raf.getChannel(), writeToSector.start * 4096L);
             chunkSectors[index] = writeToSector.pack();
             chunkTimestamps[index] = chunk.getLastMCAUpdate();
+            writtenChunks().record(chunk);
+            modCount++;
+            manifestDirty = true;
+        }
+    }
+
+    private McaWorldManifest.WrittenChunks writtenChunks() {
+        if (writtenChunks == null) writtenChunks = new McaWorldManifest.WrittenChunks();
+        return writtenChunks;
+    }
 
-            long roundedEos = writeToSector.end() * 4096L;
-            while (roundedEos > raf.getFilePointer()) {
-                int gap = (int) Math.min(roundedEos - raf.getFilePointer(), ZERO_FILL_BUFFER.length);
-                raf.write(ZERO_FILL_BUFFER, 0, gap);
+    private void checkWritable(T chunk) throws IOException {
+        ArgValidator.requireValue(chunk);
+        if (isReadOnly)
+            throw new IOException("File was opened in read-only mode.");
+        if (chunk.getChunkX() == ChunkBase.NO_CHUNK_COORD_SENTINEL || chunk.getChunkZ() == ChunkBase.NO_CHUNK_COORD_SENTINEL) {
+            throw new IllegalArgumentException("Chunk XZ must be set!");
+        }
+        if (!this.regionBounds.containsChunk(chunk.getChunkX(), chunk.getChunkZ()))
+            throw new IndexOutOfBoundsException(String.format(
+                    "ChunkXZ(%s) does not exist within regionXZ(%s) inclusive bounds %s!",
+                    chunk.getChunkXZ(),
+                    regionXZ,
+                    regionBounds.asChunkBounds()));
+    }
+
+    private void updateTimestampForWrite(T chunk) {
+        if (isAlwaysUpdateChunkLastUpdatedTimestamp() || chunk.getLastMCAUpdate() <= 0) {
+            chunk.setLastMCAUpdate((int) (System.currentTimeMillis() / 1000));
+        }
+    }
+
+    private void encodeChunk(ChunkWriteBuffer buffer, T chunk) throws IOException {
+        new BinaryNbtSerializer(CompressionType.ZLIB).toStream(
+                new NamedTag(null, isAutoUpdateHandelOnWrite() ? chunk.updateHandle() : chunk.getHandle()),
+                buffer.beginChunk(CompressionType.ZLIB));
+        buffer.finishChunk();
+        if (buffer.sectors() > 255) throw new IOException("Chunk " + chunk.getChunkXZ() + " to large! 1MB maximum");
+    }
+
+    /**
+     * Writes the given chunk without blocking, see the class documentation. The chunk is encoded on the async
+     * executor, so it must not be modified until the returned future completes.
+     * <p>The chunk is always written to newly allocated sectors and only then made visible in the header tables,
+     * so async reads in flight never see partially written data. If the same chunk is written more than once
+     * concurrently, the write which completes last wins.</p>
+     * @param chunk not null and chunk must exist within bounds of this region file.
+     * @return Future which completes once the chunk data has been written.
+     */
+    public CompletableFuture<Void> writeAsync(T chunk) {
+        final AsynchronousFileChannel channel;
+        try {
+            checkWritable(chunk);
+            synchronized (this) {
+                ensureFileInitialized();
+                channel = asyncChannel();
             }
-            if (raf.getFilePointer() % 4096 != 0)
-                throw new IllegalStateException();
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        updateTimestampForWrite(chunk);
+        final int index = chunk.getIndex();
+        final int timestamp = chunk.getLastMCAUpdate();
+        final int dataVersion = chunk.getDataVersion();
+        final String status = chunk instanceof TerrainChunkBase<?> terrain ? terrain.getStatus() : null;
+        return trackAsyncOp(CompletableFuture.supplyAsync(() -> {
+            ChunkWriteBuffer buffer = ChunkWriteBuffer.local();
+            try {
+                encodeChunk(buffer, chunk);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+            return buffer.toByteBuffer();
+        }, asyncExecutor).thenCompose(bb -> {
+            final SectorManager.SectorBlock block;
+            synchronized (this) {
+                block = sectorManager.allocate(bb.remaining() / 4096);
+            }
+            return transferFully(channel, bb, block.start * 4096L, true)
+                    .whenComplete((r, ex) -> asyncWriteFinished(index, timestamp, dataVersion, status, block, ex == null));
+        }));
+    }
+
+    private synchronized void asyncWriteFinished(int index, int timestamp, int dataVersion, String status,
+                                                 SectorManager.SectorBlock block, boolean success) {
+        if (!success) {
+            releaseSectors(block);
+            return;
+        }
+        isDirty = true;
+        chunksWritten ++;
+        SectorManager.SectorBlock old = SectorManager.SectorBlock.unpack(chunkSectors[index]);
+        try {
+            chunkSectors[index] = block.pack();
+        } catch (IOException ex) {
+            throw new SilentIOException(ex);  // unreachable, encodeChunk limits the size
+        }
+        chunkTimestamps[index] = timestamp;
+        writtenChunks().record(index, dataVersion, status);
+        modCount++;
+        manifestDirty = true;
+        releaseSectors(old);
+    }
+
+    /** Releases sectors for reuse, unless async reads are in flight - they may still be reading them. */
+    private void releaseSectors(SectorManager.SectorBlock block) {
+        if (asyncReadsInFlight > 0) {
+            deferredReleases.add(block);
+        } else {
+            sectorManager.release(block);
         }
     }
 
+    private void releaseDeferredSectors() {
+        for (SectorManager.SectorBlock block : deferredReleases) {
+            sectorManager.release(block);
+        }
+        deferredReleases.clear();
+    }
+
+    private AsynchronousFileChannel asyncChannel() throws IOException {
+        if (asyncChannel == null) {
+            if (path == null) {
+                throw new UnsupportedOperationException(
+                        "Async I/O requires the mca file to be opened by path, not by RandomAccessFile.");
+            }
+            asyncChannel = isReadOnly
+                    ? AsynchronousFileChannel.open(path, StandardOpenOption.READ)
+                    : AsynchronousFileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return asyncChannel;
+    }
+
+    private <R> CompletableFuture<R> trackAsyncOp(CompletableFuture<R> future) {
+        pendingAsyncOps.add(future);
+        future.whenComplete((r, ex) -> pendingAsyncOps.remove(future));
+        return future;
+    }
+
+    /** Reads or writes the remaining bytes of the buffer at the given file position. */
+    private static CompletableFuture<Void> transferFully(
+            AsynchronousFileChannel channel, ByteBuffer bb, long position, boolean write) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        new CompletionHandler<Integer, Void>() {
+            long next = position;
+
+            void start() {
+                try {
+                    if (write) channel.write(bb, next, null, this);
+                    else channel.read(bb, next, null, this);
+                } catch (RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void completed(Integer transferred, Void attachment) {
+                if (transferred < 0) {
+                    future.completeExceptionally(new EOFException());
+                } else if (bb.hasRemaining()) {
+                    next += transferred;
+                    start();
+                } else {
+                    future.complete(null);
+                }
+            }
+
+            @Override
+            public void failed(Throwable ex, Void attachment) {
+                future.completeExceptionally(ex);
+            }
+        }.start();
+        return future;
+    }
+
     /**
      * @return the chunk XZ coords of the minimum chunk (north-west corner) in this region.
      */
@@ -973,6 +1349,152 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
         return new ChunkIter<>(this, loadFlags);
     }
 
+    /**
+     * @see #fileOrderChunkIterator(long)
+     */
+    public ChunkIterator<T> fileOrderChunkIterator() {
+        return fileOrderChunkIterator(loadFlags);
+    }
+
+    /**
+     * Returns an iterator which visits the chunks that exist in this file in file-order (by sector offset), not
+     * index-order, and skips missing chunks - {@link ChunkIterator#next()} never returns null. Chunk data is
+     * prefetched in sequential reads of up to {@link #getReadAheadWindow()} bytes, which avoids the seek per chunk
+     * of {@link #chunkIterator()}; much faster for full file scans on spinning disks and network filesystems.
+     * <p>Which chunks are visited is taken from a snapshot of the header table, chunks written to previously empty
+     * slots while iterating are not visited. Chunks may be written with {@link ChunkIterator#set(ChunkBase)}, and
+     * chunks may be written, removed or relocated by other means while iterating: each chunk is read from where the
+     * header table currently points, chunks removed before they are reached are skipped, and the read-ahead is
+     * discarded whenever anything other than a {@code set} of the current chunk changed the file.</p>
+     * @see McaFileChunkIterator
+     */
+    public ChunkIterator<T> fileOrderChunkIterator(long loadFlags) {
+        try {
+            ensureFileInitialized();
+        } catch (IOException ex) {
+            throw new SilentIOException(ex);
+        }
+        return new FileOrderChunkIter<>(this, loadFlags);
+    }
+
+    /**
+     * @see #chunkSpliterator(long)
+     */
+    public Spliterator<T> chunkSpliterator() {
+        return chunkSpliterator(loadFlags);
+    }
+
+    /**
+     * Returns a spliterator over the chunks which exist in this file, taken from a snapshot of the header table.
+     * Unlike {@link #chunkIterator()} missing chunks are skipped. It splits over ranges of chunk indices and is
+     * {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}; each split reads its chunks with positional reads,
+     * so splits may be consumed concurrently, which makes {@code stream().parallel()} scale across cores.
+     * <p>The file must not be written to while the spliterator is in use.</p>
+     */
+    public Spliterator<T> chunkSpliterator(long loadFlags) {
+        int[] indices = new int[1024];
+        int[] sectors = new int[1024];
+        int[] timestamps = new int[1024];
+        int count = 0;
+        synchronized (this) {
+            try {
+                ensureFileInitialized();
+            } catch (IOException ex) {
+                throw new SilentIOException(ex);
+            }
+            for (int i = 0; i < 1024; i++) {
+                if ((chunkSectors[i] & 0xFF) != 0) {
+                    indices[count] = i;
+                    sectors[count] = chunkSectors[i];
+                    timestamps[count] = chunkTimestamps[i];
+                    count++;
+                }
+            }
+        }
+        return new ChunkSpliterator(indices, sectors, timestamps, 0, count, loadFlags);
+    }
+
+    /**
+     * @see #chunkSpliterator(long)
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(chunkSpliterator(), false);
+    }
+
+    /**
+     * @see #chunkSpliterator(long)
+     */
+    public Stream<T> stream(long loadFlags) {
+        return StreamSupport.stream(chunkSpliterator(loadFlags), false);
+    }
+
+    private T readPositional(int chunkIndex, int sectors, int timestamp, long loadFlags) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate((sectors & 0xFF) * 4096);
+        long position = (sectors >>> 8) * 4096L;
+        FileChannel channel = raf.getChannel();
+        // no stopwatch lap here, splits are read concurrently
+        while (bb.hasRemaining()) {
+            if (channel.read(bb, position + bb.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        T chunk = decodeChunk(chunkIndex, sectors, timestamp, bb.array(), loadFlags);
+        synchronized (this) {
+            chunksRead ++;
+        }
+        return chunk;
+    }
+
+    /** Splits over a range of the header table snapshot taken by {@link #chunkSpliterator(long)}. */
+    private final class ChunkSpliterator implements Spliterator<T> {
+        private final int[] indices;
+        private final int[] sectors;
+        private final int[] timestamps;
+        private final long loadFlags;
+        private int pos;
+        private final int end;
+
+        ChunkSpliterator(int[] indices, int[] sectors, int[] timestamps, int pos, int end, long loadFlags) {
+            this.indices = indices;
+            this.sectors = sectors;
+            this.timestamps = timestamps;
+            this.pos = pos;
+            this.end = end;
+            this.loadFlags = loadFlags;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (pos >= end) return false;
+            int i = pos++;
+            try {
+                action.accept(readPositional(indices[i], sectors[i], timestamps[i], loadFlags));
+            } catch (IOException ex) {
+                throw new SilentIOException(ex);
+            }
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (pos + end) >>> 1;
+            if (mid <= pos) return null;
+            Spliterator<T> prefix = new ChunkSpliterator(indices, sectors, timestamps, pos, mid, loadFlags);
+            pos = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - pos;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
     protected static class ChunkIter<T extends ChunkBase> implements ChunkIterator<T> {
         private final RandomAccessMcaFile<T> ramf;
         private final long loadFlags;
@@ -1028,4 +1550,127 @@ public class RandomAccessMcaFile<T extends ChunkBase> implements Closeable, Iter
             }
         }
     }
+
+    protected static class FileOrderChunkIter<T extends ChunkBase> implements ChunkIterator<T> {
+        private final RandomAccessMcaFile<T> ramf;
+        private final long loadFlags;
+        /** Indices of the chunks to visit, ordered by the sector offsets they had when this iterator was created. */
+        private final int[] order;
+        private int nextPos = 0;
+        private int current = -1;
+        private byte[] window = new byte[0];
+        private long windowStart;
+        private int windowLength;
+        /** {@link RandomAccessMcaFile#modCount} the window contents are valid for. */
+        private int windowModCount;
+
+        public FileOrderChunkIter(RandomAccessMcaFile<T> ramf, long loadFlags) {
+            this.ramf = ramf;
+            this.loadFlags = loadFlags;
+            // sort by offset, ties broken by index; packed into longs to avoid boxing
+            long[] keys = new long[1024];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                int packed = ramf.chunkSectors[i];
+                if ((packed & 0xFF) != 0) {
+                    keys[count++] = ((long) (packed >>> 8) << 10) | i;
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            order = new int[count];
+            for (int j = 0; j < count; j++) {
+                order[j] = (int) (keys[j] & 0x3FF);
+            }
+        }
+
+        @Override
+        public void set(T chunk) {
+            boolean windowValid = windowModCount == ramf.modCount;
+            try {
+                ramf.write(chunk);
+            } catch (IOException ex) {
+                throw new SilentIOException(ex);
+            }
+            // rewriting the current chunk only touches its own sectors, which are never read from the window again
+            if (windowValid && chunk.getIndex() == current) {
+                windowModCount = ramf.modCount;
+            }
+        }
+
+        @Override
+        public int currentIndex() {
+            if (current < 0) throw new NoSuchElementException();
+            return current;
+        }
+
+        @Override
+        public IntPointXZ currentAbsoluteXZ() {
+            return ramf.indexToAbsoluteXZ(currentIndex());
+        }
+
+        @Override
+        public int currentAbsoluteX() {
+            return currentAbsoluteXZ().getX();
+        }
+
+        @Override
+        public int currentAbsoluteZ() {
+            return currentAbsoluteXZ().getZ();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextPos < order.length && (ramf.chunkSectors[order[nextPos]] & 0xFF) == 0) {
+                nextPos++;  // removed since this iterator was created
+            }
+            return nextPos < order.length;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int pos = nextPos++;
+            current = order[pos];
+            int sectors = ramf.chunkSectors[current];
+            long start = (sectors >>> 8) * 4096L;
+            int length = (sectors & 0xFF) * 4096;
+            try (var lap = ramf.totalReadStopwatch.startLap()) {
+                if (windowModCount != ramf.modCount
+                        || start < windowStart || start + length > windowStart + windowLength) {
+                    fillWindow(pos);
+                }
+                ramf.chunksRead ++;
+                return ramf.decodeChunk(current, sectors, ramf.chunkTimestamps[current], window, (int) (start - windowStart), loadFlags);
+            } catch (IOException ex) {
+                throw new SilentIOException(ex);
+            }
+        }
+
+        /** Reads the chunk at {@code pos} and as many of the following ones as fit in the read-ahead window. */
+        private void fillWindow(int pos) throws IOException {
+            int sectors = ramf.chunkSectors[order[pos]];
+            long start = (sectors >>> 8) * 4096L;
+            long end = start + (sectors & 0xFF) * 4096L;
+            long fileLength = ramf.raf.length();
+            if (fileLength < end) {
+                throw new EOFException();
+            }
+            long limit = start + Math.max(ramf.readAheadWindow, end - start);
+            for (int j = pos + 1; j < order.length; j++) {
+                int next = ramf.chunkSectors[order[j]];
+                long nextEnd = ((next >>> 8) + (next & 0xFF)) * 4096L;
+                if (nextEnd > limit || nextEnd > fileLength) break;
+                end = Math.max(end, nextEnd);
+            }
+            int length = (int) (end - start);
+            if (window.length < length) {
+                window = new byte[length];
+            }
+            ramf.raf.seek(start);
+            ramf.raf.readFully(window, 0, length);
+            windowStart = start;
+            windowLength = length;
+            windowModCount = ramf.modCount;
+        }
+    }
 }
@@ -865,12 +865,33 @@ public class LongArrayTagPackedIntegers implements TagWrapper<LongArrayTag>, Ite
     }
 
     /**
-     * Calls {@link MessageDigest#update} on the given digest with the current long[] data to accumulate a checksum
-     * across one or more {@link LongArrayTagPackedIntegers}/.
-     * @param digest to be modified with current long[] data.
+     * Calls {@link MessageDigest#update} on the given digest with the logical content, the length followed by
+     * every value as returned by {@link #get(int)}, to accumulate a checksum across one or more
+     * {@link LongArrayTagPackedIntegers}. The checksum does not depend on how the values are packed; two instances
+     * holding the same values produce the same checksum regardless of their bits per value or packing strategy.
+     * @param digest to be modified with current values.
      * @return given digest.
+     * @see #accumulatePackedChecksum(MessageDigest)
      */
     public MessageDigest accumulateChecksum(MessageDigest digest) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (length + 1));
+        buffer.putInt(length);
+        for (int i = 0; i < length; i++) {
+            buffer.putInt(get(i));
+        }
+        buffer.position(0);
+        digest.update(buffer);
+        return digest;
+    }
+
+    /**
+     * Calls {@link MessageDigest#update} on the given digest with the current long[] data, as it would be
+     * written to disk, to accumulate a checksum across one or more {@link LongArrayTagPackedIntegers}.
+     * @param digest to be modified with current long[] data.
+     * @return given digest.
+     * @see #accumulateChecksum(MessageDigest)
+     */
+    public MessageDigest accumulatePackedChecksum(MessageDigest digest) {
         ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * longs().length);
         for (long l : longs()) {
             buffer.putLong(l);
@@ -1,5 +1,7 @@
 package io.github.ensgijs.nbt.mca.util;
 
+import io.github.ensgijs.nbt.io.SilentIOException;
+import io.github.ensgijs.nbt.mca.McaFileBase;
 import io.github.ensgijs.nbt.mca.TerrainChunk;
 import io.github.ensgijs.nbt.mca.io.LoadFlags;
 import io.github.ensgijs.nbt.mca.io.McaFileHelpers;
@@ -15,6 +17,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static io.github.ensgijs.nbt.mca.DataVersion.JAVA_1_18_21W37A;
 
@@ -35,7 +44,10 @@ public class McaWorld implements Closeable {
     // TODO: use region/poi/entities abstraction chunk type (once one exists)
     private final Map<IntPointXZ, RandomAccessMcaFile<TerrainChunk>> regionCache = new HashMap<>();
     private final Map<IntPointXZ, TerrainChunk> chunkCache;
+    /** Loads started by {@link #getChunkAsync(IntPointXZ)} which haven't completed yet. */
+    private final Map<IntPointXZ, CompletableFuture<TerrainChunk>> pendingChunkLoads = new ConcurrentHashMap<>();
     private long loadFlags = LoadFlags.LOAD_ALL_DATA;
+    private Executor asyncExecutor = ForkJoinPool.commonPool();
 
     public McaWorld(String worldRootDir, String mode, int chunkCacheSize) throws FileNotFoundException {
         ArgValidator.check(mode != null && mode.length() >= 1 && mode.charAt(0) == 'r');
@@ -79,6 +91,19 @@ public class McaWorld implements Closeable {
         this.loadFlags = loadFlags;
     }
 
+    /**
+     * Executor which {@link #getChunkAsync(IntPointXZ)} decodes chunks on.
+     * Applies to region files opened after this call.
+     * @see RandomAccessMcaFile#setAsyncExecutor(Executor)
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = ArgValidator.requireValue(asyncExecutor, "asyncExecutor");
+    }
+
+    public Executor asyncExecutor() {
+        return asyncExecutor;
+    }
+
     public boolean isReadonly() {
         return isReadonly;
     }
@@ -102,9 +127,16 @@ public class McaWorld implements Closeable {
      */
     @Override
     public void close() throws IOException {
-        chunkCache.clear();
+        synchronized (chunkCache) {
+            chunkCache.clear();
+        }
         List<IOException> closeExceptions = new ArrayList<>();
-        for (RandomAccessMcaFile<?> ramf : regionCache.values()) {
+        List<RandomAccessMcaFile<TerrainChunk>> regions;
+        synchronized (regionCache) {
+            regions = new ArrayList<>(regionCache.values());
+            regionCache.clear();
+        }
+        for (RandomAccessMcaFile<?> ramf : regions) {
             try {
                 if (ramf != null)
                     ramf.close();
@@ -114,8 +146,7 @@ public class McaWorld implements Closeable {
                 closeExceptions.add(ex);
             }
         }
-        int openCount = regionCache.size();
-        regionCache.clear();
+        int openCount = regions.size();
         if (!closeExceptions.isEmpty()) {
             throw new IOException("Error closing " + closeExceptions.size() + " of " + openCount + " MCA files!");
         }
@@ -126,6 +157,12 @@ public class McaWorld implements Closeable {
     }
 
     public RandomAccessMcaFile<TerrainChunk> getRegion(IntPointXZ regionXZ) throws IOException {
+        synchronized (regionCache) {
+            return getRegion0(regionXZ);
+        }
+    }
+
+    private RandomAccessMcaFile<TerrainChunk> getRegion0(IntPointXZ regionXZ) throws IOException {
         if (!regionCache.containsKey(regionXZ)) {
             String fileName = McaFileHelpers.createNameFromRegionLocation(regionXZ);
             File mcaFile = Path.of(worldRootDir, "region", fileName).toFile();
@@ -134,6 +171,7 @@ public class McaWorld implements Closeable {
             if (mcaFile.exists() && Files.size(mcaFile.toPath()) > 0) {  // TODO: || !mode.equals("r")
                 ramf = new RandomAccessMcaFile<>(TerrainChunk.class, mcaFile, mode);
                 ramf.setLoadFlags(loadFlags);
+                ramf.setAsyncExecutor(asyncExecutor);
             }
             regionCache.put(regionXZ, ramf);
         }
@@ -146,8 +184,10 @@ public class McaWorld implements Closeable {
     }
 
     public TerrainChunk getChunk(IntPointXZ chunkXZ) throws IOException {
-        if (chunkCache.containsKey(chunkXZ))  // strategy allows caching of nulls
-            return chunkCache.get(chunkXZ);
+        synchronized (chunkCache) {
+            if (chunkCache.containsKey(chunkXZ))  // strategy allows caching of nulls
+                return chunkCache.get(chunkXZ);
+        }
 
         var region = getRegion(chunkXZ.transformChunkToRegion());
 
@@ -156,10 +196,198 @@ public class McaWorld implements Closeable {
             chunk = region.readAbsolute(chunkXZ);
         }
         // TODO: mode != "r" - create new chunk
-        chunkCache.put(chunkXZ, chunk);
+        synchronized (chunkCache) {
+            chunkCache.put(chunkXZ, chunk);
+        }
         return chunk;
     }
 
+    /**
+     * Gets the chunk without blocking the calling thread, see {@link RandomAccessMcaFile#readAsync(int)}.
+     * <p>Concurrent requests for the same chunk share a single load. Like {@link #getChunk(IntPointXZ)} the result,
+     * including null for chunks which don't exist, is cached. May be called from any thread, but not concurrently
+     * with the blocking methods.</p>
+     * @return Future of the chunk, or of null if it doesn't exist.
+     */
+    public CompletableFuture<TerrainChunk> getChunkAsync(IntPointXZ chunkXZ) {
+        synchronized (chunkCache) {
+            if (chunkCache.containsKey(chunkXZ))
+                return CompletableFuture.completedFuture(chunkCache.get(chunkXZ));
+        }
+        CompletableFuture<TerrainChunk> load = new CompletableFuture<>();
+        CompletableFuture<TerrainChunk> existing = pendingChunkLoads.putIfAbsent(chunkXZ, load);
+        if (existing != null) {
+            // callers get copies so that one of them completing or cancelling it doesn't affect the others
+            return existing.copy();
+        }
+        CompletableFuture<TerrainChunk> read;
+        synchronized (chunkCache) {
+            // the previous load may have completed between the cache check and claiming the load
+            read = chunkCache.containsKey(chunkXZ) ? CompletableFuture.completedFuture(chunkCache.get(chunkXZ)) : null;
+        }
+        if (read == null) {
+            try {
+                var region = getRegion(chunkXZ.transformChunkToRegion());
+                read = region != null
+                        ? region.readAsync(McaFileBase.getChunkIndex(chunkXZ.getX(), chunkXZ.getZ()))
+                        : CompletableFuture.completedFuture(null);
+            } catch (IOException | RuntimeException ex) {
+                read = CompletableFuture.failedFuture(ex);
+            }
+            read = read.thenApply(chunk -> {
+                synchronized (chunkCache) {
+                    chunkCache.put(chunkXZ, chunk);
+                }
+                return chunk;
+            });
+        }
+        read.whenComplete((chunk, ex) -> {
+            pendingChunkLoads.remove(chunkXZ, load);
+            if (ex != null) load.completeExceptionally(ex);
+            else load.complete(chunk);
+        });
+        return load.copy();
+    }
+
+    public CompletableFuture<TerrainChunk> getChunkAsync(int chunkX, int chunkZ) {
+        return getChunkAsync(new IntPointXZ(chunkX, chunkZ));
+    }
+
+    /**
+     * Reads only the headers of all of this world's region, entities and poi files, in parallel on the
+     * {@link #asyncExecutor()}, see {@link McaWorldIndex}.
+     */
+    public McaWorldIndex scanIndex() throws IOException {
+        return McaWorldIndex.scan(new File(worldRootDir), asyncExecutor);
+    }
+
+    /**
+     * Returns a spliterator over every chunk in the world's region files which splits over whole region files.
+     * Each region file is read by its own read-only {@link RandomAccessMcaFile}, independent of the regions opened by
+     * this world, which is opened when its split reaches it and closed once exhausted; so splits may be consumed
+     * concurrently, as {@code chunkStream().parallel()} does. Chunks are read with {@link #loadFlags()} and are not
+     * cached. Only validly named (r.X.Z.mca) files are read. Consume the spliterator fully, or the region file
+     * it's reading remains open; {@link #chunkStream()} doesn't have this restriction.
+     * @see RandomAccessMcaFile#chunkSpliterator(long)
+     */
+    public Spliterator<TerrainChunk> chunkSpliterator() {
+        File[] files = Path.of(worldRootDir, "region").toFile()
+                .listFiles(f -> f.isFile() && McaFileHelpers.isValidMcaFileName(f) && f.length() > 0);
+        if (files == null) files = new File[0];
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return new RegionFilesSpliterator(files, 0, files.length, loadFlags, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Streams every chunk in the world's region files, see {@link #chunkSpliterator()}. Short-circuiting operations
+     * such as {@code findFirst} or {@code limit} leave the region files being read open until the stream is closed,
+     * so always close it, e.g. with try-with-resources.
+     * @see #chunkSpliterator()
+     */
+    public Stream<TerrainChunk> chunkStream() {
+        RegionFilesSpliterator spliterator = (RegionFilesSpliterator) chunkSpliterator();
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::closeAll);
+    }
+
+    private static final class RegionFilesSpliterator implements Spliterator<TerrainChunk> {
+        private final File[] files;
+        private final long loadFlags;
+        /** Region files open in this spliterator and all splits of it, so a stream can close them. */
+        private final Set<RandomAccessMcaFile<TerrainChunk>> open;
+        private int pos;
+        private int end;
+        private RandomAccessMcaFile<TerrainChunk> current;
+        private Spliterator<TerrainChunk> currentChunks;
+
+        RegionFilesSpliterator(File[] files, int pos, int end, long loadFlags, Set<RandomAccessMcaFile<TerrainChunk>> open) {
+            this.files = files;
+            this.pos = pos;
+            this.end = end;
+            this.loadFlags = loadFlags;
+            this.open = open;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super TerrainChunk> action) {
+            try {
+                while (true) {
+                    if (currentChunks == null) {
+                        if (pos >= end) return false;
+                        current = new RandomAccessMcaFile<>(TerrainChunk.class, files[pos++], "r");
+                        open.add(current);
+                        currentChunks = current.chunkSpliterator(loadFlags);
+                    }
+                    if (currentChunks.tryAdvance(action)) return true;
+                    closeCurrent();
+                }
+            } catch (IOException ex) {
+                closeQuietly();
+                throw new SilentIOException(ex);
+            } catch (RuntimeException ex) {
+                closeQuietly();
+                throw ex;
+            }
+        }
+
+        private void closeCurrent() throws IOException {
+            RandomAccessMcaFile<TerrainChunk> ramf = current;
+            current = null;
+            currentChunks = null;
+            if (ramf != null) {
+                open.remove(ramf);
+                ramf.close();
+            }
+        }
+
+        /** Closes the region files still open in this spliterator and its splits. */
+        void closeAll() {
+            IOException failure = null;
+            for (RandomAccessMcaFile<TerrainChunk> ramf : open) {
+                open.remove(ramf);
+                try {
+                    ramf.close();
+                } catch (IOException ex) {
+                    if (failure == null) failure = ex;
+                }
+            }
+            if (failure != null) throw new SilentIOException(failure);
+        }
+
+        private void closeQuietly() {
+            try {
+                closeCurrent();
+            } catch (IOException ignore) {
+            }
+        }
+
+        /**
+         * Splits off the later half of the region files which haven't been started yet. Region files are
+         * handed out whole, which is why this spliterator isn't {@link #ORDERED}.
+         */
+        @Override
+        public Spliterator<TerrainChunk> trySplit() {
+            int remaining = end - pos;
+            // a file being read stays with this spliterator, so it may give away all the others
+            int take = currentChunks == null ? remaining / 2 : (remaining + 1) / 2;
+            if (take == 0) return null;
+            int split = end - take;
+            Spliterator<TerrainChunk> suffix = new RegionFilesSpliterator(files, split, end, loadFlags, open);
+            end = split;
+            return suffix;
+        }
+
+        /** Region files are assumed to be full, their headers aren't read until they are started. */
+        @Override
+        public long estimateSize() {
+            return (end - pos) * 1024L + (currentChunks != null ? currentChunks.estimateSize() : 0);
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+
     /**
      * @param heightmap typically one of
      * <ul>
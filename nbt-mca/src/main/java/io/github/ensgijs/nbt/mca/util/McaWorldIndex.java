@@ -0,0 +1,330 @@
+package io.github.ensgijs.nbt.mca.util;
+
+import io.github.ensgijs.nbt.mca.McaFileBase;
+import io.github.ensgijs.nbt.mca.io.CorruptMcaFileException;
+import io.github.ensgijs.nbt.mca.io.McaFileHelpers;
+import io.github.ensgijs.nbt.util.ArgValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Index of which chunks exist in a world, when each was last updated and how many sectors each occupies.
+ * Built by {@link #scan(File, Executor)} which reads only the 8KB header of each region, entities and poi .mca
+ * file, in parallel, never any chunk data. Memory use is roughly 8KB per region file.
+ *
+ * <p>Chunk types are named by the folder their .mca files live in, see {@link #MCA_TYPES}. Query methods accept
+ * absolute chunk coordinates and treat unknown types, regions, and chunks alike as "doesn't exist".</p>
+ * @see McaWorld#scanIndex()
+ */
+public class McaWorldIndex {
+    public static final String REGION = "region";
+    public static final String ENTITIES = "entities";
+    public static final String POI = "poi";
+    /** The mca folder names {@link #scan(File)} looks in. */
+    public static final List<String> MCA_TYPES = List.of(REGION, ENTITIES, POI);
+
+    private final Map<String, Map<IntPointXZ, RegionHeader>> headers;
+    private final Map<File, IOException> failures;
+
+    /** @param headers region headers by mca type, by region XZ */
+    public McaWorldIndex(Map<String, Map<IntPointXZ, RegionHeader>> headers) {
+        this(headers, Collections.emptyMap());
+    }
+
+    /**
+     * @param headers region headers by mca type, by region XZ
+     * @param failures mca files whose header couldn't be read, and why
+     */
+    public McaWorldIndex(Map<String, Map<IntPointXZ, RegionHeader>> headers, Map<File, IOException> failures) {
+        Map<String, Map<IntPointXZ, RegionHeader>> copy = new HashMap<>();
+        for (Map.Entry<String, Map<IntPointXZ, RegionHeader>> entry : headers.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+        }
+        this.headers = Collections.unmodifiableMap(copy);
+        this.failures = Collections.unmodifiableMap(new HashMap<>(failures));
+    }
+
+    /**
+     * Scans the headers of all region, entities and poi files of the world on {@link ForkJoinPool#commonPool()}.
+     * @see #scan(File, Executor)
+     */
+    public static McaWorldIndex scan(File worldRootDir) throws IOException {
+        return scan(worldRootDir, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Scans the headers of all region, entities and poi files of the world, reading them in parallel on the
+     * given executor. Missing folders are fine, empty .mca files are indexed as regions without chunks.
+     * Files which can't be read, such as non-empty files too short to hold a header, are left out of the index and
+     * reported by {@link #getFailures()} instead of failing the scan.
+     */
+    public static McaWorldIndex scan(File worldRootDir, Executor executor) throws IOException {
+        ArgValidator.requireValue(worldRootDir, "worldRootDir");
+        ArgValidator.requireValue(executor, "executor");
+        Map<String, List<CompletableFuture<RegionHeader>>> futures = new HashMap<>();
+        Map<File, IOException> failures = new ConcurrentHashMap<>();
+        for (String type : MCA_TYPES) {
+            File[] files = new File(worldRootDir, type).listFiles(f -> f.isFile() && McaFileHelpers.isValidMcaFileName(f));
+            List<CompletableFuture<RegionHeader>> typeFutures = new ArrayList<>();
+            if (files != null) {
+                for (File file : files) {
+                    typeFutures.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return RegionHeader.read(file);
+                        } catch (IOException ex) {
+                            failures.put(file, ex);
+                            return null;
+                        }
+                    }, executor));
+                }
+            }
+            futures.put(type, typeFutures);
+        }
+        Map<String, Map<IntPointXZ, RegionHeader>> headers = new HashMap<>();
+        for (Map.Entry<String, List<CompletableFuture<RegionHeader>>> entry : futures.entrySet()) {
+            Map<IntPointXZ, RegionHeader> typeHeaders = new HashMap<>();
+            for (CompletableFuture<RegionHeader> future : entry.getValue()) {
+                RegionHeader header = future.join();
+                if (header != null) typeHeaders.put(header.getRegionXZ(), header);
+            }
+            headers.put(entry.getKey(), typeHeaders);
+        }
+        return new McaWorldIndex(headers, failures);
+    }
+
+    /** @return unmodifiable map of the mca files {@link #scan(File, Executor)} couldn't read, to the reason. */
+    public Map<File, IOException> getFailures() {
+        return failures;
+    }
+
+    /** @return mca types which have at least one region in this index. */
+    public Set<String> types() {
+        Set<String> types = new TreeSet<>();
+        headers.forEach((type, regions) -> {
+            if (!regions.isEmpty()) types.add(type);
+        });
+        return types;
+    }
+
+    /** @return unmodifiable map of region headers, by region XZ; empty for unknown types. */
+    public Map<IntPointXZ, RegionHeader> getRegions(String type) {
+        return headers.getOrDefault(type, Collections.emptyMap());
+    }
+
+    /** @return the header of the region, or null if there's no such region file. */
+    public RegionHeader getRegion(String type, IntPointXZ regionXZ) {
+        return getRegions(type).get(regionXZ);
+    }
+
+    private RegionHeader regionOfChunk(String type, int chunkX, int chunkZ) {
+        return getRegion(type, new IntPointXZ(chunkX >> 5, chunkZ >> 5));
+    }
+
+    public boolean hasChunk(String type, int chunkX, int chunkZ) {
+        RegionHeader region = regionOfChunk(type, chunkX, chunkZ);
+        return region != null && region.hasChunk(McaFileBase.getChunkIndex(chunkX, chunkZ));
+    }
+
+    public boolean hasChunk(String type, IntPointXZ chunkXZ) {
+        return hasChunk(type, chunkXZ.getX(), chunkXZ.getZ());
+    }
+
+    /** @return mca last updated timestamp (epoch seconds) of the chunk, or 0 if it doesn't exist. */
+    public int getChunkTimestamp(String type, int chunkX, int chunkZ) {
+        RegionHeader region = regionOfChunk(type, chunkX, chunkZ);
+        return region != null ? region.getTimestamp(McaFileBase.getChunkIndex(chunkX, chunkZ)) : 0;
+    }
+
+    /** @return mca last updated timestamp (epoch seconds) of the chunk, or 0 if it doesn't exist. */
+    public int getChunkTimestamp(String type, IntPointXZ chunkXZ) {
+        return getChunkTimestamp(type, chunkXZ.getX(), chunkXZ.getZ());
+    }
+
+    /** @return number of 4KB sectors the chunk occupies, or 0 if it doesn't exist. */
+    public int getChunkSectorCount(String type, int chunkX, int chunkZ) {
+        RegionHeader region = regionOfChunk(type, chunkX, chunkZ);
+        return region != null ? region.getSectorCount(McaFileBase.getChunkIndex(chunkX, chunkZ)) : 0;
+    }
+
+    /** @return number of 4KB sectors the chunk occupies, or 0 if it doesn't exist. */
+    public int getChunkSectorCount(String type, IntPointXZ chunkXZ) {
+        return getChunkSectorCount(type, chunkXZ.getX(), chunkXZ.getZ());
+    }
+
+    /** @return total number of chunks of the given type. */
+    public long chunkCount(String type) {
+        long count = 0;
+        for (RegionHeader region : getRegions(type).values()) {
+            count += region.chunkCount();
+        }
+        return count;
+    }
+
+    /** @return total number of 4KB sectors used by chunks of the given type. */
+    public long sectorCount(String type) {
+        long count = 0;
+        for (RegionHeader region : getRegions(type).values()) {
+            count += region.sectorCount();
+        }
+        return count;
+    }
+
+    /** @return absolute chunk XZ of every chunk of the given type, in no particular order. */
+    public Stream<IntPointXZ> chunks(String type) {
+        return getRegions(type).values().stream().flatMap(RegionHeader::chunks);
+    }
+
+    /** @return absolute chunk XZ of every chunk of the given type which was last updated at or after the given time. */
+    public Stream<IntPointXZ> chunksUpdatedSince(String type, int epochSeconds) {
+        return getRegions(type).values().stream().flatMap(region -> region.chunkIndices()
+                .filter(i -> Integer.compareUnsigned(region.getTimestamp(i), epochSeconds) >= 0)
+                .mapToObj(region::indexToAbsoluteXZ));
+    }
+
+    /**
+     * The decoded header of one .mca file.
+     */
+    public static final class RegionHeader {
+        private final IntPointXZ regionXZ;
+        private final long fileLength;
+        private final long lastModified;
+        private final BitSet present;
+        /** Packed as stored in the file, sector offset << 8 | sector count. */
+        private final int[] sectors;
+        private final int[] timestamps;
+
+        /**
+         * @param sectors    1024 entries, packed as in the mca file: sector offset << 8 | sector count
+         * @param timestamps 1024 entries, epoch seconds
+         */
+        public RegionHeader(IntPointXZ regionXZ, long fileLength, long lastModified, int[] sectors, int[] timestamps) {
+            ArgValidator.check(sectors.length == 1024 && timestamps.length == 1024, "expected 1024 entries");
+            this.regionXZ = ArgValidator.requireValue(regionXZ, "regionXZ");
+            this.fileLength = fileLength;
+            this.lastModified = lastModified;
+            this.sectors = sectors.clone();
+            this.timestamps = timestamps.clone();
+            this.present = new BitSet(1024);
+            for (int i = 0; i < 1024; i++) {
+                if ((sectors[i] & 0xFF) != 0) {
+                    present.set(i);
+                } else {
+                    this.timestamps[i] = 0;
+                }
+            }
+        }
+
+        /**
+         * Reads only the header of the given .mca file.
+         * @throws CorruptMcaFileException if the file isn't empty but too short to hold a header.
+         */
+        public static RegionHeader read(File file) throws IOException {
+            IntPointXZ regionXZ = McaFileHelpers.regionXZFromFileName(file.getName());
+            int[] sectors = new int[1024];
+            int[] timestamps = new int[1024];
+            long length;
+            long lastModified = file.lastModified();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                length = channel.size();
+                if (length > 0) {
+                    if (length < 8192) {
+                        throw new CorruptMcaFileException(String.format(
+                                "%s is %d bytes, too short to hold an mca header", file.getName(), length));
+                    }
+                    ByteBuffer bb = ByteBuffer.allocate(8192);
+                    while (bb.hasRemaining()) {
+                        if (channel.read(bb, bb.position()) < 0) {
+                            throw new CorruptMcaFileException("unexpected end of file reading the header of " + file.getName());
+                        }
+                    }
+                    IntBuffer ib = bb.flip().asIntBuffer();
+                    ib.get(sectors);
+                    ib.get(timestamps);
+                }
+            }
+            return new RegionHeader(regionXZ, length, lastModified, sectors, timestamps);
+        }
+
+        public IntPointXZ getRegionXZ() {
+            return regionXZ;
+        }
+
+        /** @return size of the file when the header was read. */
+        public long getFileLength() {
+            return fileLength;
+        }
+
+        /** @return last modified time of the file, in epoch millis, when the header was read. */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public boolean hasChunk(int index) {
+            return present.get(index);
+        }
+
+        /** @return mca last updated timestamp (epoch seconds) of the chunk, or 0 if it doesn't exist. */
+        public int getTimestamp(int index) {
+            return timestamps[index];
+        }
+
+        /** @return number of 4KB sectors the chunk occupies, or 0 if it doesn't exist. */
+        public int getSectorCount(int index) {
+            return sectors[index] & 0xFF;
+        }
+
+        /** @return 4KB sector the chunk starts at, or 0 if it doesn't exist. */
+        public int getSectorOffset(int index) {
+            return sectors[index] >>> 8;
+        }
+
+        /** @return packed sector table entry, sector offset << 8 | sector count, as stored in the file. */
+        public int getPackedSectors(int index) {
+            return sectors[index];
+        }
+
+        public int chunkCount() {
+            return present.cardinality();
+        }
+
+        /** @return total number of 4KB sectors used by chunks, not counting the header. */
+        public int sectorCount() {
+            int count = 0;
+            for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                count += sectors[i] & 0xFF;
+            }
+            return count;
+        }
+
+        /** @return indices of the chunks which exist, ascending. */
+        public IntStream chunkIndices() {
+            return present.stream();
+        }
+
+        /** @return absolute chunk XZ of the chunks which exist, in index order. */
+        public Stream<IntPointXZ> chunks() {
+            return chunkIndices().mapToObj(this::indexToAbsoluteXZ);
+        }
+
+        public IntPointXZ indexToAbsoluteXZ(int index) {
+            return McaFileBase.getRelativeChunkXZ(index).add(regionXZ.transformRegionToChunk());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("r.%d.%d.mca %d chunks, %d sectors", regionXZ.getX(), regionXZ.getZ(), chunkCount(), sectorCount());
+        }
+    }
+}
@@ -0,0 +1,953 @@
+package io.github.ensgijs.nbt.mca.util;
+
+import io.github.ensgijs.nbt.mca.ChunkBase;
+import io.github.ensgijs.nbt.mca.McaFileBase;
+import io.github.ensgijs.nbt.mca.TerrainChunkBase;
+import io.github.ensgijs.nbt.mca.io.CorruptMcaFileException;
+import io.github.ensgijs.nbt.mca.io.McaFileHelpers;
+import io.github.ensgijs.nbt.mca.io.RandomAccessMcaFile;
+import io.github.ensgijs.nbt.query.NbtPath;
+import io.github.ensgijs.nbt.query.NbtPathSet;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.tag.StringTag;
+import io.github.ensgijs.nbt.util.ArgValidator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Persistent, versioned binary manifest of a world's mca files. For every chunk of every region, entities and poi
+ * file it records the chunk's sector location and size, its last updated timestamp, {@code DataVersion},
+ * {@code Status} and optional user fields. It's stored as {@value #FILE_NAME} in the world root directory, next to
+ * the region folders, and loaded with a single sequential read; so services learn the layout of a world without
+ * listing directories and opening every region header.
+ *
+ * <p>Each region is stored as one record, and between compactions the file is append-only: updating a region
+ * appends a new record which supersedes the older one. {@link #save()} rewrites (compacts) the file, which is also
+ * done automatically once superseded records outweigh live ones.</p>
+ *
+ * <p>Once a manifest exists {@link RandomAccessMcaFile#flush()} (so also close) and
+ * {@link io.github.ensgijs.nbt.mca.io.McaFileStreamingWriter#close()} append the region they wrote, including the
+ * DataVersion and Status of the chunks they wrote. A manifest which can't be updated doesn't fail those writes,
+ * the failure is logged instead. Every region record also holds the size and last modified time
+ * of its mca file; {@link #refresh(Executor, boolean)} compares those against the file system and rescans only the
+ * headers of files changed by other means, such as by the game itself.</p>
+ *
+ * <p>DataVersion and Status of chunks which weren't written through this library are only known if chunk data was
+ * read by passing {@code readChunkDetails}, otherwise they are 0 and null. Updates are serialized within one
+ * process, concurrent writers in multiple processes are not supported.</p>
+ * @see McaWorldIndex
+ */
+public class McaWorldManifest {
+    public static final String FILE_NAME = "mca-manifest.bin";
+    /** Version of the file format written by this class; files with a newer version are rejected. */
+    public static final int FORMAT_VERSION = 1;
+
+    // File format, all big endian:
+    //   header: int magic, int format version, long generation (changes on every compaction)
+    //   records: int length (of the rest of the record), byte kind, string type, int regionX, int regionZ, then
+    //     for RECORD_REGION: long file length, long file last modified, int string count, strings,
+    //       int chunk count, per chunk: short index, int packed sectors, int timestamp, int data version,
+    //       int status string id (-1 for null), byte user field count, per field: int key id, int value id
+    //   strings are a short byte length followed by UTF-8 bytes
+    // A record cut short by a crash while appending is ignored, as is anything after it.
+    private static final int MAGIC = 0x4D43414D;  // "MCAM"
+    private static final int HEADER_SIZE = 16;
+    private static final byte RECORD_REGION = 1;
+    private static final byte RECORD_REGION_REMOVED = 2;
+    /** Don't bother compacting files smaller than this. */
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+    private static final Map<Path, ManifestLock> LOCKS = new ConcurrentHashMap<>();
+    private static final System.Logger LOGGER = System.getLogger(McaWorldManifest.class.getName());
+    private static final NbtPathSet DETAIL_PATHS = NbtPathSet.of(
+            NbtPath.of("DataVersion"), NbtPath.of("Status"), NbtPath.of("Level.Status"));
+
+    private final File worldRootDir;
+    private final Path file;
+    private final Map<String, Map<IntPointXZ, RegionEntry>> regions = new HashMap<>();
+    private long generation;
+    /** Offset after the last record read, 0 if nothing was read yet. */
+    private long parsedLength;
+    private long liveBytes;
+    private long supersededBytes;
+
+    private McaWorldManifest(File worldRootDir) {
+        this.worldRootDir = ArgValidator.requireValue(worldRootDir, "worldRootDir").getAbsoluteFile();
+        this.file = manifestFile(this.worldRootDir).toPath();
+    }
+
+    public static File manifestFile(File worldRootDir) {
+        return new File(worldRootDir, FILE_NAME);
+    }
+
+    /**
+     * Creates, or replaces, the manifest of the given world by scanning all of its mca files.
+     * @param readChunkDetails when set the data of every chunk is read to learn its DataVersion and Status.
+     *                         This is expensive, but only needs to be done once.
+     */
+    public static McaWorldManifest create(File worldRootDir, Executor executor, boolean readChunkDetails) throws IOException {
+        McaWorldManifest manifest = new McaWorldManifest(worldRootDir);
+        synchronized (lockFor(manifest.file)) {
+            manifest.rescan(executor, readChunkDetails, new ArrayList<>());
+            manifest.save0();
+        }
+        return manifest;
+    }
+
+    /**
+     * Loads the manifest of the given world as is, without checking it against the mca files.
+     * @return the manifest or null if the world doesn't have one.
+     * @see #refresh(Executor, boolean)
+     */
+    public static McaWorldManifest load(File worldRootDir) throws IOException {
+        McaWorldManifest manifest = new McaWorldManifest(worldRootDir);
+        if (!Files.isRegularFile(manifest.file)) return null;
+        synchronized (lockFor(manifest.file)) {
+            manifest.reload();
+        }
+        return manifest;
+    }
+
+    /**
+     * Loads and {@link #refresh(Executor, boolean) refreshes} the manifest of the given world,
+     * or {@link #create(File, Executor, boolean) creates} it if the world doesn't have one.
+     */
+    public static McaWorldManifest open(File worldRootDir, Executor executor, boolean readChunkDetails) throws IOException {
+        McaWorldManifest manifest = load(worldRootDir);
+        if (manifest == null) return create(worldRootDir, executor, readChunkDetails);
+        manifest.refresh(executor, readChunkDetails);
+        return manifest;
+    }
+
+    public File getWorldRootDir() {
+        return worldRootDir;
+    }
+
+    /**
+     * Brings this manifest up to date. First picks up records appended since it was loaded, then compares each
+     * region record with the size and last modified time of its mca file and rescans the headers of new and
+     * changed files only. Changes are appended to the manifest file.
+     * @param readChunkDetails when set the data of new or changed chunks is read to learn their DataVersion and Status.
+     * @return true if any region was added, changed or removed.
+     */
+    public synchronized boolean refresh(Executor executor, boolean readChunkDetails) throws IOException {
+        synchronized (lockFor(file)) {
+            reload();
+            List<byte[]> records = new ArrayList<>();
+            boolean changed = rescan(executor, readChunkDetails, records);
+            appendOrCompact(records);
+            return changed;
+        }
+    }
+
+    /** Rewrites the manifest file, dropping all superseded records. */
+    public synchronized void save() throws IOException {
+        synchronized (lockFor(file)) {
+            reload();
+            save0();
+        }
+    }
+
+    /** @return unmodifiable copy of the region records of the given mca type, by region XZ. */
+    public synchronized Map<IntPointXZ, RegionEntry> getRegions(String type) {
+        return Map.copyOf(regions.getOrDefault(type, Collections.emptyMap()));
+    }
+
+    /** @return the region record or null if there is none. */
+    public synchronized RegionEntry getRegion(String type, IntPointXZ regionXZ) {
+        return regions.getOrDefault(type, Collections.emptyMap()).get(regionXZ);
+    }
+
+    /** @return the chunk record or null if the chunk doesn't exist. */
+    public ChunkEntry getChunk(String type, int chunkX, int chunkZ) {
+        RegionEntry region = getRegion(type, new IntPointXZ(chunkX >> 5, chunkZ >> 5));
+        return region != null ? region.getChunk(McaFileBase.getChunkIndex(chunkX, chunkZ)) : null;
+    }
+
+    /** @return the chunk record or null if the chunk doesn't exist. */
+    public ChunkEntry getChunk(String type, IntPointXZ chunkXZ) {
+        return getChunk(type, chunkXZ.getX(), chunkXZ.getZ());
+    }
+
+    /** @return an index with the sector and timestamp tables of all regions, for its query methods. */
+    public synchronized McaWorldIndex toIndex() {
+        Map<String, Map<IntPointXZ, McaWorldIndex.RegionHeader>> headers = new HashMap<>();
+        regions.forEach((type, typeRegions) -> {
+            Map<IntPointXZ, McaWorldIndex.RegionHeader> typeHeaders = new HashMap<>();
+            typeRegions.forEach((xz, region) -> typeHeaders.put(xz, region.toRegionHeader()));
+            headers.put(type, typeHeaders);
+        });
+        return new McaWorldIndex(headers);
+    }
+
+    /**
+     * Sets, or removes when value is null, a user field of an existing chunk and persists the change.
+     * @return false if the chunk doesn't exist in the manifest.
+     * @see #updateUserFields(String, Map)
+     */
+    public boolean setUserField(String type, IntPointXZ chunkXZ, String key, String value) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(key, value);
+        return updateUserFields(type, Map.of(chunkXZ, fields)) == 1;
+    }
+
+    /**
+     * Sets, or removes where the value is null, user fields of existing chunks and persists the changes with one
+     * record per touched region. User fields are kept until the chunk is removed, even if the chunk is rewritten.
+     * @param changes fields to set by absolute chunk XZ
+     * @return number of chunks which existed and were updated.
+     */
+    public synchronized int updateUserFields(String type, Map<IntPointXZ, Map<String, String>> changes) throws IOException {
+        synchronized (lockFor(file)) {
+            reload();
+            Map<IntPointXZ, ChunkEntry[]> touched = new HashMap<>();
+            int updated = 0;
+            for (Map.Entry<IntPointXZ, Map<String, String>> change : changes.entrySet()) {
+                IntPointXZ chunkXZ = change.getKey();
+                IntPointXZ regionXZ = chunkXZ.transformChunkToRegion();
+                RegionEntry region = getRegion(type, regionXZ);
+                if (region == null) continue;
+                int index = McaFileBase.getChunkIndex(chunkXZ.getX(), chunkXZ.getZ());
+                ChunkEntry[] chunks = touched.computeIfAbsent(regionXZ, k -> region.chunks.clone());
+                if (chunks[index] == null) continue;
+                Map<String, String> fields = new TreeMap<>(chunks[index].userFields);
+                change.getValue().forEach((key, value) -> {
+                    checkStringLength(key);
+                    if (value != null) {
+                        checkStringLength(value);
+                        fields.put(key, value);
+                    } else {
+                        fields.remove(key);
+                    }
+                });
+                ArgValidator.check(fields.size() <= 255, "too many user fields");
+                chunks[index] = chunks[index].withUserFields(fields);
+                updated++;
+            }
+            List<byte[]> records = new ArrayList<>();
+            for (Map.Entry<IntPointXZ, ChunkEntry[]> entry : touched.entrySet()) {
+                RegionEntry old = getRegion(type, entry.getKey());
+                RegionEntry region = new RegionEntry(type, old.regionXZ, old.fileLength, old.lastModified, entry.getValue());
+                records.add(putRegion(region));
+            }
+            appendOrCompact(records);
+            return updated;
+        }
+    }
+
+    private static void checkStringLength(String value) {
+        ArgValidator.check(value.getBytes(StandardCharsets.UTF_8).length <= 0xFFFF, "string too long");
+    }
+
+    /**
+     * Updates the manifest of the world the given mca file belongs to, if the world has a manifest.
+     * Called by {@link RandomAccessMcaFile} and {@link io.github.ensgijs.nbt.mca.io.McaFileStreamingWriter} after
+     * they wrote the header of a file. Where the latest record of every region is, is kept in memory per manifest
+     * file and validated against its generation and length; so only records appended by others since the last
+     * update, and the latest record of the region, to carry over details of chunks which weren't written, are read.
+     * Then the new record is appended; or the manifest is compacted if superseded records outweigh live ones.
+     * <p>Failing to update the manifest must not fail the mca write, so errors are logged rather than thrown.</p>
+     * @param mcaFile the mca file, which must be located in "world root/mca type/"
+     * @param sectors chunk sector table of the file, as written
+     * @param timestamps chunk timestamp table of the file, as written
+     * @param written details of the chunks written, may be null
+     * @return false if the world has a manifest but it couldn't be updated.
+     */
+    public static boolean regionFileWritten(File mcaFile, int[] sectors, int[] timestamps, WrittenChunks written) {
+        File typeDir = mcaFile.getAbsoluteFile().getParentFile();
+        File worldRootDir = typeDir != null ? typeDir.getParentFile() : null;
+        if (worldRootDir == null || !McaFileHelpers.isValidMcaFileName(mcaFile)) return true;
+        Path manifestPath = manifestFile(worldRootDir).toPath();
+        String type = typeDir.getName();
+        if (!McaWorldIndex.MCA_TYPES.contains(type) || !Files.isRegularFile(manifestPath)) return true;
+        IntPointXZ regionXZ = McaFileHelpers.regionXZFromFileName(mcaFile.getName());
+        ManifestLock lock = lockFor(manifestPath);
+        synchronized (lock) {
+            try {
+                RegionEntry region;
+                try (FileChannel channel = FileChannel.open(manifestPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    long generation = readHeader(channel);
+                    long size = channel.size();
+                    RecordIndex index = lock.recordIndex;
+                    if (index == null || index.generation != generation || size < index.end) {
+                        index = lock.recordIndex = new RecordIndex(generation);
+                    }
+                    index.scan(channel, size);
+                    long[] found = index.get(type, regionXZ);
+                    RegionEntry previous = null;
+                    if (found != null) {
+                        ByteBuffer record = ByteBuffer.allocate((int) found[1] - 4);
+                        readFully(channel, record, found[0] + 4);
+                        previous = decodeRecord(record.flip(), (int) found[1]);
+                    }
+                    region = merge(type, regionXZ, mcaFile.length(), mcaFile.lastModified(),
+                            sectors, timestamps, previous, written);
+                    byte[] encoded = encodeRegion(region);
+                    long live = index.liveBytes - (found != null ? found[1] : 0) + encoded.length;
+                    long superseded = index.end - HEADER_SIZE + encoded.length - live;
+                    if (!shouldCompact(live, superseded)) {
+                        long at = index.end;
+                        index.end = append(channel, at, Collections.singletonList(encoded));
+                        index.put(type, regionXZ, at, encoded.length);
+                        return true;
+                    }
+                }
+                lock.recordIndex = null;
+                McaWorldManifest manifest = new McaWorldManifest(worldRootDir);
+                manifest.reload();
+                manifest.putRegion(region);
+                manifest.save0();
+                return true;
+            } catch (IOException | UncheckedIOException ex) {
+                lock.recordIndex = null;
+                LOGGER.log(System.Logger.Level.WARNING, "failed to update world manifest " + manifestPath
+                        + " after writing " + mcaFile, ex);
+                return false;
+            }
+        }
+    }
+
+    // <editor-fold desc="Reading and Writing" defaultstate="collapsed">
+
+    private static ManifestLock lockFor(Path manifestPath) {
+        return LOCKS.computeIfAbsent(manifestPath.toAbsolutePath().normalize(), k -> new ManifestLock());
+    }
+
+    /** Serializes updates of one manifest file within this process; guards the record index. */
+    private static final class ManifestLock {
+        RecordIndex recordIndex;
+    }
+
+    /**
+     * Offset and length of the latest record of every region in one manifest file, as of {@link #end}, so that
+     * {@link #regionFileWritten} only reads what was appended since its last call.
+     */
+    private static final class RecordIndex {
+        final long generation;
+        /** End of the last complete record indexed. */
+        long end = HEADER_SIZE;
+        long liveBytes;
+        /** {offset, length including the length int} by type, by region XZ. */
+        private final Map<String, Map<IntPointXZ, long[]>> latest = new HashMap<>();
+
+        RecordIndex(long generation) {
+            this.generation = generation;
+        }
+
+        long[] get(String type, IntPointXZ regionXZ) {
+            return latest.getOrDefault(type, Collections.emptyMap()).get(regionXZ);
+        }
+
+        void put(String type, IntPointXZ regionXZ, long offset, int recordLength) {
+            long[] old = latest.computeIfAbsent(type, k -> new HashMap<>()).put(regionXZ, new long[] {offset, recordLength});
+            if (old != null) liveBytes -= old[1];
+            liveBytes += recordLength;
+        }
+
+        private void remove(String type, IntPointXZ regionXZ) {
+            long[] old = latest.getOrDefault(type, Collections.emptyMap()).remove(regionXZ);
+            if (old != null) liveBytes -= old[1];
+        }
+
+        /** Indexes the records between {@link #end} and {@code size} with a single read. */
+        void scan(FileChannel channel, long size) throws IOException {
+            if (size <= end) return;
+            ByteBuffer bb = ByteBuffer.allocate(Math.toIntExact(size - end));
+            readFully(channel, bb, end);
+            bb.flip();
+            int parsed = 0;
+            while (bb.remaining() >= 4) {
+                int length = bb.getInt();
+                if (length <= 0 || length > bb.remaining()) break;  // torn append
+                ByteBuffer record = bb.slice(bb.position(), length);
+                bb.position(bb.position() + length);
+                try {
+                    byte kind = record.get();
+                    String type = getString(record);
+                    IntPointXZ regionXZ = new IntPointXZ(record.getInt(), record.getInt());
+                    if (kind == RECORD_REGION) {
+                        put(type, regionXZ, end + parsed, length + 4);
+                    } else if (kind == RECORD_REGION_REMOVED) {
+                        remove(type, regionXZ);
+                    } else {
+                        throw new CorruptMcaFileException("unknown world manifest record kind " + kind);
+                    }
+                } catch (RuntimeException ex) {  // BufferUnderflowException
+                    throw new CorruptMcaFileException("corrupt world manifest record", ex);
+                }
+                parsed = bb.position();
+            }
+            end += parsed;
+        }
+    }
+
+    /** Reads the records appended since the last read, or all of them if the file was rewritten. */
+    private void reload() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileGeneration = readHeader(channel);
+            long size = channel.size();
+            if (parsedLength == 0 || fileGeneration != generation || size < parsedLength) {
+                regions.clear();
+                liveBytes = 0;
+                supersededBytes = 0;
+                generation = fileGeneration;
+                parsedLength = HEADER_SIZE;
+            }
+            if (size <= parsedLength) return;
+            // read onto the heap rather than mapping, a mapping would keep the file from being replaced on Windows
+            ByteBuffer bb = ByteBuffer.allocate(Math.toIntExact(size - parsedLength));
+            readFully(channel, bb, parsedLength);
+            bb.flip();
+            int end = 0;
+            while (bb.remaining() >= 4) {
+                int length = bb.getInt();
+                if (length <= 0 || length > bb.remaining()) break;  // torn append
+                ByteBuffer record = bb.slice(bb.position(), length);
+                bb.position(bb.position() + length);
+                applyRecord(record, length + 4);
+                end = bb.position();
+            }
+            parsedLength += end;
+        }
+    }
+
+    private static long readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new CorruptMcaFileException("world manifest is too short");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new CorruptMcaFileException("not a world manifest");
+        }
+        int version = header.getInt();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("unsupported world manifest format version " + version);
+        }
+        return header.getLong();
+    }
+
+    private void applyRecord(ByteBuffer record, int recordLength) throws IOException {
+        byte kind = record.get(record.position());
+        RegionEntry region = decodeRecord(record, recordLength);
+        if (kind == RECORD_REGION) {
+            putRegion(region);
+        } else {
+            Map<IntPointXZ, RegionEntry> typeRegions = regions.get(region.type);
+            RegionEntry old = typeRegions != null ? typeRegions.remove(region.regionXZ) : null;
+            if (old != null) {
+                liveBytes -= old.recordLength;
+                supersededBytes += old.recordLength;
+            }
+            supersededBytes += recordLength;
+        }
+    }
+
+    /** @return the encoded record */
+    private byte[] putRegion(RegionEntry region) throws IOException {
+        byte[] encoded = region.recordLength == 0 ? encodeRegion(region) : null;
+        RegionEntry old = regions.computeIfAbsent(region.type, k -> new HashMap<>()).put(region.regionXZ, region);
+        if (old != null) {
+            liveBytes -= old.recordLength;
+            supersededBytes += old.recordLength;
+        }
+        liveBytes += region.recordLength;
+        return encoded;
+    }
+
+    private void removeRegion(String type, IntPointXZ regionXZ, List<byte[]> records) throws IOException {
+        RegionEntry old = regions.get(type).remove(regionXZ);
+        byte[] record = encodeRemoval(type, regionXZ);
+        liveBytes -= old.recordLength;
+        supersededBytes += old.recordLength + record.length;
+        records.add(record);
+    }
+
+    private static boolean shouldCompact(long liveBytes, long supersededBytes) {
+        return supersededBytes > liveBytes && supersededBytes + liveBytes > MIN_COMPACTION_BYTES;
+    }
+
+    private void appendOrCompact(List<byte[]> records) throws IOException {
+        if (shouldCompact(liveBytes, supersededBytes)) {
+            save0();
+        } else if (!records.isEmpty()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                parsedLength = append(channel, parsedLength, records);
+            }
+        }
+    }
+
+    /** Writes records at the given offset, dropping anything after it, such as a torn append. */
+    private static long append(FileChannel channel, long at, List<byte[]> records) throws IOException {
+        if (channel.size() > at) channel.truncate(at);
+        for (byte[] record : records) {
+            ByteBuffer bb = ByteBuffer.wrap(record);
+            while (bb.hasRemaining()) {
+                at += channel.write(bb, at);
+            }
+        }
+        channel.force(false);
+        return at;
+    }
+
+    /** Writes all live records to a new file which then atomically replaces the manifest. */
+    private void save0() throws IOException {
+        long newGeneration = ThreadLocalRandom.current().nextLong() | 1;
+        Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+        long length = HEADER_SIZE;
+        long live = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(newGeneration);
+            channel.write(header.flip(), 0);
+            List<byte[]> records = new ArrayList<>();
+            for (Map<IntPointXZ, RegionEntry> typeRegions : regions.values()) {
+                for (RegionEntry region : typeRegions.values()) {
+                    byte[] record = encodeRegion(region);
+                    live += record.length;
+                    records.add(record);
+                }
+            }
+            length = append(channel, length, records);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        generation = newGeneration;
+        parsedLength = length;
+        liveBytes = live;
+        supersededBytes = 0;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer bb, long position) throws IOException {
+        while (bb.hasRemaining()) {
+            if (channel.read(bb, position + bb.position()) < 0) throw new EOFException();
+        }
+    }
+
+    /** Decodes a record, following its length int. Removal records decode to regions without chunks. */
+    private static RegionEntry decodeRecord(ByteBuffer bb, int recordLength) throws IOException {
+        try {
+            byte kind = bb.get();
+            String type = getString(bb);
+            IntPointXZ regionXZ = new IntPointXZ(bb.getInt(), bb.getInt());
+            ChunkEntry[] chunks = new ChunkEntry[1024];
+            if (kind == RECORD_REGION_REMOVED) {
+                RegionEntry region = new RegionEntry(type, regionXZ, 0, 0, chunks);
+                region.recordLength = recordLength;
+                return region;
+            }
+            if (kind != RECORD_REGION) {
+                throw new CorruptMcaFileException("unknown world manifest record kind " + kind);
+            }
+            long fileLength = bb.getLong();
+            long lastModified = bb.getLong();
+            String[] strings = new String[bb.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = getString(bb);
+            }
+            int chunkCount = bb.getInt();
+            for (int i = 0; i < chunkCount; i++) {
+                int index = bb.getShort();
+                int packedSectors = bb.getInt();
+                int timestamp = bb.getInt();
+                int dataVersion = bb.getInt();
+                int statusId = bb.getInt();
+                int fieldCount = bb.get() & 0xFF;
+                Map<String, String> userFields = Collections.emptyMap();
+                if (fieldCount > 0) {
+                    userFields = new TreeMap<>();
+                    for (int j = 0; j < fieldCount; j++) {
+                        userFields.put(strings[bb.getInt()], strings[bb.getInt()]);
+                    }
+                }
+                chunks[index] = new ChunkEntry(index, packedSectors, timestamp, dataVersion,
+                        statusId >= 0 ? strings[statusId] : null, userFields);
+            }
+            RegionEntry region = new RegionEntry(type, regionXZ, fileLength, lastModified, chunks);
+            region.recordLength = recordLength;
+            return region;
+        } catch (RuntimeException ex) {  // BufferUnderflowException, IndexOutOfBoundsException
+            throw new CorruptMcaFileException("corrupt world manifest record", ex);
+        }
+    }
+
+    private static String getString(ByteBuffer bb) {
+        byte[] bytes = new byte[bb.getShort() & 0xFFFF];
+        bb.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Encodes the record, including its length int, and sets the region's record length. */
+    private static byte[] encodeRegion(RegionEntry region) throws IOException {
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        for (ChunkEntry chunk : region.chunks) {
+            if (chunk == null) continue;
+            if (chunk.status != null) stringIds.putIfAbsent(chunk.status, stringIds.size());
+            chunk.userFields.forEach((key, value) -> {
+                stringIds.putIfAbsent(key, stringIds.size());
+                stringIds.putIfAbsent(value, stringIds.size());
+            });
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256 + region.chunkCount() * 19);
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeInt(0);  // length placeholder
+        writeKey(out, RECORD_REGION, region.type, region.regionXZ);
+        out.writeLong(region.fileLength);
+        out.writeLong(region.lastModified);
+        out.writeInt(stringIds.size());
+        for (String s : stringIds.keySet()) {
+            writeString(out, s);
+        }
+        out.writeInt(region.chunkCount());
+        for (ChunkEntry chunk : region.chunks) {
+            if (chunk == null) continue;
+            out.writeShort(chunk.index);
+            out.writeInt(chunk.packedSectors);
+            out.writeInt(chunk.timestamp);
+            out.writeInt(chunk.dataVersion);
+            out.writeInt(chunk.status != null ? stringIds.get(chunk.status) : -1);
+            out.writeByte(chunk.userFields.size());
+            for (Map.Entry<String, String> field : chunk.userFields.entrySet()) {
+                out.writeInt(stringIds.get(field.getKey()));
+                out.writeInt(stringIds.get(field.getValue()));
+            }
+        }
+        byte[] record = bos.toByteArray();
+        ByteBuffer.wrap(record).putInt(record.length - 4);
+        region.recordLength = record.length;
+        return record;
+    }
+
+    private static byte[] encodeRemoval(String type, IntPointXZ regionXZ) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeInt(0);  // length placeholder
+        writeKey(out, RECORD_REGION_REMOVED, type, regionXZ);
+        byte[] record = bos.toByteArray();
+        ByteBuffer.wrap(record).putInt(record.length - 4);
+        return record;
+    }
+
+    private static void writeKey(DataOutputStream out, byte kind, String type, IntPointXZ regionXZ) throws IOException {
+        out.writeByte(kind);
+        writeString(out, type);
+        out.writeInt(regionXZ.getX());
+        out.writeInt(regionXZ.getZ());
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Scanning" defaultstate="collapsed">
+
+    /** Rescans new and changed mca files and drops records of deleted ones, collecting the records to append. */
+    private boolean rescan(Executor executor, boolean readChunkDetails, List<byte[]> records) throws IOException {
+        boolean changed = false;
+        List<CompletableFuture<RegionEntry>> futures = new ArrayList<>();
+        for (String type : McaWorldIndex.MCA_TYPES) {
+            File[] files = new File(worldRootDir, type).listFiles(f -> f.isFile() && McaFileHelpers.isValidMcaFileName(f));
+            Map<IntPointXZ, RegionEntry> typeRegions = regions.computeIfAbsent(type, k -> new HashMap<>());
+            Set<IntPointXZ> onDisk = new HashSet<>();
+            for (File mcaFile : files != null ? files : new File[0]) {
+                IntPointXZ regionXZ = McaFileHelpers.regionXZFromFileName(mcaFile.getName());
+                onDisk.add(regionXZ);
+                RegionEntry previous = typeRegions.get(regionXZ);
+                if (previous != null && previous.matches(mcaFile)) continue;
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return scanRegion(type, mcaFile, previous, readChunkDetails);
+                    } catch (IOException ex) {
+                        throw new CompletionException(ex);
+                    }
+                }, executor));
+            }
+            for (IntPointXZ regionXZ : new ArrayList<>(typeRegions.keySet())) {
+                if (!onDisk.contains(regionXZ)) {
+                    removeRegion(type, regionXZ, records);
+                    changed = true;
+                }
+            }
+        }
+        try {
+            for (CompletableFuture<RegionEntry> future : futures) {
+                records.add(putRegion(future.join()));
+                changed = true;
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof IOException ioEx) throw ioEx;
+            throw ex;
+        }
+        return changed;
+    }
+
+    private static RegionEntry scanRegion(String type, File mcaFile, RegionEntry previous, boolean readChunkDetails) throws IOException {
+        McaWorldIndex.RegionHeader header = McaWorldIndex.RegionHeader.read(mcaFile);
+        int[] sectors = new int[1024];
+        int[] timestamps = new int[1024];
+        for (int i = 0; i < 1024; i++) {
+            sectors[i] = header.getPackedSectors(i);
+            timestamps[i] = header.getTimestamp(i);
+        }
+        RegionEntry region = merge(type, header.getRegionXZ(), header.getFileLength(), header.getLastModified(),
+                sectors, timestamps, previous, null);
+        if (readChunkDetails && region.chunks().anyMatch(c -> c.dataVersion == 0)) {
+            ChunkEntry[] chunks = region.chunks.clone();
+            // the chunk class doesn't matter, projections never create chunks
+            try (RandomAccessMcaFile<ChunkBase> mca = new RandomAccessMcaFile<>(ChunkBase.class, mcaFile, "r")) {
+                for (int i = 0; i < 1024; i++) {
+                    if (chunks[i] == null || chunks[i].dataVersion != 0) continue;
+                    Object[] values = mca.readProjection(i, DETAIL_PATHS);
+                    if (values == null) continue;
+                    int dataVersion = values[0] instanceof IntTag tag ? tag.asInt() : 0;
+                    String status = values[1] instanceof StringTag tag ? tag.getValue()
+                            : values[2] instanceof StringTag legacyTag ? legacyTag.getValue() : null;
+                    chunks[i] = chunks[i].withDetails(dataVersion, status);
+                }
+            }
+            region = new RegionEntry(type, region.regionXZ, region.fileLength, region.lastModified, chunks);
+        }
+        return region;
+    }
+
+    /**
+     * Builds the record of a region from its header tables. Chunks which were written take their details from
+     * {@code written}, chunks which didn't move keep theirs from {@code previous}, all others are unknown.
+     * User fields are kept for as long as the chunk exists.
+     */
+    private static RegionEntry merge(String type, IntPointXZ regionXZ, long fileLength, long lastModified,
+                                     int[] sectors, int[] timestamps, RegionEntry previous, WrittenChunks written) {
+        ChunkEntry[] chunks = new ChunkEntry[1024];
+        for (int i = 0; i < 1024; i++) {
+            if ((sectors[i] & 0xFF) == 0) continue;
+            ChunkEntry old = previous != null ? previous.chunks[i] : null;
+            Map<String, String> userFields = old != null ? old.userFields : Collections.emptyMap();
+            int dataVersion = 0;
+            String status = null;
+            if (written != null && written.isWritten(i)) {
+                dataVersion = written.getDataVersion(i);
+                status = written.getStatus(i);
+            } else if (old != null && old.packedSectors == sectors[i] && old.timestamp == timestamps[i]) {
+                dataVersion = old.dataVersion;
+                status = old.status;
+            }
+            chunks[i] = new ChunkEntry(i, sectors[i], timestamps[i], dataVersion, status, userFields);
+        }
+        return new RegionEntry(type, regionXZ, fileLength, lastModified, chunks);
+    }
+
+    // </editor-fold>
+
+    /**
+     * Record of one mca file.
+     */
+    public static final class RegionEntry {
+        private final String type;
+        private final IntPointXZ regionXZ;
+        private final long fileLength;
+        private final long lastModified;
+        private final ChunkEntry[] chunks;
+        /** Bytes the record takes in the manifest file, 0 if it was never encoded. */
+        private int recordLength;
+
+        private RegionEntry(String type, IntPointXZ regionXZ, long fileLength, long lastModified, ChunkEntry[] chunks) {
+            this.type = type;
+            this.regionXZ = regionXZ;
+            this.fileLength = fileLength;
+            this.lastModified = lastModified;
+            this.chunks = chunks;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public IntPointXZ getRegionXZ() {
+            return regionXZ;
+        }
+
+        /** @return size of the mca file when this record was made. */
+        public long getFileLength() {
+            return fileLength;
+        }
+
+        /** @return last modified time, in epoch millis, of the mca file when this record was made. */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /** @return true if the size and last modified time of the file match this record. */
+        public boolean matches(File mcaFile) {
+            return mcaFile.length() == fileLength && mcaFile.lastModified() == lastModified;
+        }
+
+        /** @return the chunk record or null if the chunk doesn't exist. */
+        public ChunkEntry getChunk(int index) {
+            return chunks[index];
+        }
+
+        public int chunkCount() {
+            int count = 0;
+            for (ChunkEntry chunk : chunks) {
+                if (chunk != null) count++;
+            }
+            return count;
+        }
+
+        /** @return records of the chunks which exist, in index order. */
+        public Stream<ChunkEntry> chunks() {
+            return Arrays.stream(chunks).filter(Objects::nonNull);
+        }
+
+        public McaWorldIndex.RegionHeader toRegionHeader() {
+            int[] sectors = new int[1024];
+            int[] timestamps = new int[1024];
+            for (ChunkEntry chunk : chunks) {
+                if (chunk == null) continue;
+                sectors[chunk.index] = chunk.packedSectors;
+                timestamps[chunk.index] = chunk.timestamp;
+            }
+            return new McaWorldIndex.RegionHeader(regionXZ, fileLength, lastModified, sectors, timestamps);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s/r.%d.%d.mca %d chunks", type, regionXZ.getX(), regionXZ.getZ(), chunkCount());
+        }
+    }
+
+    /**
+     * Record of one chunk.
+     */
+    public static final class ChunkEntry {
+        private final int index;
+        private final int packedSectors;
+        private final int timestamp;
+        private final int dataVersion;
+        private final String status;
+        private final Map<String, String> userFields;
+
+        private ChunkEntry(int index, int packedSectors, int timestamp, int dataVersion, String status, Map<String, String> userFields) {
+            this.index = index;
+            this.packedSectors = packedSectors;
+            this.timestamp = timestamp;
+            this.dataVersion = dataVersion;
+            this.status = status;
+            this.userFields = userFields;
+        }
+
+        private ChunkEntry withDetails(int dataVersion, String status) {
+            return new ChunkEntry(index, packedSectors, timestamp, dataVersion, status, userFields);
+        }
+
+        private ChunkEntry withUserFields(Map<String, String> userFields) {
+            return new ChunkEntry(index, packedSectors, timestamp, dataVersion, status,
+                    userFields.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(userFields));
+        }
+
+        /** @return index of the chunk within its region. */
+        public int getIndex() {
+            return index;
+        }
+
+        /** @return 4KB sector the chunk data starts at. */
+        public int getSectorOffset() {
+            return packedSectors >>> 8;
+        }
+
+        /** @return number of 4KB sectors the chunk data occupies. */
+        public int getSectorCount() {
+            return packedSectors & 0xFF;
+        }
+
+        /** @return mca last updated timestamp, in epoch seconds. */
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        /** @return the chunk's DataVersion, 0 if unknown. */
+        public int getDataVersion() {
+            return dataVersion;
+        }
+
+        /** @return the chunk's Status, null if unknown or not a terrain chunk. */
+        public String getStatus() {
+            return status;
+        }
+
+        /** @return unmodifiable user fields, sorted by key. */
+        public Map<String, String> getUserFields() {
+            return userFields;
+        }
+
+        public String getUserField(String key) {
+            return userFields.get(key);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%04d at 0x%X+%X; timestamp %d; DataVersion %d; Status %s",
+                    index, getSectorOffset(), getSectorCount(), timestamp, dataVersion, status);
+        }
+    }
+
+    /**
+     * Collects the DataVersion and Status of the chunks written to one mca file, see
+     * {@link #regionFileWritten(File, int[], int[], WrittenChunks)}.
+     */
+    public static final class WrittenChunks {
+        private final BitSet written = new BitSet(1024);
+        private final int[] dataVersions = new int[1024];
+        private final String[] statuses = new String[1024];
+
+        public synchronized void record(ChunkBase chunk) {
+            record(chunk.getIndex(), chunk.getDataVersion(),
+                    chunk instanceof TerrainChunkBase<?> terrain ? terrain.getStatus() : null);
+        }
+
+        public synchronized void record(int index, int dataVersion, String status) {
+            written.set(index);
+            dataVersions[index] = dataVersion;
+            statuses[index] = status;
+        }
+
+        public synchronized boolean isWritten(int index) {
+            return written.get(index);
+        }
+
+        public synchronized int getDataVersion(int index) {
+            return dataVersions[index];
+        }
+
+        public synchronized String getStatus(int index) {
+            return statuses[index];
+        }
+    }
+}
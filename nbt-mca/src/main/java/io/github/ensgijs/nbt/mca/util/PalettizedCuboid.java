@@ -285,6 +285,8 @@ public class PalettizedCuboid<E extends Tag<?>> implements TagWrapper<CompoundTa
 
     /**
      * Counts the number of data entries which match the given filter.
+     * <p>Each palette entry is hashed before and after the filter call to detect modification. Palette entries are
+     * not frozen by this class, so this walks each entry's tree (only hash codes of immutable tags are cached).</p>
      */
     public int countIf(Predicate<E> filter) {
         Collection<Integer> counting = new HashSet<>();
@@ -900,7 +902,7 @@ public class PalettizedCuboid<E extends Tag<?>> implements TagWrapper<CompoundTa
             if (expectPaletteModCount != paletteModCount) {
                 throw new ConcurrentModificationException();
             }
-            if (currentIndex >= 0 && currentPaletteHash != get(currentIndex).hashCode()) {
+            if (currentIndex >= 0 && currentPaletteHash != getByRef(currentIndex).hashCode()) {
                 throw new PaletteCorruptedException(
                         "Palette modified during iteration! Be sure to .clone() on the yielded element before " +
                                 "modifying it and use .set() to update the data value at the current position.");
@@ -1,12 +1,14 @@
 package io.github.ensgijs.nbt.mca.util;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
  * Simple utility class for managing data version support.
  */
 public class VersionAware<T> {
-    private final TreeMap<Integer, T> versionedValues = new TreeMap<>();
+    /** Registered versions, ascending, and their values - replaced as a pair on registration. */
+    private volatile Entries entries = new Entries(new int[0], new Object[0]);
+
+    private record Entries(int[] versions, Object[] values) {}
 
     /**
      * Registers a value.
@@ -14,8 +16,25 @@ public class VersionAware<T> {
      * @param value value to associate with the given version up to the next registered version (exclusive).
      * @return self for chaining
      */
-    public VersionAware<T> register(int minVersion, T value) {
-        versionedValues.put(minVersion, value);
+    public synchronized VersionAware<T> register(int minVersion, T value) {
+        Entries e = entries;
+        int i = Arrays.binarySearch(e.versions, minVersion);
+        if (i >= 0) {
+            Object[] values = e.values.clone();
+            values[i] = value;
+            entries = new Entries(e.versions, values);
+        } else {
+            i = -i - 1;
+            int[] versions = new int[e.versions.length + 1];
+            Object[] values = new Object[versions.length];
+            System.arraycopy(e.versions, 0, versions, 0, i);
+            System.arraycopy(e.values, 0, values, 0, i);
+            versions[i] = minVersion;
+            values[i] = value;
+            System.arraycopy(e.versions, i, versions, i + 1, e.versions.length - i);
+            System.arraycopy(e.values, i, values, i + 1, e.values.length - i);
+            entries = new Entries(versions, values);
+        }
         return this;
     }
 
@@ -24,8 +43,16 @@ public class VersionAware<T> {
      * @param forVersion version of interest.
      * @return an entry with the greatest version less than or equal to forVersion, or null if there is no such version registered.
      */
+    @SuppressWarnings("unchecked")
     public T get(int forVersion) {
-        Map.Entry<Integer, T> entry = versionedValues.floorEntry(forVersion);
-        return entry != null ? entry.getValue() : null;
+        Entries e = entries;
+        int i = Arrays.binarySearch(e.versions, forVersion);
+        if (i < 0) i = -i - 2;
+        return i >= 0 ? (T) e.values[i] : null;
+    }
+
+    /** @return all registered minimum versions, in ascending order. */
+    public int[] registeredVersions() {
+        return entries.versions.clone();
     }
 }
@@ -0,0 +1,126 @@
+package io.github.ensgijs.nbt.mca.util;
+
+import io.github.ensgijs.nbt.query.NbtPath;
+import io.github.ensgijs.nbt.query.NbtPathSet;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.tag.Tag;
+import io.github.ensgijs.nbt.util.ArgValidator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * A fixed set of {@link VersionAware} paths which are extracted together with a single traversal. The paths are
+ * resolved and compiled into a {@link NbtPathSet} once per range of data versions for which none of the paths
+ * change - in practice only a handful of compiled sets exist no matter how many data versions are encountered.
+ * <p>All versions must be registered with the given {@link VersionAware} paths before this set is created.</p>
+ */
+public class VersionAwareNbtPathSet {
+    private static final NbtPathSet DATA_VERSION_PATH = NbtPathSet.of(NbtPath.of("DataVersion"));
+
+    private final List<VersionAware<NbtPath>> paths;
+    private final Map<VersionAware<NbtPath>, Integer> indexes = new IdentityHashMap<>();
+    /** Union of the versions registered with any of the paths, ascending. */
+    private final int[] breakpoints;
+    /** Compiled set for versions below breakpoints[0] at index 0, and for versions from breakpoints[i] at i + 1. */
+    private final AtomicReferenceArray<NbtPathSet> compiled;
+
+    @SafeVarargs
+    public VersionAwareNbtPathSet(VersionAware<NbtPath>... paths) {
+        List<VersionAware<NbtPath>> copy = new ArrayList<>(paths.length);
+        for (int i = 0; i < paths.length; i++) {
+            copy.add(ArgValidator.requireValue(paths[i], "paths[" + i + "]"));
+            if (indexes.putIfAbsent(paths[i], i) != null) {
+                throw new IllegalArgumentException("duplicate path at index " + i);
+            }
+        }
+        this.paths = Collections.unmodifiableList(copy);
+        breakpoints = this.paths.stream()
+                .flatMapToInt(p -> Arrays.stream(p.registeredVersions()))
+                .distinct().sorted().toArray();
+        compiled = new AtomicReferenceArray<>(breakpoints.length + 1);
+    }
+
+    /** @return the compiled paths for the given data version; paths which don't support it are {@code null}. */
+    public NbtPathSet get(int dataVersion) {
+        int slot = Arrays.binarySearch(breakpoints, dataVersion);
+        slot = slot >= 0 ? slot + 1 : -slot - 1;
+        NbtPathSet set = compiled.get(slot);
+        if (set == null) {
+            List<NbtPath> resolved = new ArrayList<>(paths.size());
+            for (VersionAware<NbtPath> path : paths) {
+                resolved.add(path.get(dataVersion));
+            }
+            // a racing thread compiles an identical set, keep whichever got there first
+            compiled.compareAndSet(slot, null, NbtPathSet.of(resolved));
+            set = compiled.get(slot);
+        }
+        return set;
+    }
+
+    /** Evaluates all paths, as resolved for the given data version, against {@code root}. */
+    public Values extract(int dataVersion, Tag<?> root) {
+        return new Values(get(dataVersion).getAll(root));
+    }
+
+    /**
+     * Evaluates all paths directly against uncompressed binary chunk NBT. The {@code DataVersion} is scanned for
+     * first (a missing one, or one which isn't an int, is treated as 0), then the paths resolved for it are scanned for.
+     * @see NbtPathSet#getAllFromBinary(byte[])
+     */
+    public Values extractFromBinary(byte[] nbtData) throws IOException {
+        int dataVersion = DATA_VERSION_PATH.getAllFromBinary(nbtData)[0] instanceof IntTag tag ? tag.asInt() : 0;
+        return new Values(get(dataVersion).getAllFromBinary(nbtData));
+    }
+
+    /**
+     * Values extracted by {@link #extract(int, Tag)} or {@link #extractFromBinary(byte[])}, looked up by the
+     * {@link VersionAware} path they came from.
+     */
+    public final class Values {
+        private final Object[] values;
+
+        private Values(Object[] values) {
+            this.values = values;
+        }
+
+        /**
+         * @return the value of the given path, or null if there is none or if the path doesn't support the data version.
+         * @throws IllegalArgumentException if the path is not part of this set.
+         */
+        @SuppressWarnings("unchecked")
+        public <R> R get(VersionAware<NbtPath> vaPath) {
+            Integer index = indexes.get(vaPath);
+            if (index == null) {
+                throw new IllegalArgumentException("path is not part of this set");
+            }
+            return (R) values[index];
+        }
+
+        /** Same as {@link #get(VersionAware)} but auto-castable to a {@link Tag} type. */
+        public <R extends Tag<?>> R getTag(VersionAware<NbtPath> vaPath) {
+            return get(vaPath);
+        }
+
+        /**
+         * @return result of calling evaluator, or defaultValue if the tag didn't exist
+         * @see #getTag(VersionAware)
+         */
+        public <TT extends Tag<?>, R> R getTagValue(VersionAware<NbtPath> vaPath, Function<TT, R> evaluator, R defaultValue) {
+            TT tag = getTag(vaPath);
+            return tag != null ? evaluator.apply(tag) : defaultValue;
+        }
+
+        /** @return result of calling evaluator, or null if the tag didn't exist */
+        public <TT extends Tag<?>, R> R getTagValue(VersionAware<NbtPath> vaPath, Function<TT, R> evaluator) {
+            return getTagValue(vaPath, evaluator, null);
+        }
+    }
+}
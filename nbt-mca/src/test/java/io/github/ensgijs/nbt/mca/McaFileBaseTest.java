@@ -1,6 +1,19 @@
 package io.github.ensgijs.nbt.mca;
 
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.mca.io.CorruptMcaFileException;
+import io.github.ensgijs.nbt.mca.io.LoadFlags;
 import io.github.ensgijs.nbt.mca.util.IntPointXZ;
+import org.junit.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 // TODO: implement abstract test pattern for McaFileBase & refactor MCAFileTest like mad
 public class McaFileBaseTest extends McaTestCase {
@@ -28,4 +41,100 @@ public class McaFileBaseTest extends McaTestCase {
         assertEquals(-1, McaFileBase.getChunkIndex(ChunkBase.NO_CHUNK_COORD_SENTINEL, 0));
         assertEquals(-1, McaFileBase.getChunkIndex(0, ChunkBase.NO_CHUNK_COORD_SENTINEL));
     }
+
+    public void testDeserialize_parallelMatchesSequential() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (RandomAccessFile raf = new RandomAccessFile(getResourceFile("1_20_4/region/r.-3.-3.mca"), "r")) {
+            McaRegionFile sequential = new McaRegionFile(-3, -3);
+            sequential.deserialize(raf, LoadFlags.LOAD_ALL_DATA);
+            McaRegionFile parallel = new McaRegionFile(-3, -3);
+            parallel.deserialize(raf, LoadFlags.LOAD_ALL_DATA, executor);
+
+            assertEquals(sequential.getMinChunkDataVersion(), parallel.getMinChunkDataVersion());
+            assertEquals(sequential.getMaxChunkDataVersion(), parallel.getMaxChunkDataVersion());
+            assertEquals(sequential.getDefaultChunkDataVersion(), parallel.getDefaultChunkDataVersion());
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                TerrainChunk a = sequential.getChunk(i);
+                TerrainChunk b = parallel.getChunk(i);
+                if (a == null) {
+                    assertNull(b);
+                    continue;
+                }
+                count++;
+                assertEquals(a.getLastMCAUpdate(), b.getLastMCAUpdate());
+                assertEquals(a.getChunkX(), b.getChunkX());
+                assertEquals(a.getChunkZ(), b.getChunkZ());
+                assertEquals(a.getHandle(), b.getHandle());
+            }
+            assertTrue(count > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testDeserialize_corruptChunkLengthRejectedByBothPaths() throws IOException {
+        File file = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            int location = 0;
+            while (location == 0) {
+                location = raf.readInt();
+            }
+            raf.seek(4096L * (location >>> 8));
+            raf.writeInt((location & 0xFF) * 4096);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            assertThrowsException(() -> new McaRegionFile(-3, -3).deserialize(raf, LoadFlags.LOAD_ALL_DATA),
+                    CorruptMcaFileException.class);
+            assertThrowsException(() -> new McaRegionFile(-3, -3).deserialize(raf, LoadFlags.LOAD_ALL_DATA, executor),
+                    CorruptMcaFileException.class);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testSerialize_parallelMatchesSequential() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            McaRegionFile mca;
+            try (RandomAccessFile raf = new RandomAccessFile(getResourceFile("1_20_4/region/r.-3.-3.mca"), "r")) {
+                mca = new McaRegionFile(-3, -3);
+                mca.deserialize(raf, LoadFlags.LOAD_ALL_DATA);
+            }
+            File sequentialFile = getNewTmpFile("sequential/r.-3.-3.mca");
+            File parallelFile = getNewTmpFile("parallel/r.-3.-3.mca");
+            int sequentialCount, parallelCount;
+            try (RandomAccessFile raf = new RandomAccessFile(sequentialFile, "rw")) {
+                sequentialCount = mca.serialize(raf, CompressionType.ZLIB, false);
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(parallelFile, "rw")) {
+                parallelCount = mca.serialize(raf, CompressionType.ZLIB, false, executor);
+            }
+            assertEquals(mca.count(), sequentialCount);
+            assertEquals(sequentialCount, parallelCount);
+            byte[] sequentialBytes = Files.readAllBytes(sequentialFile.toPath());
+            assertEquals(0, sequentialBytes.length % 4096);
+            Assert.assertArrayEquals(sequentialBytes, Files.readAllBytes(parallelFile.toPath()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testSpliterator_sizedOverAllIndices() {
+        McaRegionFile mca = new McaRegionFile(0, 0);
+        Spliterator<TerrainChunk> empty = mca.spliterator();
+        assertTrue(empty.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(1024, empty.estimateSize());
+
+        TerrainChunk chunk = new TerrainChunk();
+        mca.setChunk(700, chunk);
+        Spliterator<TerrainChunk> spliterator = mca.spliterator();
+        Spliterator<TerrainChunk> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(512, prefix.estimateSize());
+        assertEquals(512, spliterator.estimateSize());
+        assertSame(chunk, mca.stream().parallel().filter(Objects::nonNull).findAny().orElse(null));
+        assertEquals(1, mca.stream().parallel().filter(Objects::nonNull).count());
+    }
 }
@@ -1,10 +1,15 @@
 package io.github.ensgijs.nbt.mca;
 
+import io.github.ensgijs.nbt.io.BinaryNbtHelpers;
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.LazyBinaryNbt;
+import io.github.ensgijs.nbt.io.NamedTag;
 import io.github.ensgijs.nbt.io.TextNbtParser;
 import io.github.ensgijs.nbt.mca.io.LoadFlags;
 import io.github.ensgijs.nbt.mca.io.MoveChunkFlags;
 import io.github.ensgijs.nbt.query.NbtPath;
 import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.Tag;
 
 import java.io.IOException;
 
@@ -53,4 +58,22 @@ public class PoiChunkTest extends PoiChunkBaseTest<PoiRecord, PoiChunk> {
         assertEquals(83, newPos[1]);
         assertEquals(69, newPos[2]);
     }
+
+    public void testMoveChunk_rawLazyPatchedInPlace() throws IOException {
+        final String nbtText = "{DataVersion:3700,Sections:{\"5\":{Records:[{free_tickets:0,pos:[I;-1219,83,-1339],type:\"minecraft:bee_nest\"}],Valid:1b}}}";
+        byte[] bytes = BinaryNbtHelpers.serializeAsBytes(
+                new NamedTag("", TextNbtParser.parseInline(nbtText)), CompressionType.NONE);
+        CompoundTag lazyTag = LazyBinaryNbt.read(bytes, 0, bytes.length, Tag.DEFAULT_MAX_DEPTH).getTagAutoCast();
+        PoiChunk chunk = new PoiChunk(lazyTag, LoadFlags.RAW);
+        assertEquals(3700, chunk.getDataVersion());
+        chunk.chunkX = -77;
+        chunk.chunkZ = -84;
+        assertTrue(chunk.moveChunk(-3, 4, MoveChunkFlags.MOVE_CHUNK_DEFAULT_FLAGS));
+        assertTrue(chunk.getHandle().isLazy());
+        int[] newPos = NbtPath.of("Sections.5.Records[0].pos").getIntArray(chunk.getHandle());
+        assertEquals(-35, newPos[0]);
+        assertEquals(83, newPos[1]);
+        assertEquals(69, newPos[2]);
+        assertFalse(chunk.moveChunk(-3, 4, MoveChunkFlags.MOVE_CHUNK_DEFAULT_FLAGS));
+    }
 }
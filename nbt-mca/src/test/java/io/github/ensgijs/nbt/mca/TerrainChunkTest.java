@@ -1,7 +1,19 @@
 package io.github.ensgijs.nbt.mca;
 
+import io.github.ensgijs.nbt.io.BinaryNbtHelpers;
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.LazyBinaryNbt;
+import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.TextNbtHelpers;
+import io.github.ensgijs.nbt.io.TextNbtParser;
+import io.github.ensgijs.nbt.mca.io.LoadFlags;
+import io.github.ensgijs.nbt.mca.io.MoveChunkFlags;
+import io.github.ensgijs.nbt.mca.util.IntPointXZ;
 import io.github.ensgijs.nbt.tag.CompoundTag;
 import io.github.ensgijs.nbt.tag.ListTag;
+import io.github.ensgijs.nbt.tag.Tag;
+
+import java.io.IOException;
 
 public class TerrainChunkTest extends TerrainChunkBaseTest<TerrainChunk> {
     @Override
@@ -53,4 +65,78 @@ public class TerrainChunkTest extends TerrainChunkBaseTest<TerrainChunk> {
         assertEquals(expectedChunkX, chunk.getChunkX());
         assertEquals(expectedChunkZ, chunk.getChunkZ());
     }
+
+    public void testLazySections() throws IOException {
+        CompoundTag tag = TextNbtHelpers.readTextNbtFile(getResourceFile("1_20_4/region/r.0.0/0299.11.9.snbt")).getTagAutoCast();
+        TerrainChunk eager = new TerrainChunk(tag.clone(), LoadFlags.LOAD_ALL_DATA);
+        TerrainChunk lazy = new TerrainChunk(tag.clone(), LoadFlags.LOAD_ALL_DATA | LoadFlags.LAZY_SECTIONS);
+
+        int minY = eager.getMinSectionY();
+        int maxY = eager.getMaxSectionY();
+        assertTrue(maxY > minY);
+        assertEquals(minY, lazy.getMinSectionY());
+        assertEquals(maxY, lazy.getMaxSectionY());
+        assertTrue(lazy.hasSections());
+        assertTrue(lazy.containsSection(minY));
+        assertFalse(lazy.isSectionLoaded(minY));
+
+        // untouched sections are written back unchanged
+        assertEquals(eager.updateHandle(), lazy.updateHandle());
+
+        TerrainSection section = lazy.getSection(minY + 1);
+        assertTrue(lazy.isSectionLoaded(minY + 1));
+        assertFalse(lazy.isSectionLoaded(minY + 2));
+        assertEquals(minY + 1, section.getSectionY());
+        assertEquals(eager.getSection(minY + 1).getBlockStates().paletteSize(), section.getBlockStates().paletteSize());
+        assertEquals(eager.updateHandle(), lazy.updateHandle());
+
+        // replacing an unloaded section returns the section it replaced
+        assertNotNull(lazy.putSection(minY + 2, lazy.createSection(), false));
+        assertTrue(lazy.isSectionLoaded(minY + 2));
+
+        int count = 0;
+        for (TerrainSection s : lazy) {
+            assertEquals(minY + count, s.getSectionY());
+            count++;
+        }
+        assertEquals(maxY - minY + 1, count);
+        for (int y = minY; y <= maxY; y++) {
+            assertTrue(lazy.isSectionLoaded(y));
+        }
+    }
+
+    private static CompoundTag readLazy(CompoundTag tag) throws IOException {
+        byte[] bytes = BinaryNbtHelpers.serializeAsBytes(new NamedTag("", tag), CompressionType.NONE);
+        return LazyBinaryNbt.read(bytes, 0, bytes.length, Tag.DEFAULT_MAX_DEPTH).getTagAutoCast();
+    }
+
+    private static TerrainChunk moveRaw(CompoundTag tag, long moveChunkFlags) {
+        TerrainChunk chunk = new TerrainChunk(tag, LoadFlags.RAW);
+        chunk.chunkX = 11;
+        chunk.chunkZ = 9;
+        chunk.moveChunk(-3, 4, moveChunkFlags);
+        return chunk;
+    }
+
+    public void testMoveChunk_rawLazyPatchedInPlace() throws IOException {
+        CompoundTag tag = TextNbtHelpers.readTextNbtFile(getResourceFile("1_20_4/region/r.0.0/0299.11.9.snbt")).getTagAutoCast();
+        tag.getCompoundList("block_entities").add(TextNbtParser.parseInline("{id:\"minecraft:chest\",x:180,y:64,z:150}"));
+        tag.getCompoundTag("structures").getCompoundTag("References")
+                .putLongArray("minecraft:village_plains", new long[] {IntPointXZ.pack(11, 9), IntPointXZ.pack(12, 8)});
+
+        TerrainChunk tree = moveRaw(tag.clone(), MoveChunkFlags.MOVE_CHUNK_DEFAULT_FLAGS);
+        TerrainChunk lazy = moveRaw(readLazy(tag), MoveChunkFlags.MOVE_CHUNK_DEFAULT_FLAGS);
+        assertTrue(lazy.getHandle().isLazy());
+        assertEquals(-3, lazy.getChunkX());
+        assertEquals(4, lazy.getChunkZ());
+        assertEquals(tree.getHandle(), lazy.getHandle());
+        assertEquals(-3 * 16 + 4, tree.getHandle().getCompoundList("block_entities").get(0).getInt("x"));
+
+        // dropping structure data changes its length, this falls back to the tree code
+        long discard = MoveChunkFlags.MOVE_CHUNK_DEFAULT_FLAGS | MoveChunkFlags.DISCARD_STRUCTURE_DATA;
+        tree = moveRaw(tag.clone(), discard);
+        lazy = moveRaw(readLazy(tag), discard);
+        assertFalse(lazy.getHandle().isLazy());
+        assertEquals(tree.getHandle(), lazy.getHandle());
+    }
 }
@@ -0,0 +1,94 @@
+package io.github.ensgijs.nbt.mca.io;
+
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.mca.McaTestCase;
+import io.github.ensgijs.nbt.mca.TerrainChunk;
+import org.junit.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class ChunkWriteBufferTest extends McaTestCase {
+
+    public void testFinishChunk_patchesHeaderAndPads() throws IOException {
+        ChunkWriteBuffer buffer = new ChunkWriteBuffer();
+        buffer.beginChunk(CompressionType.ZLIB);
+        byte[] data = new byte[5000];
+        Arrays.fill(data, (byte) 7);
+        buffer.write(data);
+        assertEquals(5005, buffer.finishChunk());
+        assertEquals(5005, buffer.size());
+        assertEquals(2, buffer.sectors());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        buffer.writeTo(new DataOutputStream(baos), true, true);
+        ByteBuffer bb = ByteBuffer.wrap(baos.toByteArray());
+        assertEquals(8192, bb.remaining());
+        assertEquals(5001, bb.getInt());
+        assertEquals(CompressionType.ZLIB.getID(), bb.get());
+        for (int i = 0; i < 5000; i++) assertEquals(7, bb.get());
+        while (bb.hasRemaining()) assertEquals(0, bb.get());
+
+        baos.reset();
+        buffer.writeTo(new DataOutputStream(baos), false, false);
+        assertEquals(5001, baos.size());
+    }
+
+    public void testGrowth_keepsDataAndReusesPaddingAfterReset() throws IOException {
+        ChunkWriteBuffer buffer = new ChunkWriteBuffer(1);
+        buffer.beginChunk(CompressionType.NONE);
+        for (int i = 0; i < 3 * 4096; i++) buffer.write(i);
+        buffer.finishChunk();
+        assertEquals(4, buffer.sectors());
+
+        // stale data from the larger chunk must not leak into the padding of a smaller one
+        buffer.beginChunk(CompressionType.GZIP);
+        buffer.write(new byte[] {1, 2, 3});
+        assertEquals(8, buffer.finishChunk());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        buffer.writeTo(new DataOutputStream(baos), true, true);
+        byte[] bytes = baos.toByteArray();
+        assertEquals(4096, bytes.length);
+        for (int i = 8; i < bytes.length; i++) assertEquals(0, bytes[i]);
+    }
+
+    public void testIllegalStates() {
+        ChunkWriteBuffer buffer = new ChunkWriteBuffer();
+        assertThrowsException(() -> buffer.write(1), IllegalStateException.class);
+        assertThrowsException(buffer::finishChunk, IllegalStateException.class);
+        buffer.beginChunk(CompressionType.NONE);
+        assertThrowsException(() -> buffer.writeTo(new DataOutputStream(new ByteArrayOutputStream()), true, true),
+                IllegalStateException.class);
+        buffer.finishChunk();
+        assertThrowsException(() -> buffer.write(1), IllegalStateException.class);
+    }
+
+    public void testLocal_isReusedPerThread() {
+        assertSame(ChunkWriteBuffer.local(), ChunkWriteBuffer.local());
+    }
+
+    public void testWriteToChannel_matchesChunkSerialize() throws IOException {
+        TerrainChunk chunk = new TerrainChunk();
+        chunk.setLastMCAUpdate(12345678);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        int written = chunk.serialize(new DataOutputStream(baos), 3, 4, CompressionType.ZLIB, true);
+        assertEquals(baos.size(), written);
+
+        ChunkWriteBuffer buffer = new ChunkWriteBuffer();
+        assertEquals(written, chunk.serialize(buffer, 3, 4, CompressionType.ZLIB));
+        File file = getNewTmpFile("chunk_write_buffer/chunk.bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            buffer.writeTo(raf.getChannel(), 4096);
+        }
+        byte[] fileBytes = Files.readAllBytes(file.toPath());
+        assertEquals(4096L * (1 + buffer.sectors()), fileBytes.length);
+        Assert.assertArrayEquals(baos.toByteArray(), Arrays.copyOfRange(fileBytes, 4096, 4096 + written));
+    }
+}
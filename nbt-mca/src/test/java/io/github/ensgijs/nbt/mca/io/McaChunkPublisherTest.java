@@ -0,0 +1,165 @@
+package io.github.ensgijs.nbt.mca.io;
+
+import io.github.ensgijs.nbt.mca.McaTestCase;
+import io.github.ensgijs.nbt.mca.TerrainChunk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class McaChunkPublisherTest extends McaTestCase {
+
+    private static class RecordingSubscriber implements Flow.Subscriber<TerrainChunk> {
+        final List<TerrainChunk> chunks = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final long initialRequest;
+        Flow.Subscription subscription;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(TerrainChunk item) {
+            chunks.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    /** Creates a region folder holding copies of r.-3.-3.mca as r.-3.-3.mca and r.-2.-3.mca */
+    private File createRegionDir() throws IOException {
+        File mcaFile = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        Files.copy(mcaFile.toPath(), new File(mcaFile.getParentFile(), "r.-2.-3.mca").toPath());
+        return mcaFile.getParentFile();
+    }
+
+    private int countChunks(File mcaFile) throws IOException {
+        int count = 0;
+        try (McaFileChunkIterator<TerrainChunk> iter = McaFileChunkIterator.iterate(mcaFile, LoadFlags.RAW)) {
+            while (iter.hasNext()) {
+                iter.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void testPublish_allChunksOfAllFiles() throws Exception {
+        File regionDir = createRegionDir();
+        int expected = 2 * countChunks(new File(regionDir, "r.-3.-3.mca"));
+        // files which aren't named like region files are ignored
+        Files.copy(new File(regionDir, "r.-3.-3.mca").toPath(), new File(regionDir, "backup.mca").toPath());
+        Files.copy(new File(regionDir, "r.-3.-3.mca").toPath(), new File(regionDir, "r.0.0.old.mca").toPath());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            McaChunkPublisher<TerrainChunk> publisher = new McaChunkPublisher<TerrainChunk>(regionDir, LoadFlags.RAW)
+                    .setExecutor(executor)
+                    .setReadParallelism(2)
+                    .setMaxChunksInFlight(4);
+            RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+            publisher.subscribe(subscriber);
+            subscriber.done.get(30, TimeUnit.SECONDS);
+            assertEquals(expected, subscriber.chunks.size());
+            Set<Object> xzs = new HashSet<>();
+            for (TerrainChunk chunk : subscriber.chunks) {
+                assertNotNull(chunk);
+                xzs.add(chunk.getChunkXZ());
+            }
+            assertEquals(expected, xzs.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testPublish_honorsDemandAndBoundsChunksInFlight() throws Exception {
+        File regionDir = createRegionDir();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger created = new AtomicInteger();
+        try {
+            McaChunkPublisher<TerrainChunk> publisher = new McaChunkPublisher<>(regionDir, LoadFlags.RAW, () -> {
+                created.incrementAndGet();
+                return new TerrainChunk();
+            }).setExecutor(executor).setReadParallelism(2).setMaxChunksInFlight(3);
+            RecordingSubscriber subscriber = new RecordingSubscriber(0);
+            publisher.subscribe(subscriber);
+            subscriber.subscription.request(2);
+            for (int i = 0; i < 5; i++) {
+                executor.submit(() -> {}).get();
+            }
+            assertEquals(2, subscriber.chunks.size());
+            assertTrue(created.get() <= 2 + 3);
+            assertFalse(subscriber.done.isDone());
+
+            subscriber.subscription.request(1);
+            for (int i = 0; i < 5; i++) {
+                executor.submit(() -> {}).get();
+            }
+            assertEquals(3, subscriber.chunks.size());
+            assertTrue(created.get() <= 3 + 3);
+
+            subscriber.subscription.cancel();
+            subscriber.subscription.request(100);
+            for (int i = 0; i < 5; i++) {
+                executor.submit(() -> {}).get();
+            }
+            assertEquals(3, subscriber.chunks.size());
+            assertFalse(subscriber.done.isDone());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testPublish_emptyDirectoryCompletes() throws Exception {
+        File regionDir = new File(getNewTmpDirectory(), "region");
+        assertTrue(regionDir.mkdirs());
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        new McaChunkPublisher<TerrainChunk>(regionDir, LoadFlags.RAW).subscribe(subscriber);
+        subscriber.done.get(30, TimeUnit.SECONDS);
+        assertTrue(subscriber.chunks.isEmpty());
+    }
+
+    public void testPublish_readErrorsAreSignaled() throws Exception {
+        File regionDir = new File(getNewTmpDirectory(), "region");
+        assertTrue(regionDir.mkdirs());
+        Files.write(new File(regionDir, "r.0.0.mca").toPath(), new byte[100]);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        new McaChunkPublisher<TerrainChunk>(regionDir, LoadFlags.RAW).setExecutor(Runnable::run).subscribe(subscriber);
+        assertTrue(subscriber.done.isCompletedExceptionally());
+    }
+
+    public void testRequest_nonPositiveIsSignaled() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        new McaChunkPublisher<TerrainChunk>(new File("region"), LoadFlags.RAW).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.done.isCompletedExceptionally());
+    }
+
+    public void testConstructor_unknownDirectoryNameThrows() {
+        assertThrowsIllegalArgumentException(() -> new McaChunkPublisher<TerrainChunk>(new File("foo"), LoadFlags.RAW));
+    }
+}
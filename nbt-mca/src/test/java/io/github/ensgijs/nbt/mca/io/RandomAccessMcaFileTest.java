@@ -8,13 +8,27 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import io.github.ensgijs.nbt.mca.io.RandomAccessMcaFile.SectorManager;
 import io.github.ensgijs.nbt.mca.io.RandomAccessMcaFile.SectorManager.SectorBlock;
+import io.github.ensgijs.nbt.mca.util.ChunkIterator;
 import io.github.ensgijs.nbt.mca.util.IntPointXZ;
 import io.github.ensgijs.nbt.mca.util.PalettizedCuboid;
+import io.github.ensgijs.nbt.mca.util.VersionAwareNbtPathSet;
+import io.github.ensgijs.nbt.query.NbtPath;
+import io.github.ensgijs.nbt.query.NbtPathSet;
 import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.tag.LongTag;
+import io.github.ensgijs.nbt.tag.StringTag;
+import org.junit.Assert;
 
 public class RandomAccessMcaFileTest extends McaTestCase {
 
@@ -169,6 +183,39 @@ public class RandomAccessMcaFileTest extends McaTestCase {
         poiMca.close();
     }
 
+    public void testReadProjection_matchesRead() throws IOException {
+        NbtPathSet paths = NbtPathSet.of(NbtPath.of("DataVersion"), NbtPath.of("Status"), NbtPath.of("xPos"),
+                NbtPath.of("zPos"), NbtPath.of("InhabitedTime"), NbtPath.of("sections[2].Y"), NbtPath.of("nope"));
+        VersionAwareNbtPathSet vaPaths = new VersionAwareNbtPathSet(
+                TerrainChunkBase.X_POS_PATH, TerrainChunkBase.STATUS_PATH, TerrainChunkBase.INHABITED_TIME_TICKS_PATH);
+        for (String resource : new String[] {"1_20_4/region/r.-3.-3.mca", "1_17_1/region/r.-3.-2.mca"}) {
+            assertReadProjectionMatchesRead(copyResourceToTmp(resource), paths, vaPaths);
+        }
+    }
+
+    private void assertReadProjectionMatchesRead(File file, NbtPathSet paths, VersionAwareNbtPathSet vaPaths) throws IOException {
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "r")) {
+            int chunksChecked = 0;
+            for (int i = 0; i < 1024; i++) {
+                TerrainChunk chunk = mca.read(i);
+                Object[] values = mca.readProjection(i, paths);
+                VersionAwareNbtPathSet.Values vaValues = mca.readProjection(i, vaPaths);
+                if (chunk == null) {
+                    assertNull(values);
+                    assertNull(vaValues);
+                    continue;
+                }
+                chunksChecked++;
+                Assert.assertArrayEquals(paths.getAll(chunk.getHandle()), values);
+                assertEquals(chunk.getChunkX(), (int) vaValues.getTagValue(TerrainChunkBase.X_POS_PATH, IntTag::asInt));
+                assertEquals(chunk.getStatus(), vaValues.getTagValue(TerrainChunkBase.STATUS_PATH, StringTag::getValue));
+                assertEquals(chunk.getInhabitedTimeTicks(),
+                        (long) vaValues.getTagValue(TerrainChunkBase.INHABITED_TIME_TICKS_PATH, LongTag::asLong));
+            }
+            assertTrue(chunksChecked > 0);
+        }
+    }
+
     public void testRemoveChunkAbsolute() throws IOException {
         File file = super.copyResourceToTmp("1_20_4/poi/r.-3.-3.mca");
         var poiMca = new RandomAccessMcaFile<>(PoiChunk.class, file, "rw");
@@ -399,4 +446,160 @@ public class RandomAccessMcaFileTest extends McaTestCase {
         assertThrowsNoException(terrainMca::flush);
         terrainMca.close();
     }
+
+    public void testReadAsync_matchesRead() throws IOException {
+        File file = super.copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        try (var terrainMca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "r")) {
+            List<CompletableFuture<TerrainChunk>> futures = new ArrayList<>();
+            for (int i = 0; i < 1024; i++) {
+                futures.add(terrainMca.readAsync(i));
+            }
+            for (int i = 0; i < 1024; i++) {
+                TerrainChunk expected = terrainMca.read(i);
+                TerrainChunk actual = futures.get(i).join();
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.getChunkXZ(), actual.getChunkXZ());
+                    assertEquals(expected.getLastMCAUpdate(), actual.getLastMCAUpdate());
+                    assertEquals(expected.getHandle(), actual.getHandle());
+                }
+            }
+        }
+    }
+
+    public void testWriteAsync_readBack() throws IOException {
+        File file = super.copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        List<TerrainChunk> written = new ArrayList<>();
+        try (var terrainMca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "rw")) {
+            terrainMca.setAlwaysUpdateChunkLastUpdatedTimestamp(false);
+            for (int i = 0; i < 1024; i++) {
+                TerrainChunk chunk = terrainMca.read(i);
+                if (chunk != null) written.add(chunk);
+            }
+            assertFalse(written.isEmpty());
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (TerrainChunk chunk : written) {
+                futures.add(terrainMca.writeAsync(chunk));
+                // reads racing the writes see either version of the chunk
+                futures.add(terrainMca.readAsync(chunk.getIndex()).thenAccept(Assert::assertNotNull));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        }
+        try (var terrainMca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "r")) {
+            for (TerrainChunk expected : written) {
+                TerrainChunk actual = terrainMca.read(expected.getIndex());
+                assertEquals(expected.getLastMCAUpdate(), actual.getLastMCAUpdate());
+                assertEquals(expected.getHandle(), actual.getHandle());
+            }
+        }
+    }
+
+    public void testWriteAsync_closeWaitsForPendingWrites() throws IOException {
+        TerrainChunk chunk;
+        try (var source = new RandomAccessMcaFile<>(TerrainChunk.class, copyResourceToTmp("1_20_4/region/r.-3.-3.mca"), "r")) {
+            chunk = source.readRelative(5, 9);
+        }
+        File file = getNewTmpFile("async/r.-3.-3.mca");
+        var terrainMca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "rw");
+        CompletableFuture<Void> future = terrainMca.writeAsync(chunk);
+        terrainMca.close();
+        assertTrue(future.isDone());
+        try (var readBack = new RandomAccessMcaFile<>(TerrainChunk.class, file, "r")) {
+            assertEquals(chunk.getHandle(), readBack.readRelative(5, 9).getHandle());
+        }
+    }
+
+    public void testAsync_failures() throws IOException {
+        File file = super.copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        try (var terrainMca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "r")) {
+            TerrainChunk chunk = terrainMca.readRelative(5, 9);
+            assertThrowsException(() -> terrainMca.writeAsync(chunk).join(), CompletionException.class);
+            assertTrue(terrainMca.writeAsync(chunk).isCompletedExceptionally());
+            assertThrowsException(() -> terrainMca.readAsync(1024), IndexOutOfBoundsException.class);
+        }
+        var rafMca = new RandomAccessMcaFile<>(TerrainChunk.class, new RandomAccessFile(file, "r"), IntPointXZ.XZ(-3, -3), "r");
+        assertThrowsException(() -> rafMca.readAsync(0), UnsupportedOperationException.class);
+        rafMca.close();
+    }
+
+    public void testChunkSpliterator_sizedAndSplittable() throws IOException {
+        File file = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "r")) {
+            List<IntPointXZ> expected = new ArrayList<>();
+            for (int i = 0; i < 1024; i++) {
+                if (mca.hasChunk(i)) expected.add(mca.indexToAbsoluteXZ(i));
+            }
+            assertTrue(expected.size() > 1);
+
+            Spliterator<TerrainChunk> spliterator = mca.chunkSpliterator();
+            assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL));
+            assertEquals(expected.size(), spliterator.getExactSizeIfKnown());
+            Spliterator<TerrainChunk> prefix = spliterator.trySplit();
+            assertNotNull(prefix);
+            assertEquals(expected.size(), prefix.estimateSize() + spliterator.estimateSize());
+
+            List<IntPointXZ> actual = mca.stream().parallel().map(TerrainChunk::getChunkXZ).collect(Collectors.toList());
+            assertEquals(expected, actual);
+            assertEquals(mca.readAbsolute(expected.get(0)).getHandle(), mca.stream().findFirst().orElseThrow().getHandle());
+        }
+    }
+
+    public void testFileOrderChunkIterator_visitsChunksByOffset() throws IOException {
+        File file = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "r")) {
+            List<Integer> expectedOrder = new ArrayList<>();
+            try (McaFileChunkIterator<TerrainChunk> iter = McaFileChunkIterator.iterate(file, LoadFlags.LOAD_ALL_DATA, TerrainChunk::new)) {
+                while (iter.hasNext()) {
+                    iter.next();
+                    expectedOrder.add(iter.currentIndex());
+                }
+            }
+            assertTrue(expectedOrder.size() > 1);
+
+            // 0 reads one chunk at a time, 8KB spans a few chunks, the default spans the whole file
+            for (int window : new int[] {0, 8192, RandomAccessMcaFile.DEFAULT_READ_AHEAD_WINDOW}) {
+                mca.setReadAheadWindow(window);
+                List<Integer> actualOrder = new ArrayList<>();
+                ChunkIterator<TerrainChunk> iter = mca.fileOrderChunkIterator();
+                while (iter.hasNext()) {
+                    TerrainChunk chunk = iter.next();
+                    actualOrder.add(iter.currentIndex());
+                    assertEquals(iter.currentAbsoluteXZ(), chunk.getChunkXZ());
+                    assertEquals(mca.read(iter.currentIndex()).getHandle(), chunk.getHandle());
+                }
+                assertEquals(expectedOrder, actualOrder);
+            }
+            assertThrowsIllegalArgumentException(() -> mca.setReadAheadWindow(-1));
+        }
+    }
+
+    public void testFileOrderChunkIterator_seesChangesMadeWhileIterating() throws IOException {
+        File file = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, file, "rw")) {
+            List<Integer> order = new ArrayList<>();
+            mca.fileOrderChunkIterator().forEachRemaining(chunk -> order.add(chunk.getIndex()));
+            assertTrue(order.size() > 3);
+
+            ChunkIterator<TerrainChunk> iter = mca.fileOrderChunkIterator();
+            TerrainChunk first = iter.next();
+            first.setStatus("minecraft:spawn");
+            iter.set(first);
+            TerrainChunk changed = mca.read(order.get(1));
+            changed.setStatus("minecraft:noise");
+            mca.write(changed);
+            assertTrue(mca.removeChunk(order.get(2)));
+
+            List<Integer> visited = new ArrayList<>();
+            while (iter.hasNext()) {
+                TerrainChunk chunk = iter.next();
+                visited.add(iter.currentIndex());
+                assertEquals(mca.read(iter.currentIndex()).getHandle(), chunk.getHandle());
+            }
+            List<Integer> expected = new ArrayList<>(order.subList(1, order.size()));
+            expected.remove(1);
+            assertEquals(expected, visited);
+            assertEquals("minecraft:spawn", mca.read(order.get(0)).getStatus());
+        }
+    }
 }
@@ -4,6 +4,9 @@ import io.github.ensgijs.nbt.NbtTestCase;
 import io.github.ensgijs.nbt.mca.DataVersion;
 import io.github.ensgijs.nbt.tag.LongArrayTag;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 
@@ -852,6 +855,28 @@ public class LongArrayTagPackedIntegersTest extends NbtTestCase {
     }
 
 
+    public void testAccumulateChecksum_dependsOnValuesNotPacking() throws NoSuchAlgorithmException {
+        LongArrayTagPackedIntegers packed = LongArrayTagPackedIntegers.builder()
+                .packingStrategy(NO_SPLIT_VALUES_ACROSS_LONGS)
+                .length(256)
+                .valueOffset(-65)
+                .minBitsPerValue(9)
+                .build(new LongArrayTag(getNoSplitValuesAcrossLongsTestData()));
+        LongArrayTagPackedIntegers repacked = packed.clone();
+        repacked.setPackingStrategy(SPLIT_VALUES_ACROSS_LONGS);
+        repacked.setMinBitsPerValue(12);
+        assertFalse(Arrays.equals(packed.longs(), repacked.longs()));
+
+        byte[] checksum = packed.accumulateChecksum(MessageDigest.getInstance("MD5")).digest();
+        assertArrayEquals(checksum, repacked.accumulateChecksum(MessageDigest.getInstance("MD5")).digest());
+        assertFalse(Arrays.equals(
+                packed.accumulatePackedChecksum(MessageDigest.getInstance("MD5")).digest(),
+                repacked.accumulatePackedChecksum(MessageDigest.getInstance("MD5")).digest()));
+
+        repacked.set(7, repacked.get(7) + 1);
+        assertFalse(Arrays.equals(checksum, repacked.accumulateChecksum(MessageDigest.getInstance("MD5")).digest()));
+    }
+
     public void testClone_noSplitAcrossLongs() {
         LongArrayTagPackedIntegers packed = LongArrayTagPackedIntegers.builder()
                 .packingStrategy(NO_SPLIT_VALUES_ACROSS_LONGS)
@@ -0,0 +1,101 @@
+package io.github.ensgijs.nbt.mca.util;
+
+import io.github.ensgijs.nbt.mca.ChunkBase;
+import io.github.ensgijs.nbt.mca.McaTestCase;
+import io.github.ensgijs.nbt.mca.PoiChunk;
+import io.github.ensgijs.nbt.mca.TerrainChunk;
+import io.github.ensgijs.nbt.mca.io.CorruptMcaFileException;
+import io.github.ensgijs.nbt.mca.io.RandomAccessMcaFile;
+import io.github.ensgijs.nbt.mca.util.McaWorldIndex.RegionHeader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class McaWorldIndexTest extends McaTestCase {
+
+    /** Creates a world with r.-3.-3.mca for each mca type plus an empty region/r.0.0.mca */
+    private File createWorld() throws IOException {
+        File regionFile = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        File worldDir = regionFile.getParentFile().getParentFile();
+        for (String type : new String[] {"poi", "entities"}) {
+            File dir = new File(worldDir, type);
+            assertTrue(dir.mkdirs());
+            Files.copy(getResourceFile("1_20_4/" + type + "/r.-3.-3.mca").toPath(), new File(dir, "r.-3.-3.mca").toPath());
+        }
+        assertTrue(new File(regionFile.getParentFile(), "r.0.0.mca").createNewFile());
+        return worldDir;
+    }
+
+    public void testScan_matchesRandomAccessMcaFile() throws IOException {
+        File worldDir = createWorld();
+        McaWorldIndex index = McaWorldIndex.scan(worldDir, Runnable::run);
+        assertEquals(Set.of("region", "poi", "entities"), index.types());
+        assertEquals(2, index.getRegions(McaWorldIndex.REGION).size());
+        assertEquals(0, index.getRegion(McaWorldIndex.REGION, new IntPointXZ(0, 0)).chunkCount());
+        assertNull(index.getRegion(McaWorldIndex.POI, new IntPointXZ(0, 0)));
+
+        assertIndexMatches(index, McaWorldIndex.REGION, new File(worldDir, "region/r.-3.-3.mca"), TerrainChunk.class);
+        assertIndexMatches(index, McaWorldIndex.POI, new File(worldDir, "poi/r.-3.-3.mca"), PoiChunk.class);
+        assertTrue(index.chunkCount(McaWorldIndex.ENTITIES) > 0);
+        assertEquals(0, index.chunkCount("nope"));
+        assertFalse(index.hasChunk("nope", 0, 0));
+    }
+
+    private void assertIndexMatches(McaWorldIndex index, String type, File file, Class<? extends ChunkBase> chunkClass) throws IOException {
+        try (var mca = new RandomAccessMcaFile<>(chunkClass, file, "r")) {
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                IntPointXZ xz = mca.indexToAbsoluteXZ(i);
+                assertEquals(mca.hasChunk(i), index.hasChunk(type, xz));
+                if (mca.hasChunk(i)) {
+                    count++;
+                    assertEquals(mca.getChunkTimestamp(i), index.getChunkTimestamp(type, xz));
+                    assertTrue(index.getChunkSectorCount(type, xz) > 0);
+                } else {
+                    assertEquals(0, index.getChunkTimestamp(type, xz));
+                    assertEquals(0, index.getChunkSectorCount(type, xz));
+                }
+            }
+            assertEquals(count, index.chunkCount(type));
+            Set<IntPointXZ> chunks = index.chunks(type).collect(Collectors.toSet());
+            assertEquals(count, chunks.size());
+            RegionHeader header = index.getRegion(type, mca.getRegionXZ());
+            assertEquals(file.length(), header.getFileLength());
+            assertEquals(count, header.chunkIndices().count());
+        }
+    }
+
+    public void testChunksUpdatedSince() throws IOException {
+        McaWorldIndex index = McaWorldIndex.scan(createWorld());
+        int[] timestamps = index.chunks(McaWorldIndex.REGION)
+                .mapToInt(xz -> index.getChunkTimestamp(McaWorldIndex.REGION, xz))
+                .sorted().toArray();
+        int median = timestamps[timestamps.length / 2];
+        long expected = Arrays.stream(timestamps).filter(t -> t >= median).count();
+        assertEquals(expected, index.chunksUpdatedSince(McaWorldIndex.REGION, median).count());
+        assertEquals(0, index.chunksUpdatedSince(McaWorldIndex.REGION, timestamps[timestamps.length - 1] + 1).count());
+    }
+
+    public void testScan_truncatedHeaderIsReportedAndSkipped() throws IOException {
+        File worldDir = createWorld();
+        File truncated = new File(worldDir, "region/r.1.1.mca");
+        Files.write(truncated.toPath(), new byte[100]);
+        McaWorldIndex index = McaWorldIndex.scan(worldDir);
+        assertNull(index.getRegion(McaWorldIndex.REGION, new IntPointXZ(1, 1)));
+        assertNotNull(index.getRegion(McaWorldIndex.REGION, new IntPointXZ(-3, -3)));
+        assertEquals(Set.of(truncated), index.getFailures().keySet());
+        assertTrue(index.getFailures().get(truncated) instanceof CorruptMcaFileException);
+        assertTrue(McaWorldIndex.scan(createWorld()).getFailures().isEmpty());
+    }
+
+    public void testMcaWorld_scanIndex() throws IOException {
+        try (McaWorld world = new McaWorld(createWorld(), "r")) {
+            world.setAsyncExecutor(Runnable::run);
+            assertTrue(world.scanIndex().chunkCount(McaWorldIndex.REGION) > 0);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package io.github.ensgijs.nbt.mca.util;
+
+import io.github.ensgijs.nbt.mca.McaTestCase;
+import io.github.ensgijs.nbt.mca.PoiChunk;
+import io.github.ensgijs.nbt.mca.TerrainChunk;
+import io.github.ensgijs.nbt.mca.io.CorruptMcaFileException;
+import io.github.ensgijs.nbt.mca.io.LoadFlags;
+import io.github.ensgijs.nbt.mca.io.McaFileStreamingWriter;
+import io.github.ensgijs.nbt.mca.io.RandomAccessMcaFile;
+import io.github.ensgijs.nbt.mca.util.McaWorldManifest.ChunkEntry;
+import io.github.ensgijs.nbt.mca.util.McaWorldManifest.RegionEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+public class McaWorldManifestTest extends McaTestCase {
+    private static final IntPointXZ REGION_XZ = new IntPointXZ(-3, -3);
+
+    /** Creates a world with r.-3.-3.mca for region and poi */
+    private File createWorld() throws IOException {
+        File regionFile = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        File worldDir = regionFile.getParentFile().getParentFile();
+        File poiDir = new File(worldDir, "poi");
+        assertTrue(poiDir.mkdirs());
+        Files.copy(getResourceFile("1_20_4/poi/r.-3.-3.mca").toPath(), new File(poiDir, "r.-3.-3.mca").toPath());
+        return worldDir;
+    }
+
+    private File regionFile(File worldDir) {
+        return new File(worldDir, "region/r.-3.-3.mca");
+    }
+
+    public void testCreate_matchesIndexAndLoads() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest manifest = McaWorldManifest.create(worldDir, Runnable::run, false);
+        assertTrue(McaWorldManifest.manifestFile(worldDir).isFile());
+        McaWorldIndex expected = McaWorldIndex.scan(worldDir, Runnable::run);
+        assertIndexEquals(expected, manifest.toIndex());
+
+        McaWorldManifest loaded = McaWorldManifest.load(worldDir);
+        assertNotNull(loaded);
+        assertIndexEquals(expected, loaded.toIndex());
+        RegionEntry region = loaded.getRegion(McaWorldIndex.REGION, REGION_XZ);
+        assertTrue(region.matches(regionFile(worldDir)));
+        assertEquals(0, region.chunks().mapToInt(ChunkEntry::getDataVersion).max().orElse(-1));
+        assertNull(McaWorldManifest.load(getNewTmpDirectory()));
+    }
+
+    private void assertIndexEquals(McaWorldIndex expected, McaWorldIndex actual) {
+        for (String type : McaWorldIndex.MCA_TYPES) {
+            assertEquals(expected.getRegions(type).keySet(), actual.getRegions(type).keySet());
+            assertEquals(expected.chunkCount(type), actual.chunkCount(type));
+            assertEquals(expected.sectorCount(type), actual.sectorCount(type));
+            expected.chunks(type).forEach(xz ->
+                    assertEquals(expected.getChunkTimestamp(type, xz), actual.getChunkTimestamp(type, xz)));
+        }
+    }
+
+    public void testCreate_readChunkDetails() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest manifest = McaWorldManifest.create(worldDir, Runnable::run, true);
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "r")) {
+            TerrainChunk chunk = mca.stream(LoadFlags.RAW).findFirst().orElseThrow();
+            ChunkEntry entry = manifest.getChunk(McaWorldIndex.REGION, chunk.getChunkXZ());
+            assertEquals(chunk.getDataVersion(), entry.getDataVersion());
+            assertEquals(chunk.getStatus(), entry.getStatus());
+            assertNotNull(entry.getStatus());
+        }
+        ChunkEntry poi = McaWorldManifest.load(worldDir).getRegion(McaWorldIndex.POI, REGION_XZ).chunks().findFirst().orElseThrow();
+        assertTrue(poi.getDataVersion() > 0);
+        assertNull(poi.getStatus());
+    }
+
+    public void testCreate_readChunkDetailsIgnoresStatusOfWrongType() throws IOException {
+        File worldDir = createWorld();
+        TerrainChunk chunk;
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.setAutoUpdateHandelOnWrite(false);
+            chunk = mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow();
+            chunk.getHandle().putInt("Status", 5);
+            mca.write(chunk);
+        }
+        McaWorldManifest manifest = McaWorldManifest.create(worldDir, Runnable::run, true);
+        ChunkEntry entry = manifest.getChunk(McaWorldIndex.REGION, chunk.getChunkXZ());
+        assertEquals(chunk.getDataVersion(), entry.getDataVersion());
+        assertNull(entry.getStatus());
+    }
+
+    public void testRandomAccessMcaFile_closeUpdatesManifest() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest.create(worldDir, Runnable::run, false);
+        TerrainChunk written;
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            written = mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow();
+            written.setStatus("minecraft:spawn");
+            mca.write(written);
+            mca.removeChunk(mca.stream(LoadFlags.RAW).skip(1).findFirst().orElseThrow().getIndex());
+        }
+        McaWorldManifest manifest = McaWorldManifest.load(worldDir);
+        assertIndexEquals(McaWorldIndex.scan(worldDir, Runnable::run), manifest.toIndex());
+        ChunkEntry entry = manifest.getChunk(McaWorldIndex.REGION, written.getChunkXZ());
+        assertEquals(written.getDataVersion(), entry.getDataVersion());
+        assertEquals("minecraft:spawn", entry.getStatus());
+        assertEquals(written.getLastMCAUpdate(), entry.getTimestamp());
+        assertTrue(manifest.getRegion(McaWorldIndex.REGION, REGION_XZ).matches(regionFile(worldDir)));
+        assertFalse(manifest.refresh(Runnable::run, false));
+    }
+
+    public void testStreamingWriter_closeUpdatesManifest() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest.create(worldDir, Runnable::run, false);
+        File poiFile = new File(worldDir, "poi/r.-3.-3.mca");
+        PoiChunk chunk;
+        try (var mca = new RandomAccessMcaFile<>(PoiChunk.class, poiFile, "r")) {
+            chunk = mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow();
+        }
+        File newFile = new File(worldDir, "poi/r.5.5.mca");
+        chunk.moveChunk(chunk.getChunkX() + 8 * 32, chunk.getChunkZ() + 8 * 32, 0);
+        try (McaFileStreamingWriter writer = new McaFileStreamingWriter(newFile)) {
+            writer.write(chunk);
+        }
+        McaWorldManifest manifest = McaWorldManifest.load(worldDir);
+        RegionEntry region = manifest.getRegion(McaWorldIndex.POI, new IntPointXZ(5, 5));
+        assertNotNull(region);
+        assertEquals(1, region.chunkCount());
+        assertEquals(chunk.getDataVersion(), manifest.getChunk(McaWorldIndex.POI, chunk.getChunkXZ()).getDataVersion());
+        assertTrue(region.matches(newFile));
+    }
+
+    public void testRefresh_picksUpExternalChanges() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest manifest = McaWorldManifest.create(worldDir, Runnable::run, false);
+        assertFalse(manifest.refresh(Runnable::run, false));
+
+        File copy = new File(worldDir, "region/r.0.0.mca");
+        Files.copy(regionFile(worldDir).toPath(), copy.toPath());
+        assertTrue(new File(worldDir, "poi/r.-3.-3.mca").delete());
+        assertTrue(manifest.refresh(Runnable::run, false));
+        assertNotNull(manifest.getRegion(McaWorldIndex.REGION, new IntPointXZ(0, 0)));
+        assertNull(manifest.getRegion(McaWorldIndex.POI, REGION_XZ));
+
+        McaWorldManifest loaded = McaWorldManifest.open(worldDir, Runnable::run, false);
+        assertIndexEquals(McaWorldIndex.scan(worldDir, Runnable::run), loaded.toIndex());
+        assertTrue(loaded.getRegions(McaWorldIndex.POI).isEmpty());
+
+        manifest.save();
+        assertIndexEquals(loaded.toIndex(), McaWorldManifest.load(worldDir).toIndex());
+    }
+
+    public void testLoad_ignoresTornAppend() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest.create(worldDir, Runnable::run, false);
+        File manifestFile = McaWorldManifest.manifestFile(worldDir);
+        Files.write(manifestFile.toPath(), new byte[] {0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+        McaWorldManifest loaded = McaWorldManifest.load(worldDir);
+        assertNotNull(loaded.getRegion(McaWorldIndex.REGION, REGION_XZ));
+
+        // the next append replaces the torn record
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.write(mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow());
+        }
+        assertIndexEquals(McaWorldIndex.scan(worldDir, Runnable::run), McaWorldManifest.load(worldDir).toIndex());
+    }
+
+    public void testLoad_badMagicThrows() throws IOException {
+        File worldDir = getNewTmpDirectory();
+        Files.write(McaWorldManifest.manifestFile(worldDir).toPath(), new byte[32]);
+        assertThrowsException(() -> McaWorldManifest.load(worldDir), CorruptMcaFileException.class);
+    }
+
+    public void testUserFields_persistAcrossRewrites() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest manifest = McaWorldManifest.create(worldDir, Runnable::run, false);
+        ChunkEntry first = manifest.getRegion(McaWorldIndex.REGION, REGION_XZ).chunks().findFirst().orElseThrow();
+        IntPointXZ chunkXZ = manifest.getRegion(McaWorldIndex.REGION, REGION_XZ).toRegionHeader().indexToAbsoluteXZ(first.getIndex());
+        assertTrue(manifest.setUserField(McaWorldIndex.REGION, chunkXZ, "pregen", "done"));
+        assertFalse(manifest.setUserField(McaWorldIndex.REGION, new IntPointXZ(1000, 1000), "pregen", "done"));
+        assertEquals("done", McaWorldManifest.load(worldDir).getChunk(McaWorldIndex.REGION, chunkXZ).getUserField("pregen"));
+
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.write(mca.read(first.getIndex()));
+        }
+        assertEquals(Map.of("pregen", "done"),
+                McaWorldManifest.load(worldDir).getChunk(McaWorldIndex.REGION, chunkXZ).getUserFields());
+
+        assertTrue(manifest.setUserField(McaWorldIndex.REGION, chunkXZ, "pregen", null));
+        assertTrue(McaWorldManifest.load(worldDir).getChunk(McaWorldIndex.REGION, chunkXZ).getUserFields().isEmpty());
+    }
+
+    public void testRegionFileWritten_picksUpRecordsWrittenByOthers() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest manifest = McaWorldManifest.create(worldDir, Runnable::run, false);
+        ChunkEntry first = manifest.getRegion(McaWorldIndex.REGION, REGION_XZ).chunks().findFirst().orElseThrow();
+        IntPointXZ chunkXZ = manifest.getRegion(McaWorldIndex.REGION, REGION_XZ).toRegionHeader().indexToAbsoluteXZ(first.getIndex());
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.write(mca.read(first.getIndex()));
+            // appended by the manifest instance, after the writer indexed the file
+            assertTrue(manifest.setUserField(McaWorldIndex.REGION, chunkXZ, "a", "1"));
+            mca.flush();
+            mca.write(mca.read(first.getIndex()));
+            mca.flush();
+            assertEquals("1", McaWorldManifest.load(worldDir).getChunk(McaWorldIndex.REGION, chunkXZ).getUserField("a"));
+
+            // compaction replaces the file
+            assertTrue(manifest.setUserField(McaWorldIndex.REGION, chunkXZ, "b", "2"));
+            manifest.save();
+            mca.write(mca.read(first.getIndex()));
+        }
+        McaWorldManifest loaded = McaWorldManifest.load(worldDir);
+        assertEquals(Map.of("a", "1", "b", "2"), loaded.getChunk(McaWorldIndex.REGION, chunkXZ).getUserFields());
+        assertIndexEquals(McaWorldIndex.scan(worldDir, Runnable::run), loaded.toIndex());
+        assertTrue(loaded.getRegion(McaWorldIndex.REGION, REGION_XZ).matches(regionFile(worldDir)));
+    }
+
+    public void testWriters_withoutManifestDontCreateOne() throws IOException {
+        File worldDir = createWorld();
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.write(mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow());
+        }
+        assertFalse(McaWorldManifest.manifestFile(worldDir).exists());
+    }
+
+    public void testRandomAccessMcaFile_onlyAppendsAfterChanges() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest.create(worldDir, Runnable::run, false);
+        File manifestFile = McaWorldManifest.manifestFile(worldDir);
+        long length = manifestFile.length();
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow();
+            mca.flush();
+        }
+        assertEquals(length, manifestFile.length());
+
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.write(mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow());
+            mca.flush();
+            length = manifestFile.length();
+            mca.flush();
+        }
+        assertEquals(length, manifestFile.length());
+    }
+
+    public void testRegionFileWritten_compactsSupersededRecords() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest manifest = McaWorldManifest.create(worldDir, Runnable::run, false);
+        // a large user field makes every region record about 60KB, so a few dozen writes pass the compaction threshold
+        ChunkEntry first = manifest.getRegion(McaWorldIndex.REGION, REGION_XZ).chunks().findFirst().orElseThrow();
+        IntPointXZ chunkXZ = manifest.getRegion(McaWorldIndex.REGION, REGION_XZ).toRegionHeader().indexToAbsoluteXZ(first.getIndex());
+        assertTrue(manifest.setUserField(McaWorldIndex.REGION, chunkXZ, "padding", "x".repeat(60000)));
+        File manifestFile = McaWorldManifest.manifestFile(worldDir);
+        long maxLength = 0;
+        for (int i = 0; i < 40; i++) {
+            try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+                mca.write(mca.read(first.getIndex()));
+            }
+            maxLength = Math.max(maxLength, manifestFile.length());
+        }
+        assertTrue(maxLength <= 1 << 20);  // 40 records of 60KB were written
+        assertTrue(manifestFile.length() < maxLength);
+        McaWorldManifest loaded = McaWorldManifest.load(worldDir);
+        assertIndexEquals(McaWorldIndex.scan(worldDir, Runnable::run), loaded.toIndex());
+        assertEquals(60000, loaded.getChunk(McaWorldIndex.REGION, chunkXZ).getUserField("padding").length());
+    }
+
+    public void testWriters_corruptManifestDoesntFailWrite() throws IOException {
+        File worldDir = createWorld();
+        Files.write(McaWorldManifest.manifestFile(worldDir).toPath(), new byte[32]);
+        try (var mca = new RandomAccessMcaFile<>(TerrainChunk.class, regionFile(worldDir), "rw")) {
+            mca.write(mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow());
+        }
+        PoiChunk chunk;
+        try (var mca = new RandomAccessMcaFile<>(PoiChunk.class, new File(worldDir, "poi/r.-3.-3.mca"), "r")) {
+            chunk = mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow();
+        }
+        chunk.moveChunk(chunk.getChunkX() + 8 * 32, chunk.getChunkZ() + 8 * 32, 0);
+        try (McaFileStreamingWriter writer = new McaFileStreamingWriter(new File(worldDir, "poi/r.5.5.mca"))) {
+            writer.write(chunk);
+        }
+        assertThrowsException(() -> McaWorldManifest.load(worldDir), CorruptMcaFileException.class);
+    }
+
+    public void testStreamingWriter_secondCloseDoesntAppend() throws IOException {
+        File worldDir = createWorld();
+        McaWorldManifest.create(worldDir, Runnable::run, false);
+        File manifestFile = McaWorldManifest.manifestFile(worldDir);
+        PoiChunk chunk;
+        try (var mca = new RandomAccessMcaFile<>(PoiChunk.class, new File(worldDir, "poi/r.-3.-3.mca"), "r")) {
+            chunk = mca.stream(LoadFlags.LOAD_ALL_DATA).findFirst().orElseThrow();
+        }
+        chunk.moveChunk(chunk.getChunkX() + 8 * 32, chunk.getChunkZ() + 8 * 32, 0);
+        McaFileStreamingWriter writer = new McaFileStreamingWriter(new File(worldDir, "poi/r.5.5.mca"));
+        writer.write(chunk);
+        writer.close();
+        long length = manifestFile.length();
+        writer.close();
+        assertEquals(length, manifestFile.length());
+    }
+}
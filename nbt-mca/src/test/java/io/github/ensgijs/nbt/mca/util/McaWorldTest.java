@@ -0,0 +1,109 @@
+package io.github.ensgijs.nbt.mca.util;
+
+import io.github.ensgijs.nbt.mca.McaTestCase;
+import io.github.ensgijs.nbt.mca.TerrainChunk;
+import io.github.ensgijs.nbt.mca.io.LoadFlags;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class McaWorldTest extends McaTestCase {
+
+    private McaWorld openWorld(Executor executor) throws IOException {
+        File mcaFile = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        McaWorld world = new McaWorld(mcaFile.getParentFile().getParentFile(), "r");
+        world.setAsyncExecutor(executor);
+        return world;
+    }
+
+    public void testGetChunkAsync_coalescesConcurrentRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // holds back decoding so that both requests are made while the load is in flight
+        Executor gated = task -> new Thread(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            task.run();
+        }).start();
+        try (McaWorld world = openWorld(gated)) {
+            IntPointXZ xz = new IntPointXZ(5 - 3 * 32, 9 - 3 * 32);
+            CompletableFuture<TerrainChunk> a = world.getChunkAsync(xz);
+            CompletableFuture<TerrainChunk> b = world.getChunkAsync(xz);
+            assertNotSame(a, b);
+            assertFalse(a.isDone());
+            release.countDown();
+            TerrainChunk chunk = a.get();
+            assertNotNull(chunk);
+            assertEquals(xz, chunk.getChunkXZ());
+            assertSame(chunk, b.get());
+            assertSame(chunk, world.getChunk(xz));
+            assertSame(chunk, world.getChunkAsync(xz).get());
+        }
+    }
+
+    public void testGetChunkAsync_missingChunksAndRegions() throws Exception {
+        try (McaWorld world = openWorld(Runnable::run)) {
+            assertNull(world.getChunkAsync(0, 0).get());
+            assertNull(world.getChunkAsync(-3 * 32, -3 * 32).get());
+            assertNull(world.getChunk(0, 0));
+        }
+    }
+
+    public void testChunkStream_parallelOverRegionFiles() throws Exception {
+        File mcaFile = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        Files.copy(mcaFile.toPath(), new File(mcaFile.getParentFile(), "r.5.5.mca").toPath());
+        // files which aren't named like region files are ignored
+        Files.copy(mcaFile.toPath(), new File(mcaFile.getParentFile(), "backup.mca").toPath());
+        try (McaWorld world = new McaWorld(mcaFile.getParentFile().getParentFile(), "r")) {
+            world.setLoadFlags(LoadFlags.RAW);
+            Set<IntPointXZ> sequential = world.chunkStream().map(TerrainChunk::getChunkXZ).collect(Collectors.toSet());
+            Set<IntPointXZ> parallel = world.chunkStream().parallel().map(TerrainChunk::getChunkXZ).collect(Collectors.toSet());
+            assertFalse(sequential.isEmpty());
+            assertEquals(sequential, parallel);
+            assertEquals(2, sequential.stream().map(IntPointXZ::transformChunkToRegion).distinct().count());
+
+            Spliterator<TerrainChunk> spliterator = world.chunkSpliterator();
+            assertNotNull(spliterator.trySplit());
+            assertNull(spliterator.trySplit());
+            assertEquals(1024, spliterator.estimateSize());
+        }
+    }
+
+    public void testChunkStream_closeReleasesRegionOfShortCircuitedStream() throws Exception {
+        File mcaFile = copyResourceToTmp("1_20_4/region/r.-3.-3.mca");
+        File fdDir = new File("/proc/self/fd");
+        try (McaWorld world = new McaWorld(mcaFile.getParentFile().getParentFile(), "r")) {
+            world.setLoadFlags(LoadFlags.RAW);
+            Stream<TerrainChunk> stream = world.chunkStream();
+            assertTrue(stream.findFirst().isPresent());
+            if (fdDir.isDirectory()) assertEquals(1, countOpenDescriptors(fdDir, mcaFile));
+            stream.close();
+            if (fdDir.isDirectory()) assertEquals(0, countOpenDescriptors(fdDir, mcaFile));
+        }
+    }
+
+    /** Counts this process's file descriptors open on the given file, only works where /proc is available. */
+    private static long countOpenDescriptors(File fdDir, File file) throws IOException {
+        Path target = file.toPath().toRealPath();
+        long count = 0;
+        for (File fd : fdDir.listFiles()) {
+            try {
+                if (Files.readSymbolicLink(fd.toPath()).equals(target)) count++;
+            } catch (IOException ignore) {
+                // closed while listing
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.ensgijs.nbt.mca.util;
+
+import io.github.ensgijs.nbt.io.BinaryNbtHelpers;
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.TextNbtParser;
+import io.github.ensgijs.nbt.query.NbtPath;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.IntTag;
+import junit.framework.TestCase;
+
+import static org.junit.Assert.assertThrows;
+
+public class VersionAwareNbtPathSetTest extends TestCase {
+    private static final VersionAware<NbtPath> A = new VersionAware<NbtPath>()
+            .register(0, NbtPath.of("Level.a"))
+            .register(100, NbtPath.of("a"));
+    private static final VersionAware<NbtPath> B = new VersionAware<NbtPath>()
+            .register(50, NbtPath.of("b"));
+
+    public void testGet_compilesOncePerVersionRange() {
+        VersionAwareNbtPathSet set = new VersionAwareNbtPathSet(A, B);
+        assertSame(set.get(0), set.get(49));
+        assertSame(set.get(50), set.get(99));
+        assertSame(set.get(100), set.get(Integer.MAX_VALUE));
+        assertSame(set.get(-1), set.get(Integer.MIN_VALUE));
+        assertNotSame(set.get(49), set.get(50));
+        assertNotSame(set.get(99), set.get(100));
+        assertNotSame(set.get(-1), set.get(0));
+    }
+
+    public void testExtract() throws Exception {
+        VersionAwareNbtPathSet set = new VersionAwareNbtPathSet(A, B);
+        CompoundTag legacy = (CompoundTag) TextNbtParser.parseInline("{Level:{a:1},b:2}");
+        CompoundTag modern = (CompoundTag) TextNbtParser.parseInline("{a:3,b:4}");
+
+        VersionAwareNbtPathSet.Values values = set.extract(10, legacy);
+        assertEquals(1, values.<IntTag>getTag(A).asInt());
+        assertNull(values.get(B));
+
+        values = set.extract(60, legacy);
+        assertEquals(1, values.<IntTag>getTag(A).asInt());
+        assertEquals(2, values.<IntTag>getTag(B).asInt());
+
+        values = set.extract(100, modern);
+        assertEquals(3, values.<IntTag>getTag(A).asInt());
+        assertEquals(4, values.<IntTag>getTag(B).asInt());
+        assertThrows(IllegalArgumentException.class, () -> set.extract(100, modern).get(new VersionAware<>()));
+    }
+
+    public void testExtractFromBinary_dataVersionOfWrongTypeIsTreatedAsMissing() throws Exception {
+        VersionAwareNbtPathSet set = new VersionAwareNbtPathSet(A, B);
+        byte[] modern = BinaryNbtHelpers.serializeAsBytes(
+                TextNbtParser.parseInline("{DataVersion:100,Level:{a:1},a:3}"), CompressionType.NONE);
+        assertEquals(3, set.extractFromBinary(modern).<IntTag>getTag(A).asInt());
+        byte[] malformed = BinaryNbtHelpers.serializeAsBytes(
+                TextNbtParser.parseInline("{DataVersion:\"100\",Level:{a:1},a:3}"), CompressionType.NONE);
+        assertEquals(1, set.extractFromBinary(malformed).<IntTag>getTag(A).asInt());
+    }
+}
@@ -2,6 +2,8 @@ package io.github.ensgijs.nbt.mca.util;
 
 import junit.framework.TestCase;
 
+import static org.junit.Assert.assertArrayEquals;
+
 public class VersionAwareTest extends TestCase {
 
     public void testSanity() {
@@ -24,4 +26,18 @@ public class VersionAwareTest extends TestCase {
         assertEquals("Hundred", va.get(100));
         assertEquals("Hundred", va.get(Integer.MAX_VALUE));
     }
+
+    public void testRegister_outOfOrderAndReplace() {
+        VersionAware<String> va = new VersionAware<>();
+        va.register(100, "Hundred");
+        va.register(10, "Ten");
+        va.register(50, null);
+        va.register(10, "TEN");
+        assertNull(va.get(9));
+        assertEquals("TEN", va.get(10));
+        assertNull(va.get(50));
+        assertNull(va.get(99));
+        assertEquals("Hundred", va.get(100));
+        assertArrayEquals(new int[] {10, 50, 100}, va.registeredVersions());
+    }
 }
@@ -0,0 +1,69 @@
+package io.github.ensgijs.nbt.io;
+
+import io.github.ensgijs.nbt.BenchmarkBase;
+import io.github.ensgijs.nbt.tag.Tag;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses text nbt from a {@link String} and from a {@link java.io.Reader}. With {@code copies > 1} the
+ * sample is repeated that many times inside a single list to approximate large SNBT dumps.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xms2G", "-Xmx2G"})
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(time = 300, timeUnit = TimeUnit.MILLISECONDS)
+public class TextNbtParserJmhBenchmark extends BenchmarkBase {
+    @Param({
+            "1_20_4/region/r.0.0/0299.11.9.snbt",
+            "text_nbt_samples/named_item.snbt",
+            "text_nbt_samples/unnamed_tag_sample.snbt",
+            "text_nbt_samples/little_of_everything.snbt",
+            "text_nbt_samples/basic-nested-compounds-and-lists-with-root-tag-name.snbt",
+    })
+    public String filename;
+
+    @Param({"1", "256"})
+    public int copies;
+
+    private String text;
+
+    @Setup
+    public void setup() throws IOException {
+        String sample;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(filename)) {
+            if (is == null) {
+                throw new IllegalArgumentException("Resource not found: " + filename);
+            }
+            sample = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (copies == 1) {
+            text = sample;
+        } else {
+            String value = TextNbtHelpers.toTextNbt(new TextNbtParser(sample).readTag(Tag.DEFAULT_MAX_DEPTH).getTag(), false);
+            StringBuilder sb = new StringBuilder(copies * (value.length() + 1) + 2).append('[');
+            for (int i = 0; i < copies; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(value);
+            }
+            text = sb.append(']').toString();
+        }
+    }
+
+    @Benchmark
+    public NamedTag fromString() throws IOException {
+        return new TextNbtParser(text).readTag(Tag.DEFAULT_MAX_DEPTH);
+    }
+
+    @Benchmark
+    public NamedTag fromReader() throws IOException {
+        return new TextNbtParser(new StringReader(text)).readTag(Tag.DEFAULT_MAX_DEPTH);
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.ensgijs.nbt.profiler;
+
+import io.github.ensgijs.nbt.BenchmarkBase;
+import io.github.ensgijs.nbt.io.BinaryNbtDeserializer;
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.NamedTag;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Measures the retained heap of deserialized tag trees. Each sample chunk is decoded
+ * {@value #CHUNKS_PER_REGION} times to approximate a fully populated region file being held in memory.
+ *
+ * <p>Run with {@code ./gradlew :nbt:retainedHeapRun}. Results are only comparable between runs made
+ * with the same JVM and heap settings.</p>
+ */
+public class RetainedHeapRunner extends BenchmarkBase {
+    private static final int CHUNKS_PER_REGION = 1024;
+    private static final String[] FILENAMES = {
+            "1_20_4/region/r.0.0/0299.11.9.snbt",
+            "text_nbt_samples/little_of_everything.snbt",
+    };
+
+    public static void main(String[] args) throws IOException {
+        for (boolean useSharedNumberTags : new boolean[] {false, true}) {
+            System.out.println("useSharedNumberTags=" + useSharedNumberTags);
+            BinaryNbtDeserializer deserializer = new BinaryNbtDeserializer(CompressionType.NONE, false, useSharedNumberTags);
+            for (String filename : FILENAMES) {
+                byte[] nbt = load(RetainedHeapRunner.class.getClassLoader(), filename);
+                long before = usedHeapAfterGc();
+                NamedTag[] region = new NamedTag[CHUNKS_PER_REGION];
+                for (int i = 0; i < region.length; i++) {
+                    region[i] = deserializer.fromStream(new ByteArrayInputStream(nbt));
+                }
+                long retained = usedHeapAfterGc() - before;
+                System.out.printf("  %-44s %,14d bytes retained per region (%,d per copy, %,d bytes of nbt)%n",
+                        filename, retained, retained / region.length, nbt.length);
+                // keep the region reachable until after the measurement
+                if (region[region.length - 1] == null) throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // a few passes to let the collector settle; take the lowest observation
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
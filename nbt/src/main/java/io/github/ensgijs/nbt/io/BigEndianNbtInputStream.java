@@ -47,8 +47,21 @@ public class BigEndianNbtInputStream extends DataInputStream implements NbtInput
 		idClassMapping.put(id, clazz);
 	}
 
+	private final boolean useSharedNumberTags;
+
 	public BigEndianNbtInputStream(InputStream in) {
+		this(in, false);
+	}
+
+	/**
+	 * @param useSharedNumberTags When true, byte, short and int tags holding small values are read as the
+	 *                            immutable shared instances returned by {@link ByteTag#valueOf(byte)},
+	 *                            {@link ShortTag#valueOf(short)} and {@link IntTag#valueOf(int)}.
+	 *                            Only enable this if the resulting tags will not be modified in place.
+	 */
+	public BigEndianNbtInputStream(InputStream in, boolean useSharedNumberTags) {
 		super(in);
+		this.useSharedNumberTags = useSharedNumberTags;
 	}
 
 	public NamedTag readTag(int maxDepth) throws IOException {
@@ -61,7 +74,11 @@ public class BigEndianNbtInputStream extends DataInputStream implements NbtInput
 		return readTag(id, maxDepth);
 	}
 
-	private Tag<?> readTag(byte type, int maxDepth) throws IOException {
+	/**
+	 * Reads the payload of a tag whose type id (and name, if any) has already been consumed.
+	 * @param type tag type id, see {@link Tag#getID()}
+	 */
+	public Tag<?> readTag(byte type, int maxDepth) throws IOException {
 		ExceptionBiFunction<BigEndianNbtInputStream, Integer, ? extends Tag<?>, IOException> f;
 		if ((f = readers.get(type)) == null) {
 			throw new IOException("invalid tag id \"" + type + "\"");
@@ -70,15 +87,18 @@ public class BigEndianNbtInputStream extends DataInputStream implements NbtInput
 	}
 
 	private static ByteTag readByte(BigEndianNbtInputStream in) throws IOException {
-		return new ByteTag(in.readByte());
+		byte v = in.readByte();
+		return in.useSharedNumberTags ? ByteTag.valueOf(v) : new ByteTag(v);
 	}
 
 	private static ShortTag readShort(BigEndianNbtInputStream in) throws IOException {
-		return new ShortTag(in.readShort());
+		short v = in.readShort();
+		return in.useSharedNumberTags ? ShortTag.valueOf(v) : new ShortTag(v);
 	}
 
 	private static IntTag readInt(BigEndianNbtInputStream in) throws IOException {
-		return new IntTag(in.readInt());
+		int v = in.readInt();
+		return in.useSharedNumberTags ? IntTag.valueOf(v) : new IntTag(v);
 	}
 
 	private static LongTag readLong(BigEndianNbtInputStream in) throws IOException {
@@ -125,11 +145,54 @@ public class BigEndianNbtInputStream extends DataInputStream implements NbtInput
 
 	private static ListTag<?> readListTag(BigEndianNbtInputStream in, int maxDepth) throws IOException {
 		byte listType = in.readByte();
-		ListTag<?> list = ListTag.createUnchecked(idClassMapping.get(listType));
 		int length = in.readInt();
 		if (length < 0) {
 			length = 0;
 		}
+		// numeric lists are read straight into a primitive array, no per element tag objects are created
+		switch (listType) {
+			case ByteTag.ID: {
+				byte[] data = new byte[length];
+				in.readFully(data);
+				return ListTag.ofBytes(data);
+			}
+			case ShortTag.ID: {
+				short[] data = new short[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readShort();
+				}
+				return ListTag.ofShorts(data);
+			}
+			case IntTag.ID: {
+				int[] data = new int[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readInt();
+				}
+				return ListTag.ofInts(data);
+			}
+			case LongTag.ID: {
+				long[] data = new long[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readLong();
+				}
+				return ListTag.ofLongs(data);
+			}
+			case FloatTag.ID: {
+				float[] data = new float[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readFloat();
+				}
+				return ListTag.ofFloats(data);
+			}
+			case DoubleTag.ID: {
+				double[] data = new double[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readDouble();
+				}
+				return ListTag.ofDoubles(data);
+			}
+		}
+		ListTag<?> list = ListTag.createUnchecked(idClassMapping.get(listType));
 		for (int i = 0; i < length; i++) {
 			list.addUnchecked(in.readTag(listType, in.decrementMaxDepth(maxDepth)));
 		}
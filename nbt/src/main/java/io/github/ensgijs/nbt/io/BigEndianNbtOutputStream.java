@@ -135,14 +135,55 @@ public class BigEndianNbtOutputStream extends DataOutputStream implements NbtOut
 	}
 
 	private static void writeList(BigEndianNbtOutputStream out, Tag<?> tag, int maxDepth) throws IOException {
-		out.writeByte(idFromClass(((ListTag<?>) tag).getTypeClass()));
-		out.writeInt(((ListTag<?>) tag).size());
-		for (Tag<?> t : ((ListTag<?>) tag)) {
+		ListTag<?> list = (ListTag<?>) tag;
+		byte listType = idFromClass(list.getTypeClass());
+		int size = list.size();
+		out.writeByte(listType);
+		out.writeInt(size);
+		// numeric elements are written through the primitive accessors so primitive backed lists
+		// don't have to create tag objects
+		switch (listType) {
+			case ByteTag.ID:
+				for (int i = 0; i < size; i++) {
+					out.writeByte(list.getByte(i));
+				}
+				return;
+			case ShortTag.ID:
+				for (int i = 0; i < size; i++) {
+					out.writeShort(list.getShort(i));
+				}
+				return;
+			case IntTag.ID:
+				for (int i = 0; i < size; i++) {
+					out.writeInt(list.getInt(i));
+				}
+				return;
+			case LongTag.ID:
+				for (int i = 0; i < size; i++) {
+					out.writeLong(list.getLong(i));
+				}
+				return;
+			case FloatTag.ID:
+				for (int i = 0; i < size; i++) {
+					out.writeFloat(list.getFloat(i));
+				}
+				return;
+			case DoubleTag.ID:
+				for (int i = 0; i < size; i++) {
+					out.writeDouble(list.getDouble(i));
+				}
+				return;
+		}
+		for (Tag<?> t : list) {
 			out.writeRawTag(t, out.decrementMaxDepth(maxDepth));
 		}
 	}
 
 	private static void writeCompound(BigEndianNbtOutputStream out, Tag<?> tag, int maxDepth) throws IOException {
+		// untouched lazy compounds are copied verbatim, see LazyBinaryNbt
+		if (((CompoundTag) tag).writeLazyPayload(out)) {
+			return;
+		}
 		for (NamedTag entry : (CompoundTag) tag) {
 			if (entry.getTag().getID() == 0) {
 				throw new IOException("end tag not allowed");
@@ -7,6 +7,7 @@ import java.io.InputStream;
 public class BinaryNbtDeserializer implements Deserializer<NamedTag> {
 	private final CompressionType compression;
 	private final boolean littleEndian;
+	private final boolean useSharedNumberTags;
 
 	public BinaryNbtDeserializer(CompressionType compression) {
 		this(compression, false);
@@ -17,8 +18,21 @@ public class BinaryNbtDeserializer implements Deserializer<NamedTag> {
 	 * @param littleEndian Minecraft bedrock data is stored in little endian while MC Java is stored big endian.
 	 */
 	public BinaryNbtDeserializer(CompressionType compression, boolean littleEndian) {
+		this(compression, littleEndian, false);
+	}
+
+	/**
+	 * @param compression Compressions strategy to use.
+	 * @param littleEndian Minecraft bedrock data is stored in little endian while MC Java is stored big endian.
+	 * @param useSharedNumberTags Read small byte, short and int values as immutable shared tag instances
+	 *                            (see {@link io.github.ensgijs.nbt.tag.NumberTag#isShared()}). Saves a
+	 *                            considerable amount of memory for read-only workloads but any attempt to
+	 *                            modify such a tag in place will throw an {@link UnsupportedOperationException}.
+	 */
+	public BinaryNbtDeserializer(CompressionType compression, boolean littleEndian, boolean useSharedNumberTags) {
 		this.compression = compression;
 		this.littleEndian = littleEndian;
+		this.useSharedNumberTags = useSharedNumberTags;
 	}
 
 	@Override
@@ -26,9 +40,9 @@ public class BinaryNbtDeserializer implements Deserializer<NamedTag> {
 		NbtInput nbtIn;
 		InputStream input = compression.decompress(stream);
 		if (!littleEndian) {
-			nbtIn = new BigEndianNbtInputStream(input);
+			nbtIn = new BigEndianNbtInputStream(input, useSharedNumberTags);
 		} else {
-			nbtIn = new LittleEndianNbtInputStream(input);
+			nbtIn = new LittleEndianNbtInputStream(input, useSharedNumberTags);
 		}
 		return nbtIn.readTag(Tag.DEFAULT_MAX_DEPTH);
 	}
@@ -12,7 +12,7 @@ public final class BinaryNbtHelpers {
 	// <editor-fold desc="Big Endian read/write (MC Java)">
 	public static Path write(NamedTag tag, File file, CompressionType compression, boolean sortCompoundTagEntries) throws IOException {
 		try (FileOutputStream fos = new FileOutputStream(file)) {
-			new BinaryNbtSerializer(compression, sortCompoundTagEntries).toStream(tag, fos);
+			new BinaryNbtSerializer(compression, false, sortCompoundTagEntries).toStream(tag, fos);
 		}
 		return file.toPath();
 	}
@@ -141,7 +141,7 @@ public final class BinaryNbtHelpers {
 	 */
 	public static byte[] serializeAsBytes(NamedTag tag, CompressionType compression, boolean sortCompoundTagEntries) throws IOException {
 		try (ByteArrayOutputStream fos = new ByteArrayOutputStream(1024)) {
-			new BinaryNbtSerializer(compression, sortCompoundTagEntries).toStream(tag, fos);
+			new BinaryNbtSerializer(compression, false, sortCompoundTagEntries).toStream(tag, fos);
 			return fos.toByteArray();
 		}
 	}
@@ -1,6 +1,10 @@
 package io.github.ensgijs.nbt.io;
 
+import io.github.ensgijs.nbt.tag.CompoundTag;
 import io.github.ensgijs.nbt.tag.Tag;
+import io.github.ensgijs.nbt.util.SharedBinaryNbtTagSorter;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -23,10 +27,23 @@ public class BinaryNbtSerializer implements Serializer<NamedTag> {
 		this.sortCompoundTagEntries = sortCompoundTagEntries;
 	}
 
+	/**
+	 * When sorting big endian data with a {@link CompoundTag} root, the data is written unsorted to memory and
+	 * then sorted by {@link SharedBinaryNbtTagSorter} on its way to the output, which is considerably cheaper
+	 * than sorting the keys of every compound as it is written. The output is identical either way.
+	 */
 	@Override
 	public void toStream(NamedTag object, OutputStream out) throws IOException {
 		NbtOutput nbtOut;
 		OutputStream output = compression.compress(out);
+		if (sortCompoundTagEntries && !littleEndian && object.getTag() instanceof CompoundTag) {
+			UnsortedBuffer unsorted = new UnsortedBuffer();
+			new BigEndianNbtOutputStream(unsorted, false).writeTag(object, Tag.DEFAULT_MAX_DEPTH);
+			SharedBinaryNbtTagSorter.DEFAULT.sort(unsorted.buffer(), unsorted.size(), output);
+			compression.finish(output);
+			output.flush();
+			return;
+		}
 		if (!littleEndian) {
 			nbtOut = new BigEndianNbtOutputStream(output, sortCompoundTagEntries);
 		} else {
@@ -38,6 +55,16 @@ public class BinaryNbtSerializer implements Serializer<NamedTag> {
 		nbtOut.flush();
 	}
 
+	private static final class UnsortedBuffer extends ByteArrayOutputStream {
+		UnsortedBuffer() {
+			super(8192);
+		}
+
+		byte[] buffer() {
+			return buf;
+		}
+	}
+
 	@Override
 	public boolean getSortCompoundTagEntries() {
 		return sortCompoundTagEntries;
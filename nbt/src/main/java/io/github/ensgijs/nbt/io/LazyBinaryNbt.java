@@ -0,0 +1,272 @@
+package io.github.ensgijs.nbt.io;
+
+import io.github.ensgijs.nbt.tag.*;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads big endian binary nbt into lazy {@link CompoundTag}s, see {@link CompoundTag#lazy(byte[], int, int, int)}.
+ *
+ * <p>Nothing below the root compound is decoded up front: each compound keeps a slice of the original bytes
+ * and decodes one level when first accessed, turning any nested compounds (including compounds in lists) into
+ * lazy compounds again. {@link BigEndianNbtOutputStream} copies compounds which were never accessed verbatim.
+ * A read-modify-write job, such as relocating a chunk, therefore only decodes and encodes the subtrees it
+ * actually touches.</p>
+ */
+public final class LazyBinaryNbt {
+	private LazyBinaryNbt() {}
+
+	/**
+	 * Reads one named tag from the stream, consuming exactly the bytes of that tag (just as
+	 * {@link BigEndianNbtInputStream#readTag(int)} does). If it's a compound it's returned as a lazy compound,
+	 * otherwise the tag is decoded as usual.
+	 */
+	public static NamedTag read(InputStream in, int maxDepth) throws IOException {
+		RecordingInputStream recording = new RecordingInputStream(in);
+		DataInputStream din = new DataInputStream(recording);
+		byte type = din.readByte();
+		skipFully(din, din.readUnsignedShort());
+		skipPayload(din, type, maxDepth);
+		return wrap(recording.buf, 0, recording.count, maxDepth);
+	}
+
+	/**
+	 * Reads one named tag from the given bytes. If it's a compound it's returned as a lazy compound backed by
+	 * {@code data}, which must not be modified afterwards, otherwise the tag is decoded as usual.
+	 * @throws IOException if the bytes don't hold exactly one well-formed tag.
+	 */
+	public static NamedTag read(byte[] data, int offset, int length, int maxDepth) throws IOException {
+		Cursor cursor = new Cursor(data, offset, offset + length);
+		DataInputStream in = new DataInputStream(cursor);
+		byte type = in.readByte();
+		skipFully(in, in.readUnsignedShort());
+		skipPayload(in, type, maxDepth);
+		if (cursor.pos != cursor.end) {
+			throw new IOException("invalid bytes after end of tag");
+		}
+		return wrap(data, offset, length, maxDepth);
+	}
+
+	/** Decodes a named tag whose extent is already known to be valid. */
+	private static NamedTag wrap(byte[] data, int offset, int length, int maxDepth) throws IOException {
+		Cursor cursor = new Cursor(data, offset, offset + length);
+		BigEndianNbtInputStream in = new BigEndianNbtInputStream(cursor);
+		byte type = in.readByte();
+		String name = in.readUTF();
+		if (type == CompoundTag.ID) {
+			return new NamedTag(name, CompoundTag.lazy(data, cursor.pos, cursor.end - cursor.pos, maxDepth));
+		}
+		return new NamedTag(name, in.readTag(type, maxDepth));
+	}
+
+	/**
+	 * Decodes one level of a compound payload. Used by {@link CompoundTag} to decode lazy compounds.
+	 * @param maxDepth the max depth the compound itself is read with, see {@link BigEndianNbtInputStream#readTag(byte, int)}.
+	 * @return a regular compound holding the decoded entries.
+	 */
+	public static CompoundTag decodeCompoundPayload(byte[] data, int offset, int length, int maxDepth) throws IOException {
+		Cursor cursor = new Cursor(data, offset, offset + length);
+		BigEndianNbtInputStream in = new BigEndianNbtInputStream(cursor);
+		CompoundTag comp = new CompoundTag();
+		for (int id = in.readByte() & 0xFF; id != 0; id = in.readByte() & 0xFF) {
+			String key = in.readUTF();
+			comp.put(key, readLazy(in, cursor, (byte) id, in.decrementMaxDepth(maxDepth)));
+		}
+		return comp;
+	}
+
+	private static Tag<?> readLazy(BigEndianNbtInputStream in, Cursor cursor, byte type, int maxDepth) throws IOException {
+		if (type == CompoundTag.ID) {
+			return lazyCompound(in, cursor, maxDepth);
+		}
+		if (type == ListTag.ID && cursor.peek() == CompoundTag.ID) {
+			in.readByte();
+			int length = Math.max(in.readInt(), 0);
+			ListTag<CompoundTag> list = new ListTag<>(CompoundTag.class, length);
+			for (int i = 0; i < length; i++) {
+				list.add(lazyCompound(in, cursor, in.decrementMaxDepth(maxDepth)));
+			}
+			return list;
+		}
+		return in.readTag(type, maxDepth);
+	}
+
+	private static CompoundTag lazyCompound(BigEndianNbtInputStream in, Cursor cursor, int maxDepth) throws IOException {
+		int start = cursor.pos;
+		skipPayload(in, CompoundTag.ID, maxDepth);
+		return CompoundTag.lazy(cursor.buf, start, cursor.pos - start, maxDepth);
+	}
+
+	/** Size of fixed width payloads, or -1 for variable width types. */
+	private static int payloadSize(byte type) {
+		return switch (type) {
+			case EndTag.ID -> 0;
+			case ByteTag.ID -> 1;
+			case ShortTag.ID -> 2;
+			case IntTag.ID, FloatTag.ID -> 4;
+			case LongTag.ID, DoubleTag.ID -> 8;
+			default -> -1;
+		};
+	}
+
+	/** Skips the payload of a tag, applying the same max depth rules as {@link BigEndianNbtInputStream}. */
+	private static void skipPayload(DataInputStream in, byte type, int maxDepth) throws IOException {
+		int size = payloadSize(type);
+		if (size >= 0) {
+			skipFully(in, size);
+			return;
+		}
+		switch (type) {
+			case ByteArrayTag.ID -> skipFully(in, checkLength(in.readInt()));
+			case IntArrayTag.ID -> skipFully(in, 4L * checkLength(in.readInt()));
+			case LongArrayTag.ID -> skipFully(in, 8L * checkLength(in.readInt()));
+			case StringTag.ID -> skipFully(in, in.readUnsignedShort());
+			case ListTag.ID -> {
+				byte elementType = in.readByte();
+				int length = Math.max(in.readInt(), 0);
+				int elementSize = payloadSize(elementType);
+				if (elementSize >= 0 && elementType != EndTag.ID) {
+					skipFully(in, (long) elementSize * length);
+				} else {
+					for (int i = 0; i < length; i++) {
+						skipPayload(in, elementType, decrementMaxDepth(maxDepth));
+					}
+				}
+			}
+			case CompoundTag.ID -> {
+				for (byte id = in.readByte(); id != 0; id = in.readByte()) {
+					skipFully(in, in.readUnsignedShort());
+					skipPayload(in, id, decrementMaxDepth(maxDepth));
+				}
+			}
+			default -> throw new IOException("invalid tag id \"" + type + "\"");
+		}
+	}
+
+	private static int decrementMaxDepth(int maxDepth) {
+		if (maxDepth < 0) {
+			throw new IllegalArgumentException("negative maximum depth is not allowed");
+		} else if (maxDepth == 0) {
+			throw new MaxDepthReachedException("reached maximum depth of NBT structure");
+		}
+		return maxDepth - 1;
+	}
+
+	private static int checkLength(int length) throws IOException {
+		if (length < 0) {
+			throw new IOException("negative array length " + length);
+		}
+		return length;
+	}
+
+	private static void skipFully(DataInputStream in, long n) throws IOException {
+		while (n > 0) {
+			long skipped = in.skip(n);
+			if (skipped <= 0) {
+				throw new EOFException();
+			}
+			n -= skipped;
+		}
+	}
+
+	/** Unsynchronized in-memory stream which exposes its position. */
+	private static final class Cursor extends InputStream {
+		final byte[] buf;
+		final int end;
+		int pos;
+
+		Cursor(byte[] buf, int offset, int end) {
+			this.buf = buf;
+			this.pos = offset;
+			this.end = end;
+		}
+
+		int peek() {
+			return pos < end ? buf[pos] : -1;
+		}
+
+		@Override
+		public int read() {
+			return pos < end ? buf[pos++] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) return 0;
+			if (pos >= end) return -1;
+			len = Math.min(len, end - pos);
+			System.arraycopy(buf, pos, b, off, len);
+			pos += len;
+			return len;
+		}
+
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.min(Math.max(n, 0), end - pos);
+			pos += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return end - pos;
+		}
+	}
+
+	/** Keeps a copy of everything read or skipped, so skipping doesn't lose any bytes. */
+	private static final class RecordingInputStream extends FilterInputStream {
+		byte[] buf = new byte[8192];
+		int count;
+
+		RecordingInputStream(InputStream in) {
+			super(in);
+		}
+
+		private void ensureCapacity(int additional) {
+			if (count + additional > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(count + additional, buf.length * 2));
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0) {
+				ensureCapacity(1);
+				buf[count++] = (byte) b;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0) {
+				ensureCapacity(n);
+				System.arraycopy(b, off, buf, count, n);
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			int len = (int) Math.min(Math.max(n, 0), 8192);
+			ensureCapacity(len);
+			int read = in.read(buf, count, len);
+			if (read <= 0) return 0;
+			count += read;
+			return read;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
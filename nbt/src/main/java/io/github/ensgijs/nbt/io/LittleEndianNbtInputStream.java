@@ -52,12 +52,30 @@ public class LittleEndianNbtInputStream implements DataInput, NbtInput, MaxDepth
 		idClassMapping.put(id, clazz);
 	}
 
+	private final boolean useSharedNumberTags;
+
 	public LittleEndianNbtInputStream(InputStream in) {
-		input = new DataInputStream(in);
+		this(new DataInputStream(in), false);
 	}
 
 	public LittleEndianNbtInputStream(DataInputStream in) {
+		this(in, false);
+	}
+
+	/**
+	 * @param useSharedNumberTags When true, byte, short and int tags holding small values are read as the
+	 *                            immutable shared instances returned by {@link ByteTag#valueOf(byte)},
+	 *                            {@link ShortTag#valueOf(short)} and {@link IntTag#valueOf(int)}.
+	 *                            Only enable this if the resulting tags will not be modified in place.
+	 */
+	public LittleEndianNbtInputStream(InputStream in, boolean useSharedNumberTags) {
+		this(new DataInputStream(in), useSharedNumberTags);
+	}
+
+	/** @see #LittleEndianNbtInputStream(InputStream, boolean) */
+	public LittleEndianNbtInputStream(DataInputStream in, boolean useSharedNumberTags) {
 		input = in;
+		this.useSharedNumberTags = useSharedNumberTags;
 	}
 
 	public NamedTag readTag(int maxDepth) throws IOException {
@@ -79,15 +97,18 @@ public class LittleEndianNbtInputStream implements DataInput, NbtInput, MaxDepth
 	}
 
 	private static ByteTag readByte(LittleEndianNbtInputStream in) throws IOException {
-		return new ByteTag(in.readByte());
+		byte v = in.readByte();
+		return in.useSharedNumberTags ? ByteTag.valueOf(v) : new ByteTag(v);
 	}
 
 	private static ShortTag readShort(LittleEndianNbtInputStream in) throws IOException {
-		return new ShortTag(in.readShort());
+		short v = in.readShort();
+		return in.useSharedNumberTags ? ShortTag.valueOf(v) : new ShortTag(v);
 	}
 
 	private static IntTag readInt(LittleEndianNbtInputStream in) throws IOException {
-		return new IntTag(in.readInt());
+		int v = in.readInt();
+		return in.useSharedNumberTags ? IntTag.valueOf(v) : new IntTag(v);
 	}
 
 	private static LongTag readLong(LittleEndianNbtInputStream in) throws IOException {
@@ -134,11 +155,54 @@ public class LittleEndianNbtInputStream implements DataInput, NbtInput, MaxDepth
 
 	private static ListTag<?> readListTag(LittleEndianNbtInputStream in, int maxDepth) throws IOException {
 		byte listType = in.readByte();
-		ListTag<?> list = ListTag.createUnchecked(idClassMapping.get(listType));
 		int length = in.readInt();
 		if (length < 0) {
 			length = 0;
 		}
+		// numeric lists are read straight into a primitive array, no per element tag objects are created
+		switch (listType) {
+			case ByteTag.ID: {
+				byte[] data = new byte[length];
+				in.readFully(data);
+				return ListTag.ofBytes(data);
+			}
+			case ShortTag.ID: {
+				short[] data = new short[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readShort();
+				}
+				return ListTag.ofShorts(data);
+			}
+			case IntTag.ID: {
+				int[] data = new int[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readInt();
+				}
+				return ListTag.ofInts(data);
+			}
+			case LongTag.ID: {
+				long[] data = new long[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readLong();
+				}
+				return ListTag.ofLongs(data);
+			}
+			case FloatTag.ID: {
+				float[] data = new float[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readFloat();
+				}
+				return ListTag.ofFloats(data);
+			}
+			case DoubleTag.ID: {
+				double[] data = new double[length];
+				for (int i = 0; i < length; i++) {
+					data[i] = in.readDouble();
+				}
+				return ListTag.ofDoubles(data);
+			}
+		}
+		ListTag<?> list = ListTag.createUnchecked(idClassMapping.get(listType));
 		for (int i = 0; i < length; i++) {
 			list.addUnchecked(in.readTag(listType, in.decrementMaxDepth(maxDepth)));
 		}
@@ -6,12 +6,10 @@ import io.github.ensgijs.nbt.util.ArgValidator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 public class NamedTag implements Cloneable, Comparable<NamedTag> {
 	private static final Pattern TAG_NAME_NON_QUOTE_PATTERN = Pattern.compile("^[a-zA-Z0-9_+\\-]+$");
-	private static final Predicate<String> IS_INTEGER_STRING = Pattern.compile("^(?:\\+|-)?\\d+$").asPredicate();
 
 	private String name;
 	private Tag<?> tag;
@@ -109,14 +107,54 @@ public class NamedTag implements Cloneable, Comparable<NamedTag> {
 		if (o1 == o2) return 0;
 		if (o1 == null) return -1;
 		if (o2 == null) return 1;
-		String n1Lower = o1.getName().toLowerCase(Locale.ENGLISH);
-		String n2Lower = o2.getName().toLowerCase(Locale.ENGLISH);
-		if (IS_INTEGER_STRING.test(n1Lower) && IS_INTEGER_STRING.test(n2Lower)) {
-			return Long.compare(Long.parseLong(n1Lower), Long.parseLong(n2Lower));
-		} else {
-			int result = n1Lower.compareTo(n2Lower);
-			return result != 0 ? result : o1.getName().compareTo(o2.getName());
+		return compareNames(o1.getName(), o2.getName());
+	}
+
+	/**
+	 * Orders tag names the way {@link #compare(NamedTag, NamedTag)} orders named tags: numerically if both names
+	 * are integers, otherwise case-insensitively with ties broken by case. Does not allocate for ASCII names.
+	 */
+	public static int compareNames(String n1, String n2) {
+		if (isIntegerString(n1) && isIntegerString(n2)) {
+			return Long.compare(Long.parseLong(n1), Long.parseLong(n2));
+		}
+		int result = compareIgnoreCase(n1, n2);
+		return result != 0 ? result : n1.compareTo(n2);
+	}
+
+	private static boolean isIntegerString(String s) {
+		int i = !s.isEmpty() && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+		if (i == s.length()) {
+			return false;
+		}
+		for (; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Same result sign as comparing {@code toLowerCase(Locale.ENGLISH)} of both. */
+	private static int compareIgnoreCase(String n1, String n2) {
+		final int len = Math.min(n1.length(), n2.length());
+		for (int i = 0; i < len; i++) {
+			char c1 = n1.charAt(i);
+			char c2 = n2.charAt(i);
+			if (c1 >= 0x80 || c2 >= 0x80) {
+				// lower casing outside of ASCII is context dependent and may change the length
+				return n1.toLowerCase(Locale.ENGLISH).compareTo(n2.toLowerCase(Locale.ENGLISH));
+			}
+			if (c1 != c2) {
+				if (c1 >= 'A' && c1 <= 'Z') c1 += 'a' - 'A';
+				if (c2 >= 'A' && c2 <= 'Z') c2 += 'a' - 'A';
+				if (c1 != c2) {
+					return c1 - c2;
+				}
+			}
 		}
+		return n1.length() - n2.length();
 	}
 
 	@Override
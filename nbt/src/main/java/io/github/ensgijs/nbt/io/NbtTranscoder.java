@@ -0,0 +1,1034 @@
+package io.github.ensgijs.nbt.io;
+
+import io.github.ensgijs.nbt.tag.ByteArrayTag;
+import io.github.ensgijs.nbt.tag.ByteTag;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.DoubleTag;
+import io.github.ensgijs.nbt.tag.EndTag;
+import io.github.ensgijs.nbt.tag.FloatTag;
+import io.github.ensgijs.nbt.tag.IntArrayTag;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.tag.ListTag;
+import io.github.ensgijs.nbt.tag.LongArrayTag;
+import io.github.ensgijs.nbt.tag.LongTag;
+import io.github.ensgijs.nbt.tag.ShortTag;
+import io.github.ensgijs.nbt.tag.StringTag;
+import io.github.ensgijs.nbt.tag.Tag;
+import io.github.ensgijs.nbt.util.JsonPrettyPrinter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Converts between binary nbt, text nbt and the JSON of {@link Tag#toString()} token by token, piping an input
+ * stream straight into an output stream without ever creating {@link Tag}s for the data.
+ * <p>Without sorting, memory use does not grow with the size of the data; only the current name, string or
+ * array element is held. The one exception is text to binary conversion: binary nbt stores the length of a
+ * list or array ahead of its elements, so the binary form of each list and array is held until its closing
+ * bracket has been read.</p>
+ * <p>Sorting compound entries needs random access, so the uncompressed binary data is buffered in full
+ * and then walked in key order, still without creating tags. Entries are ordered the same way as by
+ * {@link TextNbtWriter} for text nbt, by {@link Tag#toString()} for JSON, and by {@link BinaryNbtSerializer}
+ * for binary nbt.</p>
+ * <p>Given streams are not closed. Output is flushed, and compressed output is finished, before returning.</p>
+ */
+public final class NbtTranscoder {
+	private NbtTranscoder() {}
+
+	private static final String[] TAG_NAMES = {
+			EndTag.class.getSimpleName(),
+			ByteTag.class.getSimpleName(),
+			ShortTag.class.getSimpleName(),
+			IntTag.class.getSimpleName(),
+			LongTag.class.getSimpleName(),
+			FloatTag.class.getSimpleName(),
+			DoubleTag.class.getSimpleName(),
+			ByteArrayTag.class.getSimpleName(),
+			StringTag.class.getSimpleName(),
+			ListTag.class.getSimpleName(),
+			CompoundTag.class.getSimpleName(),
+			IntArrayTag.class.getSimpleName(),
+			LongArrayTag.class.getSimpleName()
+	};
+
+	private static final int FLUSH_SIZE = 8192;
+
+	// <editor-fold desc="binary to text nbt">
+	/**
+	 * Writes binary nbt as text nbt, producing the same text as {@link TextNbtHelpers#toTextNbt(NamedTag, boolean, boolean)}
+	 * for the {@link NamedTag} read by {@link BinaryNbtHelpers}.
+	 * @param compression compression of the binary input.
+	 * @see JsonPrettyPrinter#DEFAULT_SINGLE_LINE_MAX_LENGTH
+	 */
+	public static void binaryToTextNbt(InputStream in, CompressionType compression, Writer out, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		BinaryReader reader = BinaryReader.open(in, compression, sortCompoundTagEntries ? NamedTag::compareNames : null);
+		TextSink sink = new TextSink(prettyPrint ? JsonPrettyPrinter.prettyPrintingWriter(out) : out);
+		reader.readNamed(sink);
+		sink.finish();
+	}
+
+	/**
+	 * Writes the text nbt as UTF-8.
+	 * @see #binaryToTextNbt(InputStream, CompressionType, Writer, boolean, boolean)
+	 */
+	public static void binaryToTextNbt(InputStream in, CompressionType compression, OutputStream out, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		binaryToTextNbt(in, compression, writer, prettyPrint, sortCompoundTagEntries);
+		writer.flush();
+	}
+	// </editor-fold>
+
+	// <editor-fold desc="text nbt to binary">
+	/**
+	 * Writes text nbt as binary nbt, producing the same bytes as {@link BinaryNbtSerializer} does for the
+	 * {@link NamedTag} read by {@link TextNbtParser#readTag(int)}; a missing root name is written as {@code ""}.
+	 * Unlike {@link TextNbtParser#readTag(int)} anything but whitespace following the text nbt is an error.
+	 * @param compression compression of the binary output.
+	 * @throws ParseException if the text is not valid text nbt.
+	 */
+	public static void textNbtToBinary(Reader in, OutputStream out, CompressionType compression, boolean sortCompoundTagEntries) throws IOException {
+		TextReader reader = new TextReader(new StringPointer(in));
+		OutputStream compressed = compression.compress(out);
+		try {
+			if (!sortCompoundTagEntries) {
+				BinarySink sink = new BinarySink(compressed);
+				reader.readNamed(sink);
+				sink.finish();
+			} else {
+				SeekableByteArrayOutputStream unsorted = new SeekableByteArrayOutputStream();
+				BinarySink sink = new BinarySink(unsorted);
+				reader.readNamed(sink);
+				sink.finish();
+				BinarySink sortedSink = new BinarySink(compressed);
+				new BinaryReader(unsorted.toInputStream(), String::compareTo).readNamed(sortedSink);
+				sortedSink.finish();
+			}
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		compression.finish(compressed);
+		compressed.flush();
+	}
+
+	/**
+	 * Reads the text nbt as UTF-8.
+	 * @see #textNbtToBinary(Reader, OutputStream, CompressionType, boolean)
+	 */
+	public static void textNbtToBinary(InputStream in, OutputStream out, CompressionType compression, boolean sortCompoundTagEntries) throws IOException {
+		textNbtToBinary(new InputStreamReader(in, StandardCharsets.UTF_8), out, compression, sortCompoundTagEntries);
+	}
+	// </editor-fold>
+
+	// <editor-fold desc="binary to json">
+	/**
+	 * Writes binary nbt as the JSON of {@link Tag#toString()} of the root tag; the root name is dropped.
+	 * {@link Tag#toString()} always sorts compound entries, so the output is only identical to it when
+	 * {@code sortCompoundTagEntries} is true.
+	 * @param compression compression of the binary input.
+	 * @param prettyPrint when true the JSON is formatted as by {@link JsonPrettyPrinter#prettyPrintJson(CharSequence)}.
+	 */
+	public static void binaryToJson(InputStream in, CompressionType compression, Writer out, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		BinaryReader reader = BinaryReader.open(in, compression, sortCompoundTagEntries ? String::compareTo : null);
+		JsonSink sink = new JsonSink(prettyPrint ? JsonPrettyPrinter.prettyPrintingWriter(out) : out);
+		reader.readNamed(sink);
+		sink.finish();
+	}
+
+	/**
+	 * Writes the JSON as UTF-8.
+	 * @see #binaryToJson(InputStream, CompressionType, Writer, boolean, boolean)
+	 */
+	public static void binaryToJson(InputStream in, CompressionType compression, OutputStream out, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		binaryToJson(in, compression, writer, prettyPrint, sortCompoundTagEntries);
+		writer.flush();
+	}
+	// </editor-fold>
+
+	/**
+	 * Receives the tokens of one named root tag in document order. Compound entries are announced by
+	 * {@link #name(String)} followed by their value; list and array elements are just their values.
+	 */
+	private abstract static class TokenSink {
+		/** Name of the root tag or of the next compound entry. */
+		abstract void name(String name) throws IOException;
+		abstract void byteValue(byte v) throws IOException;
+		abstract void shortValue(short v) throws IOException;
+		abstract void intValue(int v) throws IOException;
+		abstract void longValue(long v) throws IOException;
+		abstract void floatValue(float v) throws IOException;
+		abstract void doubleValue(double v) throws IOException;
+		abstract void stringValue(String v) throws IOException;
+		/** @param length -1 if not known up front. */
+		abstract void beginArray(byte id, int length) throws IOException;
+		abstract void arrayElement(long v) throws IOException;
+		abstract void endArray() throws IOException;
+		/** @param elementId -1 if not known up front. @param size -1 if not known up front. */
+		abstract void beginList(byte elementId, int size) throws IOException;
+		abstract void endList() throws IOException;
+		abstract void beginCompound() throws IOException;
+		abstract void endCompound() throws IOException;
+		abstract void finish() throws IOException;
+	}
+
+	// <editor-fold desc="readers">
+	/** Reads big endian binary nbt, optionally visiting compound entries in sorted order. */
+	private static final class BinaryReader implements MaxDepthIO {
+		private final DataInputStream in;
+		/** Only set when sorting. */
+		private final SeekableByteArrayInputStream bytes;
+		private final Comparator<String> order;
+
+		private BinaryReader(InputStream in) {
+			this.in = new DataInputStream(in);
+			this.bytes = null;
+			this.order = null;
+		}
+
+		private BinaryReader(SeekableByteArrayInputStream bytes, Comparator<String> order) {
+			this.in = new DataInputStream(bytes);
+			this.bytes = bytes;
+			this.order = order;
+		}
+
+		static BinaryReader open(InputStream in, CompressionType compression, Comparator<String> order) throws IOException {
+			InputStream data = compression.decompress(in);
+			if (order == null) {
+				return new BinaryReader(data);
+			}
+			byte[] all = data.readAllBytes();
+			return new BinaryReader(new SeekableByteArrayInputStream(all, all.length), order);
+		}
+
+		void readNamed(TokenSink sink) throws IOException {
+			byte id = in.readByte();
+			if (id == EndTag.ID) {
+				throw new IOException("end tag not allowed");
+			}
+			sink.name(in.readUTF());
+			readValue(id, sink, Tag.DEFAULT_MAX_DEPTH);
+		}
+
+		private void readValue(byte id, TokenSink sink, int maxDepth) throws IOException {
+			switch (id) {
+				case ByteTag.ID:
+					sink.byteValue(in.readByte());
+					break;
+				case ShortTag.ID:
+					sink.shortValue(in.readShort());
+					break;
+				case IntTag.ID:
+					sink.intValue(in.readInt());
+					break;
+				case LongTag.ID:
+					sink.longValue(in.readLong());
+					break;
+				case FloatTag.ID:
+					sink.floatValue(in.readFloat());
+					break;
+				case DoubleTag.ID:
+					sink.doubleValue(in.readDouble());
+					break;
+				case StringTag.ID:
+					sink.stringValue(in.readUTF());
+					break;
+				case ByteArrayTag.ID: {
+					int length = Math.max(0, in.readInt());
+					sink.beginArray(id, length);
+					for (int i = 0; i < length; i++) {
+						sink.arrayElement(in.readByte());
+					}
+					sink.endArray();
+					break;
+				}
+				case IntArrayTag.ID: {
+					int length = Math.max(0, in.readInt());
+					sink.beginArray(id, length);
+					for (int i = 0; i < length; i++) {
+						sink.arrayElement(in.readInt());
+					}
+					sink.endArray();
+					break;
+				}
+				case LongArrayTag.ID: {
+					int length = Math.max(0, in.readInt());
+					sink.beginArray(id, length);
+					for (int i = 0; i < length; i++) {
+						sink.arrayElement(in.readLong());
+					}
+					sink.endArray();
+					break;
+				}
+				case ListTag.ID: {
+					byte elementId = in.readByte();
+					if (elementId < 0 || elementId >= TAG_NAMES.length) {
+						throw new IOException("invalid tag id \"" + elementId + "\"");
+					}
+					int size = Math.max(0, in.readInt());
+					sink.beginList(elementId, size);
+					if (size > 0) {
+						int elementDepth = decrementMaxDepth(maxDepth);
+						for (int i = 0; i < size; i++) {
+							readValue(elementId, sink, elementDepth);
+						}
+					}
+					sink.endList();
+					break;
+				}
+				case CompoundTag.ID:
+					sink.beginCompound();
+					if (order == null) {
+						for (byte entryId = in.readByte(); entryId != EndTag.ID; entryId = in.readByte()) {
+							sink.name(in.readUTF());
+							readValue(entryId, sink, decrementMaxDepth(maxDepth));
+						}
+					} else {
+						readCompoundSorted(sink, maxDepth);
+					}
+					sink.endCompound();
+					break;
+				default:
+					throw new IOException("invalid tag id \"" + id + "\"");
+			}
+		}
+
+		private record Entry(String name, byte id, int position) {}
+
+		private void readCompoundSorted(TokenSink sink, int maxDepth) throws IOException {
+			Entry[] entries = new Entry[8];
+			int count = 0;
+			for (byte entryId = in.readByte(); entryId != EndTag.ID; entryId = in.readByte()) {
+				if (count == entries.length) {
+					entries = Arrays.copyOf(entries, count << 1);
+				}
+				entries[count++] = new Entry(in.readUTF(), entryId, bytes.position());
+				skipValue(entryId, decrementMaxDepth(maxDepth));
+			}
+			final int end = bytes.position();
+			Arrays.sort(entries, 0, count, (a, b) -> order.compare(a.name, b.name));
+			for (int i = 0; i < count; i++) {
+				sink.name(entries[i].name);
+				bytes.seek(entries[i].position);
+				readValue(entries[i].id, sink, decrementMaxDepth(maxDepth));
+			}
+			bytes.seek(end);
+		}
+
+		private void skipValue(byte id, int maxDepth) throws IOException {
+			switch (id) {
+				case ByteTag.ID: skip(1); break;
+				case ShortTag.ID: skip(2); break;
+				case IntTag.ID:
+				case FloatTag.ID: skip(4); break;
+				case LongTag.ID:
+				case DoubleTag.ID: skip(8); break;
+				case StringTag.ID: skip(in.readUnsignedShort()); break;
+				case ByteArrayTag.ID: skip(Math.max(0, in.readInt())); break;
+				case IntArrayTag.ID: skip(4L * Math.max(0, in.readInt())); break;
+				case LongArrayTag.ID: skip(8L * Math.max(0, in.readInt())); break;
+				case ListTag.ID: {
+					byte elementId = in.readByte();
+					int size = Math.max(0, in.readInt());
+					for (int i = 0; i < size; i++) {
+						skipValue(elementId, decrementMaxDepth(maxDepth));
+					}
+					break;
+				}
+				case CompoundTag.ID:
+					for (byte entryId = in.readByte(); entryId != EndTag.ID; entryId = in.readByte()) {
+						skip(in.readUnsignedShort());
+						skipValue(entryId, decrementMaxDepth(maxDepth));
+					}
+					break;
+				default:
+					throw new IOException("invalid tag id \"" + id + "\"");
+			}
+		}
+
+		private void skip(long n) throws IOException {
+			bytes.seek(bytes.position() + n);
+		}
+	}
+
+	/** Reads text nbt with the grammar, and error messages, of {@link TextNbtParser}. */
+	private static final class TextReader implements MaxDepthIO {
+		private final StringPointer ptr;
+
+		TextReader(StringPointer ptr) {
+			this.ptr = ptr;
+		}
+
+		void readNamed(TokenSink sink) throws IOException {
+			ptr.skipWhitespace();
+			if (!ptr.hasNext()) {
+				throw ptr.parseException("unexpected end of input");
+			}
+			// same name detection as TextNbtParser#readTag(int)
+			String name = ptr.currentChar() == '"' ? ptr.parseQuotedString() : ptr.parseSimpleString();
+			ptr.skipWhitespace();
+			if (ptr.hasNext() && ptr.next() == ':') {
+				ptr.skipWhitespace();
+				if (!ptr.hasNext()) {
+					throw ptr.parseException("unexpected end of input - no value after name:");
+				}
+			} else {
+				name = "";
+				ptr.reset();
+				ptr.skipWhitespace();
+			}
+			sink.name(name);
+			readValue(sink, Tag.DEFAULT_MAX_DEPTH);
+			ptr.skipWhitespace();
+			if (ptr.hasNext()) {
+				throw ptr.parseException("invalid characters after end of text nbt");
+			}
+		}
+
+		/** @return the id of the value read. */
+		private byte readValue(TokenSink sink, int maxDepth) throws IOException {
+			ptr.skipWhitespace();
+			switch (ptr.currentChar()) {
+				case '{':
+					readCompound(sink, maxDepth);
+					return CompoundTag.ID;
+				case '[':
+					if (ptr.hasCharsLeft(2) && ptr.lookAhead(1) != '"' && ptr.lookAhead(2) == ';') {
+						return readNumArray(sink);
+					}
+					readList(sink, maxDepth);
+					return ListTag.ID;
+				case '"':
+					sink.stringValue(ptr.parseQuotedString());
+					return StringTag.ID;
+			}
+			String s = ptr.parseSimpleString();
+			if (s.isEmpty()) {
+				throw ptr.parseException("expected non empty value");
+			}
+			Tag<?> literal = TextNbtParser.parseLiteral(s, ptr);
+			switch (literal.getID()) {
+				case ByteTag.ID: sink.byteValue(((ByteTag) literal).asByte()); break;
+				case ShortTag.ID: sink.shortValue(((ShortTag) literal).asShort()); break;
+				case IntTag.ID: sink.intValue(((IntTag) literal).asInt()); break;
+				case LongTag.ID: sink.longValue(((LongTag) literal).asLong()); break;
+				case FloatTag.ID: sink.floatValue(((FloatTag) literal).asFloat()); break;
+				case DoubleTag.ID: sink.doubleValue(((DoubleTag) literal).asDouble()); break;
+				default: sink.stringValue(((StringTag) literal).getValue());
+			}
+			return literal.getID();
+		}
+
+		private void readCompound(TokenSink sink, int maxDepth) throws IOException {
+			ptr.expectChar('{');
+			sink.beginCompound();
+			ptr.skipWhitespace();
+			while (ptr.hasNext() && ptr.currentChar() != '}') {
+				ptr.skipWhitespace();
+				String key = ptr.currentChar() == '"' ? ptr.parseQuotedString() : ptr.parseSimpleString();
+				if (key.isEmpty()) {
+					throw ptr.parseException("empty keys are not allowed");
+				}
+				ptr.expectChar(':');
+				sink.name(key);
+				readValue(sink, decrementMaxDepth(maxDepth));
+				if (!ptr.nextArrayElement()) {
+					break;
+				}
+			}
+			ptr.expectChar('}');
+			sink.endCompound();
+		}
+
+		private void readList(TokenSink sink, int maxDepth) throws IOException {
+			ptr.expectChar('[');
+			ptr.skipWhitespace();
+			sink.beginList((byte) -1, -1);
+			byte elementId = -1;
+			while (ptr.currentChar() != ']') {
+				byte id = readValue(sink, decrementMaxDepth(maxDepth));
+				if (elementId == -1) {
+					elementId = id;
+				} else if (id != elementId) {
+					throw ptr.parseException(String.format(
+							"cannot add %s to ListTag<%s>", TAG_NAMES[id], TAG_NAMES[elementId]));
+				}
+				if (!ptr.nextArrayElement()) {
+					break;
+				}
+			}
+			ptr.expectChar(']');
+			sink.endList();
+		}
+
+		private byte readNumArray(TokenSink sink) throws IOException {
+			ptr.expectChar('[');
+			char arrayType = ptr.next();
+			ptr.expectChar(';');
+			ptr.skipWhitespace();
+			final byte id;
+			final String type;
+			switch (arrayType) {
+				case 'B': id = ByteArrayTag.ID; type = "byte"; break;
+				case 'I': id = IntArrayTag.ID; type = "int"; break;
+				case 'L': id = LongArrayTag.ID; type = "long"; break;
+				default: throw ptr.parseException("invalid array type '" + arrayType + "'");
+			}
+			sink.beginArray(id, -1);
+			while (ptr.currentChar() != ']') {
+				String s = ptr.parseSimpleString();
+				ptr.skipWhitespace();
+				if (!TextNbtParser.isInteger(s)) {
+					throw ptr.parseException("invalid " + type + " in " + TAG_NAMES[id] + ": \"" + s + "\"");
+				}
+				try {
+					switch (id) {
+						case ByteArrayTag.ID: sink.arrayElement(Byte.parseByte(s)); break;
+						case IntArrayTag.ID: sink.arrayElement(Integer.parseInt(s)); break;
+						default: sink.arrayElement(Long.parseLong(s));
+					}
+				} catch (NumberFormatException ex) {
+					throw ptr.parseException(type + " not in range: \"" + s + "\"");
+				}
+				if (!ptr.nextArrayElement()) {
+					break;
+				}
+			}
+			ptr.expectChar(']');
+			sink.endArray();
+			return id;
+		}
+	}
+	// </editor-fold>
+
+	// <editor-fold desc="sinks">
+	/** Writes text nbt exactly like {@link TextNbtWriter}. */
+	private static final class TextSink extends TokenSink {
+		private final Writer out;
+		private final TextNbtWriter w;
+		private boolean needsComma;
+
+		TextSink(Writer out) {
+			this.out = out;
+			this.w = new TextNbtWriter(out);
+		}
+
+		private void separate() throws IOException {
+			if (needsComma) w.write(',');
+		}
+
+		@Override
+		void name(String name) throws IOException {
+			separate();
+			w.writeName(name);
+			w.write(':');
+			needsComma = false;
+		}
+
+		@Override
+		void byteValue(byte v) throws IOException {
+			separate();
+			w.writeInt(v);
+			w.write('b');
+			needsComma = true;
+		}
+
+		@Override
+		void shortValue(short v) throws IOException {
+			separate();
+			w.writeInt(v);
+			w.write('s');
+			needsComma = true;
+		}
+
+		@Override
+		void intValue(int v) throws IOException {
+			separate();
+			w.writeInt(v);
+			needsComma = true;
+		}
+
+		@Override
+		void longValue(long v) throws IOException {
+			separate();
+			w.writeLong(v);
+			w.write('l');
+			needsComma = true;
+		}
+
+		@Override
+		void floatValue(float v) throws IOException {
+			separate();
+			w.write(Float.toString(v));
+			w.write('f');
+			needsComma = true;
+		}
+
+		@Override
+		void doubleValue(double v) throws IOException {
+			separate();
+			w.write(Double.toString(v));
+			w.write('d');
+			needsComma = true;
+		}
+
+		@Override
+		void stringValue(String v) throws IOException {
+			separate();
+			w.writeString(v);
+			needsComma = true;
+		}
+
+		@Override
+		void beginArray(byte id, int length) throws IOException {
+			separate();
+			w.write('[');
+			w.write(id == ByteArrayTag.ID ? 'B' : id == IntArrayTag.ID ? 'I' : 'L');
+			w.write(';');
+			needsComma = false;
+		}
+
+		@Override
+		void arrayElement(long v) throws IOException {
+			separate();
+			w.writeLong(v);
+			needsComma = true;
+		}
+
+		@Override
+		void endArray() throws IOException {
+			w.write(']');
+			needsComma = true;
+		}
+
+		@Override
+		void beginList(byte elementId, int size) throws IOException {
+			separate();
+			w.write('[');
+			needsComma = false;
+		}
+
+		@Override
+		void endList() throws IOException {
+			w.write(']');
+			needsComma = true;
+		}
+
+		@Override
+		void beginCompound() throws IOException {
+			separate();
+			w.write('{');
+			needsComma = false;
+		}
+
+		@Override
+		void endCompound() throws IOException {
+			w.write('}');
+			needsComma = true;
+		}
+
+		@Override
+		void finish() throws IOException {
+			w.flushBuffer();
+			if (out instanceof JsonPrettyPrinter.PrettyPrintingWriter pretty) {
+				pretty.finish();
+			} else {
+				out.flush();
+			}
+		}
+	}
+
+	/** Writes the JSON of {@link Tag#toString()}. */
+	private static final class JsonSink extends TokenSink {
+		private final Writer out;
+		private final TextNbtWriter w;
+		private boolean needsComma;
+		/** Whether the values at each nesting level are list elements, which are written without their type. */
+		private boolean[] inList = new boolean[16];
+		private int depth;
+
+		JsonSink(Writer out) {
+			this.out = out;
+			this.w = new TextNbtWriter(out);
+		}
+
+		private void beginValue(byte id) throws IOException {
+			if (needsComma) w.write(',');
+			if (!inList[depth]) {
+				w.write("{\"type\":\"");
+				w.write(TAG_NAMES[id]);
+				w.write("\",\"value\":");
+			}
+		}
+
+		private void endValue() throws IOException {
+			if (!inList[depth]) w.write('}');
+			needsComma = true;
+		}
+
+		private void push(boolean list) {
+			if (++depth == inList.length) {
+				inList = Arrays.copyOf(inList, depth << 1);
+			}
+			inList[depth] = list;
+			needsComma = false;
+		}
+
+		@Override
+		void name(String name) throws IOException {
+			if (depth == 0) return; // the root name isn't part of Tag#toString()
+			if (needsComma) w.write(',');
+			w.writeQuotedString(name);
+			w.write(':');
+			needsComma = false;
+		}
+
+		@Override
+		void byteValue(byte v) throws IOException {
+			beginValue(ByteTag.ID);
+			w.writeInt(v);
+			endValue();
+		}
+
+		@Override
+		void shortValue(short v) throws IOException {
+			beginValue(ShortTag.ID);
+			w.writeInt(v);
+			endValue();
+		}
+
+		@Override
+		void intValue(int v) throws IOException {
+			beginValue(IntTag.ID);
+			w.writeInt(v);
+			endValue();
+		}
+
+		@Override
+		void longValue(long v) throws IOException {
+			beginValue(LongTag.ID);
+			w.writeLong(v);
+			endValue();
+		}
+
+		@Override
+		void floatValue(float v) throws IOException {
+			beginValue(FloatTag.ID);
+			w.write(Float.toString(v));
+			endValue();
+		}
+
+		@Override
+		void doubleValue(double v) throws IOException {
+			beginValue(DoubleTag.ID);
+			w.write(Double.toString(v));
+			endValue();
+		}
+
+		@Override
+		void stringValue(String v) throws IOException {
+			beginValue(StringTag.ID);
+			w.writeQuotedString(v);
+			endValue();
+		}
+
+		@Override
+		void beginArray(byte id, int length) throws IOException {
+			beginValue(id);
+			w.write('[');
+			needsComma = false;
+		}
+
+		@Override
+		void arrayElement(long v) throws IOException {
+			if (needsComma) w.write(',');
+			w.writeLong(v);
+			needsComma = true;
+		}
+
+		@Override
+		void endArray() throws IOException {
+			w.write(']');
+			endValue();
+		}
+
+		@Override
+		void beginList(byte elementId, int size) throws IOException {
+			beginValue(ListTag.ID);
+			w.write("{\"type\":\"");
+			w.write(TAG_NAMES[elementId]);
+			w.write("\",\"list\":[");
+			push(true);
+		}
+
+		@Override
+		void endList() throws IOException {
+			w.write("]}");
+			depth--;
+			endValue();
+		}
+
+		@Override
+		void beginCompound() throws IOException {
+			beginValue(CompoundTag.ID);
+			w.write('{');
+			push(false);
+		}
+
+		@Override
+		void endCompound() throws IOException {
+			w.write('}');
+			depth--;
+			endValue();
+		}
+
+		@Override
+		void finish() throws IOException {
+			w.flushBuffer();
+			if (out instanceof JsonPrettyPrinter.PrettyPrintingWriter pretty) {
+				pretty.finish();
+			} else {
+				out.flush();
+			}
+		}
+	}
+
+	/**
+	 * Writes big endian binary nbt. Lists and arrays of unknown length get a placeholder header which is
+	 * patched when they end; output is only handed on while no such header is pending.
+	 */
+	private static final class BinarySink extends TokenSink {
+		private static final byte ROOT = 0, COMPOUND = 1, LIST = 2, ARRAY = 3;
+
+		private final OutputStream out;
+		private final SeekableByteArrayOutputStream buf = new SeekableByteArrayOutputStream();
+		private final DataOutputStream data = new DataOutputStream(buf);
+		private String pendingName = "";
+		/** Per nesting level: the kind of container, its element id, element count and position of a length to patch. */
+		private byte[] kind = new byte[16];
+		private byte[] elementId = new byte[16];
+		private int[] count = new int[16];
+		private int[] lengthPos = new int[16];
+		private int depth;
+		/** Number of open lists and arrays whose header will be patched. */
+		private int pendingHeaders;
+
+		BinarySink(OutputStream out) {
+			this.out = out;
+		}
+
+		private void beginValue(byte id) throws IOException {
+			switch (kind[depth]) {
+				case ROOT:
+				case COMPOUND:
+					data.writeByte(id);
+					data.writeUTF(pendingName);
+					break;
+				case LIST:
+					if (count[depth]++ == 0 && elementId[depth] == -1) {
+						// the element id directly precedes the list length
+						elementId[depth] = id;
+						buf.patchByte(lengthPos[depth] - 1, id);
+					}
+					break;
+			}
+		}
+
+		/** @param containerLengthPos position of the length to patch when the container ends, or -1. */
+		private void push(byte containerKind, byte containerElementId, int containerLengthPos) {
+			if (++depth == kind.length) {
+				kind = Arrays.copyOf(kind, depth << 1);
+				elementId = Arrays.copyOf(elementId, depth << 1);
+				count = Arrays.copyOf(count, depth << 1);
+				lengthPos = Arrays.copyOf(lengthPos, depth << 1);
+			}
+			kind[depth] = containerKind;
+			elementId[depth] = containerElementId;
+			count[depth] = 0;
+			lengthPos[depth] = containerLengthPos;
+			if (containerLengthPos >= 0) {
+				pendingHeaders++;
+			}
+		}
+
+		/** Pops a list or array, patching its length if it wasn't known up front. */
+		private void popSized() throws IOException {
+			if (lengthPos[depth] >= 0) {
+				buf.patchInt(lengthPos[depth], count[depth]);
+				pendingHeaders--;
+			}
+			depth--;
+			maybeFlush();
+		}
+
+		private void maybeFlush() throws IOException {
+			if (pendingHeaders == 0 && buf.size() >= FLUSH_SIZE) {
+				buf.writeTo(out);
+				buf.reset();
+			}
+		}
+
+		@Override
+		void name(String name) {
+			pendingName = name;
+		}
+
+		@Override
+		void byteValue(byte v) throws IOException {
+			beginValue(ByteTag.ID);
+			data.writeByte(v);
+			maybeFlush();
+		}
+
+		@Override
+		void shortValue(short v) throws IOException {
+			beginValue(ShortTag.ID);
+			data.writeShort(v);
+			maybeFlush();
+		}
+
+		@Override
+		void intValue(int v) throws IOException {
+			beginValue(IntTag.ID);
+			data.writeInt(v);
+			maybeFlush();
+		}
+
+		@Override
+		void longValue(long v) throws IOException {
+			beginValue(LongTag.ID);
+			data.writeLong(v);
+			maybeFlush();
+		}
+
+		@Override
+		void floatValue(float v) throws IOException {
+			beginValue(FloatTag.ID);
+			data.writeFloat(v);
+			maybeFlush();
+		}
+
+		@Override
+		void doubleValue(double v) throws IOException {
+			beginValue(DoubleTag.ID);
+			data.writeDouble(v);
+			maybeFlush();
+		}
+
+		@Override
+		void stringValue(String v) throws IOException {
+			beginValue(StringTag.ID);
+			data.writeUTF(v);
+			maybeFlush();
+		}
+
+		@Override
+		void beginArray(byte id, int length) throws IOException {
+			beginValue(id);
+			int pos = buf.size();
+			data.writeInt(Math.max(0, length));
+			push(ARRAY, id, length < 0 ? pos : -1);
+		}
+
+		@Override
+		void arrayElement(long v) throws IOException {
+			switch (elementId[depth]) {
+				case ByteArrayTag.ID: data.writeByte((int) v); break;
+				case IntArrayTag.ID: data.writeInt((int) v); break;
+				default: data.writeLong(v);
+			}
+			count[depth]++;
+			maybeFlush();
+		}
+
+		@Override
+		void endArray() throws IOException {
+			popSized();
+		}
+
+		@Override
+		void beginList(byte listElementId, int size) throws IOException {
+			beginValue(ListTag.ID);
+			data.writeByte(Math.max(0, listElementId));
+			int pos = buf.size();
+			data.writeInt(Math.max(0, size));
+			push(LIST, listElementId, size < 0 ? pos : -1);
+		}
+
+		@Override
+		void endList() throws IOException {
+			popSized();
+		}
+
+		@Override
+		void beginCompound() throws IOException {
+			beginValue(CompoundTag.ID);
+			push(COMPOUND, (byte) -1, -1);
+		}
+
+		@Override
+		void endCompound() throws IOException {
+			data.writeByte(EndTag.ID);
+			depth--;
+			maybeFlush();
+		}
+
+		@Override
+		void finish() throws IOException {
+			buf.writeTo(out);
+			buf.reset();
+		}
+	}
+	// </editor-fold>
+
+	private static final class SeekableByteArrayInputStream extends ByteArrayInputStream {
+		SeekableByteArrayInputStream(byte[] buf, int length) {
+			super(buf, 0, length);
+		}
+
+		int position() {
+			return pos;
+		}
+
+		void seek(long position) throws EOFException {
+			if (position > count) {
+				throw new EOFException();
+			}
+			pos = (int) position;
+		}
+	}
+
+	private static final class SeekableByteArrayOutputStream extends ByteArrayOutputStream {
+		SeekableByteArrayOutputStream() {
+			super(FLUSH_SIZE);
+		}
+
+		void patchByte(int position, byte v) {
+			buf[position] = v;
+		}
+
+		void patchInt(int position, int v) {
+			buf[position] = (byte) (v >>> 24);
+			buf[position + 1] = (byte) (v >>> 16);
+			buf[position + 2] = (byte) (v >>> 8);
+			buf[position + 3] = (byte) v;
+		}
+
+		SeekableByteArrayInputStream toInputStream() {
+			return new SeekableByteArrayInputStream(buf, count);
+		}
+	}
+}
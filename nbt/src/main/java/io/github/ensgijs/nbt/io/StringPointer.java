@@ -1,25 +1,89 @@
 package io.github.ensgijs.nbt.io;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Cursor over text nbt input. The input is either held entirely in memory (when created from a {@link String})
+ * or streamed through a sliding buffer (when created from a {@link Reader} or other {@link CharSequence}).
+ * In streaming mode only the token currently being parsed, plus a little context for error messages,
+ * is retained; everything before it is discarded as the buffer is refilled.
+ * <p>Indexes are always absolute positions within the input. I/O errors raised by a backing {@link Reader}
+ * are rethrown as {@link UncheckedIOException}.</p>
+ */
 public class StringPointer {
 
-	private String value;
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	/** Number of chars kept before the current index when the buffer is compacted, used by {@link #parseException(String)}. */
+	private static final int ERROR_CONTEXT = 64;
+
+	/** Null when the whole input is held in {@link #buf}. */
+	private final Reader reader;
+	private char[] buf;
+	/** Absolute index of {@code buf[0]}. */
+	private int offset;
+	/** Number of valid chars in {@link #buf}. */
+	private int limit;
 	private int index;
+	/** Absolute index of the start of the token being parsed which must not be discarded, or -1. */
+	private int mark = -1;
+	private boolean eof;
 
 	public StringPointer(String value) {
-		this.value = value;
-		skipUtf8Bom();
+		this((CharSequence) value);
+	}
+
+	/**
+	 * Strings, and other short char sequences, are copied in full; any other char sequence
+	 * is read through a sliding buffer.
+	 */
+	public StringPointer(CharSequence value) {
+		if (value instanceof String || value.length() <= DEFAULT_BUFFER_SIZE) {
+			this.reader = null;
+			this.buf = value.toString().toCharArray();
+			this.limit = buf.length;
+			this.eof = true;
+			skipUtf8Bom();
+		} else {
+			this.reader = new CharSequenceReader(value);
+			this.buf = new char[DEFAULT_BUFFER_SIZE];
+		}
+	}
+
+	/**
+	 * Streams the given reader through an internal buffer, so it does not need to be buffered itself.
+	 * Nothing is read until the first char is requested.
+	 */
+	public StringPointer(Reader reader) {
+		this(reader, DEFAULT_BUFFER_SIZE);
+	}
+
+	public StringPointer(Reader reader, int bufferSize) {
+		if (bufferSize <= ERROR_CONTEXT) {
+			throw new IllegalArgumentException("bufferSize must be greater than " + ERROR_CONTEXT);
+		}
+		this.reader = reader;
+		this.buf = new char[bufferSize];
 	}
 
+	/**
+	 * Moves back to the start of the input.
+	 * @throws IllegalStateException if this pointer is streaming and the start of the input was already discarded.
+	 */
 	public void reset() {
+		if (offset != 0) {
+			throw new IllegalStateException("cannot reset a stream after its start has been discarded");
+		}
 		index = 0;
 		skipUtf8Bom();
 	}
 
 	/** Skips the UTF8 BOM (byte order mark) if the current index is 0, else does nothing.*/
 	private void skipUtf8Bom() {
-		if (index != 0) return;
-		if (hasNext() && next() != '\uFEFF') {
-			index = 0;
+		if (index == 0 && offset == 0 && limit > 0 && buf[0] == '\uFEFF') {
+			index = 1;
 		}
 	}
 
@@ -27,47 +91,59 @@ public class StringPointer {
 		return index;
 	}
 
+	/** Length of the input, or when streaming, the number of chars read from the stream so far. */
 	public int size() {
-		return value.length();
+		return offset + limit;
 	}
 
 	public String parseSimpleString() {
-		int oldIndex = index;
-		while (hasNext() && isSimpleChar(currentChar())) {
+		if (!hasNext()) {
+			return "";
+		}
+		mark = index;
+		while (hasNext() && isSimpleChar(buf[index - offset])) {
 			index++;
 		}
-		return value.substring(oldIndex, index);
+		String s = new String(buf, mark - offset, index - mark);
+		mark = -1;
+		return s;
 	}
 
 	public String parseQuotedString() throws ParseException {
-		int oldIndex = ++index; //ignore beginning quotes
-		StringBuilder sb = null;
-		boolean escape = false;
-		while (hasNext()) {
-			char c = next();
-			if (escape) {
-				if (c != '\\' && c != '"') {
-					throw parseException("invalid escape of '" + c + "'");
-				}
-				escape = false;
-			} else {
-				if (c == '\\') { //escape
-					escape = true;
-					if (sb != null) {
+		int oldIndex = mark = ++index; //ignore beginning quotes
+		try {
+			StringBuilder sb = null;
+			boolean escape = false;
+			while (hasNext()) {
+				char c = next();
+				if (escape) {
+					if (c != '\\' && c != '"') {
+						throw parseException("invalid escape of '" + c + "'");
+					}
+					escape = false;
+				} else {
+					if (c == '\\') { //escape
+						escape = true;
+						if (sb != null) {
+							continue;
+						}
+						sb = new StringBuilder(index - oldIndex + 16);
+						sb.append(buf, oldIndex - offset, index - 1 - oldIndex);
+						mark = -1;
 						continue;
 					}
-					sb = new StringBuilder(value.substring(oldIndex, index - 1));
-					continue;
+					if (c == '"') {
+						return sb == null ? new String(buf, oldIndex - offset, index - 1 - oldIndex) : sb.toString();
+					}
 				}
-				if (c == '"') {
-					return sb == null ? value.substring(oldIndex, index - 1) : sb.toString();
+				if (sb != null) {
+					sb.append(c);
 				}
 			}
-			if (sb != null) {
-				sb.append(c);
-			}
+			throw parseException("missing end quote");
+		} finally {
+			mark = -1;
 		}
-		throw parseException("missing end quote");
 	}
 
 	public boolean nextArrayElement() {
@@ -91,25 +167,25 @@ public class StringPointer {
 	}
 
 	public void skipWhitespace() {
-		while (hasNext() && Character.isWhitespace(currentChar())) {
+		while (hasNext() && Character.isWhitespace(buf[index - offset])) {
 			index++;
 		}
 	}
 
 	public boolean hasNext() {
-		return index < value.length();
+		return index < offset + limit || buffer(index);
 	}
 
 	public boolean hasCharsLeft(int num) {
-		return this.index + num < value.length();
+		return index + num < offset + limit || buffer(index + num);
 	}
 
 	public char currentChar() {
-		return value.charAt(index);
+		return charAt(index);
 	}
 
 	public char next() {
-		return value.charAt(index++);
+		return charAt(index++);
 	}
 
 	public void skip(int offset) {
@@ -117,7 +193,54 @@ public class StringPointer {
 	}
 
 	public char lookAhead(int offset) {
-		return value.charAt(index + offset);
+		return charAt(index + offset);
+	}
+
+	private char charAt(int pos) {
+		if (pos >= offset + limit && !buffer(pos)) {
+			throw new StringIndexOutOfBoundsException("index " + pos + ", length " + (offset + limit));
+		}
+		return buf[pos - offset];
+	}
+
+	/** Reads from the stream until {@code pos} is buffered. Returns false if the input ends before {@code pos}. */
+	private boolean buffer(int pos) {
+		while (pos >= offset + limit) {
+			if (eof) {
+				return false;
+			}
+			fill();
+		}
+		return true;
+	}
+
+	private void fill() {
+		int keepFrom = (mark >= 0 ? Math.min(mark, index) : index) - ERROR_CONTEXT;
+		keepFrom = Math.max(offset, Math.min(offset + limit, keepFrom));
+		int discard = keepFrom - offset;
+		if (discard > 0) {
+			System.arraycopy(buf, discard, buf, 0, limit - discard);
+			offset += discard;
+			limit -= discard;
+		}
+		if (limit == buf.length) {
+			buf = Arrays.copyOf(buf, buf.length << 1);
+		}
+		int n;
+		try {
+			n = reader.read(buf, limit, buf.length - limit);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		if (n < 0) {
+			eof = true;
+		} else {
+			boolean first = offset + limit == 0;
+			limit += n;
+			if (first) {
+				skipUtf8Bom();
+			}
+		}
 	}
 
 	private static boolean isSimpleChar(char c) {
@@ -131,6 +254,33 @@ public class StringPointer {
 	}
 
 	public ParseException parseException(String msg) {
-		return new ParseException(msg, value, index);
+		// after the first compaction at least ERROR_CONTEXT chars remain buffered before index
+		int end = Math.min(limit, index - offset);
+		int start = Math.max(0, end - ERROR_CONTEXT);
+		return new ParseException(msg, new String(buf, start, end - start), end - start);
+	}
+
+	private static final class CharSequenceReader extends Reader {
+		private final CharSequence value;
+		private int pos;
+
+		CharSequenceReader(CharSequence value) {
+			this.value = value;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) {
+			int n = Math.min(len, value.length() - pos);
+			if (n <= 0) {
+				return len == 0 ? 0 : -1;
+			}
+			for (int i = 0; i < n; i++) {
+				cbuf[off + i] = value.charAt(pos++);
+			}
+			return n;
+		}
+
+		@Override
+		public void close() {}
 	}
 }
@@ -4,18 +4,12 @@ import io.github.ensgijs.nbt.tag.Tag;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
 
 public class TextNbtDeserializer implements Deserializer<NamedTag> {
 
+	/** The text is parsed as it is read; the reader does not need to be buffered. */
 	public NamedTag fromReader(Reader reader, int maxDepth) throws IOException {
-		BufferedReader bufferedReader;
-		if (reader instanceof BufferedReader) {
-			bufferedReader = (BufferedReader) reader;
-		} else {
-			bufferedReader = new BufferedReader(reader);
-		}
-		return new TextNbtParser(bufferedReader.lines().collect(Collectors.joining())).readTag(maxDepth);
+		return new TextNbtParser(reader).readTag(maxDepth);
 	}
 
 	public NamedTag fromReader(Reader reader) throws IOException {
@@ -23,7 +17,7 @@ public class TextNbtDeserializer implements Deserializer<NamedTag> {
 	}
 
 	public NamedTag fromString(String s) throws IOException {
-		return fromReader(new StringReader(s));
+		return new TextNbtParser(s).readTag(Tag.DEFAULT_MAX_DEPTH);
 	}
 
 	@Override
@@ -27,8 +27,14 @@ public final class TextNbtHelpers {
 
 	// <editor-fold desc="to/from string">
 	public static String toTextNbt(NamedTag namedTag, boolean prettyPrint, boolean sortCompoundTagEntries) {
-		String snbt = new TextNbtSerializer(sortCompoundTagEntries).toString(namedTag);
-		return !prettyPrint ? snbt : JsonPrettyPrinter.prettyPrintJson(snbt);
+		StringBuilder snbt = new StringBuilder();
+		try {
+			TextNbtWriter.write(namedTag, snbt, sortCompoundTagEntries, Tag.DEFAULT_MAX_DEPTH);
+		} catch (IOException ex) {
+			// a StringBuilder never throws
+			throw new RuntimeException(ex);
+		}
+		return !prettyPrint ? snbt.toString() : JsonPrettyPrinter.prettyPrintJson(snbt);
 	}
 
 	/**
@@ -110,22 +116,68 @@ public final class TextNbtHelpers {
 			ArgValidator.check(filePath.getParent().toFile().mkdirs(),
 					"Failed to create parent directory for " + filePath.toAbsolutePath());
 		}
-		byte[] data;
-		if (tag instanceof NamedTag) {
-			data = toTextNbt((NamedTag) tag, prettyPrint, sortCompoundTagEntries).getBytes(StandardCharsets.UTF_8);
-		} else {
-			data = toTextNbt((Tag<?>) tag, prettyPrint, sortCompoundTagEntries).getBytes(StandardCharsets.UTF_8);
-		}
 		if (!filePath.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
-			Files.write(filePath, data);
+			try (OutputStream out = Files.newOutputStream(filePath)) {
+				writeTextNbt0(out, tag, prettyPrint, sortCompoundTagEntries);
+			}
 		} else {
 			try (GZIPOutputStream gzOut = new GZIPOutputStream(new FileOutputStream(filePath.toFile()))) {
-				gzOut.write(data);
+				writeTextNbt0(gzOut, tag, prettyPrint, sortCompoundTagEntries);
 			}
 		}
 		return filePath;
 	}
 
+	// <editor-fold desc="write to stream">
+	/**
+	 * Writes the text nbt of the given tag to the writer as it is generated, without building a String of it first.
+	 * The writer is neither flushed nor closed.
+	 * <p>Pretty printing needs to look ahead to decide what fits on one line, so when {@code prettyPrint}
+	 * is set the compact text is still collected in memory before it is formatted.</p>
+	 */
+	public static void writeTextNbt(Writer writer, NamedTag tag, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		writeTextNbt0(writer, tag, prettyPrint, sortCompoundTagEntries);
+	}
+
+	/** @see #writeTextNbt(Writer, NamedTag, boolean, boolean) */
+	public static void writeTextNbt(Writer writer, Tag<?> tag, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		writeTextNbt0(writer, tag, prettyPrint, sortCompoundTagEntries);
+	}
+
+	/**
+	 * Writes the text nbt of the given tag to the stream as UTF-8. The stream is not closed.
+	 * @see #writeTextNbt(Writer, NamedTag, boolean, boolean)
+	 */
+	public static void writeTextNbt(OutputStream out, NamedTag tag, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		writeTextNbt0(out, tag, prettyPrint, sortCompoundTagEntries);
+	}
+
+	/**
+	 * Writes the text nbt of the given tag to the stream as UTF-8. The stream is not closed.
+	 * @see #writeTextNbt(Writer, NamedTag, boolean, boolean)
+	 */
+	public static void writeTextNbt(OutputStream out, Tag<?> tag, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		writeTextNbt0(out, tag, prettyPrint, sortCompoundTagEntries);
+	}
+	// </editor-fold>
+
+	private static void writeTextNbt0(OutputStream out, Object tag, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		writeTextNbt0(writer, tag, prettyPrint, sortCompoundTagEntries);
+		writer.flush();
+	}
+
+	private static void writeTextNbt0(Writer writer, Object tag, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
+		NamedTag namedTag = tag instanceof NamedTag ? (NamedTag) tag : new NamedTag(null, (Tag<?>) tag);
+		if (!prettyPrint) {
+			TextNbtWriter.write(namedTag, writer, sortCompoundTagEntries, Tag.DEFAULT_MAX_DEPTH);
+		} else {
+			JsonPrettyPrinter.PrettyPrintingWriter pretty = JsonPrettyPrinter.prettyPrintingWriter(writer);
+			TextNbtWriter.write(namedTag, pretty, sortCompoundTagEntries, Tag.DEFAULT_MAX_DEPTH);
+			pretty.finish();
+		}
+	}
+
 	// <editor-fold desc="write Tag<?> to file">
 	public static Path writeTextNbtFile(Path filePath, Tag<?> tag, boolean prettyPrint, boolean sortCompoundTagEntries) throws IOException {
 		return writeTextNbtFile0(filePath, tag, prettyPrint, sortCompoundTagEntries);
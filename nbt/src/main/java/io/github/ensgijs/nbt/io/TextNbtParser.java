@@ -17,53 +17,80 @@ import io.github.ensgijs.nbt.tag.StringTag;
 import io.github.ensgijs.nbt.tag.Tag;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Pattern;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 public final class TextNbtParser implements MaxDepthIO, NbtInput {
 
-	private static final Pattern
-			FLOAT_LITERAL_PATTERN = Pattern.compile("^[-+]?(?:\\d+\\.?|\\d*\\.\\d+)(?:e[-+]?\\d+)?f$", Pattern.CASE_INSENSITIVE),
-			DOUBLE_LITERAL_PATTERN = Pattern.compile("^[-+]?(?:\\d+\\.?|\\d*\\.\\d+)(?:e[-+]?\\d+)?d$", Pattern.CASE_INSENSITIVE),
-			DOUBLE_LITERAL_NO_SUFFIX_PATTERN = Pattern.compile("^[-+]?(?:\\d+\\.|\\d*\\.\\d+)(?:e[-+]?\\d+)?$", Pattern.CASE_INSENSITIVE),
-			BYTE_LITERAL_PATTERN = Pattern.compile("^[-+]?\\d+b$", Pattern.CASE_INSENSITIVE),
-			SHORT_LITERAL_PATTERN = Pattern.compile("^[-+]?\\d+s$", Pattern.CASE_INSENSITIVE),
-			INT_LITERAL_PATTERN = Pattern.compile("^[-+]?\\d+$", Pattern.CASE_INSENSITIVE),
-			LONG_LITERAL_PATTERN = Pattern.compile("^[-+]?\\d+l$", Pattern.CASE_INSENSITIVE),
-			NUMBER_PATTERN = Pattern.compile("^[-+]?\\d+$");
-
-	private StringPointer ptr;
+	private final StringPointer ptr;
 
 	public TextNbtParser(String string) {
 		this.ptr = new StringPointer(string);
 	}
 
+	/** @see StringPointer#StringPointer(CharSequence) */
+	public TextNbtParser(CharSequence text) {
+		this.ptr = new StringPointer(text);
+	}
+
+	/**
+	 * Parses the text nbt read from the given reader without holding all of it in memory. Successive values
+	 * can be read from the same stream by calling {@link #parse(int, boolean)} with {@code lenient=true}
+	 * until {@link #hasNext()} returns false.
+	 * <p>I/O errors of the reader are rethrown as-is by {@link #readTag(int)} and {@link #readRawTag(int)},
+	 * and as {@link java.io.UncheckedIOException} by the {@code parse} methods.</p>
+	 */
+	public TextNbtParser(Reader reader) {
+		this.ptr = new StringPointer(reader);
+	}
+
 	@Override
 	public NamedTag readTag(int maxDepth) throws IOException {
+		try {
+			return readTag0(maxDepth);
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private NamedTag readTag0(int maxDepth) throws IOException {
 		ptr.reset();
 		ptr.skipWhitespace();
 		if (!ptr.hasNext()) return null;
-		String name = ptr.currentChar() == '"' ? ptr.parseQuotedString() : ptr.parseSimpleString();
+		final boolean quoted = ptr.currentChar() == '"';
+		String name = quoted ? ptr.parseQuotedString() : ptr.parseSimpleString();
 		// note to future self: if you're ever compelled to set NamedTag's name to null if it's empty
 		// consider changing TextNbtWriter#writeAnything(NamedTag, int)'s behavior to match
 		ptr.skipWhitespace();
-		if (ptr.hasNext() && ptr.next() ==':') {
+		if (ptr.hasNext() && ptr.currentChar() == ':') {
+			ptr.skip(1);
 			ptr.skipWhitespace();
 			if (!ptr.hasNext()) {
 				throw ptr.parseException("unexpected end of input - no value after name:");
 			}
 			return new NamedTag(name, parseAnything(maxDepth));
 		}
-		return new NamedTag(null, readRawTag(maxDepth));
+		// unnamed - the token just read, if any, was the value itself; a stream can't be rewound to reread it
+		if (quoted) {
+			return new NamedTag(null, new StringTag(name));
+		}
+		if (!name.isEmpty()) {
+			return new NamedTag(null, parseLiteral(name, ptr));
+		}
+		return new NamedTag(null, parseAnything(maxDepth));
 	}
 
 	@Override
 	public Tag<?> readRawTag(int maxDepth) throws IOException {
-		ptr.reset();
-		ptr.skipWhitespace();
-		if (!ptr.hasNext()) return null;
-		return parseAnything(maxDepth);
+		try {
+			ptr.reset();
+			ptr.skipWhitespace();
+			if (!ptr.hasNext()) return null;
+			return parseAnything(maxDepth);
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
 	}
 
 	/**
@@ -108,6 +135,12 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 		}
 	}
 
+	/** Returns true if anything other than whitespace remains to be parsed. */
+	public boolean hasNext() {
+		ptr.skipWhitespace();
+		return ptr.hasNext();
+	}
+
 	public int getReadChars() {
 		return ptr.getIndex() + 1;
 	}
@@ -135,37 +168,114 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 		if (s.isEmpty()) {
 			throw ptr.parseException("expected non empty value");
 		}
-		if (FLOAT_LITERAL_PATTERN.matcher(s).matches()) {
-			return new FloatTag(Float.parseFloat(s.substring(0, s.length() - 1)));
-		} else if (BYTE_LITERAL_PATTERN.matcher(s).matches()) {
-			try {
-				return new ByteTag(Byte.parseByte(s.substring(0, s.length() - 1)));
-			} catch (NumberFormatException ex) {
-				throw ptr.parseException("byte not in range: \"" + s.substring(0, s.length() - 1) + "\"");
+		return parseLiteral(s, ptr);
+	}
+
+	/**
+	 * Classifies and converts an unquoted literal in a single pass. Numbers follow the grammar
+	 * {@code [-+]?(\d+\.?|\d*\.\d+)(e[-+]?\d+)?} with an optional, case insensitive, type suffix;
+	 * b, s, l and unsuffixed integers must not have a fraction or exponent, and an unsuffixed number
+	 * with a '.' is a double. {@code true} and {@code false} (any case) are bytes, anything else is a string.
+	 */
+	static Tag<?> parseLiteral(String s, StringPointer ptr) throws ParseException {
+		final int len = s.length();
+		int i = 0;
+		char c = s.charAt(0);
+		if (c == '-' || c == '+') {
+			i++;
+		}
+		final int intStart = i;
+		while (i < len && isDigit(s.charAt(i))) {
+			i++;
+		}
+		boolean integral = true;
+		boolean hasDigits = i > intStart;
+		if (i < len && s.charAt(i) == '.') {
+			integral = false;
+			final int fracStart = ++i;
+			while (i < len && isDigit(s.charAt(i))) {
+				i++;
 			}
-		} else if (SHORT_LITERAL_PATTERN.matcher(s).matches()) {
-			try {
-				return new ShortTag(Short.parseShort(s.substring(0, s.length() - 1)));
-			} catch (NumberFormatException ex) {
-				throw ptr.parseException("short not in range: \"" + s.substring(0, s.length() - 1) + "\"");
+			hasDigits |= i > fracStart;
+		}
+		if (!hasDigits) {
+			return parseBooleanOrString(s);
+		}
+		final boolean hasDot = !integral;
+		if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+			integral = false;
+			i++;
+			if (i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+				i++;
 			}
-		} else if (LONG_LITERAL_PATTERN.matcher(s).matches()) {
-			try {
-				return new LongTag(Long.parseLong(s.substring(0, s.length() - 1)));
-			} catch (NumberFormatException ex) {
-				throw ptr.parseException("long not in range: \"" + s.substring(0, s.length() - 1) + "\"");
+			final int expStart = i;
+			while (i < len && isDigit(s.charAt(i))) {
+				i++;
 			}
-		} else if (INT_LITERAL_PATTERN.matcher(s).matches()) {
-			try {
-				return new IntTag(Integer.parseInt(s));
-			} catch (NumberFormatException ex) {
-				throw ptr.parseException("int not in range: \"" + s.substring(0, s.length() - 1) + "\"");
+			if (i == expStart) {
+				return new StringTag(s);
+			}
+		}
+
+		if (i == len) {
+			if (integral) {
+				try {
+					return new IntTag(Integer.parseInt(s));
+				} catch (NumberFormatException ex) {
+					throw ptr.parseException("int not in range: \"" + s + "\"");
+				}
+			}
+			return hasDot ? new DoubleTag(Double.parseDouble(s)) : new StringTag(s);
+		}
+		if (i == len - 1) {
+			// Float.parseFloat and Double.parseDouble accept the f/d suffix themselves
+			switch (s.charAt(i)) {
+				case 'f', 'F':
+					return new FloatTag(Float.parseFloat(s));
+				case 'd', 'D':
+					return new DoubleTag(Double.parseDouble(s));
+				case 'b', 'B':
+					if (integral) {
+						int v = parseSuffixedInt(s, "byte", ptr);
+						if (v < Byte.MIN_VALUE || v > Byte.MAX_VALUE) {
+							throw ptr.parseException("byte not in range: \"" + s.substring(0, len - 1) + "\"");
+						}
+						return new ByteTag((byte) v);
+					}
+					break;
+				case 's', 'S':
+					if (integral) {
+						int v = parseSuffixedInt(s, "short", ptr);
+						if (v < Short.MIN_VALUE || v > Short.MAX_VALUE) {
+							throw ptr.parseException("short not in range: \"" + s.substring(0, len - 1) + "\"");
+						}
+						return new ShortTag((short) v);
+					}
+					break;
+				case 'l', 'L':
+					if (integral) {
+						try {
+							return new LongTag(Long.parseLong(s, 0, len - 1, 10));
+						} catch (NumberFormatException ex) {
+							throw ptr.parseException("long not in range: \"" + s.substring(0, len - 1) + "\"");
+						}
+					}
+					break;
 			}
-		} else if (DOUBLE_LITERAL_PATTERN.matcher(s).matches()) {
-			return new DoubleTag(Double.parseDouble(s.substring(0, s.length() - 1)));
-		} else if (DOUBLE_LITERAL_NO_SUFFIX_PATTERN.matcher(s).matches()) {
-			return new DoubleTag(Double.parseDouble(s));
-		} else if ("true".equalsIgnoreCase(s)) {
+		}
+		return new StringTag(s);
+	}
+
+	private static int parseSuffixedInt(String s, String type, StringPointer ptr) throws ParseException {
+		try {
+			return Integer.parseInt(s, 0, s.length() - 1, 10);
+		} catch (NumberFormatException ex) {
+			throw ptr.parseException(type + " not in range: \"" + s.substring(0, s.length() - 1) + "\"");
+		}
+	}
+
+	private static Tag<?> parseBooleanOrString(String s) {
+		if ("true".equalsIgnoreCase(s)) {
 			return new ByteTag(true);
 		} else if ("false".equalsIgnoreCase(s)) {
 			return new ByteTag(false);
@@ -173,6 +283,24 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 		return new StringTag(s);
 	}
 
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/** Matches {@code [-+]?\d+}. */
+	static boolean isInteger(String s) {
+		int i = !s.isEmpty() && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+		if (i == s.length()) {
+			return false;
+		}
+		for (; i < s.length(); i++) {
+			if (!isDigit(s.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private CompoundTag parseCompoundTag(int maxDepth) throws ParseException {
 		ptr.expectChar('{');
 
@@ -200,11 +328,14 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 	private ListTag<?> parseListTag(int maxDepth) throws ParseException {
 		ptr.expectChar('[');
 		ptr.skipWhitespace();
-		ListTag<?> list = ListTag.createUnchecked(EndTag.class);
+		ListTag<?> list = null;
 		while (ptr.currentChar() != ']') {
 			Tag<?> element = parseAnything(decrementMaxDepth(maxDepth));
+			if (list == null) {
+				list = createListFor(element);
+			}
 			try {
-				list.addUnchecked(element);
+				addToList(list, element);
 			} catch (IllegalArgumentException ex) {
 				throw ptr.parseException(ex.getMessage());
 			}
@@ -213,7 +344,34 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 			}
 		}
 		ptr.expectChar(']');
-		return list;
+		return list != null ? list : ListTag.createUnchecked(EndTag.class);
+	}
+
+	/** Numeric lists are created primitive backed, see {@link ListTag#ofInts(int...)}. */
+	private static ListTag<?> createListFor(Tag<?> first) {
+		switch (first.getID()) {
+			case ByteTag.ID: return ListTag.ofBytes();
+			case ShortTag.ID: return ListTag.ofShorts();
+			case IntTag.ID: return ListTag.ofInts();
+			case LongTag.ID: return ListTag.ofLongs();
+			case FloatTag.ID: return ListTag.ofFloats();
+			case DoubleTag.ID: return ListTag.ofDoubles();
+		}
+		return ListTag.createUnchecked(EndTag.class);
+	}
+
+	private static void addToList(ListTag<?> list, Tag<?> element) {
+		if (list.getTypeClass() == element.getClass()) {
+			switch (element.getID()) {
+				case ByteTag.ID: list.addByte(((ByteTag) element).asByte()); return;
+				case ShortTag.ID: list.addShort(((ShortTag) element).asShort()); return;
+				case IntTag.ID: list.addInt(((IntTag) element).asInt()); return;
+				case LongTag.ID: list.addLong(((LongTag) element).asLong()); return;
+				case FloatTag.ID: list.addFloat(((FloatTag) element).asFloat()); return;
+				case DoubleTag.ID: list.addDouble(((DoubleTag) element).asDouble()); return;
+			}
+		}
+		list.addUnchecked(element);
 	}
 
 	private ArrayTag<?> parseNumArray() throws ParseException {
@@ -233,13 +391,17 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 	}
 
 	private ByteArrayTag parseByteArrayTag() throws ParseException {
-		List<Byte> byteList = new ArrayList<>();
+		byte[] bytes = new byte[16];
+		int size = 0;
 		while (ptr.currentChar() != ']') {
 			String s = ptr.parseSimpleString();
 			ptr.skipWhitespace();
-			if (NUMBER_PATTERN.matcher(s).matches()) {
+			if (isInteger(s)) {
+				if (size == bytes.length) {
+					bytes = Arrays.copyOf(bytes, size << 1);
+				}
 				try {
-					byteList.add(Byte.parseByte(s));
+					bytes[size++] = Byte.parseByte(s);
 				} catch (NumberFormatException ex) {
 					throw ptr.parseException("byte not in range: \"" + s + "\"");
 				}
@@ -251,21 +413,21 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 			}
 		}
 		ptr.expectChar(']');
-		byte[] bytes = new byte[byteList.size()];
-		for (int i = 0; i < byteList.size(); i++) {
-			bytes[i] = byteList.get(i);
-		}
-		return new ByteArrayTag(bytes);
+		return new ByteArrayTag(Arrays.copyOf(bytes, size));
 	}
 
 	private IntArrayTag parseIntArrayTag() throws ParseException {
-		List<Integer> intList = new ArrayList<>();
+		int[] ints = new int[16];
+		int size = 0;
 		while (ptr.currentChar() != ']') {
 			String s = ptr.parseSimpleString();
 			ptr.skipWhitespace();
-			if (NUMBER_PATTERN.matcher(s).matches()) {
+			if (isInteger(s)) {
+				if (size == ints.length) {
+					ints = Arrays.copyOf(ints, size << 1);
+				}
 				try {
-					intList.add(Integer.parseInt(s));
+					ints[size++] = Integer.parseInt(s);
 				} catch (NumberFormatException ex) {
 					throw ptr.parseException("int not in range: \"" + s + "\"");
 				}
@@ -277,17 +439,21 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 			}
 		}
 		ptr.expectChar(']');
-		return new IntArrayTag(intList.stream().mapToInt(i -> i).toArray());
+		return new IntArrayTag(Arrays.copyOf(ints, size));
 	}
 
 	private LongArrayTag parseLongArrayTag() throws ParseException {
-		List<Long> longList = new ArrayList<>();
+		long[] longs = new long[16];
+		int size = 0;
 		while (ptr.currentChar() != ']') {
 			String s = ptr.parseSimpleString();
 			ptr.skipWhitespace();
-			if (NUMBER_PATTERN.matcher(s).matches()) {
+			if (isInteger(s)) {
+				if (size == longs.length) {
+					longs = Arrays.copyOf(longs, size << 1);
+				}
 				try {
-					longList.add(Long.parseLong(s));
+					longs[size++] = Long.parseLong(s);
 				} catch (NumberFormatException ex) {
 					throw ptr.parseException("long not in range: \"" + s + "\"");
 				}
@@ -299,6 +465,6 @@ public final class TextNbtParser implements MaxDepthIO, NbtInput {
 			}
 		}
 		ptr.expectChar(']');
-		return new LongArrayTag(longList.stream().mapToLong(l -> l).toArray());
+		return new LongArrayTag(Arrays.copyOf(longs, size));
 	}
 }
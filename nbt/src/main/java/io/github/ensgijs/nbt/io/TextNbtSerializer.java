@@ -24,15 +24,14 @@ public class TextNbtSerializer implements Serializer<NamedTag> {
 	}
 
 	public String toString(NamedTag object, int maxDepth) {
-		Writer writer = new StringWriter();
+		StringBuilder sb = new StringBuilder();
 		try {
-			toWriter(object, writer, maxDepth);
-			writer.flush();
+			TextNbtWriter.write(object, sb, sortCompoundTagEntries, maxDepth);
 		} catch (IOException ex) {
 			// this case should (probably) never happen so just wrap and toss if it ever does
 			throw new RuntimeException(ex);
 		}
-		return writer.toString();
+		return sb.toString();
 	}
 
 	@Override
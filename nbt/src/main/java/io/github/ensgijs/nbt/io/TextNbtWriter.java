@@ -16,26 +16,35 @@ import io.github.ensgijs.nbt.tag.StringTag;
 import io.github.ensgijs.nbt.tag.Tag;
 import java.io.IOException;
 import java.io.Writer;
-import java.lang.reflect.Array;
-import java.util.Iterator;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Map;
 
 /**
  * TextNbtWriter creates a text NBT String.
+ * <p>Output is collected in an internal char buffer which is handed to the destination in large blocks.
+ * Numbers, array elements, names and strings are formatted straight into that buffer.</p>
  */
 public final class TextNbtWriter implements MaxDepthIO {
 
-	private Writer writer;
+	private static final int BUFFER_SIZE = 8192;
+	private static final char[] LONG_MIN_VALUE_CHARS = Long.toString(Long.MIN_VALUE).toCharArray();
+	private static final char[] INT_MIN_VALUE_CHARS = Integer.toString(Integer.MIN_VALUE).toCharArray();
 
-	private TextNbtWriter(Writer writer) {
-		this.writer = writer;
+	private final Appendable out;
+	private final char[] buf = new char[BUFFER_SIZE];
+	private int pos;
+
+	TextNbtWriter(Appendable out) {
+		this.out = out;
 	}
 
 	public static void write(NamedTag tag, Writer writer, boolean sortCompoundTagEntries, int maxDepth) throws IOException {
-		new TextNbtWriter(writer).writeAnything(tag, sortCompoundTagEntries, maxDepth);
+		write(tag, (Appendable) writer, sortCompoundTagEntries, maxDepth);
 	}
 
 	public static void write(NamedTag tag, Writer writer, int maxDepth) throws IOException {
-		new TextNbtWriter(writer).writeAnything(tag, false, maxDepth);
+		write(tag, (Appendable) writer, false, maxDepth);
 	}
 
 	public static void write(NamedTag tag, Writer writer) throws IOException {
@@ -43,19 +52,37 @@ public final class TextNbtWriter implements MaxDepthIO {
 	}
 
 	public static void write(Tag<?> tag, Writer writer, int maxDepth) throws IOException {
-		new TextNbtWriter(writer).writeAnything(tag, false, maxDepth);
+		write(tag, (Appendable) writer, false, maxDepth);
 	}
 
 	public static void write(Tag<?> tag, Writer writer) throws IOException {
 		write(tag, writer, Tag.DEFAULT_MAX_DEPTH);
 	}
 
+	/**
+	 * Writes to any {@link Appendable}, such as a {@link StringBuilder}. The destination is not flushed.
+	 */
+	public static void write(NamedTag tag, Appendable out, boolean sortCompoundTagEntries, int maxDepth) throws IOException {
+		TextNbtWriter w = new TextNbtWriter(out);
+		w.writeAnything(tag, sortCompoundTagEntries, maxDepth);
+		w.flushBuffer();
+	}
+
+	/**
+	 * Writes to any {@link Appendable}, such as a {@link StringBuilder}. The destination is not flushed.
+	 */
+	public static void write(Tag<?> tag, Appendable out, boolean sortCompoundTagEntries, int maxDepth) throws IOException {
+		TextNbtWriter w = new TextNbtWriter(out);
+		w.writeAnything(tag, sortCompoundTagEntries, maxDepth);
+		w.flushBuffer();
+	}
+
 	private void writeAnything(NamedTag tag, boolean sortCompoundTagEntries, int maxDepth) throws IOException {
 		// note to future self: if you're ever compelled not write an empty name be sure to
 		// consider what that means for TextNbtParser#readTag(int)
 		if (tag.getName() != null) {
-			writer.write(tag.getEscapedName());
-			writer.write(':');
+			writeName(tag.getName());
+			write(':');
 		}
 		writeAnything(tag.getTag(), sortCompoundTagEntries, maxDepth);
 	}
@@ -66,68 +93,315 @@ public final class TextNbtWriter implements MaxDepthIO {
 			//do nothing
 			break;
 		case ByteTag.ID:
-			writer.append(Byte.toString(((ByteTag) tag).asByte())).write('b');
+			writeInt(((ByteTag) tag).asByte());
+			write('b');
 			break;
 		case ShortTag.ID:
-			writer.append(Short.toString(((ShortTag) tag).asShort())).write('s');
+			writeInt(((ShortTag) tag).asShort());
+			write('s');
 			break;
 		case IntTag.ID:
-			writer.write(Integer.toString(((IntTag) tag).asInt()));
+			writeInt(((IntTag) tag).asInt());
 			break;
 		case LongTag.ID:
-			writer.append(Long.toString(((LongTag) tag).asLong())).write('l');
+			writeLong(((LongTag) tag).asLong());
+			write('l');
 			break;
 		case FloatTag.ID:
-			writer.append(Float.toString(((FloatTag) tag).asFloat())).write('f');
+			write(Float.toString(((FloatTag) tag).asFloat()));
+			write('f');
 			break;
 		case DoubleTag.ID:
-			writer.append(Double.toString(((DoubleTag) tag).asDouble())).write('d');
+			write(Double.toString(((DoubleTag) tag).asDouble()));
+			write('d');
 			break;
 		case ByteArrayTag.ID:
-			writeArray(((ByteArrayTag) tag).getValue(), ((ByteArrayTag) tag).length(), "B");
+			writeArray(((ByteArrayTag) tag).getValue(), ((ByteArrayTag) tag).length());
 			break;
 		case StringTag.ID:
-			writer.write(StringTag.escapeString(((StringTag) tag).getValue(), true));
+			writeString(((StringTag) tag).getValue());
 			break;
 		case ListTag.ID:
-			writer.write('[');
-			for (int i = 0; i < ((ListTag<?>) tag).size(); i++) {
-				writer.write(i == 0 ? "" : ",");
-				writeAnything(((ListTag<?>) tag).get(i), sortCompoundTagEntries, decrementMaxDepth(maxDepth));
-			}
-			writer.write(']');
+			writeList((ListTag<?>) tag, sortCompoundTagEntries, maxDepth);
 			break;
 		case CompoundTag.ID:
-			writer.write('{');
-			boolean first = true;
-			Iterator<NamedTag> iter;
-			if (sortCompoundTagEntries) iter = ((CompoundTag) tag).stream().sorted(NamedTag::compare).iterator();
-			else iter = ((CompoundTag) tag).iterator();
-			while (iter.hasNext()) {
-				NamedTag entry = iter.next();
-				writer.write(first ? "" : ",");
-				writer.append(NamedTag.escapeName(entry.getName())).write(':');
-				writeAnything(entry.getTag(), sortCompoundTagEntries, decrementMaxDepth(maxDepth));
-				first = false;
-			}
-			writer.write('}');
+			writeCompound((CompoundTag) tag, sortCompoundTagEntries, maxDepth);
 			break;
 		case IntArrayTag.ID:
-			writeArray(((IntArrayTag) tag).getValue(), ((IntArrayTag) tag).length(), "I");
+			writeArray(((IntArrayTag) tag).getValue(), ((IntArrayTag) tag).length());
 			break;
 		case LongArrayTag.ID:
-			writeArray(((LongArrayTag) tag).getValue(), ((LongArrayTag) tag).length(), "L");
+			writeArray(((LongArrayTag) tag).getValue(), ((LongArrayTag) tag).length());
 			break;
 		default:
 			throw new IOException("unknown tag with id \"" + tag.getID() + "\"");
 		}
 	}
 
-	private void writeArray(Object array, int length, String prefix) throws IOException {
-		writer.append('[').append(prefix).write(';');
+	private void writeList(ListTag<?> list, boolean sortCompoundTagEntries, int maxDepth) throws IOException {
+		final int size = list.size();
+		final Class<?> typeClass = list.getTypeClass();
+		write('[');
+		if (size > 0) {
+			// elements count against the max depth even when they're not written through writeAnything
+			decrementMaxDepth(maxDepth);
+		}
+		// numeric lists are read through the primitive accessors so that primitive backed lists don't materialize tags
+		if (typeClass == ByteTag.class) {
+			for (int i = 0; i < size; i++) {
+				if (i > 0) write(',');
+				writeInt(list.getByte(i));
+				write('b');
+			}
+		} else if (typeClass == ShortTag.class) {
+			for (int i = 0; i < size; i++) {
+				if (i > 0) write(',');
+				writeInt(list.getShort(i));
+				write('s');
+			}
+		} else if (typeClass == IntTag.class) {
+			for (int i = 0; i < size; i++) {
+				if (i > 0) write(',');
+				writeInt(list.getInt(i));
+			}
+		} else if (typeClass == LongTag.class) {
+			for (int i = 0; i < size; i++) {
+				if (i > 0) write(',');
+				writeLong(list.getLong(i));
+				write('l');
+			}
+		} else if (typeClass == FloatTag.class) {
+			for (int i = 0; i < size; i++) {
+				if (i > 0) write(',');
+				write(Float.toString(list.getFloat(i)));
+				write('f');
+			}
+		} else if (typeClass == DoubleTag.class) {
+			for (int i = 0; i < size; i++) {
+				if (i > 0) write(',');
+				write(Double.toString(list.getDouble(i)));
+				write('d');
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				if (i > 0) write(',');
+				writeAnything(list.get(i), sortCompoundTagEntries, decrementMaxDepth(maxDepth));
+			}
+		}
+		write(']');
+	}
+
+	private void writeCompound(CompoundTag tag, boolean sortCompoundTagEntries, int maxDepth) throws IOException {
+		write('{');
+		if (sortCompoundTagEntries && tag.size() > 1) {
+			String[] keys = tag.keySet().toArray(new String[0]);
+			Arrays.sort(keys, NamedTag::compareNames);
+			for (int i = 0; i < keys.length; i++) {
+				if (i > 0) write(',');
+				writeName(keys[i]);
+				write(':');
+				writeAnything(tag.get(keys[i]), true, decrementMaxDepth(maxDepth));
+			}
+		} else {
+			boolean first = true;
+			for (Map.Entry<String, Tag<?>> entry : tag.entrySet()) {
+				if (!first) write(',');
+				writeName(entry.getKey());
+				write(':');
+				writeAnything(entry.getValue(), sortCompoundTagEntries, decrementMaxDepth(maxDepth));
+				first = false;
+			}
+		}
+		write('}');
+	}
+
+	private void writeArray(byte[] array, int length) throws IOException {
+		write('[');
+		write('B');
+		write(';');
 		for (int i = 0; i < length; i++) {
-			writer.append(i == 0 ? "" : ",").write(Array.get(array, i).toString());
+			if (i > 0) write(',');
+			writeInt(array[i]);
+		}
+		write(']');
+	}
+
+	private void writeArray(int[] array, int length) throws IOException {
+		write('[');
+		write('I');
+		write(';');
+		for (int i = 0; i < length; i++) {
+			if (i > 0) write(',');
+			writeInt(array[i]);
+		}
+		write(']');
+	}
+
+	private void writeArray(long[] array, int length) throws IOException {
+		write('[');
+		write('L');
+		write(';');
+		for (int i = 0; i < length; i++) {
+			if (i > 0) write(',');
+			writeLong(array[i]);
+		}
+		write(']');
+	}
+
+	/** Same output as {@link NamedTag#escapeName(String)}. */
+	void writeName(String name) throws IOException {
+		final int len = name.length();
+		boolean quote = len == 0;
+		for (int i = 0; i < len && !quote; i++) {
+			char c = name.charAt(i);
+			quote = !(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+					|| c == '_' || c == '+' || c == '-');
+		}
+		if (!quote) {
+			write(name);
+			return;
+		}
+		write('"');
+		for (int i = 0; i < len; i++) {
+			char c = name.charAt(i);
+			if (c == '\\' || c == '"') {
+				write('\\');
+			}
+			write(c);
+		}
+		write('"');
+	}
+
+	/** Same output as {@link StringTag#escapeString(String, boolean)} with {@code lenient=true}. */
+	void writeString(String s) throws IOException {
+		final int len = s.length();
+		boolean quote = len == 0 || startsWithIgnoreCase(s, "true") || startsWithIgnoreCase(s, "false");
+		for (int i = 0; i < len && !quote; i++) {
+			char c = s.charAt(i);
+			quote = !(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_'
+					|| i > 0 && (c >= '0' && c <= '9' || c == '-'));
+		}
+		if (!quote) {
+			write(s);
+			return;
+		}
+		writeQuotedString(s);
+	}
+
+	/** Same output as {@link StringTag#escapeString(String, boolean)} with {@code lenient=false}. */
+	void writeQuotedString(String s) throws IOException {
+		final int len = s.length();
+		write('"');
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '\\':
+				case '"':
+					write('\\');
+					write(c);
+					break;
+				case '\n':
+					write('\\');
+					write('n');
+					break;
+				case '\t':
+					write('\\');
+					write('t');
+					break;
+				case '\r':
+					write('\\');
+					write('r');
+					break;
+				default:
+					write(c);
+			}
+		}
+		write('"');
+	}
+
+	private static boolean startsWithIgnoreCase(String s, String prefix) {
+		return s.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
+	void writeInt(int v) throws IOException {
+		if (v == Integer.MIN_VALUE) {
+			write(INT_MIN_VALUE_CHARS);
+			return;
+		}
+		if (pos + 11 > buf.length) flushBuffer();
+		if (v < 0) {
+			buf[pos++] = '-';
+			v = -v;
+		}
+		int digits = 1;
+		for (int x = v; x >= 10; x /= 10) {
+			digits++;
+		}
+		int p = pos += digits;
+		do {
+			buf[--p] = (char) ('0' + v % 10);
+			v /= 10;
+		} while (v != 0);
+	}
+
+	void writeLong(long v) throws IOException {
+		if (v == (int) v) {
+			writeInt((int) v);
+			return;
+		}
+		if (v == Long.MIN_VALUE) {
+			write(LONG_MIN_VALUE_CHARS);
+			return;
+		}
+		if (pos + 20 > buf.length) flushBuffer();
+		if (v < 0) {
+			buf[pos++] = '-';
+			v = -v;
+		}
+		int digits = 1;
+		for (long x = v; x >= 10; x /= 10) {
+			digits++;
+		}
+		int p = pos += digits;
+		do {
+			buf[--p] = (char) ('0' + v % 10);
+			v /= 10;
+		} while (v != 0);
+	}
+
+	void write(char c) throws IOException {
+		if (pos == buf.length) flushBuffer();
+		buf[pos++] = c;
+	}
+
+	private void write(char[] chars) throws IOException {
+		if (pos + chars.length > buf.length) flushBuffer();
+		System.arraycopy(chars, 0, buf, pos, chars.length);
+		pos += chars.length;
+	}
+
+	void write(String s) throws IOException {
+		int off = 0;
+		int len = s.length();
+		while (len > 0) {
+			if (pos == buf.length) flushBuffer();
+			int n = Math.min(len, buf.length - pos);
+			s.getChars(off, off + n, buf, pos);
+			pos += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	void flushBuffer() throws IOException {
+		if (pos == 0) return;
+		if (out instanceof Writer writer) {
+			writer.write(buf, 0, pos);
+		} else if (out instanceof StringBuilder sb) {
+			sb.append(buf, 0, pos);
+		} else {
+			out.append(CharBuffer.wrap(buf, 0, pos));
 		}
-		writer.write(']');
+		pos = 0;
 	}
 }
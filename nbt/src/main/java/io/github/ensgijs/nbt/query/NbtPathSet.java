@@ -0,0 +1,485 @@
+package io.github.ensgijs.nbt.query;
+
+import io.github.ensgijs.nbt.io.BigEndianNbtInputStream;
+import io.github.ensgijs.nbt.io.MaxDepthIO;
+import io.github.ensgijs.nbt.query.evaluator.Evaluator;
+import io.github.ensgijs.nbt.query.evaluator.IndexEvaluator;
+import io.github.ensgijs.nbt.query.evaluator.NameEvaluator;
+import io.github.ensgijs.nbt.tag.ByteArrayTag;
+import io.github.ensgijs.nbt.tag.ByteTag;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.DoubleTag;
+import io.github.ensgijs.nbt.tag.FloatTag;
+import io.github.ensgijs.nbt.tag.IntArrayTag;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.tag.ListTag;
+import io.github.ensgijs.nbt.tag.LongArrayTag;
+import io.github.ensgijs.nbt.tag.LongTag;
+import io.github.ensgijs.nbt.tag.ShortTag;
+import io.github.ensgijs.nbt.tag.StringTag;
+import io.github.ensgijs.nbt.tag.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A fixed set of {@link NbtPath}'s compiled into a prefix trie so that all of them can be evaluated with a single
+ * traversal of a tag tree. Shared prefixes, such as {@code Level} in {@code Level.xPos} and {@code Level.zPos},
+ * are only looked up once and each name lookup is a direct {@link CompoundTag#get(String)} with its key
+ * resolved at compile time.
+ * <p>Paths can also be evaluated directly against uncompressed binary NBT with {@link #getAllFromBinary(byte[])},
+ * which skips over everything not on a path without creating any tags for it.</p>
+ * <p>Instances are immutable and thread safe; compile once and reuse.</p>
+ */
+public final class NbtPathSet {
+    private static final int[] NO_TERMINALS = new int[0];
+    private static final String[] NO_NAMES = new String[0];
+    private static final IndexEvaluator[] NO_INDEXES = new IndexEvaluator[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final List<NbtPath> paths;
+    private final Node root;
+
+    private NbtPathSet(List<NbtPath> paths) {
+        this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+        this.root = new Node(null, 0);
+        for (int i = 0; i < paths.size(); i++) {
+            NbtPath path = paths.get(i);
+            if (path == null) continue;
+            Node node = root;
+            for (int depth = 0; depth < path.evalChain.size(); depth++) {
+                node = node.child(path, depth);
+            }
+            node.terminals = Arrays.copyOf(node.terminals, node.terminals.length + 1);
+            node.terminals[node.terminals.length - 1] = i;
+        }
+        root.seal();
+    }
+
+    /**
+     * @param paths paths to compile, {@code null} entries are allowed and always evaluate to {@code null} which
+     *              is convenient when some paths don't apply to the data at hand.
+     */
+    public static NbtPathSet of(NbtPath... paths) {
+        return new NbtPathSet(Arrays.asList(paths));
+    }
+
+    /** @see #of(NbtPath...) */
+    public static NbtPathSet of(List<NbtPath> paths) {
+        return new NbtPathSet(paths);
+    }
+
+    /** Number of paths in this set, including any {@code null} entries. */
+    public int size() {
+        return paths.size();
+    }
+
+    public NbtPath getPath(int index) {
+        return paths.get(index);
+    }
+
+    /** Paths in the order given at compile time. */
+    public List<NbtPath> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Evaluates every path against the given tag.
+     * @param root tag to begin traversal from.
+     * @return one value per path, in the order of {@link #getPaths()}, each exactly what {@link NbtPath#get(Tag)}
+     * would have returned for it.
+     * @throws IllegalStateException as {@link NbtPath#get(Tag)} does if a path continues past an array element.
+     */
+    public Object[] getAll(Tag<?> root) {
+        Object[] values = new Object[paths.size()];
+        getAll(root, values);
+        return values;
+    }
+
+    /**
+     * Like {@link #getAll(Tag)} but writes into the given array, which must be at least {@link #size()} long.
+     * Entries for paths which don't exist are set to {@code null}.
+     */
+    public void getAll(Tag<?> root, Object[] values) {
+        if (values.length < paths.size()) {
+            throw new IllegalArgumentException("values array is too small");
+        }
+        Arrays.fill(values, 0, paths.size(), null);
+        if (root != null) {
+            evaluate(root, this.root, values);
+        }
+    }
+
+    /**
+     * Evaluates every path against binary (big endian, uncompressed) NBT data without deserializing it. Only the
+     * values found are materialized; all other data is skipped using the lengths encoded in it and the scan stops
+     * as soon as every path has been resolved. The paths are evaluated against the root tag, its name is ignored.
+     * @param nbtData uncompressed binary NBT, such as produced by
+     *                {@link io.github.ensgijs.nbt.io.BinaryNbtSerializer} with no compression.
+     * @return same as {@link #getAll(Tag)} would have returned for the deserialized root tag.
+     * @throws IOException if the data is truncated or malformed.
+     */
+    public Object[] getAllFromBinary(byte[] nbtData) throws IOException {
+        Object[] values = new Object[paths.size()];
+        getAllFromBinary(nbtData, 0, nbtData.length, values);
+        return values;
+    }
+
+    /**
+     * Like {@link #getAllFromBinary(byte[])} but reads the binary NBT from the given range of {@code nbtData} and
+     * writes into the given array, which must be at least {@link #size()} long.
+     */
+    public void getAllFromBinary(byte[] nbtData, int offset, int length, Object[] values) throws IOException {
+        if (values.length < paths.size()) {
+            throw new IllegalArgumentException("values array is too small");
+        }
+        Objects.checkFromIndexSize(offset, length, nbtData.length);
+        Arrays.fill(values, 0, paths.size(), null);
+        if (this.root.subtreeTerminals > 0) {
+            new BinaryScan(nbtData, offset, offset + length, values).scanRoot(this.root);
+        }
+    }
+
+    private static void evaluate(Object value, Node node, Object[] values) {
+        for (int t : node.terminals) {
+            values[t] = value;
+        }
+        if (node.names.length == 0 && node.indexes.length == 0) {
+            return;
+        }
+        if (!(value instanceof Tag)) {
+            Node next = node.names.length > 0 ? node.nameChildren[0] : node.indexChildren[0];
+            throw new IllegalStateException("Expected TAG but was " + value.getClass().getTypeName() + "\n"
+                    + next.path.makeErrorHint(next.depth));
+        }
+        if (node.names.length > 0 && value instanceof CompoundTag compound) {
+            for (int i = 0; i < node.names.length; i++) {
+                Tag<?> child = compound.get(node.names[i]);
+                if (child != null) {
+                    evaluate(child, node.nameChildren[i], values);
+                }
+            }
+        }
+        for (int i = 0; i < node.indexes.length; i++) {
+            Object child = node.indexes[i].eval((Tag<?>) value);
+            if (child != null) {
+                evaluate(child, node.indexChildren[i], values);
+            }
+        }
+    }
+
+    /**
+     * Walks binary NBT along the trie. Anything not on a path is skipped by length arithmetic, tags which are the
+     * target of a path, or which need type specific evaluation, are materialized and handed to
+     * {@link #evaluate(Object, Node, Object[])}. {@link #remaining} counts the paths still undecided; once it
+     * reaches zero the scan is abandoned.
+     */
+    private static final class BinaryScan implements MaxDepthIO {
+        private static final byte[] FIXED_PAYLOAD_SIZE = {0, 1, 2, 4, 8, 4, 8};
+
+        private final byte[] buffer;
+        private final int limit;
+        private final Object[] values;
+        private int position;
+        private int remaining;
+
+        BinaryScan(byte[] buffer, int position, int limit, Object[] values) {
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+            this.values = values;
+        }
+
+        void scanRoot(Node root) throws IOException {
+            require(1);
+            byte type = buffer[position++];
+            if (type == 0) return;
+            skip(readUShort());
+            remaining = root.subtreeTerminals;
+            visit(type, root, Tag.DEFAULT_MAX_DEPTH);
+        }
+
+        /** @return true if all paths have been decided and scanning should stop. */
+        private boolean visit(byte type, Node node, int maxDepth) throws IOException {
+            if (node.terminals.length == 0) {
+                if (type == CompoundTag.ID && node.indexes.length == 0) {
+                    return visitCompound(node, maxDepth);
+                }
+                if (type == ListTag.ID && node.names.length == 0) {
+                    return visitList(node, maxDepth);
+                }
+                if ((type == ByteArrayTag.ID || type == IntArrayTag.ID || type == LongArrayTag.ID)
+                        && node.names.length == 0 && node.isIndexLeaf) {
+                    return visitArray(type, node);
+                }
+            }
+            int start = position;
+            skipPayload(type, maxDepth);
+            evaluate(materialize(type, start, maxDepth), node, values);
+            remaining -= node.subtreeTerminals;
+            return remaining <= 0;
+        }
+
+        private boolean visitCompound(Node node, int maxDepth) throws IOException {
+            maxDepth = decrementMaxDepth(maxDepth);
+            int found = 0;
+            int visitedTerminals = 0;
+            byte type;
+            while ((type = readByte()) != 0) {
+                int nameLength = readUShort();
+                int nameStart = position;
+                skip(nameLength);
+                int i = found < node.names.length ? node.indexOfName(buffer, nameStart, nameLength) : -1;
+                if (i < 0) {
+                    skipPayload(type, maxDepth);
+                    continue;
+                }
+                found++;
+                visitedTerminals += node.nameChildren[i].subtreeTerminals;
+                if (visit(type, node.nameChildren[i], maxDepth)) return true;
+            }
+            remaining -= node.subtreeTerminals - visitedTerminals;
+            return remaining <= 0;
+        }
+
+        private boolean visitList(Node node, int maxDepth) throws IOException {
+            maxDepth = decrementMaxDepth(maxDepth);
+            byte elementType = readByte();
+            int length = Math.max(0, readInt());
+            int current = 0;
+            int visitedTerminals = 0;
+            for (int i : node.indexOrder) {
+                int index = node.indexes[i].index();
+                if (index >= length) break;
+                skipElements(elementType, index - current, maxDepth);
+                visitedTerminals += node.indexChildren[i].subtreeTerminals;
+                if (visit(elementType, node.indexChildren[i], maxDepth)) return true;
+                current = index + 1;
+            }
+            remaining -= node.subtreeTerminals - visitedTerminals;
+            if (remaining <= 0) return true;
+            skipElements(elementType, length - current, maxDepth);
+            return false;
+        }
+
+        /** Picks elements straight out of a byte, int or long array; only used if no path continues past them. */
+        private boolean visitArray(byte type, Node node) throws IOException {
+            int length = Math.max(0, readInt());
+            int elementSize = type == ByteArrayTag.ID ? 1 : type == IntArrayTag.ID ? 4 : 8;
+            int start = position;
+            skip((long) length * elementSize);
+            for (int i = 0; i < node.indexes.length; i++) {
+                int index = node.indexes[i].index();
+                if (index >= length) continue;
+                int at = start + index * elementSize;
+                // boxed like IndexEvaluator does
+                Object value;
+                if (elementSize == 1) {
+                    value = buffer[at];
+                } else if (elementSize == 4) {
+                    value = getInt(at);
+                } else {
+                    value = getLong(at);
+                }
+                for (int t : node.indexChildren[i].terminals) {
+                    values[t] = value;
+                }
+            }
+            remaining -= node.subtreeTerminals;
+            return remaining <= 0;
+        }
+
+        private Tag<?> materialize(byte type, int start, int maxDepth) throws IOException {
+            return switch (type) {
+                case ByteTag.ID -> new ByteTag(buffer[start]);
+                case ShortTag.ID -> new ShortTag((short) ((buffer[start] << 8) | (buffer[start + 1] & 0xFF)));
+                case IntTag.ID -> new IntTag(getInt(start));
+                case LongTag.ID -> new LongTag(getLong(start));
+                case FloatTag.ID -> new FloatTag(Float.intBitsToFloat(getInt(start)));
+                case DoubleTag.ID -> new DoubleTag(Double.longBitsToDouble(getLong(start)));
+                default -> new BigEndianNbtInputStream(new ByteArrayInputStream(buffer, start, position - start))
+                        .readTag(type, maxDepth);
+            };
+        }
+
+        private void skipElements(byte type, int count, int maxDepth) throws IOException {
+            if (count <= 0) return;
+            if (type < FIXED_PAYLOAD_SIZE.length) {
+                skip((long) FIXED_PAYLOAD_SIZE[type] * count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    skipPayload(type, maxDepth);
+                }
+            }
+        }
+
+        private void skipPayload(byte type, int maxDepth) throws IOException {
+            switch (type) {
+                case ByteTag.ID, ShortTag.ID, IntTag.ID, LongTag.ID, FloatTag.ID, DoubleTag.ID ->
+                        skip(FIXED_PAYLOAD_SIZE[type]);
+                case StringTag.ID -> skip(readUShort());
+                case ByteArrayTag.ID -> skip(Math.max(0, readInt()));
+                case IntArrayTag.ID -> skip(Math.max(0, readInt()) * 4L);
+                case LongArrayTag.ID -> skip(Math.max(0, readInt()) * 8L);
+                case ListTag.ID -> {
+                    maxDepth = decrementMaxDepth(maxDepth);
+                    byte elementType = readByte();
+                    skipElements(elementType, readInt(), maxDepth);
+                }
+                case CompoundTag.ID -> {
+                    maxDepth = decrementMaxDepth(maxDepth);
+                    byte childType;
+                    while ((childType = readByte()) != 0) {
+                        skip(readUShort());
+                        skipPayload(childType, maxDepth);
+                    }
+                }
+                default -> throw new IOException("invalid tag id \"" + type + "\" at " + (position - 1));
+            }
+        }
+
+        private void require(long bytes) throws EOFException {
+            if (position + bytes > limit) {
+                throw new EOFException("unexpected end of binary nbt data");
+            }
+        }
+
+        private void skip(long bytes) throws EOFException {
+            require(bytes);
+            position += (int) bytes;
+        }
+
+        private byte readByte() throws EOFException {
+            require(1);
+            return buffer[position++];
+        }
+
+        private int readUShort() throws EOFException {
+            require(2);
+            int v = ((buffer[position] & 0xFF) << 8) | (buffer[position + 1] & 0xFF);
+            position += 2;
+            return v;
+        }
+
+        private int readInt() throws EOFException {
+            require(4);
+            int v = getInt(position);
+            position += 4;
+            return v;
+        }
+
+        private int getInt(int at) {
+            return ((buffer[at] & 0xFF) << 24) | ((buffer[at + 1] & 0xFF) << 16)
+                    | ((buffer[at + 2] & 0xFF) << 8) | (buffer[at + 3] & 0xFF);
+        }
+
+        private long getLong(int at) {
+            return ((long) getInt(at) << 32) | (getInt(at + 4) & 0xFFFFFFFFL);
+        }
+    }
+
+    /** One step of one or more paths; children are kept in parallel arrays to keep evaluation allocation free. */
+    private static final class Node {
+        /** A path through this node and the position of this node's evaluator in it, used for error messages. */
+        final NbtPath path;
+        final int depth;
+        int[] terminals = NO_TERMINALS;
+        String[] names = NO_NAMES;
+        Node[] nameChildren = NO_NODES;
+        IndexEvaluator[] indexes = NO_INDEXES;
+        Node[] indexChildren = NO_NODES;
+        // populated by seal(), used when scanning binary nbt
+        byte[][] nameBytes;
+        int[] indexOrder;
+        int subtreeTerminals;
+        boolean isIndexLeaf;
+
+        Node(NbtPath path, int depth) {
+            this.path = path;
+            this.depth = depth;
+        }
+
+        void seal() {
+            subtreeTerminals = terminals.length;
+            nameBytes = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                nameBytes[i] = modifiedUtf8(names[i]);
+                nameChildren[i].seal();
+                subtreeTerminals += nameChildren[i].subtreeTerminals;
+            }
+            isIndexLeaf = true;
+            for (Node child : indexChildren) {
+                child.seal();
+                subtreeTerminals += child.subtreeTerminals;
+                isIndexLeaf &= child.names.length == 0 && child.indexes.length == 0;
+            }
+            indexOrder = new int[indexes.length];
+            for (int i = 0; i < indexOrder.length; i++) {
+                indexOrder[i] = i;
+            }
+            // indexes are few, a simple insertion sort by index is all that's needed
+            for (int i = 1; i < indexOrder.length; i++) {
+                for (int j = i; j > 0 && indexes[indexOrder[j - 1]].index() > indexes[indexOrder[j]].index(); j--) {
+                    int swap = indexOrder[j];
+                    indexOrder[j] = indexOrder[j - 1];
+                    indexOrder[j - 1] = swap;
+                }
+            }
+        }
+
+        int indexOfName(byte[] buffer, int start, int length) {
+            for (int i = 0; i < nameBytes.length; i++) {
+                byte[] name = nameBytes[i];
+                if (name != null && Arrays.equals(name, 0, name.length, buffer, start, start + length)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /** @return name as encoded in binary nbt, or null if it is too long to ever be found there. */
+        private static byte[] modifiedUtf8(String name) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(name.length() + 2);
+                new DataOutputStream(bytes).writeUTF(name);
+                return Arrays.copyOfRange(bytes.toByteArray(), 2, bytes.size());
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+
+        Node child(NbtPath path, int depth) {
+            Evaluator evaluator = path.evalChain.get(depth);
+            if (evaluator instanceof NameEvaluator nameEvaluator) {
+                String key = nameEvaluator.key();
+                for (int i = 0; i < names.length; i++) {
+                    if (names[i].equals(key)) return nameChildren[i];
+                }
+                Node child = new Node(path, depth);
+                names = Arrays.copyOf(names, names.length + 1);
+                names[names.length - 1] = key;
+                nameChildren = Arrays.copyOf(nameChildren, nameChildren.length + 1);
+                nameChildren[nameChildren.length - 1] = child;
+                return child;
+            }
+            IndexEvaluator indexEvaluator = (IndexEvaluator) evaluator;
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i].index() == indexEvaluator.index()) return indexChildren[i];
+            }
+            Node child = new Node(path, depth);
+            indexes = Arrays.copyOf(indexes, indexes.length + 1);
+            indexes[indexes.length - 1] = indexEvaluator;
+            indexChildren = Arrays.copyOf(indexChildren, indexChildren.length + 1);
+            indexChildren[indexChildren.length - 1] = child;
+            return child;
+        }
+    }
+}
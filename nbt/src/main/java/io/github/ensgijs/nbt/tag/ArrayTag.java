@@ -9,6 +9,9 @@ import java.lang.reflect.Array;
  * */
 public abstract class ArrayTag<T> extends Tag<T> {
 
+	private T value;
+	private boolean frozen;
+
 	public ArrayTag(T value) {
 		super(value);
 		if (!value.getClass().isArray()) {
@@ -23,13 +26,42 @@ public abstract class ArrayTag<T> extends Tag<T> {
 	/** {@inheritDoc} */
 	@Override
 	public T getValue() {
-		return super.getValue();
+		return value;
 	}
 
-	/** {@inheritDoc} */
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException if this tag is {@link #isFrozen() frozen}.
+	 */
 	@Override
 	public void setValue(T value) {
-		super.setValue(value);
+		if (frozen) {
+			throw new UnsupportedOperationException("frozen " + getClass().getSimpleName() + " cannot be modified");
+		}
+		this.value = checkValue(value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Freezing only prevents replacing the array. The array returned by {@link #getValue()} is the backing
+	 * array and must not be modified once frozen.</p>
+	 */
+	@Override
+	public ArrayTag<T> freeze() {
+		frozen = true;
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/** Arrays can be modified through {@link #getValue()} even when frozen. */
+	@Override
+	boolean isImmutable() {
+		return false;
 	}
 
 	/** {@inheritDoc} */
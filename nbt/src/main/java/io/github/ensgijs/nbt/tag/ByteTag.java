@@ -1,20 +1,45 @@
 package io.github.ensgijs.nbt.tag;
 
+import java.util.Objects;
+
 public class ByteTag extends NumberTag<Byte> implements Comparable<ByteTag> {
 
 	public static final byte ID = 1;
 	public static final byte ZERO_VALUE = 0;
 
+	private static final ByteTag[] SHARED = new ByteTag[256];
+	static {
+		for (int i = 0; i < SHARED.length; i++) {
+			SHARED[i] = new ByteTag((byte) (i + Byte.MIN_VALUE));
+		}
+	}
+
+	private byte value;
+
 	public ByteTag() {
-		super(ZERO_VALUE);
+		this.value = ZERO_VALUE;
 	}
 
 	public ByteTag(byte value) {
-		super(value);
+		this.value = value;
 	}
 
 	public ByteTag(boolean value) {
-		super((byte) (value ? 1 : 0));
+		this.value = (byte) (value ? 1 : 0);
+	}
+
+	/**
+	 * @return A {@link #isShared() shared}, immutable, instance holding the given value.
+	 */
+	public static ByteTag valueOf(byte value) {
+		return SHARED[value - Byte.MIN_VALUE];
+	}
+
+	/**
+	 * @return A {@link #isShared() shared}, immutable, instance holding 1 if {@code value} is true, else 0.
+	 */
+	public static ByteTag valueOf(boolean value) {
+		return valueOf((byte) (value ? 1 : 0));
 	}
 
 	/** {@inheritDoc} */
@@ -25,32 +50,94 @@ public class ByteTag extends NumberTag<Byte> implements Comparable<ByteTag> {
 
 	public boolean asBoolean() {
 		// TODO(bug): MC uses `.asByte() != 0` for truthiness - and asBoolean is valid on all NumberTags (even float and double)
-		return getValue() > 0;
+		return value > 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected Byte getValue() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void setValue(Byte value) {
+		setValue(Objects.requireNonNull(value).byteValue());
 	}
 
 	/**
 	 * Sets the value for this Tag directly.
 	 * @param value The value to be set.
+	 * @throws UnsupportedOperationException if this is a {@link #isShared() shared} or {@link #isFrozen() frozen} instance.
 	 */
 	public void setValue(byte value) {
-		super.setValue(value);
+		checkModifiable();
+		this.value = value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isShared() {
+		return SHARED[value - Byte.MIN_VALUE] == this;
+	}
+
+	@Override
+	public byte asByte() {
+		return value;
+	}
+
+	@Override
+	public short asShort() {
+		return value;
+	}
+
+	@Override
+	public int asInt() {
+		return value;
+	}
+
+	@Override
+	public long asLong() {
+		return value;
+	}
+
+	@Override
+	public float asFloat() {
+		return value;
+	}
+
+	@Override
+	public double asDouble() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String valueToString(int maxDepth) {
+		return Byte.toString(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean equals(Object other) {
-		return super.equals(other) && asByte() == ((ByteTag) other).asByte();
+		return super.equals(other) && value == ((ByteTag) other).value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int hashCode() {
+		return Byte.hashCode(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public int compareTo(ByteTag other) {
-		return getValue().compareTo(other.getValue());
+		return Byte.compare(value, other.value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public ByteTag clone() {
-		return new ByteTag(getValue());
+		return new ByteTag(value);
 	}
 }
@@ -0,0 +1,440 @@
+package io.github.ensgijs.nbt.tag;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Insertion ordered {@code Map<String, Tag<?>>} used to back {@link CompoundTag}.
+ *
+ * <p>Small maps, which make up the vast majority of compound tags found in chunk data (block states,
+ * tile ticks, POI records, etc.), are stored in two parallel arrays and searched linearly. Once the map
+ * grows beyond {@link #COMPACT_THRESHOLD} entries it is upgraded to a {@link LinkedHashMap} and stays
+ * that way. Neither representation permits {@code null} keys or values.</p>
+ *
+ * <p>The views returned by {@link #entrySet()}, {@link #keySet()} and {@link #values()} remain valid
+ * across the upgrade and support removal through their iterators. {@link Map.Entry#setValue(Object)}
+ * writes through to the map.</p>
+ *
+ * <p>A {@link #freeze() frozen} map rejects all modification. A {@link #copyOnWrite() copy-on-write} copy of a
+ * frozen map starts out referencing the same, frozen, values and replaces them with their clones the first time
+ * any value is handed out or the copy is modified.</p>
+ */
+final class CompactTagMap extends AbstractMap<String, Tag<?>> {
+
+	/** The largest number of entries held in the array representation. */
+	static final int COMPACT_THRESHOLD = 8;
+	private static final int DEFAULT_CAPACITY = 4;
+	private static final String[] EMPTY_KEYS = new String[0];
+	private static final Tag<?>[] EMPTY_VALUES = new Tag<?>[0];
+
+	private String[] keys;
+	private Tag<?>[] values;
+	private int size;
+	/** Non-null once this map has outgrown the array representation. */
+	private LinkedHashMap<String, Tag<?>> map;
+	/**
+	 * Counts structural modifications while the map is modifiable. A frozen map can no longer be modified and
+	 * reuses this field to cache its hash code instead (0 until computed), if all its values are immutable.
+	 */
+	private int modCount;
+	private Set<Map.Entry<String, Tag<?>>> entrySet;
+	private boolean frozen;
+	/** Set on freeze if every value is {@link Tag#isImmutable() immutable}, only then is the hash code cached. */
+	private boolean immutable;
+	/** True while this map references the frozen values of the map it was copied from. */
+	private boolean sharesFrozen;
+
+	CompactTagMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	CompactTagMap(int initialCapacity) {
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		}
+		if (initialCapacity > COMPACT_THRESHOLD) {
+			keys = EMPTY_KEYS;
+			values = EMPTY_VALUES;
+			map = new LinkedHashMap<>(hashMapCapacity(initialCapacity));
+		} else if (initialCapacity == 0) {
+			keys = EMPTY_KEYS;
+			values = EMPTY_VALUES;
+		} else {
+			keys = new String[initialCapacity];
+			values = new Tag<?>[initialCapacity];
+		}
+	}
+
+	/** Initial capacity for a {@link LinkedHashMap} to hold {@code n} entries without rehashing. */
+	private static int hashMapCapacity(int n) {
+		return (int) Math.ceil(n / 0.75f);
+	}
+
+	/**
+	 * Freezes all values and makes this map unmodifiable. Values shared with a frozen map are already frozen.
+	 */
+	void freeze() {
+		if (frozen) return;
+		boolean immutable = true;
+		for (Tag<?> v : map != null ? map.values() : Arrays.asList(values).subList(0, size)) {
+			if (!sharesFrozen) {
+				v.freeze();
+			}
+			immutable &= v.isImmutable();
+		}
+		this.immutable = immutable;
+		sharesFrozen = false;
+		frozen = true;
+		modCount = 0;
+	}
+
+	boolean isFrozen() {
+		return frozen;
+	}
+
+	/** @return true if this map is frozen and so are all values reachable from it, arrays excluded. */
+	boolean isImmutable() {
+		return frozen && immutable;
+	}
+
+	/** @return true if this map still references the values of the frozen map it was copied from. */
+	boolean sharesFrozen() {
+		return sharesFrozen;
+	}
+
+	/**
+	 * Must only be called on a frozen map, or one which {@link #sharesFrozen()}.
+	 * @return a modifiable copy of this map which references the same values until one is handed out.
+	 */
+	CompactTagMap copyOnWrite() {
+		CompactTagMap copy;
+		if (map != null) {
+			copy = new CompactTagMap(0);
+			copy.map = new LinkedHashMap<>(map);
+		} else {
+			copy = new CompactTagMap(size);
+			System.arraycopy(keys, 0, copy.keys, 0, size);
+			System.arraycopy(values, 0, copy.values, 0, size);
+			copy.size = size;
+		}
+		copy.sharesFrozen = true;
+		return copy;
+	}
+
+	private void checkModifiable() {
+		if (frozen) {
+			throw new UnsupportedOperationException("frozen CompoundTag cannot be modified");
+		}
+	}
+
+	/**
+	 * Replaces values shared with a frozen map with private copies. Must be called before any value is handed out
+	 * and before any modification, so values put into this map are never replaced.
+	 */
+	private void unshare() {
+		if (sharesFrozen) {
+			sharesFrozen = false;
+			if (map != null) {
+				map.replaceAll((k, v) -> v.isFrozen() ? v.clone() : v);
+			} else {
+				for (int i = 0; i < size; i++) {
+					if (values[i].isFrozen()) {
+						values[i] = values[i].clone();
+					}
+				}
+			}
+		}
+	}
+
+	/** @return true if this map is still using the compact array representation. */
+	boolean isCompact() {
+		return map == null;
+	}
+
+	private int indexOf(Object key) {
+		if (key == null) return -1;
+		final String[] keys = this.keys;
+		for (int i = 0; i < size; i++) {
+			if (key.equals(keys[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void upgrade() {
+		LinkedHashMap<String, Tag<?>> m = new LinkedHashMap<>(hashMapCapacity(COMPACT_THRESHOLD * 2));
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		map = m;
+		keys = EMPTY_KEYS;
+		values = EMPTY_VALUES;
+		size = 0;
+	}
+
+	private void removeAt(int index) {
+		int tail = size - index - 1;
+		if (tail > 0) {
+			System.arraycopy(keys, index + 1, keys, index, tail);
+			System.arraycopy(values, index + 1, values, index, tail);
+		}
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return map != null ? map.size() : size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return map != null ? map.containsKey(key) : indexOf(key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (map != null) return map.containsValue(value);
+		if (value == null) return false;
+		for (int i = 0; i < size; i++) {
+			if (value.equals(values[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Tag<?> get(Object key) {
+		unshare();
+		if (map != null) return map.get(key);
+		int i = indexOf(key);
+		return i >= 0 ? values[i] : null;
+	}
+
+	@Override
+	public Tag<?> put(String key, Tag<?> value) {
+		checkModifiable();
+		unshare();
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		if (map != null) return map.put(key, value);
+		int i = indexOf(key);
+		if (i >= 0) {
+			Tag<?> old = values[i];
+			values[i] = value;
+			return old;
+		}
+		if (size == keys.length) {
+			if (size == COMPACT_THRESHOLD) {
+				upgrade();
+				modCount++;
+				map.put(key, value);
+				return null;
+			}
+			int newCapacity = Math.min(COMPACT_THRESHOLD, Math.max(DEFAULT_CAPACITY, size * 2));
+			keys = Arrays.copyOf(keys, newCapacity);
+			values = Arrays.copyOf(values, newCapacity);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		modCount++;
+		return null;
+	}
+
+	@Override
+	public Tag<?> remove(Object key) {
+		checkModifiable();
+		unshare();
+		if (map != null) return map.remove(key);
+		int i = indexOf(key);
+		if (i < 0) return null;
+		Tag<?> old = values[i];
+		removeAt(i);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		checkModifiable();
+		unshare();
+		if (map != null) {
+			map.clear();
+		} else if (size > 0) {
+			Arrays.fill(keys, 0, size, null);
+			Arrays.fill(values, 0, size, null);
+			size = 0;
+			modCount++;
+		}
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super String, ? super Tag<?>> action) {
+		unshare();
+		if (map != null) {
+			map.forEach(action);
+			return;
+		}
+		final int expectedModCount = modCount;
+		for (int i = 0; i < size; i++) {
+			action.accept(keys[i], values[i]);
+			if (!frozen && modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	/**
+	 * Immutable maps compute their hash code once. Values shared with a frozen map are not copied to hash them.
+	 */
+	@Override
+	public int hashCode() {
+		if (!isImmutable()) {
+			return computeHashCode();
+		}
+		int hash = modCount;
+		if (hash == 0) {
+			modCount = hash = computeHashCode();
+		}
+		return hash;
+	}
+
+	private int computeHashCode() {
+		if (map != null) return map.hashCode();
+		int hash = 0;
+		for (int i = 0; i < size; i++) {
+			hash += keys[i].hashCode() ^ values[i].hashCode();
+		}
+		return hash;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Tag<?>>> entrySet() {
+		Set<Map.Entry<String, Tag<?>>> es = entrySet;
+		return es != null ? es : (entrySet = new EntrySet());
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<String, Tag<?>>> {
+		@Override
+		public int size() {
+			return CompactTagMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			CompactTagMap.this.clear();
+		}
+
+		@Override
+		public Iterator<Map.Entry<String, Tag<?>>> iterator() {
+			unshare();
+			if (map != null) {
+				return frozen ? Collections.unmodifiableMap(map).entrySet().iterator() : map.entrySet().iterator();
+			}
+			return new EntryIterator();
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<String, Tag<?>>> {
+		private int next = 0;
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			// an upgrade to the hash representation must surface as a CME from next()
+			return next < size || map != null;
+		}
+
+		@Override
+		public Map.Entry<String, Tag<?>> next() {
+			if ((!frozen && modCount != expectedModCount) || map != null) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= size) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			return new Entry(last);
+		}
+
+		@Override
+		public void remove() {
+			checkModifiable();
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount || map != null) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedModCount = modCount;
+		}
+	}
+
+	private final class Entry implements Map.Entry<String, Tag<?>> {
+		private final String key;
+		private Tag<?> value;
+		private final int index;
+
+		Entry(int index) {
+			this.index = index;
+			this.key = keys[index];
+			this.value = values[index];
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public Tag<?> getValue() {
+			return value;
+		}
+
+		@Override
+		public Tag<?> setValue(Tag<?> value) {
+			checkModifiable();
+			Objects.requireNonNull(value);
+			Tag<?> old = this.value;
+			if (map != null) {
+				map.replace(key, value);
+			} else {
+				// entries may have shifted since this entry was handed out
+				int i = index < size && keys[index] == key ? index : indexOf(key);
+				if (i >= 0) values[i] = value;
+			}
+			this.value = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Map.Entry<?, ?> e
+					&& key.equals(e.getKey())
+					&& value.equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+}
@@ -1,14 +1,19 @@
 package io.github.ensgijs.nbt.tag;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Array;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import io.github.ensgijs.nbt.io.LazyBinaryNbt;
 import io.github.ensgijs.nbt.io.MaxDepthIO;
 import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.SilentIOException;
 import io.github.ensgijs.nbt.util.ArgValidator;
+import io.github.ensgijs.nbt.util.BinaryNbtPatcher;
 
 import static io.github.ensgijs.nbt.tag.StringTag.escapeString;
 
@@ -17,12 +22,23 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 
 	public static final byte ID = 10;
 
+	private Map<String, Tag<?>> value;
+	/** Undecoded payload of a lazy compound, null once decoded. */
+	private EncodedPayload encoded;
+
+	private record EncodedPayload(byte[] data, int offset, int length, int maxDepth) {}
+
 	public CompoundTag() {
 		super(createEmptyValue());
 	}
 
+	/**
+	 * @param initialCapacity expected number of entries. Compounds of up to
+	 * {@value CompactTagMap#COMPACT_THRESHOLD} entries are stored in a compact array form
+	 * and only switch to a hash map when they grow past that size.
+	 */
 	public CompoundTag(int initialCapacity) {
-		super(new LinkedHashMap<>(initialCapacity));
+		super(new CompactTagMap(initialCapacity));
 	}
 
 	/**
@@ -32,14 +48,126 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 		super(data);
 	}
 
+	private CompoundTag(EncodedPayload encoded) {
+		super();
+		this.encoded = encoded;
+	}
+
+	/**
+	 * Creates a compound whose entries stay encoded until first accessed. Compounds nested in it are in turn
+	 * decoded lazily. As long as a lazy compound is not accessed {@link io.github.ensgijs.nbt.io.BigEndianNbtOutputStream}
+	 * writes its bytes verbatim.
+	 * @param data big endian binary nbt, passed by ref and must not be modified afterwards.
+	 * @param offset start of the compound payload, that is the first byte after the compound's name.
+	 * @param length length of the payload, including its terminating end tag.
+	 * @param maxDepth the maximum depth the payload is decoded with.
+	 * @see LazyBinaryNbt
+	 */
+	public static CompoundTag lazy(byte[] data, int offset, int length, int maxDepth) {
+		Objects.checkFromIndexSize(offset, length, data.length);
+		return new CompoundTag(new EncodedPayload(data, offset, length, maxDepth));
+	}
+
+	/** @return true if this compound has not been decoded yet. */
+	public boolean isLazy() {
+		return encoded != null;
+	}
+
+	/**
+	 * Writes the undecoded payload of a lazy compound as is.
+	 * @return false, without writing anything, if this compound has already been decoded.
+	 */
+	public boolean writeLazyPayload(OutputStream out) throws IOException {
+		EncodedPayload e = encoded;
+		if (e == null) {
+			return false;
+		}
+		out.write(e.data, e.offset, e.length);
+		return true;
+	}
+
+	/**
+	 * Applies the patcher to the undecoded payload of a lazy compound, so values can be changed without decoding
+	 * the compound. As the payload may be shared with clones of this compound it is only patched in a copy, and
+	 * only if anything changed.
+	 * @return the patch result, or {@link BinaryNbtPatcher.Result#NEEDS_TREE_MODE} if this compound has already
+	 * been decoded.
+	 */
+	public <C> BinaryNbtPatcher.Result patchLazyPayload(BinaryNbtPatcher<C> patcher, C context) throws IOException {
+		EncodedPayload e = encoded;
+		if (e == null) {
+			return BinaryNbtPatcher.Result.NEEDS_TREE_MODE;
+		}
+		BinaryNbtPatcher.Changes changes = patcher.scanCompoundPayload(e.data, e.offset, e.length, e.maxDepth, context);
+		if (changes.result() == BinaryNbtPatcher.Result.PATCHED) {
+			byte[] copy = Arrays.copyOfRange(e.data, e.offset, e.offset + e.length);
+			changes.applyTo(copy, 0);
+			encoded = new EncodedPayload(copy, 0, copy.length, e.maxDepth);
+		}
+		return changes.result();
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public byte getID() {
 		return ID;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	protected Map<String, Tag<?>> getValue() {
+		if (encoded != null) {
+			decode();
+		}
+		return value;
+	}
+
+	private void decode() {
+		EncodedPayload e = encoded;
+		try {
+			value = LazyBinaryNbt.decodeCompoundPayload(e.data, e.offset, e.length, e.maxDepth).value;
+		} catch (IOException ex) {
+			throw new SilentIOException("failed to decode lazy compound", ex);
+		}
+		encoded = null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void setValue(Map<String, Tag<?>> value) {
+		this.value = checkValue(value);
+		encoded = null;
+	}
+
 	private static Map<String, Tag<?>> createEmptyValue() {
-		return new LinkedHashMap<>(8);
+		return new CompactTagMap();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Any modification of a frozen CompoundTag throws an {@link UnsupportedOperationException}.</p>
+	 */
+	@Override
+	public CompoundTag freeze() {
+		Map<String, Tag<?>> map = getValue();
+		if (!(map instanceof CompactTagMap)) {
+			CompactTagMap copy = new CompactTagMap(map.size());
+			copy.putAll(map);
+			setValue(map = copy);
+		}
+		((CompactTagMap) map).freeze();
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isFrozen() {
+		return encoded == null && value instanceof CompactTagMap m && m.isFrozen();
+	}
+
+	@Override
+	boolean isImmutable() {
+		return encoded == null && value instanceof CompactTagMap m && m.isImmutable();
 	}
 
 	public int size() {
@@ -336,13 +464,7 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 	 */
 	public float[] getFloatTagListAsArray(String key) {
 		ListTag<FloatTag> t = getListTagAutoCast(key);
-		if (t == null) return null;
-		List<FloatTag> floatTagList = t.getValue();
-		float[] floats = new float[floatTagList.size()];
-		for (int i = 0; i < floats.length; i++) {
-			floats[i] = floatTagList.get(i).asFloat();
-		}
-		return floats;
+		return t == null ? null : t.toFloatArray();
 	}
 
 	/**
@@ -352,13 +474,7 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 	 */
 	public double[] getDoubleTagListAsArray(String key) {
 		ListTag<DoubleTag> t = getListTagAutoCast(key);
-		if (t == null) return null;
-		List<DoubleTag> doubleTagList = t.getValue();
-		double[] doubles = new double[doubleTagList.size()];
-		for (int i = 0; i < doubles.length; i++) {
-			doubles[i] = doubleTagList.get(i).asDouble();
-		}
-		return doubles;
+		return t == null ? null : t.toDoubleArray();
 	}
 
 	/**
@@ -496,11 +612,7 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 			remove(key);
 			return null;
 		}
-		ListTag<FloatTag> listTag = new ListTag<>(FloatTag.class, values.length);
-		for (float v : values) {
-			listTag.addFloat(v);
-		}
-		return put(key, listTag);
+		return put(key, ListTag.ofFloats(values.clone()));
 	}
 
 	/**
@@ -515,11 +627,7 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 			remove(key);
 			return null;
 		}
-		ListTag<DoubleTag> listTag = new ListTag<>(DoubleTag.class, values.length);
-		for (double v : values) {
-			listTag.addDouble(v);
-		}
-		return put(key, listTag);
+		return put(key, ListTag.ofDoubles(values.clone()));
 	}
 
 	/**
@@ -571,6 +679,10 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 		if (!super.equals(other) || size() != ((CompoundTag) other).size()) {
 			return false;
 		}
+		// immutable compounds cache their hash code
+		if (isImmutable() && ((CompoundTag) other).isImmutable() && hashCode() != other.hashCode()) {
+			return false;
+		}
 		for (Map.Entry<String, Tag<?>> e : getValue().entrySet()) {
 			Tag<?> v;
 			if ((v = ((CompoundTag) other).get(e.getKey())) == null || !e.getValue().equals(v)) {
@@ -614,8 +726,15 @@ public class CompoundTag extends Tag<Map<String, Tag<?>>>
 	/** {@inheritDoc} */
 	@Override
 	public CompoundTag clone() {
-		// Choose initial capacity based on default load factor (0.75) so all entries fit in map without resizing
-		CompoundTag copy = new CompoundTag((int) Math.ceil(getValue().size() / 0.75f));
+		if (encoded != null) {
+			// the encoded bytes are never modified, so they can be shared
+			return new CompoundTag(encoded);
+		}
+		if (getValue() instanceof CompactTagMap m && (m.isFrozen() || m.sharesFrozen())) {
+			return new CompoundTag(m.copyOnWrite());
+		}
+		// CompactTagMap accounts for the hash map load factor itself if it needs one
+		CompoundTag copy = new CompoundTag(getValue().size());
 		for (Map.Entry<String, Tag<?>> e : getValue().entrySet()) {
 			copy.put(e.getKey(), e.getValue().clone());
 		}
@@ -1,16 +1,20 @@
 package io.github.ensgijs.nbt.tag;
 
+import java.util.Objects;
+
 public class DoubleTag extends NumberTag<Double> implements Comparable<DoubleTag> {
 
 	public static final byte ID = 6;
 	public static final double ZERO_VALUE = 0.0D;
 
+	private double value;
+
 	public DoubleTag() {
-		super(ZERO_VALUE);
+		this.value = ZERO_VALUE;
 	}
 
 	public DoubleTag(double value) {
-		super(value);
+		this.value = value;
 	}
 
 	/** {@inheritDoc} */
@@ -19,29 +23,85 @@ public class DoubleTag extends NumberTag<Double> implements Comparable<DoubleTag
 		return ID;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	protected Double getValue() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void setValue(Double value) {
+		setValue(Objects.requireNonNull(value).doubleValue());
+	}
+
 	/**
 	 * Sets the value for this Tag directly.
 	 * @param value The value to be set.
+	 * @throws UnsupportedOperationException if this tag is {@link #isFrozen() frozen}.
 	 */
 	public void setValue(double value) {
-		super.setValue(value);
+		checkModifiable();
+		this.value = value;
+	}
+
+	@Override
+	public byte asByte() {
+		return (byte) value;
+	}
+
+	@Override
+	public short asShort() {
+		return (short) value;
+	}
+
+	@Override
+	public int asInt() {
+		return (int) value;
+	}
+
+	@Override
+	public long asLong() {
+		return (long) value;
+	}
+
+	@Override
+	public float asFloat() {
+		return (float) value;
+	}
+
+	@Override
+	public double asDouble() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String valueToString(int maxDepth) {
+		return Double.toString(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean equals(Object other) {
-		return super.equals(other) && getValue().equals(((DoubleTag) other).getValue());
+		return super.equals(other) && Double.doubleToLongBits(value) == Double.doubleToLongBits(((DoubleTag) other).value);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int hashCode() {
+		return Double.hashCode(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public int compareTo(DoubleTag other) {
-		return getValue().compareTo(other.getValue());
+		return Double.compare(value, other.value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public DoubleTag clone() {
-		return new DoubleTag(getValue());
+		return new DoubleTag(value);
 	}
 }
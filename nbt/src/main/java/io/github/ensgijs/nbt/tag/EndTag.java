@@ -14,6 +14,14 @@ public final class EndTag extends Tag<Void> {
 		return ID;
 	}
 
+	@Override
+	protected Void getValue() {
+		return null;
+	}
+
+	@Override
+	protected void setValue(Void value) {}
+
 	@Override
 	protected Void checkValue(Void value) {
 		return value;
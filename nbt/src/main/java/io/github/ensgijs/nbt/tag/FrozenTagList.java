@@ -0,0 +1,64 @@
+package io.github.ensgijs.nbt.tag;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable {@code List} backing a frozen {@link ListTag}. Holds its elements in an exactly sized array
+ * and, if all elements are {@link Tag#isImmutable() immutable}, computes its hash code only once.
+ */
+final class FrozenTagList<E extends Tag<?>> extends AbstractList<E> implements RandomAccess {
+
+	private final Tag<?>[] elements;
+	private final boolean immutable;
+	/** 0 until computed. */
+	private int hash;
+
+	/** @param elements must already be frozen */
+	FrozenTagList(List<E> elements) {
+		this.elements = elements.toArray(new Tag<?>[0]);
+		boolean immutable = true;
+		for (Tag<?> e : this.elements) {
+			immutable &= e.isImmutable();
+		}
+		this.immutable = immutable;
+	}
+
+	boolean isImmutable() {
+		return immutable;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		return (E) elements[index];
+	}
+
+	@Override
+	public int size() {
+		return elements.length;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = 1;
+			for (Tag<?> e : elements) {
+				h = 31 * h + e.hashCode();
+			}
+			if (immutable) {
+				hash = h;
+			}
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) return true;
+		if (o instanceof FrozenTagList<?> other && immutable && other.immutable && other.hashCode() != hashCode()) return false;
+		return super.equals(o);
+	}
+}
@@ -1,16 +1,41 @@
 package io.github.ensgijs.nbt.tag;
 
+import java.util.Objects;
+
 public class IntTag extends NumberTag<Integer> implements Comparable<IntTag> {
 
 	public static final byte ID = 3;
 	public static final int ZERO_VALUE = 0;
 
+	/** Range of values, inclusive, for which {@link #valueOf(int)} returns a shared instance. */
+	private static final int SHARED_MIN = -128;
+	private static final int SHARED_MAX = 1024;
+	private static final IntTag[] SHARED = new IntTag[SHARED_MAX - SHARED_MIN + 1];
+	static {
+		for (int i = 0; i < SHARED.length; i++) {
+			SHARED[i] = new IntTag(i + SHARED_MIN);
+		}
+	}
+
+	private int value;
+
 	public IntTag() {
-		super(ZERO_VALUE);
+		this.value = ZERO_VALUE;
 	}
 
 	public IntTag(int value) {
-		super(value);
+		this.value = value;
+	}
+
+	/**
+	 * @return A {@link #isShared() shared}, immutable, instance if {@code value} is within
+	 * [-128, 1024], otherwise a new instance.
+	 */
+	public static IntTag valueOf(int value) {
+		if (value >= SHARED_MIN && value <= SHARED_MAX) {
+			return SHARED[value - SHARED_MIN];
+		}
+		return new IntTag(value);
 	}
 
 	/** {@inheritDoc} */
@@ -19,29 +44,91 @@ public class IntTag extends NumberTag<Integer> implements Comparable<IntTag> {
 		return ID;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	protected Integer getValue() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void setValue(Integer value) {
+		setValue(Objects.requireNonNull(value).intValue());
+	}
+
 	/**
 	 * Sets the value for this Tag directly.
 	 * @param value The value to be set.
+	 * @throws UnsupportedOperationException if this is a {@link #isShared() shared} or {@link #isFrozen() frozen} instance.
 	 */
 	public void setValue(int value) {
-		super.setValue(value);
+		checkModifiable();
+		this.value = value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isShared() {
+		return value >= SHARED_MIN && value <= SHARED_MAX && SHARED[value - SHARED_MIN] == this;
+	}
+
+	@Override
+	public byte asByte() {
+		return (byte) value;
+	}
+
+	@Override
+	public short asShort() {
+		return (short) value;
+	}
+
+	@Override
+	public int asInt() {
+		return value;
+	}
+
+	@Override
+	public long asLong() {
+		return value;
+	}
+
+	@Override
+	public float asFloat() {
+		return value;
+	}
+
+	@Override
+	public double asDouble() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String valueToString(int maxDepth) {
+		return Integer.toString(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean equals(Object other) {
-		return super.equals(other) && asInt() == ((IntTag) other).asInt();
+		return super.equals(other) && value == ((IntTag) other).value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int hashCode() {
+		return Integer.hashCode(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public int compareTo(IntTag other) {
-		return getValue().compareTo(other.getValue());
+		return Integer.compare(value, other.value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public IntTag clone() {
-		return new IntTag(getValue());
+		return new IntTag(value);
 	}
 }
@@ -16,12 +16,22 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 
 	public static final byte ID = 9;
 
+	private List<E> value;
 	private Class<?> typeClass = null;
+	private boolean frozen;
+	/** True while this list references the frozen elements of the list it was cloned from. */
+	private boolean sharesFrozen;
 
 	private ListTag(int initialCapacity) {
 		super(createEmptyValue(initialCapacity));
 	}
 
+	@SuppressWarnings("unchecked")
+	private ListTag(Class<?> typeClass, PrimitiveTagList<?> values) {
+		super((List<E>) values);
+		this.typeClass = typeClass;
+	}
+
 	/**
 	 * Creates a new ListTag that uses the given list.
 	 * @param usingList List instance to use to back this ListTag. Values are NOT cloned.
@@ -71,6 +81,69 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 		return ID;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected List<E> getValue() {
+		if (sharesFrozen) {
+			// copy-on-write: elements are copied the first time any of them may be handed out
+			sharesFrozen = false;
+			value.replaceAll(e -> (E) e.clone());
+		}
+		return value;
+	}
+
+	/** @return the backing list, after checking that this list is not frozen. */
+	private List<E> mutableValue() {
+		checkModifiable();
+		return getValue();
+	}
+
+	private void checkModifiable() {
+		if (frozen) {
+			throw new UnsupportedOperationException("frozen ListTag cannot be modified");
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Any modification of a frozen ListTag throws an {@link UnsupportedOperationException}.</p>
+	 */
+	@Override
+	public ListTag<E> freeze() {
+		if (frozen) return this;
+		if (value instanceof PrimitiveTagList<?> values) {
+			values.freeze();
+		} else {
+			if (!sharesFrozen) {
+				for (E e : value) {
+					e.freeze();
+				}
+			}
+			value = new FrozenTagList<>(value);
+		}
+		sharesFrozen = false;
+		frozen = true;
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	@Override
+	boolean isImmutable() {
+		return frozen && (value instanceof PrimitiveTagList<?> || ((FrozenTagList<?>) value).isImmutable());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void setValue(List<E> value) {
+		this.value = checkValue(value);
+	}
+
 	/**
 	 * <p>Creates a non-type-safe ListTag. Its element type will be set after the first
 	 * element was added.</p>
@@ -140,13 +213,13 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	/** {@inheritDoc} */
 	@Override
 	public int size() {
-		return getValue().size();
+		return value.size();
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean isEmpty() {
-		return getValue().isEmpty();
+		return value.isEmpty();
 	}
 
 	/** {@inheritDoc} */
@@ -158,7 +231,7 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	/** {@inheritDoc} */
 	@Override
 	public E remove(int index) {
-		return getValue().remove(index);
+		return mutableValue().remove(index);
 	}
 
 	/** {@inheritDoc} */
@@ -176,12 +249,15 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	/** {@inheritDoc} */
 	@Override
 	public ListIterator<E> listIterator() {
-		return new NullRejectingListIterator<>(getValue().listIterator());
+		return listIterator(0);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public ListIterator<E> listIterator(int index) {
+		if (frozen) {
+			return Collections.unmodifiableList(getValue()).listIterator(index);
+		}
 		return new NullRejectingListIterator<>(getValue().listIterator(index));
 	}
 
@@ -196,13 +272,14 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	 */
 	@Override
 	public ListTag<E> subList(int fromIndex, int toIndex) {
-		return new ListTag<>(getValue().subList(fromIndex, toIndex));
+		ListTag<E> sub = new ListTag<>(getValue().subList(fromIndex, toIndex));
+		return frozen ? sub.freeze() : sub;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void clear() {
-		getValue().clear();
+		mutableValue().clear();
 	}
 
 	/** {@inheritDoc} */
@@ -247,7 +324,7 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	 */
 	@Override
 	public E set(int index, E element) {
-		return getValue().set(index, Objects.requireNonNull(element));
+		return mutableValue().set(index, Objects.requireNonNull(element));
 	}
 
 	/**
@@ -256,6 +333,7 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	 */
 	@Override
 	public boolean add(E element) {
+		checkModifiable();
 		Objects.requireNonNull(element);
 		if (getTypeClass() == EndTag.class) {
 			typeClass = checkTypeClass(element.getClass());
@@ -265,13 +343,13 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 							element.getClass().getSimpleName(),
 							typeClass.getSimpleName()));
 		}
-		return getValue().add(element);
+		return mutableValue().add(element);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean remove(Object o) {
-		return getValue().remove(o);
+		return mutableValue().remove(o);
 	}
 
 	/**
@@ -280,6 +358,7 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	 */
 	@Override
 	public void add(int index, E element) {
+		checkModifiable();
 		Objects.requireNonNull(element);
 		if (getTypeClass() == EndTag.class) {
 			typeClass = checkTypeClass(element.getClass());
@@ -289,7 +368,7 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 							element.getClass().getSimpleName(),
 							typeClass.getSimpleName()));
 		}
-		getValue().add(index, element);
+		mutableValue().add(index, element);
 	}
 
 	/**
@@ -298,7 +377,7 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	 */
 	@Override
 	public boolean addAll(Collection<? extends E> c) {
-		return getValue().addAll(assignTypeClassIfNeeded(validateContainsNoNullsAndTypeOk(c)));
+		return mutableValue().addAll(assignTypeClassIfNeeded(validateContainsNoNullsAndTypeOk(c)));
 	}
 
 	/**
@@ -307,59 +386,83 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	 */
 	@Override
 	public boolean addAll(int index, Collection<? extends E> c) {
-		return getValue().addAll(index, assignTypeClassIfNeeded(validateContainsNoNullsAndTypeOk(c)));
+		return mutableValue().addAll(index, assignTypeClassIfNeeded(validateContainsNoNullsAndTypeOk(c)));
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean removeAll(Collection<?> c) {
-		return getValue().removeAll(c);
+		return mutableValue().removeAll(c);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean removeIf(Predicate<? super E> filter) {
-		return getValue().removeIf(filter);
+		return mutableValue().removeIf(filter);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean retainAll(Collection<?> c) {
-		return getValue().retainAll(c);
+		return mutableValue().retainAll(c);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void sort(Comparator<? super E> c) {
-		getValue().sort(c);
+		mutableValue().sort(c);
 	}
 
 	public void addBoolean(boolean value) {
-		addUnchecked(new ByteTag(value));
+		addByte(value ? (byte) 1 : 0);
 	}
 
 	public void addByte(byte value) {
-		addUnchecked(new ByteTag(value));
+		if (mutableValue() instanceof PrimitiveTagList.OfByte values) {
+			values.add(value);
+		} else {
+			addUnchecked(new ByteTag(value));
+		}
 	}
 
 	public void addShort(short value) {
-		addUnchecked(new ShortTag(value));
+		if (mutableValue() instanceof PrimitiveTagList.OfShort values) {
+			values.add(value);
+		} else {
+			addUnchecked(new ShortTag(value));
+		}
 	}
 
 	public void addInt(int value) {
-		addUnchecked(new IntTag(value));
+		if (mutableValue() instanceof PrimitiveTagList.OfInt values) {
+			values.add(value);
+		} else {
+			addUnchecked(new IntTag(value));
+		}
 	}
 
 	public void addLong(long value) {
-		addUnchecked(new LongTag(value));
+		if (mutableValue() instanceof PrimitiveTagList.OfLong values) {
+			values.add(value);
+		} else {
+			addUnchecked(new LongTag(value));
+		}
 	}
 
 	public void addFloat(float value) {
-		addUnchecked(new FloatTag(value));
+		if (mutableValue() instanceof PrimitiveTagList.OfFloat values) {
+			values.add(value);
+		} else {
+			addUnchecked(new FloatTag(value));
+		}
 	}
 
 	public void addDouble(double value) {
-		addUnchecked(new DoubleTag(value));
+		if (mutableValue() instanceof PrimitiveTagList.OfDouble values) {
+			values.add(value);
+		} else {
+			addUnchecked(new DoubleTag(value));
+		}
 	}
 
 	public void addString(String value) {
@@ -384,6 +487,88 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 		return getValue().get(index);
 	}
 
+	/**
+	 * Reads the element at the given index as a byte. Lists created by the binary readers or by the
+	 * {@code ofXyz} factories which take a primitive array answer this without creating a tag object.
+	 * @throws ClassCastException if this is not a list of {@link NumberTag}s.
+	 */
+	public byte getByte(int index) {
+		return getValue() instanceof PrimitiveTagList<?> values ? values.getAsByte(index) : ((NumberTag<?>) get(index)).asByte();
+	}
+
+	/** @see #getByte(int) */
+	public short getShort(int index) {
+		return getValue() instanceof PrimitiveTagList<?> values ? values.getAsShort(index) : ((NumberTag<?>) get(index)).asShort();
+	}
+
+	/** @see #getByte(int) */
+	public int getInt(int index) {
+		return getValue() instanceof PrimitiveTagList<?> values ? values.getAsInt(index) : ((NumberTag<?>) get(index)).asInt();
+	}
+
+	/** @see #getByte(int) */
+	public long getLong(int index) {
+		return getValue() instanceof PrimitiveTagList<?> values ? values.getAsLong(index) : ((NumberTag<?>) get(index)).asLong();
+	}
+
+	/** @see #getByte(int) */
+	public float getFloat(int index) {
+		return getValue() instanceof PrimitiveTagList<?> values ? values.getAsFloat(index) : ((NumberTag<?>) get(index)).asFloat();
+	}
+
+	/** @see #getByte(int) */
+	public double getDouble(int index) {
+		return getValue() instanceof PrimitiveTagList<?> values ? values.getAsDouble(index) : ((NumberTag<?>) get(index)).asDouble();
+	}
+
+	/**
+	 * @return a new array holding the values of this list, see {@link #getInt(int)}.
+	 * @throws ClassCastException if this is not a list of {@link NumberTag}s.
+	 */
+	public int[] toIntArray() {
+		int[] values = new int[size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getInt(i);
+		}
+		return values;
+	}
+
+	/**
+	 * @return a new array holding the values of this list, see {@link #getLong(int)}.
+	 * @throws ClassCastException if this is not a list of {@link NumberTag}s.
+	 */
+	public long[] toLongArray() {
+		long[] values = new long[size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getLong(i);
+		}
+		return values;
+	}
+
+	/**
+	 * @return a new array holding the values of this list, see {@link #getFloat(int)}.
+	 * @throws ClassCastException if this is not a list of {@link NumberTag}s.
+	 */
+	public float[] toFloatArray() {
+		float[] values = new float[size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getFloat(i);
+		}
+		return values;
+	}
+
+	/**
+	 * @return a new array holding the values of this list, see {@link #getDouble(int)}.
+	 * @throws ClassCastException if this is not a list of {@link NumberTag}s.
+	 */
+	public double[] toDoubleArray() {
+		double[] values = new double[size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getDouble(i);
+		}
+		return values;
+	}
+
 	@SuppressWarnings("unchecked")
 	public <L extends Tag<?>> ListTag<L> asTypedList(Class<L> type) {
 		checkTypeClass(type);
@@ -433,7 +618,9 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	@SuppressWarnings("unchecked")
 	public <T extends Tag<?>> ListTag<ListTag<T>> asListTagList() {
 		checkTypeClass(ListTag.class);
-		typeClass = ListTag.class;
+		if (!frozen) {
+			typeClass = ListTag.class;
+		}
 		return (ListTag<ListTag<T>>) this;
 	}
 
@@ -489,6 +676,39 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 		return tag;
 	}
 
+	/**
+	 * Creates a list backed by the given array; tag objects are only created for elements which are
+	 * accessed through the {@code List} interface. The array is NOT copied.
+	 */
+	public static ListTag<ByteTag> ofBytes(byte... values) {
+		return new ListTag<>(ByteTag.class, new PrimitiveTagList.OfByte(values));
+	}
+
+	/** @see #ofBytes(byte...) */
+	public static ListTag<ShortTag> ofShorts(short... values) {
+		return new ListTag<>(ShortTag.class, new PrimitiveTagList.OfShort(values));
+	}
+
+	/** @see #ofBytes(byte...) */
+	public static ListTag<IntTag> ofInts(int... values) {
+		return new ListTag<>(IntTag.class, new PrimitiveTagList.OfInt(values));
+	}
+
+	/** @see #ofBytes(byte...) */
+	public static ListTag<LongTag> ofLongs(long... values) {
+		return new ListTag<>(LongTag.class, new PrimitiveTagList.OfLong(values));
+	}
+
+	/** @see #ofBytes(byte...) */
+	public static ListTag<FloatTag> ofFloats(float... values) {
+		return new ListTag<>(FloatTag.class, new PrimitiveTagList.OfFloat(values));
+	}
+
+	/** @see #ofBytes(byte...) */
+	public static ListTag<DoubleTag> ofDoubles(double... values) {
+		return new ListTag<>(DoubleTag.class, new PrimitiveTagList.OfDouble(values));
+	}
+
 	public static ListTag<StringTag> ofStrings(List<String> values) {
 		var tag = new ListTag<>(StringTag.class);
 		for (var v : values) {
@@ -518,12 +738,10 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 				.getTypeClass()) {
 			return false;
 		}
-		for (int i = 0; i < size(); i++) {
-			if (!get(i).equals(((ListTag<?>) other).get(i))) {
-				return false;
-			}
+		if (isImmutable() && ((ListTag<?>) other).isImmutable() && hashCode() != other.hashCode()) {
+			return false;
 		}
-		return true;
+		return getValue().equals(((ListTag<?>) other).getValue());
 	}
 
 	/** {@inheritDoc} */
@@ -548,6 +766,17 @@ public class ListTag<E extends Tag<?>> extends Tag<List<E>> implements List<E>,
 	@SuppressWarnings("unchecked")
 	@Override
 	public ListTag<E> clone() {
+		if (value instanceof PrimitiveTagList<?> values) {
+			return new ListTag<>(typeClass, values.copy());
+		}
+		if (frozen || sharesFrozen) {
+			// the elements are frozen and can be shared until the copy hands one out
+			ListTag<E> copy = new ListTag<>(this.size());
+			copy.typeClass = typeClass;
+			copy.value.addAll(value);
+			copy.sharesFrozen = true;
+			return copy;
+		}
 		ListTag<E> copy = new ListTag<>(this.size());
 		// assure type safety for clone
 		copy.typeClass = typeClass;
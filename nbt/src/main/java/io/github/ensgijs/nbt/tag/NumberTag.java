@@ -3,14 +3,22 @@ package io.github.ensgijs.nbt.tag;
 /**
  * NumberTag is an abstract representation of any {@link Number} tag.
  *
+ * <p>The built-in implementations store their value in a primitive field; {@link #getValue()} boxes on
+ * demand. Prefer the {@code asXyz()} accessors which never box.</p>
+ *
  * @param <T> The array type.
  */
 public abstract class NumberTag<T extends Number & Comparable<T>> extends Tag<T> {
 
+	private boolean frozen;
+
 	public NumberTag(T value) {
 		super(value);
 	}
 
+	/** For subclasses which store their value in a primitive field. */
+	protected NumberTag() {}
+
 	public byte asByte() {
 		return getValue().byteValue();
 	}
@@ -35,6 +43,46 @@ public abstract class NumberTag<T extends Number & Comparable<T>> extends Tag<T>
 		return getValue().doubleValue();
 	}
 
+	/**
+	 * Shared instances are handed out by the {@code valueOf} factories of {@link ByteTag}, {@link ShortTag}
+	 * and {@link IntTag} (and by binary readers configured to use them) and may be referenced from many
+	 * places at once; they cannot be modified. Use {@link #clone()} to obtain a modifiable copy.
+	 * @return true if this is a shared, immutable, instance.
+	 */
+	public boolean isShared() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>A frozen number tag rejects modification in the same way a {@link #isShared() shared} instance does.</p>
+	 */
+	@Override
+	public NumberTag<T> freeze() {
+		if (!isShared()) {
+			frozen = true;
+		}
+		return this;
+	}
+
+	/** {@inheritDoc} Shared instances are always frozen. */
+	@Override
+	public boolean isFrozen() {
+		return frozen || isShared();
+	}
+
+	/**
+	 * @throws UnsupportedOperationException if this is a {@link #isShared() shared} or {@link #freeze() frozen} instance.
+	 */
+	protected void checkModifiable() {
+		if (frozen) {
+			throw new UnsupportedOperationException("frozen " + getClass().getSimpleName() + " cannot be modified");
+		}
+		if (isShared()) {
+			throw new UnsupportedOperationException("shared " + getClass().getSimpleName() + " instances are immutable");
+		}
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public String valueToString(int maxDepth) {
@@ -0,0 +1,721 @@
+package io.github.ensgijs.nbt.tag;
+
+import java.util.*;
+
+/**
+ * {@code List} of {@link NumberTag}s used to back numeric {@link ListTag}s, such as entity {@code Pos},
+ * {@code Motion} and {@code Rotation}, which stores its values in a primitive array.
+ *
+ * <p>Tag objects are only created when an element is requested through the {@code List} interface,
+ * and are then retained so that repeated calls return the same instance and changes made to that instance
+ * are observed by the list. Tags given to the list by {@link #set(int, NumberTag)} or {@link #add(int, NumberTag)}
+ * are retained likewise. The {@code getAsXyz} accessors never create tag objects.</p>
+ */
+abstract class PrimitiveTagList<E extends NumberTag<?>> extends AbstractList<E> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 4;
+
+	protected int size;
+	/** Lazily created; holds the tag instance for each index that has one. */
+	private NumberTag<?>[] tags;
+	/**
+	 * Set when the owning ListTag is frozen; retained tags are frozen with it and new tags are no longer retained,
+	 * so reads don't mutate this list.
+	 */
+	private boolean frozen;
+
+	PrimitiveTagList(int size) {
+		this.size = size;
+	}
+
+	/** @return the class of the elements of this list. */
+	abstract Class<E> elementType();
+
+	/** @return the primitive array backing this list. */
+	abstract Object array();
+
+	/** @return the length of the primitive array backing this list. */
+	abstract int capacity();
+
+	abstract void resize(int capacity);
+
+	/** @return a new tag holding the primitive value at index. */
+	abstract E create(int index);
+
+	/** Stores the value of tag at index. */
+	abstract void store(int index, E tag);
+
+	abstract boolean isFloatingPoint();
+
+	/** Only valid for integral lists. */
+	abstract long rawLong(int index);
+
+	/** Only valid for floating point lists. */
+	abstract double rawDouble(int index);
+
+	/** Element equality as defined by the equals method of the element type. */
+	abstract boolean valueEquals(int index, PrimitiveTagList<?> other);
+
+	/** Element hash code as defined by the hashCode method of the element type. */
+	abstract int valueHashCode(int index);
+
+	/** @return a copy of this list holding the current values and no tag instances. */
+	abstract PrimitiveTagList<E> copy();
+
+	private NumberTag<?> tagAt(int index) {
+		return tags != null ? tags[index] : null;
+	}
+
+	protected void ensureCapacity(int minCapacity) {
+		int capacity = capacity();
+		if (minCapacity > capacity) {
+			int newCapacity = Math.max(minCapacity, Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1)));
+			resize(newCapacity);
+			if (tags != null) {
+				tags = Arrays.copyOf(tags, newCapacity);
+			}
+		}
+	}
+
+	public byte getAsByte(int index) {
+		Objects.checkIndex(index, size);
+		NumberTag<?> t = tagAt(index);
+		return t != null ? t.asByte() : isFloatingPoint() ? (byte) rawDouble(index) : (byte) rawLong(index);
+	}
+
+	public short getAsShort(int index) {
+		Objects.checkIndex(index, size);
+		NumberTag<?> t = tagAt(index);
+		return t != null ? t.asShort() : isFloatingPoint() ? (short) rawDouble(index) : (short) rawLong(index);
+	}
+
+	public int getAsInt(int index) {
+		Objects.checkIndex(index, size);
+		NumberTag<?> t = tagAt(index);
+		return t != null ? t.asInt() : isFloatingPoint() ? (int) rawDouble(index) : (int) rawLong(index);
+	}
+
+	public long getAsLong(int index) {
+		Objects.checkIndex(index, size);
+		NumberTag<?> t = tagAt(index);
+		return t != null ? t.asLong() : isFloatingPoint() ? (long) rawDouble(index) : rawLong(index);
+	}
+
+	public float getAsFloat(int index) {
+		Objects.checkIndex(index, size);
+		NumberTag<?> t = tagAt(index);
+		return t != null ? t.asFloat() : isFloatingPoint() ? (float) rawDouble(index) : (float) rawLong(index);
+	}
+
+	public double getAsDouble(int index) {
+		Objects.checkIndex(index, size);
+		NumberTag<?> t = tagAt(index);
+		return t != null ? t.asDouble() : isFloatingPoint() ? rawDouble(index) : (double) rawLong(index);
+	}
+
+	void freeze() {
+		frozen = true;
+		if (tags != null) {
+			for (int i = 0; i < size; i++) {
+				if (tags[i] != null) tags[i].freeze();
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		Objects.checkIndex(index, size);
+		if (frozen) {
+			return peek(index);
+		}
+		if (tags == null) {
+			tags = new NumberTag<?>[capacity()];
+		}
+		NumberTag<?> t = tags[index];
+		if (t == null) {
+			tags[index] = t = create(index);
+		}
+		return (E) t;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E peek(int index) {
+		NumberTag<?> t = tagAt(index);
+		if (t != null) return (E) t;
+		E created = create(index);
+		if (frozen) created.freeze();
+		return created;
+	}
+
+	@Override
+	public E set(int index, E element) {
+		Objects.checkIndex(index, size);
+		E old = peek(index);
+		store(index, Objects.requireNonNull(element));
+		retain(index, element);
+		return old;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		Objects.checkIndex(index, size + 1);
+		Objects.requireNonNull(element);
+		// validate the element type before any state is touched
+		elementType().cast(element);
+		ensureCapacity(size + 1);
+		shift(index, index + 1, size - index);
+		size++;
+		store(index, element);
+		retain(index, element);
+		modCount++;
+	}
+
+	private void retain(int index, E element) {
+		if (tags == null) {
+			tags = new NumberTag<?>[capacity()];
+		}
+		tags[index] = element;
+	}
+
+	private void shift(int from, int to, int length) {
+		if (length > 0) {
+			Object array = array();
+			System.arraycopy(array, from, array, to, length);
+			if (tags != null) {
+				System.arraycopy(tags, from, tags, to, length);
+			}
+		}
+		if (tags != null && to > from) {
+			tags[from] = null;
+		}
+	}
+
+	@Override
+	public E remove(int index) {
+		Objects.checkIndex(index, size);
+		E old = peek(index);
+		shift(index + 1, index, size - index - 1);
+		size--;
+		if (tags != null) {
+			tags[size] = null;
+		}
+		modCount++;
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		tags = null;
+		modCount++;
+	}
+
+	/** Called by the primitive add methods of subclasses after they have stored the new value. */
+	protected void added() {
+		size++;
+		modCount++;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) return true;
+		if (o == null || o.getClass() != getClass()) return super.equals(o);
+		PrimitiveTagList<?> other = (PrimitiveTagList<?>) o;
+		if (other.size != size) return false;
+		for (int i = 0; i < size; i++) {
+			if (!valueEquals(i, other)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++) {
+			hash = 31 * hash + valueHashCode(i);
+		}
+		return hash;
+	}
+
+	static final class OfByte extends PrimitiveTagList<ByteTag> {
+		private byte[] data;
+
+		OfByte(byte[] data) {
+			super(data.length);
+			this.data = data;
+		}
+
+		void add(byte value) {
+			ensureCapacity(size + 1);
+			data[size] = value;
+			added();
+		}
+
+		@Override
+		Class<ByteTag> elementType() {
+			return ByteTag.class;
+		}
+
+		@Override
+		Object array() {
+			return data;
+		}
+
+		@Override
+		int capacity() {
+			return data.length;
+		}
+
+		@Override
+		void resize(int capacity) {
+			data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		ByteTag create(int index) {
+			return new ByteTag(data[index]);
+		}
+
+		@Override
+		void store(int index, ByteTag tag) {
+			data[index] = tag.asByte();
+		}
+
+		@Override
+		boolean isFloatingPoint() {
+			return false;
+		}
+
+		@Override
+		long rawLong(int index) {
+			return data[index];
+		}
+
+		@Override
+		double rawDouble(int index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		boolean valueEquals(int index, PrimitiveTagList<?> other) {
+			return getAsByte(index) == other.getAsByte(index);
+		}
+
+		@Override
+		int valueHashCode(int index) {
+			return Byte.hashCode(getAsByte(index));
+		}
+
+		@Override
+		OfByte copy() {
+			byte[] values = new byte[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = getAsByte(i);
+			}
+			return new OfByte(values);
+		}
+	}
+
+	static final class OfShort extends PrimitiveTagList<ShortTag> {
+		private short[] data;
+
+		OfShort(short[] data) {
+			super(data.length);
+			this.data = data;
+		}
+
+		void add(short value) {
+			ensureCapacity(size + 1);
+			data[size] = value;
+			added();
+		}
+
+		@Override
+		Class<ShortTag> elementType() {
+			return ShortTag.class;
+		}
+
+		@Override
+		Object array() {
+			return data;
+		}
+
+		@Override
+		int capacity() {
+			return data.length;
+		}
+
+		@Override
+		void resize(int capacity) {
+			data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		ShortTag create(int index) {
+			return new ShortTag(data[index]);
+		}
+
+		@Override
+		void store(int index, ShortTag tag) {
+			data[index] = tag.asShort();
+		}
+
+		@Override
+		boolean isFloatingPoint() {
+			return false;
+		}
+
+		@Override
+		long rawLong(int index) {
+			return data[index];
+		}
+
+		@Override
+		double rawDouble(int index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		boolean valueEquals(int index, PrimitiveTagList<?> other) {
+			return getAsShort(index) == other.getAsShort(index);
+		}
+
+		@Override
+		int valueHashCode(int index) {
+			return Short.hashCode(getAsShort(index));
+		}
+
+		@Override
+		OfShort copy() {
+			short[] values = new short[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = getAsShort(i);
+			}
+			return new OfShort(values);
+		}
+	}
+
+	static final class OfInt extends PrimitiveTagList<IntTag> {
+		private int[] data;
+
+		OfInt(int[] data) {
+			super(data.length);
+			this.data = data;
+		}
+
+		void add(int value) {
+			ensureCapacity(size + 1);
+			data[size] = value;
+			added();
+		}
+
+		@Override
+		Class<IntTag> elementType() {
+			return IntTag.class;
+		}
+
+		@Override
+		Object array() {
+			return data;
+		}
+
+		@Override
+		int capacity() {
+			return data.length;
+		}
+
+		@Override
+		void resize(int capacity) {
+			data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		IntTag create(int index) {
+			return new IntTag(data[index]);
+		}
+
+		@Override
+		void store(int index, IntTag tag) {
+			data[index] = tag.asInt();
+		}
+
+		@Override
+		boolean isFloatingPoint() {
+			return false;
+		}
+
+		@Override
+		long rawLong(int index) {
+			return data[index];
+		}
+
+		@Override
+		double rawDouble(int index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		boolean valueEquals(int index, PrimitiveTagList<?> other) {
+			return getAsInt(index) == other.getAsInt(index);
+		}
+
+		@Override
+		int valueHashCode(int index) {
+			return Integer.hashCode(getAsInt(index));
+		}
+
+		@Override
+		OfInt copy() {
+			int[] values = new int[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = getAsInt(i);
+			}
+			return new OfInt(values);
+		}
+	}
+
+	static final class OfLong extends PrimitiveTagList<LongTag> {
+		private long[] data;
+
+		OfLong(long[] data) {
+			super(data.length);
+			this.data = data;
+		}
+
+		void add(long value) {
+			ensureCapacity(size + 1);
+			data[size] = value;
+			added();
+		}
+
+		@Override
+		Class<LongTag> elementType() {
+			return LongTag.class;
+		}
+
+		@Override
+		Object array() {
+			return data;
+		}
+
+		@Override
+		int capacity() {
+			return data.length;
+		}
+
+		@Override
+		void resize(int capacity) {
+			data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		LongTag create(int index) {
+			return new LongTag(data[index]);
+		}
+
+		@Override
+		void store(int index, LongTag tag) {
+			data[index] = tag.asLong();
+		}
+
+		@Override
+		boolean isFloatingPoint() {
+			return false;
+		}
+
+		@Override
+		long rawLong(int index) {
+			return data[index];
+		}
+
+		@Override
+		double rawDouble(int index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		boolean valueEquals(int index, PrimitiveTagList<?> other) {
+			return getAsLong(index) == other.getAsLong(index);
+		}
+
+		@Override
+		int valueHashCode(int index) {
+			return Long.hashCode(getAsLong(index));
+		}
+
+		@Override
+		OfLong copy() {
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = getAsLong(i);
+			}
+			return new OfLong(values);
+		}
+	}
+
+	static final class OfFloat extends PrimitiveTagList<FloatTag> {
+		private float[] data;
+
+		OfFloat(float[] data) {
+			super(data.length);
+			this.data = data;
+		}
+
+		void add(float value) {
+			ensureCapacity(size + 1);
+			data[size] = value;
+			added();
+		}
+
+		@Override
+		Class<FloatTag> elementType() {
+			return FloatTag.class;
+		}
+
+		@Override
+		Object array() {
+			return data;
+		}
+
+		@Override
+		int capacity() {
+			return data.length;
+		}
+
+		@Override
+		void resize(int capacity) {
+			data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		FloatTag create(int index) {
+			return new FloatTag(data[index]);
+		}
+
+		@Override
+		void store(int index, FloatTag tag) {
+			data[index] = tag.asFloat();
+		}
+
+		@Override
+		boolean isFloatingPoint() {
+			return true;
+		}
+
+		@Override
+		long rawLong(int index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		double rawDouble(int index) {
+			return data[index];
+		}
+
+		@Override
+		boolean valueEquals(int index, PrimitiveTagList<?> other) {
+			return Float.floatToIntBits(getAsFloat(index)) == Float.floatToIntBits(other.getAsFloat(index));
+		}
+
+		@Override
+		int valueHashCode(int index) {
+			return Float.hashCode(getAsFloat(index));
+		}
+
+		@Override
+		OfFloat copy() {
+			float[] values = new float[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = getAsFloat(i);
+			}
+			return new OfFloat(values);
+		}
+	}
+
+	static final class OfDouble extends PrimitiveTagList<DoubleTag> {
+		private double[] data;
+
+		OfDouble(double[] data) {
+			super(data.length);
+			this.data = data;
+		}
+
+		void add(double value) {
+			ensureCapacity(size + 1);
+			data[size] = value;
+			added();
+		}
+
+		@Override
+		Class<DoubleTag> elementType() {
+			return DoubleTag.class;
+		}
+
+		@Override
+		Object array() {
+			return data;
+		}
+
+		@Override
+		int capacity() {
+			return data.length;
+		}
+
+		@Override
+		void resize(int capacity) {
+			data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		DoubleTag create(int index) {
+			return new DoubleTag(data[index]);
+		}
+
+		@Override
+		void store(int index, DoubleTag tag) {
+			data[index] = tag.asDouble();
+		}
+
+		@Override
+		boolean isFloatingPoint() {
+			return true;
+		}
+
+		@Override
+		long rawLong(int index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		double rawDouble(int index) {
+			return data[index];
+		}
+
+		@Override
+		boolean valueEquals(int index, PrimitiveTagList<?> other) {
+			return Double.doubleToLongBits(getAsDouble(index)) == Double.doubleToLongBits(other.getAsDouble(index));
+		}
+
+		@Override
+		int valueHashCode(int index) {
+			return Double.hashCode(getAsDouble(index));
+		}
+
+		@Override
+		OfDouble copy() {
+			double[] values = new double[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = getAsDouble(i);
+			}
+			return new OfDouble(values);
+		}
+	}
+}
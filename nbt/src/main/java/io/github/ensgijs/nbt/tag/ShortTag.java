@@ -1,16 +1,41 @@
 package io.github.ensgijs.nbt.tag;
 
+import java.util.Objects;
+
 public class ShortTag extends NumberTag<Short> implements Comparable<ShortTag> {
 
 	public static final byte ID = 2;
 	public static final short ZERO_VALUE = 0;
 
+	/** Range of values, inclusive, for which {@link #valueOf(short)} returns a shared instance. */
+	private static final int SHARED_MIN = -128;
+	private static final int SHARED_MAX = 1024;
+	private static final ShortTag[] SHARED = new ShortTag[SHARED_MAX - SHARED_MIN + 1];
+	static {
+		for (int i = 0; i < SHARED.length; i++) {
+			SHARED[i] = new ShortTag((short) (i + SHARED_MIN));
+		}
+	}
+
+	private short value;
+
 	public ShortTag() {
-		super(ZERO_VALUE);
+		this.value = ZERO_VALUE;
 	}
 
 	public ShortTag(short value) {
-		super(value);
+		this.value = value;
+	}
+
+	/**
+	 * @return A {@link #isShared() shared}, immutable, instance if {@code value} is within
+	 * [-128, 1024], otherwise a new instance.
+	 */
+	public static ShortTag valueOf(short value) {
+		if (value >= SHARED_MIN && value <= SHARED_MAX) {
+			return SHARED[value - SHARED_MIN];
+		}
+		return new ShortTag(value);
 	}
 
 	/** {@inheritDoc} */
@@ -19,29 +44,91 @@ public class ShortTag extends NumberTag<Short> implements Comparable<ShortTag> {
 		return ID;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	protected Short getValue() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void setValue(Short value) {
+		setValue(Objects.requireNonNull(value).shortValue());
+	}
+
 	/**
 	 * Sets the value for this Tag directly.
 	 * @param value The value to be set.
+	 * @throws UnsupportedOperationException if this is a {@link #isShared() shared} or {@link #isFrozen() frozen} instance.
 	 */
 	public void setValue(short value) {
-		super.setValue(value);
+		checkModifiable();
+		this.value = value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isShared() {
+		return value >= SHARED_MIN && value <= SHARED_MAX && SHARED[value - SHARED_MIN] == this;
+	}
+
+	@Override
+	public byte asByte() {
+		return (byte) value;
+	}
+
+	@Override
+	public short asShort() {
+		return value;
+	}
+
+	@Override
+	public int asInt() {
+		return value;
+	}
+
+	@Override
+	public long asLong() {
+		return value;
+	}
+
+	@Override
+	public float asFloat() {
+		return value;
+	}
+
+	@Override
+	public double asDouble() {
+		return value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String valueToString(int maxDepth) {
+		return Short.toString(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean equals(Object other) {
-		return super.equals(other) && asShort() == ((ShortTag) other).asShort();
+		return super.equals(other) && value == ((ShortTag) other).value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int hashCode() {
+		return Short.hashCode(value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public int compareTo(ShortTag other) {
-		return getValue().compareTo(other.getValue());
+		return Short.compare(value, other.value);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public ShortTag clone() {
-		return new ShortTag(getValue());
+		return new ShortTag(value);
 	}
 }
@@ -24,6 +24,9 @@ public class StringTag extends Tag<String> implements Comparable<StringTag> {
 	public static final byte ID = 8;
 	public static final String ZERO_VALUE = "";
 
+	private String value;
+	private boolean frozen;
+
 	public StringTag() {
 		super(ZERO_VALUE);
 	}
@@ -39,12 +42,32 @@ public class StringTag extends Tag<String> implements Comparable<StringTag> {
 
 	@Override
 	public String getValue() {
-		return super.getValue();
+		return value;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException if this tag is {@link #isFrozen() frozen}.
+	 */
 	@Override
 	public void setValue(String value) {
-		super.setValue(value);
+		if (frozen) {
+			throw new UnsupportedOperationException("frozen StringTag cannot be modified");
+		}
+		this.value = checkValue(value);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public StringTag freeze() {
+		frozen = true;
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isFrozen() {
+		return frozen;
 	}
 
 	@Override
@@ -39,17 +39,20 @@ public abstract class Tag<T> implements Cloneable {
 	 * */
 	public static final int DEFAULT_MAX_DEPTH = 512;
 
-	private T value;
-
 	/**
-	 * Initializes this Tag with some value. If the value is {@code null}, it will
-	 * throw a {@code NullPointerException}
+	 * Initializes this Tag with some value by calling {@link #setValue(Object)}. If the value is {@code null},
+	 * it will throw a {@code NullPointerException}
 	 * @param value The value to be set for this Tag.
 	 */
 	public Tag(T value) {
 		setValue(value);
 	}
 
+	/**
+	 * For subclasses which initialize their value storage themselves.
+	 */
+	protected Tag() {}
+
 	/**
 	 * This Tag's ID, usually used for serialization and deserialization.
 	 */
@@ -57,19 +60,18 @@ public abstract class Tag<T> implements Cloneable {
 
 	/**
 	 * The value of this Tag.
+	 * <p>Storage of the value is left to subclasses so that, for example, numeric tags can hold
+	 * a primitive rather than a boxed value.</p>
 	 */
-	protected T getValue() {
-		return value;
-	}
+	protected abstract T getValue();
 
 	/**
-	 * Sets the value for this Tag directly.
+	 * Sets the value for this Tag directly. Implementations should pass the value through
+	 * {@link #checkValue(Object)}.
 	 * @param value The value to be set.
 	 * @throws NullPointerException If the value is null
 	 */
-	protected void setValue(T value) {
-		this.value = checkValue(value);
-	}
+	protected abstract void setValue(T value);
 
 	/**
 	 * Checks if the value {@code value} is {@code null}.
@@ -139,16 +141,46 @@ public abstract class Tag<T> implements Cloneable {
 	 */
 	@Override
 	public int hashCode() {
-		return value.hashCode();
+		return getValue().hashCode();
 	}
 
 	/**
-	 * Creates a clone of this Tag.
+	 * Creates a clone of this Tag. The clone is always modifiable, even if this tag is {@link #isFrozen() frozen}.
 	 * @return A clone of this Tag.
 	 * */
 	@SuppressWarnings("CloneDoesntDeclareCloneNotSupportedException")
 	public abstract Tag<T> clone();
 
+	/**
+	 * <p>Makes this tag and all tags contained in it unmodifiable, so the tree can be safely shared. Cloning a
+	 * frozen {@link CompoundTag} or {@link ListTag} is cheap: the clone references the frozen children and only
+	 * copies them, one level at a time, as they are accessed (copy-on-write).</p>
+	 *
+	 * <p>All built-in tags reject modification once frozen by throwing {@link UnsupportedOperationException}.
+	 * The one exception are the arrays held by {@link ArrayTag}s, which are handed out as is by
+	 * {@code getValue()} and must not be modified.</p>
+	 * @return this tag
+	 */
+	public Tag<T> freeze() {
+		return this;
+	}
+
+	/**
+	 * @return true if this tag has been {@link #freeze() frozen}. Always false for tags which do not track
+	 * frozen state.
+	 */
+	public boolean isFrozen() {
+		return false;
+	}
+
+	/**
+	 * @return true if this tag is frozen and nothing reachable from it can be modified anymore, so its
+	 * hash code can be cached.
+	 */
+	boolean isImmutable() {
+		return isFrozen();
+	}
+
 	@SuppressWarnings("unchecked")
 	public static int compare(Tag<?> tag1, Tag<?> tag2) {
 		if (tag1 == null && tag2 == null) return 0;
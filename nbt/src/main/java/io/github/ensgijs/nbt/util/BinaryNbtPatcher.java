@@ -0,0 +1,810 @@
+package io.github.ensgijs.nbt.util;
+
+import io.github.ensgijs.nbt.io.MaxDepthIO;
+import io.github.ensgijs.nbt.tag.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Rewrites fixed width values (bytes, shorts, ints, longs, floats, doubles, the elements of byte, int and long
+ * arrays and the elements of numeric lists) of uncompressed, big endian, binary nbt in place, without
+ * deserializing it.
+ *
+ * <p>Values are located by path patterns, which use the {@link io.github.ensgijs.nbt.query.NbtPath} syntax
+ * extended with wildcards: {@code *} matches any name and {@code [*]} any list or array index. For example
+ * {@code "block_entities[*].x"} or {@code "structures.References.*[*]"}. {@link Builder#onEach(ScalarPatch)}
+ * locates values by predicate instead, it sees every fixed width value and can inspect {@link Field#name()} and
+ * {@link Field#path()}.</p>
+ *
+ * <p>Like {@link BinaryNbtTagSorter} the data is scanned once, anything that no pattern leads into is skipped using
+ * the lengths encoded in it. Changes are collected while scanning and only written once the scan completed, so if
+ * the scan determines that the edit can't be done in place (see {@link Result#NEEDS_TREE_MODE}) the data is left
+ * untouched and the caller must fall back to editing the deserialized tag tree. {@link #scan(byte[], int, int, Object)}
+ * returns the collected {@link Changes} without writing them, for example to apply them to a copy.</p>
+ *
+ * <p>The context passed to {@link #patch(byte[], int, int, Object)} is handed to every {@link ScalarPatch} so that
+ * patchers can be built once and reused. Instances are immutable and thread safe.</p>
+ *
+ * @param <C> type of the per call context.
+ */
+public final class BinaryNbtPatcher<C> {
+    private static final byte[] FIXED_PAYLOAD_SIZE = {0, 1, 2, 4, 8, 4, 8};
+
+    public enum Result {
+        /** No value was changed. */
+        UNCHANGED,
+        /** At least one value was changed. */
+        PATCHED,
+        /**
+         * The edit requires changing the length of the data, or is otherwise not possible in place.
+         * The data has not been modified.
+         */
+        NEEDS_TREE_MODE
+    }
+
+    /** Inspects, and optionally changes, a single fixed width value. */
+    @FunctionalInterface
+    public interface ScalarPatch<C> {
+        void apply(Field field, C context);
+    }
+
+    private final Node<C> root;
+    private final ScalarPatch<C>[] every;
+
+    private BinaryNbtPatcher(Node<C> root, ScalarPatch<C>[] every) {
+        this.root = root;
+        this.every = every;
+    }
+
+    public static <C> Builder<C> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Patches a named root tag, such as produced by {@link io.github.ensgijs.nbt.io.BinaryNbtSerializer} with no
+     * compression. Patterns are evaluated against the root tag, its name is ignored.
+     */
+    public Result patch(byte[] nbtData, C context) throws IOException {
+        return patch(nbtData, 0, nbtData.length, context);
+    }
+
+    /** Like {@link #patch(byte[], Object)} but patches the named root tag held in the given range. */
+    public Result patch(byte[] nbtData, int offset, int length, C context) throws IOException {
+        return scan(nbtData, offset, length, context).applyTo(nbtData, offset);
+    }
+
+    /**
+     * Patches the payload of a compound tag, that is its entries up to and including the terminating end tag,
+     * held in the given range. Patterns are evaluated against the compound.
+     * @param maxDepth maximum depth of the compound, see {@link Tag#DEFAULT_MAX_DEPTH}.
+     */
+    public Result patchCompoundPayload(byte[] data, int offset, int length, int maxDepth, C context) throws IOException {
+        return scanCompoundPayload(data, offset, length, maxDepth, context).applyTo(data, offset);
+    }
+
+    /**
+     * Scans a named root tag, as {@link #patch(byte[], int, int, Object)} does, but leaves the data untouched.
+     * @return the changes to make, which can be applied to the data or to a copy of it.
+     */
+    public Changes scan(byte[] nbtData, int offset, int length, C context) throws IOException {
+        Objects.checkFromIndexSize(offset, length, nbtData.length);
+        Walk<C> walk = new Walk<>(this, nbtData, offset, offset + length, context);
+        byte type = walk.readByte();
+        if (type != EndTag.ID) {
+            walk.skip(walk.readUShort());
+            walk.visit(type, root, -1, -1, Tag.DEFAULT_MAX_DEPTH);
+        }
+        return walk.changes(offset);
+    }
+
+    /**
+     * Scans the payload of a compound tag, as {@link #patchCompoundPayload(byte[], int, int, int, Object)} does,
+     * but leaves the data untouched.
+     * @return the changes to make, which can be applied to the data or to a copy of it.
+     */
+    public Changes scanCompoundPayload(byte[] data, int offset, int length, int maxDepth, C context) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        Walk<C> walk = new Walk<>(this, data, offset, offset + length, context);
+        walk.visit(CompoundTag.ID, root, -1, -1, maxDepth);
+        return walk.changes(offset);
+    }
+
+    /** Changes found by a scan, positions are relative to the start of the scanned range. */
+    public static final class Changes {
+        private final Result result;
+        private final int[] at;
+        private final byte[] size;
+        private final long[] bits;
+        private final int count;
+
+        private Changes(Result result, int[] at, byte[] size, long[] bits, int count) {
+            this.result = result;
+            this.at = at;
+            this.size = size;
+            this.bits = bits;
+            this.count = count;
+        }
+
+        public Result result() {
+            return result;
+        }
+
+        /**
+         * Writes the changes into the given array, whose range starting at {@code offset} must hold the same data
+         * that was scanned. Does nothing unless the result is {@link Result#PATCHED}.
+         * @return {@link #result()}
+         */
+        public Result applyTo(byte[] data, int offset) {
+            if (result == Result.PATCHED) {
+                for (int i = 0; i < count; i++) {
+                    long v = bits[i];
+                    for (int p = offset + at[i] + size[i] - 1; p >= offset + at[i]; p--) {
+                        data[p] = (byte) v;
+                        v >>>= 8;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    public static final class Builder<C> {
+        private final Node<C> root = new Node<>();
+        private final List<ScalarPatch<C>> every = new ArrayList<>();
+
+        /** Use {@link #builder()} instead. */
+        private Builder() {}
+
+        /**
+         * Applies the patch to every fixed width value matched by the pattern. Patterns leading to other tags
+         * (strings, compounds, ...) are allowed but the patch is never called for them.
+         */
+        public Builder<C> on(String pattern, ScalarPatch<C> patch) {
+            ArgValidator.requireValue(patch, "patch");
+            parse(pattern).patchList.add(patch);
+            return this;
+        }
+
+        /**
+         * Applies the patch to every fixed width value in the data, including every array element.
+         * This forces the whole data to be scanned and should be combined with a cheap test of
+         * {@link Field#name()} or {@link Field#type()}.
+         */
+        public Builder<C> onEach(ScalarPatch<C> patch) {
+            every.add(ArgValidator.requireValue(patch, "patch"));
+            return this;
+        }
+
+        /** Any tag matched by the pattern makes the patch result in {@link Result#NEEDS_TREE_MODE}. */
+        public Builder<C> treeModeIfPresent(String pattern) {
+            return treeModeIfPresent(pattern, c -> true);
+        }
+
+        /**
+         * Any tag matched by the pattern makes the patch result in {@link Result#NEEDS_TREE_MODE} if the
+         * condition holds for the context the patch is called with.
+         */
+        public Builder<C> treeModeIfPresent(String pattern, Predicate<? super C> condition) {
+            ArgValidator.requireValue(condition, "condition");
+            parse(pattern).treeModeConditionList.add(condition);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public BinaryNbtPatcher<C> build() {
+            Node<C> sealed = Node.copyOf(root);
+            sealed.seal();
+            return new BinaryNbtPatcher<>(sealed, every.toArray((ScalarPatch<C>[]) new ScalarPatch<?>[0]));
+        }
+
+        private Node<C> parse(String pattern) {
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("pattern must not be empty");
+            }
+            Node<C> node = root;
+            String[] parts = pattern.split("[.]", -1);
+            for (int p = 0; p < parts.length; p++) {
+                String part = parts[p];
+                int bracket = part.indexOf('[');
+                String name = bracket < 0 ? part : part.substring(0, bracket);
+                if (!name.isEmpty()) {
+                    node = name.equals("*") ? node.anyNameChild() : node.nameChild(name);
+                } else if (p > 0 || bracket < 0) {
+                    throw new IllegalArgumentException("empty name in pattern: " + pattern);
+                }
+                while (bracket >= 0) {
+                    int close = part.indexOf(']', bracket);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("unclosed bracket in pattern: " + pattern);
+                    }
+                    String index = part.substring(bracket + 1, close);
+                    if (index.equals("*")) {
+                        node = node.anyIndexChild();
+                    } else {
+                        try {
+                            node = node.indexChild(Integer.parseInt(index));
+                        } catch (NumberFormatException ex) {
+                            throw new IllegalArgumentException("invalid index in pattern: " + pattern, ex);
+                        }
+                    }
+                    bracket = close + 1 < part.length() ? close + 1 : -1;
+                    if (bracket >= 0 && part.charAt(bracket) != '[') {
+                        throw new IllegalArgumentException("unexpected characters after index in pattern: " + pattern);
+                    }
+                }
+            }
+            return node;
+        }
+    }
+
+    /**
+     * A fixed width value found while patching. Only valid for the duration of the {@link ScalarPatch#apply}
+     * call it is passed to. Getters always return the original value, values set are only written once the scan
+     * completes. Setters must match the {@link #type()} of the value, they don't convert.
+     */
+    public static final class Field {
+        private final Walk<?> walk;
+        private byte type;
+        private int at;
+        private int nameAt;
+        private int index;
+
+        private Field(Walk<?> walk) {
+            this.walk = walk;
+        }
+
+        /** Tag id of the value, one of the {@code ID} constants of {@link ByteTag} through {@link DoubleTag}. */
+        public byte type() {
+            return type;
+        }
+
+        /** Name of the value, or of the list or array holding it, or null if it has none. */
+        public String name() {
+            return nameAt >= 0 ? walk.decodeName(nameAt) : null;
+        }
+
+        /** Index of the value in the list or array holding it, or -1 if it isn't an element. */
+        public int index() {
+            return index;
+        }
+
+        /** Path to this value in {@link io.github.ensgijs.nbt.query.NbtPath} syntax. Relatively expensive. */
+        public String path() {
+            return walk.path();
+        }
+
+        public byte getByte() {
+            requireType(ByteTag.ID);
+            return walk.buffer[at];
+        }
+
+        public short getShort() {
+            requireType(ShortTag.ID);
+            return (short) walk.getBits(at, 2);
+        }
+
+        public int getInt() {
+            requireType(IntTag.ID);
+            return (int) walk.getBits(at, 4);
+        }
+
+        public long getLong() {
+            requireType(LongTag.ID);
+            return walk.getBits(at, 8);
+        }
+
+        public float getFloat() {
+            requireType(FloatTag.ID);
+            return Float.intBitsToFloat((int) walk.getBits(at, 4));
+        }
+
+        public double getDouble() {
+            requireType(DoubleTag.ID);
+            return Double.longBitsToDouble(walk.getBits(at, 8));
+        }
+
+        public void setByte(byte value) {
+            requireType(ByteTag.ID);
+            walk.write(at, 1, value);
+        }
+
+        public void setShort(short value) {
+            requireType(ShortTag.ID);
+            walk.write(at, 2, value);
+        }
+
+        public void setInt(int value) {
+            requireType(IntTag.ID);
+            walk.write(at, 4, value);
+        }
+
+        public void setLong(long value) {
+            requireType(LongTag.ID);
+            walk.write(at, 8, value);
+        }
+
+        public void setFloat(float value) {
+            requireType(FloatTag.ID);
+            walk.write(at, 4, Float.floatToRawIntBits(value));
+        }
+
+        public void setDouble(double value) {
+            requireType(DoubleTag.ID);
+            walk.write(at, 8, Double.doubleToRawLongBits(value));
+        }
+
+        /**
+         * Signals that the edit can't be done in place, for example because a value has to be removed. Scanning
+         * stops once the current patch returns and the result will be {@link Result#NEEDS_TREE_MODE}.
+         */
+        public void requireTreeMode() {
+            walk.treeMode = true;
+        }
+
+        private void requireType(byte expected) {
+            if (type != expected) {
+                throw new IllegalStateException("field " + path() + " has tag type " + type + ", not " + expected);
+            }
+        }
+    }
+
+    /** State of a single patch call. */
+    private static final class Walk<C> implements MaxDepthIO {
+        private final BinaryNbtPatcher<C> patcher;
+        private final byte[] buffer;
+        private final int limit;
+        private final C context;
+        private final Field field;
+        private int position;
+        private boolean treeMode;
+        // pending writes, see changes()
+        private int[] writeAt = new int[8];
+        private byte[] writeSize = new byte[8];
+        private long[] writeBits = new long[8];
+        private int writes;
+        // for Field.path(): name position (or -1) and index (or -1) of each tag entered
+        private int[] pathNameAt = new int[16];
+        private int[] pathIndex = new int[16];
+        private int depth;
+
+        Walk(BinaryNbtPatcher<C> patcher, byte[] buffer, int position, int limit, C context) {
+            this.patcher = patcher;
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+            this.context = context;
+            this.field = new Field(this);
+        }
+
+        Changes changes(int origin) {
+            if (treeMode) return new Changes(Result.NEEDS_TREE_MODE, null, null, null, 0);
+            if (writes == 0) return new Changes(Result.UNCHANGED, null, null, null, 0);
+            int[] relative = new int[writes];
+            for (int i = 0; i < writes; i++) {
+                relative[i] = writeAt[i] - origin;
+            }
+            return new Changes(Result.PATCHED, relative, writeSize, writeBits, writes);
+        }
+
+        /**
+         * Visits the payload of a tag at the current position.
+         * @param node pattern node matching the tag, null if none does.
+         * @param nameAt position of the tag's name (length prefix) or -1.
+         * @param index index of the tag in its list or -1.
+         * @return true if scanning must stop.
+         */
+        boolean visit(byte type, Node<C> node, int nameAt, int index, int maxDepth) throws IOException {
+            if (node != null && node.isTreeMode(context)) {
+                treeMode = true;
+                return true;
+            }
+            if (node == null && patcher.every.length == 0) {
+                skipPayload(type, maxDepth);
+                return false;
+            }
+            push(nameAt, index);
+            try {
+                switch (type) {
+                    case ByteTag.ID, ShortTag.ID, IntTag.ID, LongTag.ID, FloatTag.ID, DoubleTag.ID -> {
+                        int at = position;
+                        skip(FIXED_PAYLOAD_SIZE[type]);
+                        return applyPatches(node, type, at, nameAt, index);
+                    }
+                    case ByteArrayTag.ID, IntArrayTag.ID, LongArrayTag.ID -> {
+                        return visitArray(type, node, nameAt);
+                    }
+                    case ListTag.ID -> {
+                        return visitList(node, nameAt, maxDepth);
+                    }
+                    case CompoundTag.ID -> {
+                        return visitCompound(node, maxDepth);
+                    }
+                    default -> {
+                        skipPayload(type, maxDepth);
+                        return false;
+                    }
+                }
+            } finally {
+                depth--;
+            }
+        }
+
+        private boolean visitCompound(Node<C> node, int maxDepth) throws IOException {
+            maxDepth = decrementMaxDepth(maxDepth);
+            byte type;
+            while ((type = readByte()) != EndTag.ID) {
+                int nameAt = position;
+                int nameLength = readUShort();
+                skip(nameLength);
+                Node<C> child = node != null ? node.childForName(buffer, nameAt + 2, nameLength) : null;
+                if (visit(type, child, nameAt, -1, maxDepth)) return true;
+            }
+            return false;
+        }
+
+        private boolean visitList(Node<C> node, int nameAt, int maxDepth) throws IOException {
+            maxDepth = decrementMaxDepth(maxDepth);
+            byte elementType = readByte();
+            int length = Math.max(0, readInt());
+            if (patcher.every.length == 0 && (node == null || !node.hasIndexChildren())) {
+                skipElements(elementType, length, maxDepth);
+                return false;
+            }
+            if (elementType < FIXED_PAYLOAD_SIZE.length && elementType != EndTag.ID) {
+                int size = FIXED_PAYLOAD_SIZE[elementType];
+                int start = position;
+                skip((long) size * length);
+                return visitElements(elementType, node, start, size, length, nameAt);
+            }
+            for (int i = 0; i < length; i++) {
+                if (visit(elementType, node != null ? node.childForIndex(i) : null, -1, i, maxDepth)) return true;
+            }
+            return false;
+        }
+
+        private boolean visitArray(byte type, Node<C> node, int nameAt) throws IOException {
+            int length = Math.max(0, readInt());
+            byte elementType = type == ByteArrayTag.ID ? ByteTag.ID : type == IntArrayTag.ID ? IntTag.ID : LongTag.ID;
+            int size = FIXED_PAYLOAD_SIZE[elementType];
+            int start = position;
+            skip((long) size * length);
+            if (patcher.every.length == 0 && (node == null || !node.hasIndexChildren())) {
+                return false;
+            }
+            return visitElements(elementType, node, start, size, length, nameAt);
+        }
+
+        private boolean visitElements(byte elementType, Node<C> node, int start, int size, int length, int nameAt) {
+            if (patcher.every.length == 0 && node.anyIndex == null) {
+                // only specific indexes are of interest
+                for (int i = 0; i < node.indexes.length; i++) {
+                    int index = node.indexes[i];
+                    if (index >= length) continue;
+                    if (node.indexChildren[i].isTreeMode(context)) {
+                        treeMode = true;
+                        return true;
+                    }
+                    if (applyElementPatches(node.indexChildren[i], elementType, start + index * size, nameAt, index)) return true;
+                }
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                Node<C> child = node != null ? node.childForIndex(i) : null;
+                if (child != null && child.isTreeMode(context)) {
+                    treeMode = true;
+                    return true;
+                }
+                if (applyElementPatches(child, elementType, start + i * size, nameAt, i)) return true;
+            }
+            return false;
+        }
+
+        private boolean applyElementPatches(Node<C> node, byte type, int at, int nameAt, int index) {
+            // the name belongs to the enclosing list or array, which is already on the path
+            push(-1, index);
+            try {
+                return applyPatches(node, type, at, nameAt, index);
+            } finally {
+                depth--;
+            }
+        }
+
+        private boolean applyPatches(Node<C> node, byte type, int at, int nameAt, int index) {
+            field.type = type;
+            field.at = at;
+            field.nameAt = nameAt;
+            field.index = index;
+            if (node != null) {
+                for (ScalarPatch<C> patch : node.patches) {
+                    patch.apply(field, context);
+                    if (treeMode) return true;
+                }
+            }
+            for (ScalarPatch<C> patch : patcher.every) {
+                patch.apply(field, context);
+                if (treeMode) return true;
+            }
+            return false;
+        }
+
+        private void push(int nameAt, int index) {
+            if (depth == pathNameAt.length) {
+                pathNameAt = Arrays.copyOf(pathNameAt, depth * 2);
+                pathIndex = Arrays.copyOf(pathIndex, depth * 2);
+            }
+            pathNameAt[depth] = nameAt;
+            pathIndex[depth] = index;
+            depth++;
+        }
+
+        String path() {
+            StringBuilder sb = new StringBuilder();
+            for (int d = 0; d < depth; d++) {
+                if (pathNameAt[d] >= 0) {
+                    if (!sb.isEmpty()) sb.append('.');
+                    sb.append(decodeName(pathNameAt[d]));
+                } else if (pathIndex[d] >= 0) {
+                    sb.append('[').append(pathIndex[d]).append(']');
+                }
+            }
+            return sb.toString();
+        }
+
+        String decodeName(int nameAt) {
+            try {
+                return new DataInputStream(new ByteArrayInputStream(buffer, nameAt, limit - nameAt)).readUTF();
+            } catch (IOException ex) {
+                // the name has already been skipped over, so its length is known to be valid
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        void write(int at, int size, long bits) {
+            for (int i = 0; i < writes; i++) {
+                if (writeAt[i] == at) {
+                    writeBits[i] = bits;
+                    return;
+                }
+            }
+            if (getBits(at, size) == (size == 8 ? bits : bits & ((1L << (size * 8)) - 1))) {
+                return;
+            }
+            if (writes == writeAt.length) {
+                writeAt = Arrays.copyOf(writeAt, writes * 2);
+                writeSize = Arrays.copyOf(writeSize, writes * 2);
+                writeBits = Arrays.copyOf(writeBits, writes * 2);
+            }
+            writeAt[writes] = at;
+            writeSize[writes] = (byte) size;
+            writeBits[writes] = bits;
+            writes++;
+        }
+
+        long getBits(int at, int size) {
+            long bits = 0;
+            for (int i = 0; i < size; i++) {
+                bits = (bits << 8) | (buffer[at + i] & 0xFF);
+            }
+            return bits;
+        }
+
+        private void skipElements(byte type, int count, int maxDepth) throws IOException {
+            if (count <= 0) return;
+            if (type < FIXED_PAYLOAD_SIZE.length && type != EndTag.ID) {
+                skip((long) FIXED_PAYLOAD_SIZE[type] * count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    skipPayload(type, maxDepth);
+                }
+            }
+        }
+
+        private void skipPayload(byte type, int maxDepth) throws IOException {
+            switch (type) {
+                case EndTag.ID -> {}
+                case ByteTag.ID, ShortTag.ID, IntTag.ID, LongTag.ID, FloatTag.ID, DoubleTag.ID ->
+                        skip(FIXED_PAYLOAD_SIZE[type]);
+                case StringTag.ID -> skip(readUShort());
+                case ByteArrayTag.ID -> skip(Math.max(0, readInt()));
+                case IntArrayTag.ID -> skip(Math.max(0, readInt()) * 4L);
+                case LongArrayTag.ID -> skip(Math.max(0, readInt()) * 8L);
+                case ListTag.ID -> {
+                    maxDepth = decrementMaxDepth(maxDepth);
+                    byte elementType = readByte();
+                    skipElements(elementType, readInt(), maxDepth);
+                }
+                case CompoundTag.ID -> {
+                    maxDepth = decrementMaxDepth(maxDepth);
+                    byte childType;
+                    while ((childType = readByte()) != EndTag.ID) {
+                        skip(readUShort());
+                        skipPayload(childType, maxDepth);
+                    }
+                }
+                default -> throw new IOException("invalid tag id \"" + type + "\" at " + (position - 1));
+            }
+        }
+
+        private void require(long bytes) throws EOFException {
+            if (position + bytes > limit) {
+                throw new EOFException("unexpected end of binary nbt data");
+            }
+        }
+
+        void skip(long bytes) throws EOFException {
+            require(bytes);
+            position += (int) bytes;
+        }
+
+        byte readByte() throws EOFException {
+            require(1);
+            return buffer[position++];
+        }
+
+        int readUShort() throws EOFException {
+            require(2);
+            int v = ((buffer[position] & 0xFF) << 8) | (buffer[position + 1] & 0xFF);
+            position += 2;
+            return v;
+        }
+
+        private int readInt() throws EOFException {
+            require(4);
+            int v = (int) getBits(position, 4);
+            position += 4;
+            return v;
+        }
+    }
+
+    /**
+     * One step of one or more patterns. When sealed, the subtree of the {@code *} child is merged into every named
+     * child, and that of the {@code [*]} child into every indexed child, so each tag matches at most one node.
+     */
+    private static final class Node<C> {
+        private static final Node<?>[] NO_NODES = new Node<?>[0];
+
+        List<ScalarPatch<C>> patchList = new ArrayList<>();
+        List<Predicate<? super C>> treeModeConditionList = new ArrayList<>();
+        List<String> nameList = new ArrayList<>();
+        List<Node<C>> nameChildList = new ArrayList<>();
+        List<Integer> indexList = new ArrayList<>();
+        List<Node<C>> indexChildList = new ArrayList<>();
+        Node<C> anyName;
+        Node<C> anyIndex;
+        // populated by seal()
+        ScalarPatch<C>[] patches;
+        Predicate<? super C>[] treeModeConditions;
+        byte[][] nameBytes;
+        Node<C>[] nameChildren;
+        int[] indexes;
+        Node<C>[] indexChildren;
+
+        Node<C> nameChild(String name) {
+            int i = nameList.indexOf(name);
+            if (i >= 0) return nameChildList.get(i);
+            Node<C> child = new Node<>();
+            nameList.add(name);
+            nameChildList.add(child);
+            return child;
+        }
+
+        Node<C> indexChild(int index) {
+            if (index < 0) throw new IllegalArgumentException("negative index " + index);
+            int i = indexList.indexOf(index);
+            if (i >= 0) return indexChildList.get(i);
+            Node<C> child = new Node<>();
+            indexList.add(index);
+            indexChildList.add(child);
+            return child;
+        }
+
+        Node<C> anyNameChild() {
+            if (anyName == null) anyName = new Node<>();
+            return anyName;
+        }
+
+        Node<C> anyIndexChild() {
+            if (anyIndex == null) anyIndex = new Node<>();
+            return anyIndex;
+        }
+
+        static <C> Node<C> copyOf(Node<C> source) {
+            Node<C> copy = new Node<>();
+            copy.mergeFrom(source);
+            return copy;
+        }
+
+        /** Deep merges the given unsealed node into this unsealed node. */
+        void mergeFrom(Node<C> source) {
+            patchList.addAll(source.patchList);
+            treeModeConditionList.addAll(source.treeModeConditionList);
+            for (int i = 0; i < source.nameList.size(); i++) {
+                nameChild(source.nameList.get(i)).mergeFrom(source.nameChildList.get(i));
+            }
+            for (int i = 0; i < source.indexList.size(); i++) {
+                indexChild(source.indexList.get(i)).mergeFrom(source.indexChildList.get(i));
+            }
+            if (source.anyName != null) anyNameChild().mergeFrom(source.anyName);
+            if (source.anyIndex != null) anyIndexChild().mergeFrom(source.anyIndex);
+        }
+
+        @SuppressWarnings("unchecked")
+        void seal() {
+            if (anyName != null) {
+                for (Node<C> child : nameChildList) child.mergeFrom(anyName);
+            }
+            if (anyIndex != null) {
+                for (Node<C> child : indexChildList) child.mergeFrom(anyIndex);
+            }
+            patches = patchList.toArray((ScalarPatch<C>[]) new ScalarPatch<?>[0]);
+            treeModeConditions = treeModeConditionList.toArray((Predicate<? super C>[]) new Predicate<?>[0]);
+            nameBytes = new byte[nameList.size()][];
+            for (int i = 0; i < nameBytes.length; i++) {
+                nameBytes[i] = modifiedUtf8(nameList.get(i));
+            }
+            nameChildren = nameChildList.toArray((Node<C>[]) NO_NODES);
+            indexes = indexList.stream().mapToInt(Integer::intValue).toArray();
+            indexChildren = indexChildList.toArray((Node<C>[]) NO_NODES);
+            for (Node<C> child : nameChildren) child.seal();
+            for (Node<C> child : indexChildren) child.seal();
+            if (anyName != null) anyName.seal();
+            if (anyIndex != null) anyIndex.seal();
+            patchList = null;
+            treeModeConditionList = null;
+            nameList = null;
+            nameChildList = null;
+            indexList = null;
+            indexChildList = null;
+        }
+
+        /** @return name as encoded in binary nbt. */
+        private static byte[] modifiedUtf8(String name) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(name.length() + 2);
+                new DataOutputStream(bytes).writeUTF(name);
+                return Arrays.copyOfRange(bytes.toByteArray(), 2, bytes.size());
+            } catch (IOException ex) {
+                throw new IllegalArgumentException("name too long: " + name, ex);
+            }
+        }
+
+        boolean isTreeMode(C context) {
+            for (Predicate<? super C> condition : treeModeConditions) {
+                if (condition.test(context)) return true;
+            }
+            return false;
+        }
+
+        boolean hasIndexChildren() {
+            return anyIndex != null || indexes.length > 0;
+        }
+
+        Node<C> childForName(byte[] buffer, int start, int length) {
+            for (int i = 0; i < nameBytes.length; i++) {
+                byte[] name = nameBytes[i];
+                if (Arrays.equals(name, 0, name.length, buffer, start, start + length)) {
+                    return nameChildren[i];
+                }
+            }
+            return anyName;
+        }
+
+        Node<C> childForIndex(int index) {
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i] == index) return indexChildren[i];
+            }
+            return anyIndex;
+        }
+    }
+}
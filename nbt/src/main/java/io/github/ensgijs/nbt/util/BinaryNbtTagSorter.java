@@ -1,7 +1,9 @@
 package io.github.ensgijs.nbt.util;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -40,7 +42,9 @@ import java.util.stream.Collectors;
  * size and complexity of the nbt data being processed. If you are processing truly huge
  * nbt data (each nbt multiple megabytes in size) you'll need to decide how you want to
  * balance performance of sorting throughput against the fixed memory footprint cost of
- * holding the BinaryNbtTagSorter instance for reuse.</p>
+ * holding the BinaryNbtTagSorter instance for reuse, see {@link #releaseTokens(int)}.</p>
+ * <p>Instances are NOT thread safe. {@link SharedBinaryNbtTagSorter} provides a thread safe facade which keeps one
+ * instance per thread.</p>
  */
 public class BinaryNbtTagSorter {
 //    private static final boolean DEBUG_LOG = true;
@@ -85,7 +89,19 @@ public class BinaryNbtTagSorter {
      * <p>Each pooled token costs 40 or 48 bytes to hold (depending on JVM settings).</p>
      */
     public int tokenPoolSize() {
-        return tokens.length;
+        return tokens != null ? tokens.length : 0;
+    }
+
+    /**
+     * Drops pooled tokens beyond the given count so that an idle instance retains at most
+     * {@code maxRetainedTokens} of them. The pool grows again as needed by later calls.
+     * @param maxRetainedTokens tokens to keep, zero releases the whole pool.
+     */
+    public void releaseTokens(int maxRetainedTokens) {
+        ArgValidator.check(maxRetainedTokens >= 0);
+        if (tokens != null && tokens.length > maxRetainedTokens) {
+            tokens = maxRetainedTokens > 0 ? Arrays.copyOf(tokens, maxRetainedTokens) : null;
+        }
     }
 
     /**
@@ -97,10 +113,76 @@ public class BinaryNbtTagSorter {
      * @throws IOException Parsing error.
      */
     public byte[] sort(final byte[] nbtData) throws IOException {
-        // if (DEBUG_LOG) System.out.printf("--- Starting sort for %d bytes ---\n", nbtData.length);
+        try {
+            if (!scan(nbtData, nbtData.length)) {
+                // if (DEBUG_LOG) System.out.println("--- No reordering needed. Returning original data ---");
+                return nbtData;
+            }
+            // if (DEBUG_LOG) System.out.printf("--- Contents reordered. Emitting %d tokens ---\n", tokenCount);
+            UnsafeFastByteArrayIO out = new UnsafeFastByteArrayIO(new byte[in.limit]);
+            emitTokens(out);
+            return out.buffer;
+        } finally {
+            in = null;
+        }
+    }
+
+    /**
+     * Sorts the given nbt data, as {@link #sort(byte[])} does, and writes the result to the given stream without
+     * creating a sorted copy of it first.
+     * @see #sort(byte[], int, OutputStream)
+     */
+    public void sort(final byte[] nbtData, final OutputStream out) throws IOException {
+        sort(nbtData, nbtData.length, out);
+    }
+
+    /**
+     * Sorts the first {@code length} bytes of the given array, which must hold exactly one nbt root tag, and
+     * writes the result to the given stream. Sorted output is written in many small pieces so a buffered (or
+     * compressing) stream should be used.
+     * @throws IOException Parsing error or error writing to the stream.
+     */
+    public void sort(final byte[] nbtData, final int length, final OutputStream out) throws IOException {
+        ArgValidator.check(length >= 0 && length <= nbtData.length);
+        try {
+            if (!scan(nbtData, length)) {
+                out.write(nbtData, 0, length);
+            } else {
+                emitTokens(new OutputStreamSink(out));
+            }
+        } finally {
+            in = null;
+        }
+    }
+
+    /**
+     * Sorts the given nbt data, as {@link #sort(byte[])} does, and puts the result into the given buffer
+     * starting at its current position.
+     * @throws IOException Parsing error.
+     * @throws java.nio.BufferOverflowException if the buffer has less than {@code nbtData.length} bytes remaining.
+     */
+    public void sort(final byte[] nbtData, final ByteBuffer out) throws IOException {
+        if (out.remaining() < nbtData.length) throw new BufferOverflowException();
+        try {
+            if (!scan(nbtData, nbtData.length)) {
+                out.put(nbtData);
+            } else {
+                emitTokens(new ByteBufferSink(out));
+            }
+        } finally {
+            in = null;
+        }
+    }
+
+    /**
+     * Tokenizes the given data, leaving {@link #in} set for the emitter.
+     * @return true if any compound was found to be out of order.
+     */
+    private boolean scan(final byte[] nbtData, final int length) throws IOException {
+        // if (DEBUG_LOG) System.out.printf("--- Starting sort for %d bytes ---\n", length);
         tokenCount = 0;
         // if (DEBUG_LOG) depth = 0;
-        int want = Math.max(16, nbtData.length / 100);
+        int want = Math.max(16, length / 100);
         if (tokens == null || tokens.length < want) {
             tokens = new TagPointer[want];
             for (int i = tokenCount; i < tokens.length; i++) {
@@ -108,7 +190,7 @@ public class BinaryNbtTagSorter {
             }
             // if (DEBUG_LOG) System.out.printf("--- (Re)alloc tokens array size to %d ---\n", tokens.length);
         }
-        in = new UnsafeFastByteArrayIO(nbtData);
+        in = new UnsafeFastByteArrayIO(nbtData, length);
 
         if (in.readByte() != COMPOUND)
             throw new IOException("Root tag is not a CompoundTag.");
@@ -119,17 +201,7 @@ public class BinaryNbtTagSorter {
         // if (DEBUG_LOG) System.out.printf("--- Root tag header scanned. Starting scanCompound at pos %d ---\n", in.position);
         scanCompound(rootTag);
         // if (DEBUG_LOG && depth != 0) throw new IllegalStateException();
-
-        byte[] ret;
-        if (rootTag.isContentsReordered) {
-            // if (DEBUG_LOG) System.out.printf("--- Contents reordered. Emitting %d tokens ---\n", tokenCount);
-            ret = emitTokens();
-        } else {
-            // if (DEBUG_LOG) System.out.println("--- No reordering needed. Returning original data ---");
-            ret = nbtData;
-        }
-        in = null;
-        return ret;
+        return rootTag.isContentsReordered;
     }
 
     private void scanCompound(final TagPointer tagPtr) throws IOException {
@@ -252,16 +324,14 @@ public class BinaryNbtTagSorter {
         }
     }
 
-    private byte[] emitTokens() {
-        UnsafeFastByteArrayIO out = new UnsafeFastByteArrayIO(new byte[in.limit]);
+    private void emitTokens(final Sink out) throws IOException {
         // if (DEBUG_LOG) System.out.print("--- Starting emitRecursive at root token #0 ---\n");
         emitRecursive(0, out);
         // if (DEBUG_LOG) System.out.printf("--- Emit finished. Output length: %d ---\n", out.position);
         // if (DEBUG_LOG && depth != 0) throw new IllegalStateException();
-        return out.buffer;
     }
 
-    private int emitRecursive(int tokenIndex, final UnsafeFastByteArrayIO out) {
+    private int emitRecursive(int tokenIndex, final Sink out) throws IOException {
         final TagPointer tp = tokens[tokenIndex];
         // if (DEBUG_LOG) System.out.printf("%s>> Emitting token #%d (start=%d, end=%d, tokenCount=%d)\n", "  ".repeat(depth++), tokenIndex, tp.start, tp.end, tp.tokenCount);
 
@@ -359,7 +429,24 @@ public class BinaryNbtTagSorter {
     private int compareTokens(final int tokenIndex1, final int tokenIndex2) {
         TagPointer t1 = tokens[tokenIndex1];
         TagPointer t2 = tokens[tokenIndex2];
-        return Arrays.compare(in.buffer, t1.start + 3, t1.nameEnd, in.buffer, t2.start + 3, t2.nameEnd);
+        return compareNames(in.buffer, t1.start + 3, t1.nameEnd, t2.start + 3, t2.nameEnd);
+    }
+
+    /**
+     * Compares two modified UTF-8 encoded names in the same order as {@link String#compareTo} compares the
+     * decoded names. Unsigned byte order already agrees with UTF-16 code unit order, surrogates included, except
+     * for '\u0000' which is encoded as {@code C0 80} but must sort first.
+     */
+    static int compareNames(final byte[] buffer, final int from1, final int to1, final int from2, final int to2) {
+        int i = Arrays.mismatch(buffer, from1, to1, buffer, from2, to2);
+        if (i < 0) return 0;
+        final int p1 = from1 + i;
+        final int p2 = from2 + i;
+        if (p1 == to1) return -1;
+        if (p2 == to2) return 1;
+        if (buffer[p1] == (byte) 0xC0 && p1 + 1 < to1 && buffer[p1 + 1] == (byte) 0x80) return -1;
+        if (buffer[p2] == (byte) 0xC0 && p2 + 1 < to2 && buffer[p2 + 1] == (byte) 0x80) return 1;
+        return Integer.compare(buffer[p1] & 0xFF, buffer[p2] & 0xFF);
     }
     //</editor-fold>
 
@@ -385,14 +472,49 @@ public class BinaryNbtTagSorter {
         }
     }
 
-    private static class UnsafeFastByteArrayIO {
+    /** Destination of sorted output. */
+    private interface Sink {
+        void write(byte[] source, int sourcePos, int length) throws IOException;
+
+        void writeByte(byte v) throws IOException;
+    }
+
+    private record OutputStreamSink(OutputStream out) implements Sink {
+        @Override
+        public void write(byte[] source, int sourcePos, int length) throws IOException {
+            out.write(source, sourcePos, length);
+        }
+
+        @Override
+        public void writeByte(byte v) throws IOException {
+            out.write(v);
+        }
+    }
+
+    private record ByteBufferSink(ByteBuffer out) implements Sink {
+        @Override
+        public void write(byte[] source, int sourcePos, int length) {
+            out.put(source, sourcePos, length);
+        }
+
+        @Override
+        public void writeByte(byte v) {
+            out.put(v);
+        }
+    }
+
+    private static class UnsafeFastByteArrayIO implements Sink {
         protected final byte[] buffer;
         protected final int limit;
         protected int position;
 
         public UnsafeFastByteArrayIO(final byte[] buffer) {
+            this(buffer, buffer.length);
+        }
+
+        public UnsafeFastByteArrayIO(final byte[] buffer, final int limit) {
             this.buffer = buffer;
-            this.limit = buffer.length;
+            this.limit = limit;
             this.position = 0;
         }
 
@@ -1,5 +1,9 @@
 package io.github.ensgijs.nbt.util;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
 /**
  * Very forgiving json parser and formatter.
  * Logic strongly based on implementation of https://jsonviewer.stack.hu/
@@ -20,31 +24,202 @@ public final class JsonPrettyPrinter {
 
     /**
      * Pretty prints a JSON string using the default single-line length limit {@link #DEFAULT_SINGLE_LINE_MAX_LENGTH}.
-     * @param jsonText The raw JSON string.
+     * @param jsonText The raw JSON text.
      * @return A formatted JSON string.
      * @see #DEFAULT_SINGLE_LINE_MAX_LENGTH
      */
-    public static String prettyPrintJson(final String jsonText) {
+    public static String prettyPrintJson(final CharSequence jsonText) {
         return prettyPrintJson(jsonText, DEFAULT_SINGLE_LINE_MAX_LENGTH);
     }
 
     /**
      * Pretty prints a JSON string.
-     * @param jsonText The raw JSON string.
+     * @param jsonText The raw JSON text.
      * @param singleLineMaxLength Attempt to place leaf tags on one line so long as the line does not exceed this limit.
      *                            Specify 0 to disable this feature (only empty lists/objects will be one-lined).
      * @return A formatted JSON string.
      */
-    public static String prettyPrintJson(final String jsonText, final int singleLineMaxLength) {
-        StringBuilder sb = new StringBuilder();
-        int startOfLinePos = 0;
-        int indentationLevel = 0;
-        boolean inString = false;
-        char strQuoteChar = '\0';
-        scan: for (int i = 0, jsonLen = jsonText.length(); i < jsonLen; i++) {
-            char c = jsonText.charAt(i);
+    public static String prettyPrintJson(final CharSequence jsonText, final int singleLineMaxLength) {
+        StringBuilder sb = new StringBuilder(jsonText.length() + (jsonText.length() >> 1));
+        PrettyPrintingWriter writer = new PrettyPrintingWriter(sb, singleLineMaxLength);
+        try {
+            writer.append(jsonText);
+            writer.finish();
+        } catch (IOException ex) {
+            // a StringBuilder never throws
+            throw new RuntimeException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates a writer which pretty prints the JSON text written to it into {@code out}, producing exactly
+     * the output of {@link #prettyPrintJson(CharSequence, int)}. Only a small window of the input, enough to
+     * decide if the next object/array fits on a single line, is held in memory.
+     * <p>Call {@link PrettyPrintingWriter#finish()} to write out the end of the text without closing
+     * {@code out}, or {@link PrettyPrintingWriter#close()} to also close it.</p>
+     * @see #DEFAULT_SINGLE_LINE_MAX_LENGTH
+     */
+    public static PrettyPrintingWriter prettyPrintingWriter(final Writer out) {
+        return new PrettyPrintingWriter(out, DEFAULT_SINGLE_LINE_MAX_LENGTH);
+    }
+
+    /** @see #prettyPrintingWriter(Writer) */
+    public static PrettyPrintingWriter prettyPrintingWriter(final Writer out, final int singleLineMaxLength) {
+        return new PrettyPrintingWriter(out, singleLineMaxLength);
+    }
+
+    /**
+     * Streaming form of {@link #prettyPrintJson(CharSequence, int)}. Characters are formatted as soon as
+     * enough of the following input is known; whenever a decision needs to look further ahead than what has
+     * been written so far, formatting pauses until more input arrives or {@link #finish()} is called.
+     */
+    public static final class PrettyPrintingWriter extends Writer {
+        private static final int CHUNK_SIZE = 4096;
+        private static final int OUTPUT_FLUSH_SIZE = 8192;
+        /** Returned by the look ahead helpers when the answer depends on input which hasn't been written yet. */
+        private static final int NEED_MORE_INPUT = -2;
+
+        private final Appendable out;
+        private final int singleLineMaxLength;
+
+        private char[] in = new char[CHUNK_SIZE * 2];
+        /** Absolute input index of {@code in[0]}. */
+        private long inBase;
+        private int inLen;
+        /** Absolute input index of the next char to format. */
+        private long pos;
+        private boolean finished;
+
+        /** Formatted output which has not yet been handed to {@link #out}. */
+        private final StringBuilder sb = new StringBuilder();
+        /** Absolute output index of {@code sb[0]}. */
+        private long outBase;
+        private long startOfLinePos;
+        private int indentationLevel;
+        private boolean inString;
+        private char strQuoteChar;
+
+        private PrettyPrintingWriter(final Appendable out, final int singleLineMaxLength) {
+            this.out = out;
+            this.singleLineMaxLength = singleLineMaxLength;
+        }
+
+        @Override
+        public void write(final char[] cbuf, int off, int len) throws IOException {
+            if (finished) throw new IOException("already finished");
+            while (len > 0) {
+                int n = Math.min(len, CHUNK_SIZE);
+                ensureInputCapacity(n);
+                System.arraycopy(cbuf, off, in, inLen, n);
+                inLen += n;
+                off += n;
+                len -= n;
+                format();
+            }
+        }
+
+        @Override
+        public void write(final String str, int off, int len) throws IOException {
+            if (finished) throw new IOException("already finished");
+            while (len > 0) {
+                int n = Math.min(len, CHUNK_SIZE);
+                ensureInputCapacity(n);
+                str.getChars(off, off + n, in, inLen);
+                inLen += n;
+                off += n;
+                len -= n;
+                format();
+            }
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            write(new char[] {(char) c}, 0, 1);
+        }
+
+        /**
+         * Formats all remaining input and hands it to the destination, which is flushed if it is a
+         * {@link java.io.Flushable}, but not closed. Nothing more may be written afterward.
+         */
+        public void finish() throws IOException {
+            if (finished) return;
+            finished = true;
+            format();
+            flushOutput();
+            if (out instanceof java.io.Flushable f) {
+                f.flush();
+            }
+        }
+
+        /** Hands all output formatted so far to the destination and flushes it. Buffered look ahead is kept. */
+        @Override
+        public void flush() throws IOException {
+            flushOutput();
+            if (out instanceof java.io.Flushable f) {
+                f.flush();
+            }
+        }
+
+        /** {@link #finish() Finishes} then closes the destination if it is {@link AutoCloseable}. */
+        @Override
+        public void close() throws IOException {
+            finish();
+            if (out instanceof java.io.Closeable c) {
+                c.close();
+            }
+        }
+
+        private void ensureInputCapacity(final int n) {
+            // the char before pos is still needed to detect escaped quotes and empty objects
+            int discard = (int) Math.max(0, pos - 1 - inBase);
+            if (discard > 0 && inLen + n > in.length) {
+                System.arraycopy(in, discard, in, 0, inLen - discard);
+                inBase += discard;
+                inLen -= discard;
+            }
+            if (inLen + n > in.length) {
+                in = Arrays.copyOf(in, Math.max(in.length << 1, inLen + n));
+            }
+        }
+
+        private long end() {
+            return inBase + inLen;
+        }
+
+        private char charAt(final long i) {
+            return in[(int) (i - inBase)];
+        }
+
+        private long outPos() {
+            return outBase + sb.length();
+        }
+
+        private void flushOutput() throws IOException {
+            if (sb.isEmpty()) return;
+            out.append(sb);
+            outBase += sb.length();
+            sb.setLength(0);
+        }
+
+        private void format() throws IOException {
+            while (pos < end() && step()) {
+                // an empty object, '{' directly followed by '}', rewinds the output back to its '{'
+                if (sb.length() >= OUTPUT_FLUSH_SIZE && charAt(pos - 1) != '{') {
+                    flushOutput();
+                }
+            }
+        }
+
+        /**
+         * Formats the char at {@link #pos}, and any following chars consumed along with it.
+         * @return false, without changing any state, if more input is needed first.
+         */
+        private boolean step() {
+            long i = pos;
+            char c = charAt(i);
             if (inString && c == strQuoteChar) {
-                if (jsonText.charAt(i - 1) != '\\') {
+                if (charAt(i - 1) != '\\') {
                     inString = false;
                 }
                 sb.append(c);
@@ -53,71 +228,86 @@ public final class JsonPrettyPrinter {
                 strQuoteChar = c;
                 sb.append(c);
             } else if (!inString && Character.isWhitespace(c)) {
-                continue;
+                // skip
             } else if (!inString && c == ':') {
                 sb.append(c).append(' ');
             } else if (!inString && c == ',') {
                 // Identify hanging commas. If found, don't add a newline to avoid a double-space.
-                for (int j = i + 1; j < jsonText.length(); j++) {
-                    c = jsonText.charAt(j);
-                    if (Character.isWhitespace(c))
+                boolean hanging = true;
+                long j = i + 1;
+                for (; j < end(); j++) {
+                    char d = charAt(j);
+                    if (Character.isWhitespace(d))
                         continue;
-                    if (c != ']' && c != '}') {
-                        sb.append(",\n");
-                        startOfLinePos = sb.length();
-                        appendIndent(sb, indentationLevel);
-                        continue scan;
+                    if (d != ']' && d != '}') {
+                        hanging = false;
+                        break;
                     }
                 }
-                sb.append(',');
+                if (hanging && j == end() && !finished) return false;
+                if (!hanging) {
+                    sb.append(",\n");
+                    startOfLinePos = outPos();
+                    appendIndent();
+                } else {
+                    sb.append(',');
+                }
             } else if (!inString && (c == '[' || c == '{')) {
+                if (!finished && i + 2 >= end()) return false;
                 if (singleLineMaxLength > 0 && singleLineMaxLength >= indentationLevel * 2 + 4) {
-                    int closingIndex = findMatchingBracket(jsonText, i, singleLineMaxLength - (sb.length() - startOfLinePos));
-                    if (closingIndex != -1 && appendSingleLineFragment(sb, jsonText, i, closingIndex + 1, singleLineMaxLength - (sb.length() - startOfLinePos))) {
-                        i = closingIndex;
-                        continue;
+                    final int distanceToEOL = singleLineMaxLength - (int) (outPos() - startOfLinePos);
+                    long closingIndex = findMatchingBracket(i, distanceToEOL);
+                    if (closingIndex == NEED_MORE_INPUT) return false;
+                    if (closingIndex != -1) {
+                        int fit = appendSingleLineFragment(i, closingIndex + 1, distanceToEOL);
+                        if (fit == NEED_MORE_INPUT) return false;
+                        if (fit == 1) {
+                            pos = closingIndex + 1;
+                            return true;
+                        }
                     }
 
                     indentationLevel++;
                     sb.append(c);
                     // keep int/long tag array hint on same line next to open bracket
-                    if (i + 2 < jsonLen && jsonText.charAt(i + 2) == ';') {
-                        sb.append(jsonText.charAt(i + 1)).append(';');
+                    if (i + 2 < end() && charAt(i + 2) == ';') {
+                        sb.append(charAt(i + 1)).append(';');
                         i += 2;
                     }
                     sb.append('\n');
-                    startOfLinePos = sb.length();
-                    appendIndent(sb, indentationLevel);
+                    startOfLinePos = outPos();
+                    appendIndent();
                 } else {
+                    if (!finished && i + 3 >= end()) return false;
                     indentationLevel++;
                     sb.append(c);
                     // keep int/long tag array hint on same line next to open bracket
-                    if (i + 2 < jsonLen && jsonText.charAt(i + 2) == ';') {
-                        sb.append(jsonText.charAt(i + 1)).append(';');
+                    if (i + 2 < end() && charAt(i + 2) == ';') {
+                        sb.append(charAt(i + 1)).append(';');
                         i += 2;
                     }
-                    if (i + 1 < jsonLen && jsonText.charAt(i + 1) == ']') {
+                    if (i + 1 < end() && charAt(i + 1) == ']') {
                         sb.append(']');
-                        i ++;
+                        i++;
                         indentationLevel--;
                     } else {
                         sb.append('\n');
-                        startOfLinePos = sb.length();
-                        appendIndent(sb, indentationLevel);
+                        startOfLinePos = outPos();
+                        appendIndent();
                     }
                 }
             } else if (!inString && c == ']') {
                 indentationLevel--;
                 sb.append('\n');
-                startOfLinePos = sb.length();
-                appendIndent(sb, indentationLevel);
+                startOfLinePos = outPos();
+                appendIndent();
                 sb.append(c);
             } else if (!inString && c == '}') {
                 indentationLevel--;
-                if (jsonText.charAt(i - 1) != '{') {
+                if (i == 0 || charAt(i - 1) != '{') {
                     sb.append('\n');
-                    startOfLinePos = sb.length();
-                    appendIndent(sb, indentationLevel);
+                    startOfLinePos = outPos();
+                    appendIndent();
                 } else {
                     sb.setLength(sb.lastIndexOf("{") + 1);
                 }
@@ -127,101 +317,111 @@ public final class JsonPrettyPrinter {
             } else if (c != '\r') {
                 sb.append(c);
             }
+            pos = i + 1;
+            return true;
         }
-        return sb.toString();
-    }
 
-    private static int findMatchingBracket(final String jsonText, final int startIndex, final int maxSearchDistance) {
-        final char openBracket = jsonText.charAt(startIndex);
-        char closeBracket;
-        if (openBracket == '{') closeBracket = '}';
-        else if (openBracket == '[') closeBracket = ']';
-        else return -1;
-
-        boolean inString = false;
-        char strQuoteChar = '\0';
-        int distanceRemaining = maxSearchDistance;
-
-        for (int i = startIndex + 1; i < jsonText.length() && distanceRemaining > 0; i++) {
-            char c = jsonText.charAt(i);
-            if (!Character.isWhitespace(c)) distanceRemaining--;
-            if (inString) {
-                if (c == strQuoteChar && jsonText.charAt(i - 1) != '\\') {
-                    inString = false;
+        private long findMatchingBracket(final long startIndex, final int maxSearchDistance) {
+            final char openBracket = charAt(startIndex);
+            char closeBracket;
+            if (openBracket == '{') closeBracket = '}';
+            else if (openBracket == '[') closeBracket = ']';
+            else return -1;
+
+            boolean inString = false;
+            char strQuoteChar = '\0';
+            int distanceRemaining = maxSearchDistance;
+
+            long i = startIndex + 1;
+            for (; i < end() && distanceRemaining > 0; i++) {
+                char c = charAt(i);
+                if (!Character.isWhitespace(c)) distanceRemaining--;
+                if (inString) {
+                    if (c == strQuoteChar && charAt(i - 1) != '\\') {
+                        inString = false;
+                    }
+                } else {
+                    if (c == '"' || c == '\'') {
+                        inString = true;
+                        strQuoteChar = c;
+                    } else if (c == '{' || c == '[') {
+                        return -1; // cancel search when a nested structure is encountered
+                    } else if (c == closeBracket) {
+                        return i;
+                    }
                 }
-            } else {
-                if (c == '"' || c == '\'') {
+            }
+            return distanceRemaining > 0 && !finished ? NEED_MORE_INPUT : -1;
+        }
+
+        /**
+         * Appends a compact, single-line version of a JSON fragment to the output.
+         * This method removes newlines and ensures proper spacing around delimiters.
+         * @return 1 if the fragment was appended, 0 if it doesn't fit on the line, or {@link #NEED_MORE_INPUT}.
+         */
+        private int appendSingleLineFragment(final long start, final long end, final int distanceToEOL) {
+            boolean inString = false;
+            char strQuoteChar = '\0';
+            final StringBuilder output = sb;
+            final int p = output.length();
+            long i;
+            for (i = start; i < end; i++) {
+                char c = charAt(i);
+                if (inString) {
+                    if (c == strQuoteChar && charAt(i - 1) != '\\') {
+                        inString = false;
+                    }
+                    output.append(c);
+                } else if (c == '"' || c == '\'') {
                     inString = true;
                     strQuoteChar = c;
-                } else if (c == '{' || c == '[') {
-                    return -1; // cancel search when a nested structure is encountered
-                } else if (c == closeBracket) {
-                    return i;
+                    output.append(c);
+                } else if (!Character.isWhitespace(c)) {
+                    // For any character that isn't whitespace...
+                    // Add a space after comma or colon, but not if it's the last char
+                    if ((c == ',' || c == ':' || c == ';') && i + 1 < end) {
+                        // Remove space if it's right before a closing bracket
+                        if (!output.isEmpty() && output.charAt(output.length() - 1) == ' ') {
+                            output.setLength(output.length() - 1);
+                        }
+                        output.append(c).append(' ');
+                    } else {
+                        // Remove trailing space before a closing bracket
+                        if ((c == ']' || c == '}') && !output.isEmpty() && output.charAt(output.length() - 1) == ' ') {
+                            output.setLength(output.length() - 1);
+                        }
+                        output.append(c);
+                    }
                 }
             }
-        }
-        return -1;
-    }
+            final int len = output.length() - p;
+            if (len <= distanceToEOL) {
+                if (len < distanceToEOL)
+                    return 1;
 
-    /**
-     * Appends a compact, single-line version of a JSON fragment to the output.
-     * This method removes newlines and ensures proper spacing around delimiters.
-     */
-    private static boolean appendSingleLineFragment(final StringBuilder output, final String jsonText, final int start, final int end, final int distanceToEOL) {
-        boolean inString = false;
-        char strQuoteChar = '\0';
-        final int p = output.length();
-        int i;
-        for (i = start; i < end; i++) {
-            char c = jsonText.charAt(i);
-            if (inString) {
-                if (c == strQuoteChar && jsonText.charAt(i - 1) != '\\') {
-                    inString = false;
+                // We are right at the length limit.
+                // Scan ahead to see if a comma comes next.
+                // If one does, it'll make the line too long.
+                for (; i < end(); i++) {
+                    char c = charAt(i);
+                    if (c == ',')
+                        break;
+                    if (!Character.isWhitespace(c))
+                        return 1;
                 }
-                output.append(c);
-            } else if (c == '"' || c == '\'') {
-                inString = true;
-                strQuoteChar = c;
-                output.append(c);
-            } else if (!Character.isWhitespace(c)) {
-                // For any character that isn't whitespace...
-                // Add a space after comma or colon, but not if it's the last char
-                if ((c == ',' || c == ':' || c == ';') && i + 1 < end) {
-                    // Remove space if it's right before a closing bracket
-                    if (!output.isEmpty() && output.charAt(output.length() - 1) == ' ') {
-                        output.setLength(output.length() - 1);
-                    }
-                    output.append(c).append(' ');
-                } else {
-                    // Remove trailing space before a closing bracket
-                    if ((c == ']' || c == '}') && !output.isEmpty() && output.charAt(output.length() - 1) == ' ') {
-                        output.setLength(output.length() - 1);
-                    }
-                    output.append(c);
+                if (i == end() && !finished) {
+                    output.setLength(p);
+                    return NEED_MORE_INPUT;
                 }
             }
+            output.setLength(p);
+            return 0;
         }
-        final int len = output.length() - p;
-        if (len <= distanceToEOL) {
-            if (len < distanceToEOL)
-                return true;
-
-            // We are right at the length limit.
-            // Scan ahead to see if a comma comes next.
-            // If one does, it'll make the line too long.
-            for (; i < jsonText.length(); i++) {
-                char c = jsonText.charAt(i);
-                if (c == ',')
-                    break;
-                if (!Character.isWhitespace(c))
-                    return true;
+
+        private void appendIndent() {
+            for (int n = indentationLevel * 2; n > 0; n--) {
+                sb.append(' ');
             }
         }
-        output.setLength(p);
-        return false;
-    }
-
-    private static void appendIndent(final StringBuilder output, final int indentationLevel) {
-        output.append(" ".repeat(indentationLevel * 2));
     }
 }
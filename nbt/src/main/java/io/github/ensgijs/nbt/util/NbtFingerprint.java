@@ -0,0 +1,555 @@
+package io.github.ensgijs.nbt.util;
+
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.MaxDepthIO;
+import io.github.ensgijs.nbt.tag.ByteArrayTag;
+import io.github.ensgijs.nbt.tag.ByteTag;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.DoubleTag;
+import io.github.ensgijs.nbt.tag.FloatTag;
+import io.github.ensgijs.nbt.tag.IntArrayTag;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.tag.ListTag;
+import io.github.ensgijs.nbt.tag.LongArrayTag;
+import io.github.ensgijs.nbt.tag.LongTag;
+import io.github.ensgijs.nbt.tag.NumberTag;
+import io.github.ensgijs.nbt.tag.ShortTag;
+import io.github.ensgijs.nbt.tag.StringTag;
+import io.github.ensgijs.nbt.tag.Tag;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A 128-bit canonical fingerprint of NBT data, suitable for deduplicating and diffing data such as chunks across
+ * backups without holding both sides in memory.
+ *
+ * <p>The fingerprint depends only on the logical content of the data:</p>
+ * <ul>
+ *     <li>The entries of a {@link CompoundTag} are combined order independently, so the insertion order of the
+ *     backing map, or the order entries were written to disk in, does not matter.</li>
+ *     <li>The name of the root tag is not part of the fingerprint.</li>
+ *     <li>Empty lists fingerprint the same regardless of their element type.</li>
+ *     <li>Floats and doubles are compared as {@link FloatTag#equals(Object)} does, so all NaN's are equal.</li>
+ * </ul>
+ * <p>{@link #of(Tag)} and {@link #ofBinary(InputStream, CompressionType)} always agree for the same data, the binary
+ * variant streams the data in one pass without creating any tags.</p>
+ * <p>Fingerprints are built on the murmur3 128-bit mixing functions; they are well distributed but are not a
+ * cryptographic hash and should not be used to defend against deliberately crafted collisions.</p>
+ */
+public final class NbtFingerprint {
+    private final long high;
+    private final long low;
+
+    public NbtFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /** Computes the fingerprint of the given tag tree. */
+    public static NbtFingerprint of(Tag<?> tag) {
+        Fingerprinter fingerprinter = new Fingerprinter();
+        fingerprinter.hashTag(tag, 0, Tag.DEFAULT_MAX_DEPTH);
+        return fingerprinter.result();
+    }
+
+    /**
+     * Computes the fingerprint of uncompressed, big endian, binary nbt data.
+     * @see #ofBinary(InputStream, CompressionType)
+     */
+    public static NbtFingerprint ofBinary(byte[] nbtData) throws IOException {
+        return ofBinary(new DataInputStream(new ByteArrayInputStream(nbtData)));
+    }
+
+    /**
+     * Computes the fingerprint of big endian binary nbt data, as written by
+     * {@link io.github.ensgijs.nbt.io.BinaryNbtSerializer}, in a single pass over the stream.
+     * The result is the same as {@link #of(Tag)} for the deserialized root tag.
+     * @param in stream positioned at the root tag, it is not closed and may be read past the end of the root tag.
+     * @param compression compression the data is stored with.
+     */
+    public static NbtFingerprint ofBinary(InputStream in, CompressionType compression) throws IOException {
+        InputStream decompressed = compression.decompress(in);
+        if (!(decompressed instanceof BufferedInputStream)) {
+            decompressed = new BufferedInputStream(decompressed);
+        }
+        return ofBinary(new DataInputStream(decompressed));
+    }
+
+    private static NbtFingerprint ofBinary(DataInput in) throws IOException {
+        Fingerprinter fingerprinter = new Fingerprinter();
+        byte type = in.readByte();
+        if (type != 0) {
+            fingerprinter.skipBinaryString(in);  // root name
+        }
+        fingerprinter.hashBinary(in, type, 0, Tag.DEFAULT_MAX_DEPTH);
+        return fingerprinter.result();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof NbtFingerprint that && high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ (high >>> 32) ^ low ^ (low >>> 32));
+    }
+
+    /** @return 32 hex digits. */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Walks a tag tree or binary nbt and computes the 128-bit hash of each value bottom up. Results are returned
+     * through {@link #resultHigh}/{@link #resultLow} and one {@link Hasher} is kept per depth so that nothing is
+     * allocated per tag.
+     */
+    private static final class Fingerprinter implements MaxDepthIO {
+        /** Salts the hash of a compound entry so it can't collide with the hash of a plain value. */
+        private static final long ENTRY_SALT = 0x2545F4914F6CDD1DL;
+
+        private Hasher[] hashers = new Hasher[8];
+        private byte[] stringBuffer = new byte[64];
+        private long resultHigh;
+        private long resultLow;
+
+        NbtFingerprint result() {
+            return new NbtFingerprint(resultHigh, resultLow);
+        }
+
+        private Hasher hasher(int depth, long type) {
+            if (depth >= hashers.length) {
+                hashers = Arrays.copyOf(hashers, Math.max(depth + 1, hashers.length * 2));
+            }
+            Hasher hasher = hashers[depth];
+            if (hasher == null) {
+                hashers[depth] = hasher = new Hasher();
+            }
+            hasher.reset(type);
+            return hasher;
+        }
+
+        private void finish(Hasher hasher) {
+            hasher.finish();
+            resultHigh = hasher.h1;
+            resultLow = hasher.h2;
+        }
+
+        //<editor-fold desc="tag trees">
+        void hashTag(Tag<?> tag, int depth, int maxDepth) {
+            final byte type = tag.getID();
+            final Hasher hasher;
+            switch (type) {
+                case ByteTag.ID, ShortTag.ID, IntTag.ID, LongTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(((NumberTag<?>) tag).asLong());
+                }
+                case FloatTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(Float.floatToIntBits(((FloatTag) tag).asFloat()));
+                }
+                case DoubleTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(Double.doubleToLongBits(((DoubleTag) tag).asDouble()));
+                }
+                case StringTag.ID -> {
+                    hasher = hasher(depth, type);
+                    putString(hasher, ((StringTag) tag).getValue());
+                }
+                case ByteArrayTag.ID -> {
+                    hasher = hasher(depth, type);
+                    byte[] values = ((ByteArrayTag) tag).getValue();
+                    hasher.putLong(values.length);
+                    hasher.putBytes(values, values.length);
+                }
+                case IntArrayTag.ID -> {
+                    hasher = hasher(depth, type);
+                    int[] values = ((IntArrayTag) tag).getValue();
+                    hasher.putLong(values.length);
+                    for (int v : values) {
+                        hasher.putLong(v);
+                    }
+                }
+                case LongArrayTag.ID -> {
+                    hasher = hasher(depth, type);
+                    long[] values = ((LongArrayTag) tag).getValue();
+                    hasher.putLong(values.length);
+                    for (long v : values) {
+                        hasher.putLong(v);
+                    }
+                }
+                case ListTag.ID -> {
+                    hasher = hashList((ListTag<?>) tag, depth, decrementMaxDepth(maxDepth));
+                }
+                case CompoundTag.ID -> {
+                    hasher = hashCompound((CompoundTag) tag, depth, decrementMaxDepth(maxDepth));
+                }
+                default -> {
+                    // EndTag
+                    hasher = hasher(depth, type);
+                }
+            }
+            finish(hasher);
+        }
+
+        private Hasher hashList(ListTag<?> list, int depth, int maxDepth) {
+            final int size = list.size();
+            final Hasher hasher = hasher(depth, ListTag.ID);
+            hasher.putLong(size);
+            if (size == 0) return hasher;
+            final byte elementType = list.get(0).getID();
+            hasher.putLong(elementType);
+            switch (elementType) {
+                case ByteTag.ID, ShortTag.ID, IntTag.ID, LongTag.ID -> {
+                    for (int i = 0; i < size; i++) {
+                        hasher.putLong(list.getLong(i));
+                    }
+                }
+                case FloatTag.ID -> {
+                    for (int i = 0; i < size; i++) {
+                        hasher.putLong(Float.floatToIntBits(list.getFloat(i)));
+                    }
+                }
+                case DoubleTag.ID -> {
+                    for (int i = 0; i < size; i++) {
+                        hasher.putLong(Double.doubleToLongBits(list.getDouble(i)));
+                    }
+                }
+                default -> {
+                    for (int i = 0; i < size; i++) {
+                        hashTag(list.get(i), depth + 1, maxDepth);
+                        hasher.putLong(resultHigh);
+                        hasher.putLong(resultLow);
+                    }
+                }
+            }
+            return hasher;
+        }
+
+        private Hasher hashCompound(CompoundTag compound, int depth, int maxDepth) {
+            long sumHigh = 0;
+            long sumLow = 0;
+            for (Map.Entry<String, Tag<?>> entry : compound.entrySet()) {
+                // the value is hashed one level deeper so it doesn't disturb the entry hasher
+                Hasher entryHasher = hasher(depth, ENTRY_SALT);
+                putString(entryHasher, entry.getKey());
+                hashTag(entry.getValue(), depth + 1, maxDepth);
+                entryHasher.putLong(resultHigh);
+                entryHasher.putLong(resultLow);
+                entryHasher.finish();
+                sumHigh += entryHasher.h1;
+                sumLow += entryHasher.h2;
+            }
+            Hasher hasher = hasher(depth, CompoundTag.ID);
+            hasher.putLong(compound.size());
+            hasher.putLong(sumHigh);
+            hasher.putLong(sumLow);
+            return hasher;
+        }
+
+        /** Hashes the modified UTF-8 encoding of the string, which is what binary nbt holds. */
+        private void putString(Hasher hasher, String value) {
+            final int length = value.length();
+            if (stringBuffer.length < length * 3) {
+                stringBuffer = new byte[length * 3];
+            }
+            final byte[] buffer = stringBuffer;
+            int n = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x0001 && c <= 0x007F) {
+                    buffer[n++] = (byte) c;
+                } else if (c <= 0x07FF) {
+                    buffer[n++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                    buffer[n++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    buffer[n++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                    buffer[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            hasher.putLong(n);
+            hasher.putBytes(buffer, n);
+        }
+        //</editor-fold>
+
+        //<editor-fold desc="binary nbt">
+        void hashBinary(DataInput in, byte type, int depth, int maxDepth) throws IOException {
+            final Hasher hasher;
+            switch (type) {
+                case ByteTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(in.readByte());
+                }
+                case ShortTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(in.readShort());
+                }
+                case IntTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(in.readInt());
+                }
+                case LongTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(in.readLong());
+                }
+                case FloatTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(Float.floatToIntBits(in.readFloat()));
+                }
+                case DoubleTag.ID -> {
+                    hasher = hasher(depth, type);
+                    hasher.putLong(Double.doubleToLongBits(in.readDouble()));
+                }
+                case StringTag.ID -> {
+                    hasher = hasher(depth, type);
+                    putBinaryString(hasher, in);
+                }
+                case ByteArrayTag.ID -> {
+                    hasher = hasher(depth, type);
+                    int length = Math.max(0, in.readInt());
+                    hasher.putLong(length);
+                    while (length > 0) {
+                        int chunk = Math.min(length, stringBuffer.length);
+                        in.readFully(stringBuffer, 0, chunk);
+                        hasher.putBytesUnaligned(stringBuffer, chunk);
+                        length -= chunk;
+                    }
+                    hasher.flushBytes();
+                }
+                case IntArrayTag.ID -> {
+                    hasher = hasher(depth, type);
+                    int length = Math.max(0, in.readInt());
+                    hasher.putLong(length);
+                    for (int i = 0; i < length; i++) {
+                        hasher.putLong(in.readInt());
+                    }
+                }
+                case LongArrayTag.ID -> {
+                    hasher = hasher(depth, type);
+                    int length = Math.max(0, in.readInt());
+                    hasher.putLong(length);
+                    for (int i = 0; i < length; i++) {
+                        hasher.putLong(in.readLong());
+                    }
+                }
+                case ListTag.ID -> {
+                    hasher = hashBinaryList(in, depth, decrementMaxDepth(maxDepth));
+                }
+                case CompoundTag.ID -> {
+                    hasher = hashBinaryCompound(in, depth, decrementMaxDepth(maxDepth));
+                }
+                case 0 -> {
+                    hasher = hasher(depth, type);
+                }
+                default -> throw new IOException("invalid tag id \"" + type + "\"");
+            }
+            finish(hasher);
+        }
+
+        private Hasher hashBinaryList(DataInput in, int depth, int maxDepth) throws IOException {
+            final byte elementType = in.readByte();
+            final int size = Math.max(0, in.readInt());
+            final Hasher hasher = hasher(depth, ListTag.ID);
+            hasher.putLong(size);
+            if (size == 0) return hasher;
+            hasher.putLong(elementType);
+            switch (elementType) {
+                case ByteTag.ID -> {
+                    for (int i = 0; i < size; i++) hasher.putLong(in.readByte());
+                }
+                case ShortTag.ID -> {
+                    for (int i = 0; i < size; i++) hasher.putLong(in.readShort());
+                }
+                case IntTag.ID -> {
+                    for (int i = 0; i < size; i++) hasher.putLong(in.readInt());
+                }
+                case LongTag.ID -> {
+                    for (int i = 0; i < size; i++) hasher.putLong(in.readLong());
+                }
+                case FloatTag.ID -> {
+                    for (int i = 0; i < size; i++) hasher.putLong(Float.floatToIntBits(in.readFloat()));
+                }
+                case DoubleTag.ID -> {
+                    for (int i = 0; i < size; i++) hasher.putLong(Double.doubleToLongBits(in.readDouble()));
+                }
+                default -> {
+                    for (int i = 0; i < size; i++) {
+                        hashBinary(in, elementType, depth + 1, maxDepth);
+                        hasher.putLong(resultHigh);
+                        hasher.putLong(resultLow);
+                    }
+                }
+            }
+            return hasher;
+        }
+
+        private Hasher hashBinaryCompound(DataInput in, int depth, int maxDepth) throws IOException {
+            long sumHigh = 0;
+            long sumLow = 0;
+            int size = 0;
+            byte type;
+            while ((type = in.readByte()) != 0) {
+                Hasher entryHasher = hasher(depth, ENTRY_SALT);
+                putBinaryString(entryHasher, in);
+                hashBinary(in, type, depth + 1, maxDepth);
+                entryHasher.putLong(resultHigh);
+                entryHasher.putLong(resultLow);
+                entryHasher.finish();
+                sumHigh += entryHasher.h1;
+                sumLow += entryHasher.h2;
+                size++;
+            }
+            Hasher hasher = hasher(depth, CompoundTag.ID);
+            hasher.putLong(size);
+            hasher.putLong(sumHigh);
+            hasher.putLong(sumLow);
+            return hasher;
+        }
+
+        private void putBinaryString(Hasher hasher, DataInput in) throws IOException {
+            int length = readBinaryString(in);
+            hasher.putLong(length);
+            hasher.putBytes(stringBuffer, length);
+        }
+
+        void skipBinaryString(DataInput in) throws IOException {
+            readBinaryString(in);
+        }
+
+        /** Reads a string's modified UTF-8 bytes into {@link #stringBuffer}, returns their count. */
+        private int readBinaryString(DataInput in) throws IOException {
+            int length = in.readUnsignedShort();
+            if (stringBuffer.length < length) {
+                stringBuffer = new byte[Math.max(length, stringBuffer.length * 2)];
+            }
+            in.readFully(stringBuffer, 0, length);
+            return length;
+        }
+        //</editor-fold>
+    }
+
+    /**
+     * Streaming murmur3 x64 128-bit hash over a sequence of longs. Bytes are packed big endian into longs, a
+     * trailing partial long is zero padded; callers always put the byte count first so padding is unambiguous.
+     */
+    private static final class Hasher {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        long h1;
+        long h2;
+        private long pending;
+        private boolean hasPending;
+        private long length;
+        private long byteWord;
+        private int byteCount;
+
+        void reset(long seed) {
+            h1 = seed;
+            h2 = ~seed;
+            hasPending = false;
+            length = 0;
+            byteWord = 0;
+            byteCount = 0;
+        }
+
+        void putLong(long k) {
+            length++;
+            if (!hasPending) {
+                pending = k;
+                hasPending = true;
+                return;
+            }
+            hasPending = false;
+            long k1 = pending;
+            long k2 = k;
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        void putBytes(byte[] bytes, int count) {
+            putBytesUnaligned(bytes, count);
+            flushBytes();
+        }
+
+        /** Appends bytes which may continue a partial long from a previous call; call {@link #flushBytes()} after. */
+        void putBytesUnaligned(byte[] bytes, int count) {
+            for (int i = 0; i < count; i++) {
+                byteWord = (byteWord << 8) | (bytes[i] & 0xFF);
+                if (++byteCount == 8) {
+                    putLong(byteWord);
+                    byteWord = 0;
+                    byteCount = 0;
+                }
+            }
+        }
+
+        void flushBytes() {
+            if (byteCount > 0) {
+                putLong(byteWord << (8 * (8 - byteCount)));
+                byteWord = 0;
+                byteCount = 0;
+            }
+        }
+
+        void finish() {
+            if (hasPending) {
+                long k1 = pending;
+                k1 *= C1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= C2;
+                h1 ^= k1;
+                hasPending = false;
+            }
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+            h1 += h2;
+            h2 += h1;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb53a7f6b1f7bL;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -62,6 +62,19 @@ public class ObservedCompoundTag extends CompoundTag {
         return wrappedTag.getID();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public CompoundTag freeze() {
+        wrappedTag.freeze();
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isFrozen() {
+        return wrappedTag.isFrozen();
+    }
+
     /** {@inheritDoc} */
     public int size() {
         return wrappedTag.size();
@@ -0,0 +1,87 @@
+package io.github.ensgijs.nbt.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Thread safe facade over {@link BinaryNbtTagSorter} which keeps one sorter per thread so that the token pool of
+ * each sorter is reused across calls without any locking.
+ *
+ * <p>After every call the calling thread's sorter is trimmed to at most {@link #getMaxRetainedTokens()} pooled
+ * tokens, which bounds the memory retained per thread (each token is 40 or 48 bytes) after sorting unusually
+ * large nbt data.</p>
+ */
+public final class SharedBinaryNbtTagSorter {
+    /** Enough tokens to sort typical chunk data without growing the pool, roughly 0.75MB per thread. */
+    public static final int DEFAULT_MAX_RETAINED_TOKENS = 16 * 1024;
+
+    /** Shared instance using {@link #DEFAULT_MAX_RETAINED_TOKENS}. */
+    public static final SharedBinaryNbtTagSorter DEFAULT = new SharedBinaryNbtTagSorter(DEFAULT_MAX_RETAINED_TOKENS);
+
+    private final ThreadLocal<BinaryNbtTagSorter> sorters = new ThreadLocal<>();
+    private final int maxRetainedTokens;
+
+    /** @param maxRetainedTokens maximum number of pooled tokens each thread's sorter may hold on to between calls. */
+    public SharedBinaryNbtTagSorter(int maxRetainedTokens) {
+        ArgValidator.check(maxRetainedTokens >= 0);
+        this.maxRetainedTokens = maxRetainedTokens;
+    }
+
+    public int getMaxRetainedTokens() {
+        return maxRetainedTokens;
+    }
+
+    /** @see BinaryNbtTagSorter#sort(byte[]) */
+    public byte[] sort(byte[] nbtData) throws IOException {
+        BinaryNbtTagSorter sorter = acquire();
+        try {
+            return sorter.sort(nbtData);
+        } finally {
+            release(sorter);
+        }
+    }
+
+    /** @see BinaryNbtTagSorter#sort(byte[], OutputStream) */
+    public void sort(byte[] nbtData, OutputStream out) throws IOException {
+        sort(nbtData, nbtData.length, out);
+    }
+
+    /** @see BinaryNbtTagSorter#sort(byte[], int, OutputStream) */
+    public void sort(byte[] nbtData, int length, OutputStream out) throws IOException {
+        BinaryNbtTagSorter sorter = acquire();
+        try {
+            sorter.sort(nbtData, length, out);
+        } finally {
+            release(sorter);
+        }
+    }
+
+    /** @see BinaryNbtTagSorter#sort(byte[], ByteBuffer) */
+    public void sort(byte[] nbtData, ByteBuffer out) throws IOException {
+        BinaryNbtTagSorter sorter = acquire();
+        try {
+            sorter.sort(nbtData, out);
+        } finally {
+            release(sorter);
+        }
+    }
+
+    /**
+     * Takes the thread's sorter out of the pool while it is in use, a reentrant call on the same thread
+     * (such as from within an {@link OutputStream} being sorted into) gets a fresh sorter instead.
+     */
+    private BinaryNbtTagSorter acquire() {
+        BinaryNbtTagSorter sorter = sorters.get();
+        if (sorter == null) {
+            return new BinaryNbtTagSorter();
+        }
+        sorters.set(null);
+        return sorter;
+    }
+
+    private void release(BinaryNbtTagSorter sorter) {
+        sorter.releaseTokens(maxRetainedTokens);
+        sorters.set(sorter);
+    }
+}
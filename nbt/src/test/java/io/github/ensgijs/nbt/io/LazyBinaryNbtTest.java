@@ -0,0 +1,101 @@
+package io.github.ensgijs.nbt.io;
+
+import io.github.ensgijs.nbt.NbtTestCase;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.ListTag;
+import io.github.ensgijs.nbt.tag.Tag;
+import org.junit.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class LazyBinaryNbtTest extends NbtTestCase {
+
+	private static final String SAMPLE = "1_20_4/region/r.0.0/0299.11.9.snbt";
+
+	private NamedTag readSample() throws IOException {
+		NamedTag tag = TextNbtHelpers.readTextNbtFile(getResourceFile(SAMPLE));
+		return tag.getName() != null ? tag : new NamedTag("", tag.getTag());
+	}
+
+	private static byte[] toBytes(NamedTag tag) throws IOException {
+		return BinaryNbtHelpers.serializeAsBytes(tag, CompressionType.NONE);
+	}
+
+	private static NamedTag readLazy(byte[] bytes) throws IOException {
+		return LazyBinaryNbt.read(bytes, 0, bytes.length, Tag.DEFAULT_MAX_DEPTH);
+	}
+
+	public void testRead_untouchedIsWrittenVerbatim() throws IOException {
+		byte[] bytes = toBytes(readSample());
+		NamedTag lazy = readLazy(bytes);
+		assertTrue(((CompoundTag) lazy.getTag()).isLazy());
+		Assert.assertArrayEquals(bytes, toBytes(lazy));
+	}
+
+	public void testRead_equalsEagerDecode() throws IOException {
+		NamedTag eager = readSample();
+		NamedTag lazy = readLazy(toBytes(eager));
+		assertEquals(eager.getName(), lazy.getName());
+		assertEquals(eager.getTag(), lazy.getTag());
+	}
+
+	public void testRead_onlyAccessedSubtreesAreDecoded() throws IOException {
+		CompoundTag lazy = (CompoundTag) readLazy(toBytes(readSample())).getTag();
+		assertTrue(lazy.isLazy());
+		assertEquals(3700, lazy.getInt("DataVersion"));
+		assertFalse(lazy.isLazy());
+
+		ListTag<CompoundTag> sections = lazy.getCompoundList("sections");
+		assertTrue(sections.size() > 1);
+		for (CompoundTag section : sections) {
+			assertTrue(section.isLazy());
+		}
+		sections.get(0).getByte("Y");
+		assertFalse(sections.get(0).isLazy());
+		assertTrue(sections.get(1).isLazy());
+		assertTrue(lazy.getCompoundTag("Heightmaps").isLazy());
+	}
+
+	public void testRead_modifiedSubtreeIsReencoded() throws IOException {
+		NamedTag eager = readSample();
+		NamedTag lazy = readLazy(toBytes(eager));
+		((CompoundTag) eager.getTag()).putInt("xPos", 42);
+		((CompoundTag) eager.getTag()).getCompoundList("sections").get(1).putByte("Y", (byte) 99);
+		((CompoundTag) lazy.getTag()).putInt("xPos", 42);
+		((CompoundTag) lazy.getTag()).getCompoundList("sections").get(1).putByte("Y", (byte) 99);
+
+		byte[] written = toBytes(lazy);
+		assertEquals(eager.getTag(), BinaryNbtHelpers.deserializeBytes(written, CompressionType.NONE).getTag());
+	}
+
+	public void testRead_streamStopsAtEndOfTag() throws IOException {
+		byte[] bytes = toBytes(readSample());
+		byte[] padded = Arrays.copyOf(bytes, bytes.length + 3);
+		padded[bytes.length] = 7;
+		ByteArrayInputStream in = new ByteArrayInputStream(padded);
+		NamedTag lazy = LazyBinaryNbt.read(in, Tag.DEFAULT_MAX_DEPTH);
+		assertEquals(3, in.available());
+		assertEquals(7, in.read());
+		Assert.assertArrayEquals(bytes, toBytes(lazy));
+	}
+
+	public void testRead_rejectsMalformedData() throws IOException {
+		byte[] bytes = toBytes(readSample());
+		assertThrowsException(() -> readLazy(Arrays.copyOf(bytes, bytes.length - 1)), EOFException.class);
+		assertThrowsException(() -> readLazy(Arrays.copyOf(bytes, bytes.length + 1)), IOException.class);
+		assertThrowsException(() -> LazyBinaryNbt.read(bytes, 0, bytes.length, 2), MaxDepthReachedException.class);
+	}
+
+	public void testClone_staysLazy() throws IOException {
+		CompoundTag lazy = (CompoundTag) readLazy(toBytes(readSample())).getTag();
+		CompoundTag clone = lazy.clone();
+		assertTrue(clone.isLazy());
+		assertNotSame(lazy, clone);
+		clone.putInt("xPos", 1234);
+		assertTrue(lazy.isLazy());
+		assertEquals(readSample().getTag(), lazy);
+	}
+}
@@ -5,6 +5,8 @@ import io.github.ensgijs.nbt.tag.ShortTag;
 import io.github.ensgijs.nbt.NbtTestCase;
 import io.github.ensgijs.nbt.tag.StringTag;
 
+import java.util.Locale;
+
 public class NamedTagTest extends NbtTestCase {
 
 	public void testCreate() {
@@ -35,4 +37,21 @@ public class NamedTagTest extends NbtTestCase {
 		assertEquals(-1, NamedTag.compare(nt2, nt10));
 		assertEquals(1, NamedTag.compare(nt10, nt2));
 	}
+
+	public void testCompareNames_matchesLowerCaseOrder() {
+		String[] names = {"a", "B", "b", "ab", "Ab", "a_b", "a-b", "Z", "_", "-5", "+5", "5", "10", "x10", "Ä", "äb", "ΣA", "σa", ""};
+		for (String n1 : names) {
+			for (String n2 : names) {
+				String l1 = n1.toLowerCase(Locale.ENGLISH);
+				String l2 = n2.toLowerCase(Locale.ENGLISH);
+				int expected;
+				if (n1.matches("[-+]?\\d+") && n2.matches("[-+]?\\d+")) {
+					expected = Long.compare(Long.parseLong(n1), Long.parseLong(n2));
+				} else {
+					expected = l1.compareTo(l2) != 0 ? l1.compareTo(l2) : n1.compareTo(n2);
+				}
+				assertEquals(n1 + " <> " + n2, Integer.signum(expected), Integer.signum(NamedTag.compareNames(n1, n2)));
+			}
+		}
+	}
 }
@@ -0,0 +1,126 @@
+package io.github.ensgijs.nbt.io;
+
+import io.github.ensgijs.nbt.NbtTestCase;
+import io.github.ensgijs.nbt.tag.Tag;
+import io.github.ensgijs.nbt.util.JsonPrettyPrinter;
+import org.junit.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class NbtTranscoderTest extends NbtTestCase {
+
+	private static final String[] SAMPLES = {
+			"text_nbt_samples/little_of_everything.snbt",
+			"text_nbt_samples/named_item.snbt",
+			"text_nbt_samples/unnamed_tag_sample.snbt",
+			"text_nbt_samples/basic-nested-compounds-and-lists-with-root-tag-name.snbt",
+			"1_20_4/region/r.0.0/0299.11.9.snbt",
+	};
+
+	private String readSample(String name) throws IOException {
+		return Files.readString(getResourceFile(name).toPath(), StandardCharsets.UTF_8);
+	}
+
+	/** Binary nbt always has a root name, text nbt only sometimes. */
+	private NamedTag parseSample(String name) throws IOException {
+		NamedTag tag = new TextNbtParser(readSample(name)).readTag(Tag.DEFAULT_MAX_DEPTH);
+		return tag.getName() != null ? tag : new NamedTag("", tag.getTag());
+	}
+
+	public void testBinaryToTextNbt_matchesTextNbtHelpers() throws IOException {
+		for (String sample : SAMPLES) {
+			NamedTag tag = parseSample(sample);
+			byte[] gzipped = BinaryNbtHelpers.serializeAsBytes(tag, CompressionType.GZIP);
+			for (int i = 0; i < 4; i++) {
+				boolean pretty = (i & 1) != 0;
+				boolean sort = (i & 2) != 0;
+				StringWriter out = new StringWriter();
+				NbtTranscoder.binaryToTextNbt(new ByteArrayInputStream(gzipped), CompressionType.GZIP, out, pretty, sort);
+				assertEquals(sample + " pretty=" + pretty + " sort=" + sort,
+						TextNbtHelpers.toTextNbt(tag, pretty, sort), out.toString());
+			}
+		}
+	}
+
+	public void testBinaryToTextNbt_toOutputStream() throws IOException {
+		NamedTag tag = parseSample("text_nbt_samples/named_tag_sample-with_bom.snbt");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NbtTranscoder.binaryToTextNbt(new ByteArrayInputStream(BinaryNbtHelpers.serializeAsBytes(tag, CompressionType.NONE)),
+				CompressionType.NONE, out, false, true);
+		assertEquals(TextNbtHelpers.toTextNbt(tag, false, true), out.toString(StandardCharsets.UTF_8));
+	}
+
+	public void testTextNbtToBinary_matchesBinaryNbtSerializer() throws IOException {
+		for (String sample : SAMPLES) {
+			NamedTag tag = parseSample(sample);
+			String text = readSample(sample);
+			for (boolean sort : new boolean[] {false, true}) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				NbtTranscoder.textNbtToBinary(new StringReader(text), out, CompressionType.NONE, sort);
+				Assert.assertArrayEquals(sample + " sort=" + sort,
+						BinaryNbtHelpers.serializeAsBytes(tag, CompressionType.NONE, sort), out.toByteArray());
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			NbtTranscoder.textNbtToBinary(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), out, CompressionType.GZIP, false);
+			assertEquals(sample, tag, BinaryNbtHelpers.deserializeBytes(out.toByteArray(), CompressionType.GZIP));
+		}
+	}
+
+	public void testTextNbtToBinary_largeListsAreBackPatched() throws IOException {
+		StringBuilder sb = new StringBuilder("{a:[");
+		for (int i = 0; i < 5000; i++) {
+			if (i > 0) sb.append(',');
+			sb.append("{v:[I;").append(i).append(',').append(-i).append("],s:[\"").append(i).append("\"]}");
+		}
+		sb.append("],b:[B;").append("1,".repeat(20000)).append("1],c:[]}");
+		NamedTag tag = new NamedTag("", TextNbtParser.parseInline(sb.toString()));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NbtTranscoder.textNbtToBinary(new StringReader(sb.toString()), out, CompressionType.NONE, false);
+		Assert.assertArrayEquals(BinaryNbtHelpers.serializeAsBytes(tag, CompressionType.NONE), out.toByteArray());
+	}
+
+	private static String textNbtToBinaryError(String text) throws IOException {
+		try {
+			NbtTranscoder.textNbtToBinary(new StringReader(text), new ByteArrayOutputStream(), CompressionType.NONE, false);
+		} catch (ParseException ex) {
+			return ex.getMessage();
+		}
+		fail("no ParseException thrown for " + text);
+		return null;
+	}
+
+	public void testTextNbtToBinary_errors() throws IOException {
+		assertTrue(textNbtToBinaryError("[1,\"2\"]").startsWith("cannot add StringTag to ListTag<IntTag>"));
+		assertTrue(textNbtToBinaryError("{a:1} {b:2}").startsWith("invalid characters after end of text nbt"));
+		assertTrue(textNbtToBinaryError("[B;1,300]").startsWith("byte not in range: \"300\""));
+		assertTrue(textNbtToBinaryError("  ").startsWith("unexpected end of input"));
+	}
+
+	public void testBinaryToJson_matchesToString() throws IOException {
+		for (String sample : SAMPLES) {
+			NamedTag tag = parseSample(sample);
+			byte[] bytes = BinaryNbtHelpers.serializeAsBytes(tag, CompressionType.NONE);
+			String json = tag.getTag().toString();
+
+			StringWriter out = new StringWriter();
+			NbtTranscoder.binaryToJson(new ByteArrayInputStream(bytes), CompressionType.NONE, out, false, true);
+			assertEquals(sample, json, out.toString());
+
+			out = new StringWriter();
+			NbtTranscoder.binaryToJson(new ByteArrayInputStream(bytes), CompressionType.NONE, out, true, true);
+			assertEquals(sample, JsonPrettyPrinter.prettyPrintJson(json), out.toString());
+
+			// unsorted output holds the same entries in file order
+			out = new StringWriter();
+			NbtTranscoder.binaryToJson(new ByteArrayInputStream(bytes), CompressionType.NONE, out, false, false);
+			assertEquals(sample, json.length(), out.toString().length());
+		}
+	}
+}
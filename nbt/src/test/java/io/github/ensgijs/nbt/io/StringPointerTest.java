@@ -2,6 +2,8 @@ package io.github.ensgijs.nbt.io;
 
 import io.github.ensgijs.nbt.NbtTestCase;
 
+import java.io.StringReader;
+
 public class StringPointerTest extends NbtTestCase {
 
 	public void testLookAhead() {
@@ -87,4 +89,22 @@ public class StringPointerTest extends NbtTestCase {
 		ptr = new StringPointer("abcdefg");
 		assertEquals("abcdefg", ptr.parseSimpleString());
 	}
+
+	public void testStreamingFromReader() {
+		String longString = "x".repeat(300) + "\\\"" + "y".repeat(300);
+		StringPointer ptr = new StringPointer(new StringReader("\uFEFFabc_def \"" + longString + "\" 12"), 100);
+		assertEquals(0, ptr.size());
+		assertEquals("abc_def", ptr.parseSimpleString());
+		ptr.skipWhitespace();
+		assertEquals("x".repeat(300) + "\"" + "y".repeat(300), assertThrowsNoException(ptr::parseQuotedString));
+		ptr.skipWhitespace();
+		assertTrue(ptr.hasCharsLeft(1));
+		assertFalse(ptr.hasCharsLeft(2));
+		assertEquals('2', ptr.lookAhead(1));
+		assertEquals("12", ptr.parseSimpleString());
+		assertFalse(ptr.hasNext());
+		assertEquals(ptr.size(), ptr.getIndex());
+		assertThrowsRuntimeException(ptr::reset, IllegalStateException.class);
+		assertThrowsRuntimeException(ptr::currentChar, StringIndexOutOfBoundsException.class);
+	}
 }
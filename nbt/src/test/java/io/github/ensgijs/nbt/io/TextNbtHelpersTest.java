@@ -5,8 +5,11 @@ import io.github.ensgijs.nbt.tag.StringTag;
 import io.github.ensgijs.nbt.NbtTestCase;
 import org.junit.Assert;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 
 public class TextNbtHelpersTest extends NbtTestCase {
 
@@ -64,4 +67,17 @@ public class TextNbtHelpersTest extends NbtTestCase {
         assertEquals(namedTagGolden, readTag);
         verify(readTag.getTagAutoCast());
     }
+
+    public void testWriteTextNbt_toStreamAndWriter() throws IOException {
+        NamedTag namedTag = TextNbtHelpers.readTextNbtFile(getResourceFile("text_nbt_samples/little_of_everything.snbt"));
+        for (boolean prettyPrint : new boolean[] {false, true}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            TextNbtHelpers.writeTextNbt(bytes, namedTag, prettyPrint, true);
+            assertEquals(TextNbtHelpers.toTextNbt(namedTag, prettyPrint, true), bytes.toString(StandardCharsets.UTF_8));
+
+            StringWriter writer = new StringWriter();
+            TextNbtHelpers.writeTextNbt(writer, namedTag.getTag(), prettyPrint, false);
+            assertEquals(TextNbtHelpers.toTextNbt(namedTag.getTag(), prettyPrint, false), writer.toString());
+        }
+    }
 }
@@ -4,6 +4,7 @@ import io.github.ensgijs.nbt.NbtTestCase;
 import io.github.ensgijs.nbt.tag.*;
 import org.junit.Assert;
 
+import java.io.StringReader;
 import java.util.Arrays;
 
 public class TextNbtParserTest extends NbtTestCase {
@@ -264,4 +265,83 @@ public class TextNbtParserTest extends NbtTestCase {
 		assertEquals(StringTag.ID, namedTag.getTag().getID());
 		assertEquals("false", ((StringTag) namedTag.getTag()).getValue());
 	}
+
+	public void testParseLiteralEdgeCases() {
+		assertEquals(new DoubleTag(1), assertThrowsNoException(() -> new TextNbtParser("1.").parse()));
+		assertEquals(new DoubleTag(-0.5), assertThrowsNoException(() -> new TextNbtParser("-.5").parse()));
+		assertEquals(new FloatTag(0.5f), assertThrowsNoException(() -> new TextNbtParser("+.5f").parse()));
+		assertEquals(new DoubleTag(1.5e-3), assertThrowsNoException(() -> new TextNbtParser("1.5E-3").parse()));
+		assertEquals(new DoubleTag(1e5), assertThrowsNoException(() -> new TextNbtParser("1e5d").parse()));
+		assertEquals(new DoubleTag(7), assertThrowsNoException(() -> new TextNbtParser("7d").parse()));
+		assertEquals(new ShortTag((short) 7), assertThrowsNoException(() -> new TextNbtParser("+7s").parse()));
+		assertEquals(new ByteTag(true), assertThrowsNoException(() -> new TextNbtParser("TRUE").parse()));
+		// integer suffixes do not allow a fraction or exponent, and an unsuffixed exponent needs a '.'
+		for (String s : new String[] {"1e5", "1e", "1e5b", "1.b", "1.0l", "-", ".", "1fd", "0x10", "1_000"}) {
+			assertEquals(new StringTag(s), assertThrowsNoException(() -> new TextNbtParser(s).parse()));
+		}
+		assertThrowsException(() -> new TextNbtParser("99999999999b").parse(), ParseException.class,
+				msg -> msg.startsWith("byte not in range: \"99999999999\""));
+		assertThrowsException(() -> new TextNbtParser("2147483648").parse(), ParseException.class,
+				msg -> msg.startsWith("int not in range: \"2147483648\""));
+	}
+
+	public void testNumericListsArePrimitiveBacked() {
+		ListTag<?> list = assertThrowsNoException(() -> (ListTag<?>) new TextNbtParser("[1b, -2b, 3b]").parse());
+		assertEquals(ListTag.ofBytes((byte) 1, (byte) -2, (byte) 3), list);
+		assertEquals(ByteTag.class, list.getTypeClass());
+		assertFalse(invokeGetValue(list) instanceof java.util.ArrayList);
+
+		list = assertThrowsNoException(() -> (ListTag<?>) new TextNbtParser("[1.5d, 2.]").parse());
+		assertEquals(ListTag.ofDoubles(1.5, 2), list);
+		assertThrowsException(() -> new TextNbtParser("[1.5d, 2f]").parse(), ParseException.class);
+	}
+
+	public void testParseFromReader() {
+		CompoundTag tag = new CompoundTag();
+		for (int i = 0; i < 500; i++) {
+			CompoundTag entry = new CompoundTag();
+			entry.putString("name", "entry \"" + i + "\" with a somewhat longer string value");
+			entry.putIntArray("ints", new int[] {i, -i, Integer.MAX_VALUE});
+			entry.put("doubles", ListTag.ofDoubles(i / 3d, -i));
+			tag.put("e" + i, entry);
+		}
+		String text = TextNbtHelpers.toTextNbt(tag, true);
+		assertTrue(text.length() > 8192 * 4);
+		assertEquals(tag, assertThrowsNoException(() -> new TextNbtParser(new StringReader(text)).parse()));
+		assertEquals(tag, assertThrowsNoException(() -> new TextNbtParser(new StringBuilder(text)).parse()));
+		NamedTag named = assertThrowsNoException(() -> new TextNbtParser(new StringReader("\uFEFFroot: " + text)).readTag(Tag.DEFAULT_MAX_DEPTH));
+		assertEquals("root", named.getName());
+		assertEquals(tag, named.getTag());
+
+		assertThrowsException(() -> new TextNbtParser(new StringReader(text.replace("e499", "e499 oops"))).parse(),
+				ParseException.class, msg -> msg.startsWith("expected ':' but got 'o' at: ...") && msg.endsWith("e499 <--[HERE]"));
+	}
+
+	public void testReadTagFromReader_unnamedRootLargerThanBuffer() {
+		String longString = "x".repeat(8192 * 3);
+		NamedTag named = assertThrowsNoException(() -> new TextNbtParser(new StringReader("\"" + longString + "\"")).readTag(Tag.DEFAULT_MAX_DEPTH));
+		assertNull(named.getName());
+		assertEquals(new StringTag(longString), named.getTag());
+
+		named = assertThrowsNoException(() -> new TextNbtParser(new StringReader("  " + longString + " ")).readTag(Tag.DEFAULT_MAX_DEPTH));
+		assertNull(named.getName());
+		assertEquals(new StringTag(longString), named.getTag());
+
+		named = assertThrowsNoException(() -> new TextNbtParser(new StringReader("-12.5e3f")).readTag(Tag.DEFAULT_MAX_DEPTH));
+		assertNull(named.getName());
+		assertEquals(new FloatTag(-12.5e3f), named.getTag());
+
+		named = assertThrowsNoException(() -> new TextNbtParser(new StringReader("\"" + longString + "\": 1b")).readTag(Tag.DEFAULT_MAX_DEPTH));
+		assertEquals(longString, named.getName());
+		assertEquals(new ByteTag((byte) 1), named.getTag());
+	}
+
+	public void testParseSuccessiveValuesFromReader() {
+		TextNbtParser parser = new TextNbtParser(new StringReader("{a: 1b} [I; 2] \n \"three\"  "));
+		assertTrue(parser.hasNext());
+		assertEquals(TextNbtParser.parseInline("{a: 1b}"), assertThrowsNoException(() -> parser.parse(Tag.DEFAULT_MAX_DEPTH, true)));
+		assertEquals(new IntArrayTag(new int[] {2}), assertThrowsNoException(() -> parser.parse(Tag.DEFAULT_MAX_DEPTH, true)));
+		assertEquals(new StringTag("three"), assertThrowsNoException(() -> parser.parse(Tag.DEFAULT_MAX_DEPTH, true)));
+		assertFalse(parser.hasNext());
+	}
 }
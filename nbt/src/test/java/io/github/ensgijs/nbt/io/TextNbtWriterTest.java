@@ -4,6 +4,7 @@ import io.github.ensgijs.nbt.NbtTestCase;
 import io.github.ensgijs.nbt.tag.*;
 
 import java.util.LinkedHashMap;
+import java.util.stream.Collectors;
 
 public class TextNbtWriterTest extends NbtTestCase {
 
@@ -227,4 +228,44 @@ public class TextNbtWriterTest extends NbtTestCase {
 		ct.putString("not-a-bool-F", "false");
 		assertEquals("{not-a-bool-F:\"false\",not-a-bool-T:\"true\"}", TextNbtHelpers.toTextNbt(ct, false));
 	}
+
+	public void testEscapingMatchesEscapeHelpers() {
+		String[] values = {"", "a", "_a", "a1", "1a", "-a", "a-b", "a+b", "a.b", "a b", "true", "False", "trueish", "xtrue",
+				"quote\"d", "back\\slash", "new\nline", "tab\tbed", "cr\r", "äöü", "ABC_def-9"};
+		for (String value : values) {
+			assertEquals(StringTag.escapeString(value, true), TextNbtHelpers.toTextNbt(new StringTag(value), false));
+			CompoundTag tag = new CompoundTag();
+			tag.putInt(value, 1);
+			assertEquals("{" + NamedTag.escapeName(value) + ":1}", TextNbtHelpers.toTextNbt(tag, false));
+		}
+	}
+
+	public void testNumberFormatting() {
+		long[] longs = {0, 1, -1, 9, 10, -10, 99, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE + 1L,
+				Integer.MIN_VALUE - 1L, Long.MAX_VALUE, Long.MIN_VALUE, 1234567890123L, -987654321098765432L};
+		StringBuilder expected = new StringBuilder("[L;");
+		for (int i = 0; i < longs.length; i++) {
+			expected.append(i == 0 ? "" : ",").append(longs[i]);
+		}
+		assertEquals(expected.append(']').toString(), TextNbtHelpers.toTextNbt(new LongArrayTag(longs), false));
+		assertEquals("[1l,-9223372036854775808l]", TextNbtHelpers.toTextNbt(ListTag.ofLongs(1, Long.MIN_VALUE), false));
+		assertEquals("[-128b,127b]", TextNbtHelpers.toTextNbt(ListTag.ofBytes(Byte.MIN_VALUE, Byte.MAX_VALUE), false));
+		assertEquals("[-32768s,7s]", TextNbtHelpers.toTextNbt(ListTag.ofShorts(Short.MIN_VALUE, (short) 7), false));
+		assertEquals("[-2147483648,0]", TextNbtHelpers.toTextNbt(ListTag.ofInts(Integer.MIN_VALUE, 0), false));
+		assertEquals("[1.5f,NaNf]", TextNbtHelpers.toTextNbt(ListTag.ofFloats(1.5f, Float.NaN), false));
+		assertEquals("[1.0E-300d]", TextNbtHelpers.toTextNbt(ListTag.ofDoubles(1e-300), false));
+	}
+
+	public void testSortedOutputIsLargerThanBuffer() {
+		CompoundTag tag = new CompoundTag();
+		for (int i = 0; i < 2000; i++) {
+			tag.putString((i % 2 == 0 ? "Key" : "key") + (1999 - i), "value " + i);
+		}
+		String sorted = TextNbtHelpers.toTextNbt(tag, false);
+		assertTrue(sorted.length() > 8192 * 4);
+		String expected = "{" + tag.stream().sorted(NamedTag::compare)
+				.map(nt -> nt.getName() + ":\"" + ((StringTag) nt.getTag()).getValue() + "\"")
+				.collect(Collectors.joining(",")) + "}";
+		assertEquals(expected, sorted);
+	}
 }
@@ -0,0 +1,102 @@
+package io.github.ensgijs.nbt.query;
+
+import io.github.ensgijs.nbt.NbtTestCase;
+import io.github.ensgijs.nbt.io.BinaryNbtHelpers;
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.TextNbtHelpers;
+import io.github.ensgijs.nbt.io.TextNbtParser;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.tag.Tag;
+import org.junit.Assert;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class NbtPathSetTest extends NbtTestCase {
+
+    private static final String DATA = "{Level:{xPos:3,zPos:-7,Sections:[{Y:0b,data:[L;1,2]},{Y:1b}]," +
+            "Lights:[[1s],[2s,3s]],Status:\"full\"},team:[{name:\"a\"},{name:\"b\",byte:[B;4]}],ints:[I;5,6]}";
+
+    private static final String[] DATA_PATHS = {
+            "Level.xPos", "Level.zPos", "Level", "Level.Sections[0].Y", "Level.Sections[1].Y",
+            "Level.Sections[1]", "Level.Sections[0].data[1]", "Level.Sections[0].data[2]",
+            "Level.Lights[1][0]", "Level.Lights[0][0]", "Level.Lights[2][0]", "Level.Status",
+            "Level.yPos", "nope.nope.nope", "team[1].byte[0]", "team[0].name", "team[1].name", "ints[1]", "ints",
+            "", "Level.xPos"};
+
+    private void assertMatchesNbtPath(Tag<?> root, String... paths) throws IOException {
+        NbtPath[] compiled = Arrays.stream(paths).map(NbtPath::of).toArray(NbtPath[]::new);
+        NbtPathSet set = NbtPathSet.of(compiled);
+        assertEquals(paths.length, set.size());
+        Object[] values = set.getAll(root);
+        Object[] binaryValues = set.getAllFromBinary(
+                BinaryNbtHelpers.serializeAsBytes(new NamedTag("root", root), CompressionType.NONE));
+        assertEquals(paths.length, values.length);
+        for (int i = 0; i < paths.length; i++) {
+            assertSame(paths[i], compiled[i], set.getPath(i));
+            assertEquals(paths[i], compiled[i].get(root), values[i]);
+            assertEquals(paths[i], compiled[i].get(root), binaryValues[i]);
+        }
+    }
+
+    public void testGetAll_matchesNbtPath() throws IOException {
+        CompoundTag root = (CompoundTag) TextNbtParser.parseInline(DATA);
+        assertMatchesNbtPath(root, DATA_PATHS);
+        // each path on its own, so the binary scan visits every kind of subtree with nothing else pending
+        for (String path : DATA_PATHS) {
+            assertMatchesNbtPath(root, path);
+        }
+        assertMatchesNbtPath(root, "Level.Lights[1][1]", "Level.Lights[1]", "Level.Lights[0][0]", "ints[0]",
+                "ints[2]", "ints[1]", "team[1].byte[0]", "team[1].byte[1]");
+    }
+
+    public void testGetAllFromBinary_chunk() throws IOException {
+        Tag<?> chunk = TextNbtHelpers.readTextNbtFile(getResourceFile("1_20_4/region/r.0.0/0299.11.9.snbt")).getTag();
+        assertMatchesNbtPath(chunk, "DataVersion", "Status", "xPos", "zPos", "InhabitedTime", "yPos",
+                "sections[3].Y", "sections[3].block_states.palette[0].Name", "Heightmaps.WORLD_SURFACE[2]",
+                "structures.starts", "block_entities[0]", "nope");
+    }
+
+    public void testGetAllFromBinary_stopsOnceAllPathsAreResolved() throws IOException {
+        byte[] data = BinaryNbtHelpers.serializeAsBytes(
+                new NamedTag("", TextNbtParser.parseInline("{a:{b:1,c:[2,3]},z:{filler:[L;1,2,3,4,5]}}")),
+                CompressionType.NONE);
+        // cut off inside of z
+        byte[] truncated = Arrays.copyOf(data, data.length - 20);
+        Object[] values = NbtPathSet.of(NbtPath.of("a.b"), NbtPath.of("a.c[1]")).getAllFromBinary(truncated);
+        assertEquals(1, ((IntTag) values[0]).asInt());
+        assertEquals(3, ((IntTag) values[1]).asInt());
+        // a missing path forces a scan of everything
+        assertThrowsException(() -> NbtPathSet.of(NbtPath.of("a.b"), NbtPath.of("q")).getAllFromBinary(truncated),
+                EOFException.class);
+    }
+
+    public void testGetAll_nullPathsAndRoot() {
+        CompoundTag root = (CompoundTag) TextNbtParser.parseInline(DATA);
+        NbtPathSet set = NbtPathSet.of(null, NbtPath.of("Level.Status"), null);
+        Assert.assertArrayEquals(new Object[] {null, root.getCompoundTag("Level").get("Status"), null}, set.getAll(root));
+        Assert.assertArrayEquals(new Object[3], set.getAll(null));
+        assertEquals(0, NbtPathSet.of().getAll(root).length);
+    }
+
+    public void testGetAll_reusesValuesArray() {
+        NbtPathSet set = NbtPathSet.of(NbtPath.of("a"), NbtPath.of("b"));
+        Object[] values = {"x", "y", "z"};
+        set.getAll(TextNbtParser.parseInline("{b:1}"), values);
+        assertNull(values[0]);
+        assertEquals(1, ((IntTag) values[1]).asInt());
+        assertEquals("z", values[2]);
+        assertThrowsIllegalArgumentException(() -> set.getAll(TextNbtParser.parseInline("{}"), new Object[1]));
+    }
+
+    public void testGetAll_pathContinuingPastArrayElementThrows() throws IOException {
+        CompoundTag root = (CompoundTag) TextNbtParser.parseInline(DATA);
+        NbtPathSet set = NbtPathSet.of(NbtPath.of("team[1].name"), NbtPath.of("team[1].byte[0].x"));
+        assertThrowsException(() -> set.getAll(root), IllegalStateException.class);
+        byte[] data = BinaryNbtHelpers.serializeAsBytes(new NamedTag("", root), CompressionType.NONE);
+        assertThrowsException(() -> set.getAllFromBinary(data), IllegalStateException.class);
+    }
+}
@@ -67,4 +67,17 @@ public class ByteTagTest extends NbtTestCase {
 		assertEquals(1, new ByteTag(true).asByte());
 		assertEquals(0, new ByteTag(false).asByte());
 	}
+
+	public void testShared() {
+		assertSame(ByteTag.valueOf((byte) 1), ByteTag.valueOf(true));
+		assertSame(ByteTag.valueOf(Byte.MIN_VALUE), ByteTag.valueOf(Byte.MIN_VALUE));
+		assertTrue(ByteTag.valueOf(false).isShared());
+		assertFalse(new ByteTag(false).isShared());
+		assertEquals(new ByteTag(Byte.MAX_VALUE), ByteTag.valueOf(Byte.MAX_VALUE));
+		assertThrowsUnsupportedOperationException(() -> ByteTag.valueOf((byte) 0).setValue((byte) 1));
+		ByteTag copy = ByteTag.valueOf((byte) 0).clone();
+		assertFalse(copy.isShared());
+		copy.setValue((byte) 1);
+		assertEquals(0, ByteTag.valueOf((byte) 0).asByte());
+	}
 }
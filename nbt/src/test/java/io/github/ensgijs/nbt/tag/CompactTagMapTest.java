@@ -0,0 +1,137 @@
+package io.github.ensgijs.nbt.tag;
+
+import io.github.ensgijs.nbt.NbtTestCase;
+
+import java.util.*;
+
+public class CompactTagMapTest extends NbtTestCase {
+
+	private static CompactTagMap fill(CompactTagMap map, int count) {
+		for (int i = 0; i < count; i++) {
+			map.put("k" + i, new IntTag(i));
+		}
+		return map;
+	}
+
+	private static List<String> keys(Map<String, Tag<?>> map) {
+		return new ArrayList<>(map.keySet());
+	}
+
+	public void testInsertionOrderIsKeptAcrossUpgrade() {
+		CompactTagMap map = new CompactTagMap();
+		LinkedHashMap<String, Tag<?>> control = new LinkedHashMap<>();
+		for (int i = 0; i < CompactTagMap.COMPACT_THRESHOLD * 3; i++) {
+			String key = "key" + ((i * 7) % 31);
+			map.put(key, new IntTag(i));
+			control.put(key, new IntTag(i));
+			assertEquals(keys(control), keys(map));
+			assertEquals(i < CompactTagMap.COMPACT_THRESHOLD, map.isCompact());
+		}
+		assertEquals(control, map);
+		assertEquals(control.hashCode(), map.hashCode());
+	}
+
+	public void testPutReplacesInPlace() {
+		CompactTagMap map = fill(new CompactTagMap(), 3);
+		assertEquals(new IntTag(1), map.put("k1", new StringTag("x")));
+		assertEquals(Arrays.asList("k0", "k1", "k2"), keys(map));
+		assertEquals(new StringTag("x"), map.get("k1"));
+		assertEquals(3, map.size());
+	}
+
+	public void testNullsRejected() {
+		CompactTagMap map = new CompactTagMap();
+		assertThrowsRuntimeException(() -> map.put(null, new IntTag()), NullPointerException.class);
+		assertThrowsRuntimeException(() -> map.put("a", null), NullPointerException.class);
+		assertNull(map.get(null));
+		assertFalse(map.containsKey(null));
+		assertNull(map.remove(null));
+	}
+
+	public void testRemove() {
+		CompactTagMap map = fill(new CompactTagMap(), 5);
+		assertEquals(new IntTag(2), map.remove("k2"));
+		assertNull(map.remove("k2"));
+		assertEquals(Arrays.asList("k0", "k1", "k3", "k4"), keys(map));
+		assertFalse(map.containsKey("k2"));
+		assertTrue(map.containsValue(new IntTag(4)));
+		assertFalse(map.containsValue(new IntTag(2)));
+	}
+
+	public void testIteratorRemove() {
+		CompactTagMap map = fill(new CompactTagMap(), 6);
+		map.entrySet().removeIf(e -> ((IntTag) e.getValue()).asInt() % 2 == 0);
+		assertEquals(Arrays.asList("k1", "k3", "k5"), keys(map));
+		map.keySet().remove("k3");
+		assertEquals(Arrays.asList("k1", "k5"), keys(map));
+		map.values().clear();
+		assertTrue(map.isEmpty());
+	}
+
+	public void testEntrySetValueWritesThrough() {
+		CompactTagMap map = fill(new CompactTagMap(), 4);
+		for (Map.Entry<String, Tag<?>> e : map.entrySet()) {
+			e.setValue(new StringTag(e.getKey()));
+		}
+		assertEquals(new StringTag("k3"), map.get("k3"));
+
+		CompactTagMap big = fill(new CompactTagMap(), CompactTagMap.COMPACT_THRESHOLD + 1);
+		assertFalse(big.isCompact());
+		big.entrySet().iterator().next().setValue(new StringTag("first"));
+		assertEquals(new StringTag("first"), big.get("k0"));
+	}
+
+	public void testConcurrentModificationDetected() {
+		CompactTagMap map = fill(new CompactTagMap(), 3);
+		Iterator<String> iter = map.keySet().iterator();
+		iter.next();
+		map.put("new", new IntTag());
+		assertThrowsRuntimeException(iter::next, ConcurrentModificationException.class);
+
+		CompactTagMap full = fill(new CompactTagMap(), CompactTagMap.COMPACT_THRESHOLD);
+		Iterator<String> iter2 = full.keySet().iterator();
+		full.put("upgrade", new IntTag());
+		assertTrue(iter2.hasNext());
+		assertThrowsRuntimeException(iter2::next, ConcurrentModificationException.class);
+	}
+
+	public void testViewsSurviveUpgrade() {
+		CompactTagMap map = new CompactTagMap();
+		Set<Map.Entry<String, Tag<?>>> entries = map.entrySet();
+		Set<String> keys = map.keySet();
+		fill(map, CompactTagMap.COMPACT_THRESHOLD * 2);
+		assertFalse(map.isCompact());
+		assertEquals(CompactTagMap.COMPACT_THRESHOLD * 2, entries.size());
+		assertTrue(keys.contains("k15"));
+	}
+
+	public void testInitialCapacity() {
+		assertTrue(new CompactTagMap(0).isCompact());
+		assertTrue(new CompactTagMap(CompactTagMap.COMPACT_THRESHOLD).isCompact());
+		assertFalse(new CompactTagMap(CompactTagMap.COMPACT_THRESHOLD + 1).isCompact());
+		assertThrowsIllegalArgumentException(() -> new CompactTagMap(-1));
+		CompactTagMap map = fill(new CompactTagMap(0), 3);
+		assertEquals(Arrays.asList("k0", "k1", "k2"), keys(map));
+	}
+
+	public void testCompoundTagUsesCompactMap() {
+		CompoundTag tag = new CompoundTag();
+		assertTrue(invokeGetValue(tag) instanceof CompactTagMap);
+		assertTrue(invokeGetValue(tag.clone()) instanceof CompactTagMap);
+	}
+
+	public void testFrozenHashCode() {
+		for (int count : new int[] {3, CompactTagMap.COMPACT_THRESHOLD * 2}) {
+			CompactTagMap map = fill(new CompactTagMap(), count);
+			LinkedHashMap<String, Tag<?>> control = new LinkedHashMap<>(map);
+			map.freeze();
+			assertEquals(control.hashCode(), map.hashCode());
+			// the cached hash must not trip iterators of the frozen map
+			Iterator<Map.Entry<String, Tag<?>>> iter = map.entrySet().iterator();
+			iter.next();
+			assertEquals(control.hashCode(), map.hashCode());
+			assertThrowsNoRuntimeException(iter::next);
+			assertEquals(control.hashCode(), map.copyOnWrite().hashCode());
+		}
+	}
+}
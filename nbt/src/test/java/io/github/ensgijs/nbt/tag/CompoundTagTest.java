@@ -3,6 +3,7 @@ package io.github.ensgijs.nbt.tag;
 import io.github.ensgijs.nbt.io.MaxDepthReachedException;
 import io.github.ensgijs.nbt.io.NamedTag;
 import io.github.ensgijs.nbt.NbtTestCase;
+import io.github.ensgijs.nbt.util.ObservedCompoundTag;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -582,4 +583,128 @@ public class CompoundTagTest extends NbtTestCase {
 		assertEquals("world", ct.get("hello").getValue());
 		assertEquals(-7, ct.get("goodbye").getValue());
 	}
+
+	public void testFreeze() {
+		CompoundTag ct = new CompoundTag();
+		ct.putString("name", "bob");
+		CompoundTag inner = new CompoundTag();
+		inner.putInt("x", 1);
+		ct.put("inner", inner);
+		ListTag<CompoundTag> list = new ListTag<>(CompoundTag.class);
+		list.add(new CompoundTag());
+		ct.put("list", list);
+		for (int i = 0; i < CompactTagMap.COMPACT_THRESHOLD; i++) {
+			ct.putInt("k" + i, i);
+		}
+
+		assertSame(ct, ct.freeze());
+		assertTrue(ct.isFrozen());
+		assertTrue(inner.isFrozen());
+		assertTrue(list.isFrozen());
+		assertTrue(list.get(0).isFrozen());
+		assertThrowsUnsupportedOperationException(() -> ct.putInt("y", 2));
+		assertThrowsUnsupportedOperationException(() -> ct.remove("name"));
+		assertThrowsUnsupportedOperationException(ct::clear);
+		assertThrowsUnsupportedOperationException(() -> inner.putInt("x", 2));
+		assertThrowsUnsupportedOperationException(() -> ct.keySet().remove("name"));
+		assertThrowsUnsupportedOperationException(() -> ct.entrySet().iterator().next().setValue(new IntTag()));
+		assertThrowsUnsupportedOperationException(() -> list.add(new CompoundTag()));
+		assertThrowsUnsupportedOperationException(() -> list.get(0).putInt("z", 3));
+		assertEquals(1, inner.getInt("x"));
+	}
+
+	public void testCloneOfFrozenIsCopyOnWrite() {
+		CompoundTag ct = new CompoundTag();
+		CompoundTag inner = new CompoundTag();
+		inner.putInt("x", 1);
+		ct.put("inner", inner);
+		ct.putString("name", "bob");
+		ct.freeze();
+
+		CompoundTag copy = ct.clone();
+		assertFalse(copy.isFrozen());
+		assertEquals(ct, copy);
+		assertEquals(ct.hashCode(), copy.hashCode());
+		CompoundTag copyInner = copy.getCompoundTag("inner");
+		assertNotSame(inner, copyInner);
+		assertFalse(copyInner.isFrozen());
+		copyInner.putInt("x", 2);
+		copy.getStringTag("name").setValue("alice");
+		copy.putInt("new", 3);
+		assertEquals(1, ct.getCompoundTag("inner").getInt("x"));
+		assertEquals("bob", ct.getString("name"));
+		assertFalse(ct.containsKey("new"));
+
+		// a clone of an untouched copy shares the frozen children too
+		CompoundTag copy2 = ct.clone().clone();
+		copy2.getCompoundTag("inner").putInt("x", 5);
+		assertEquals(1, inner.getInt("x"));
+	}
+
+	public void testFreeze_leavesRejectModification() {
+		CompoundTag ct = new CompoundTag();
+		ct.putInt("x", 5000);
+		ct.putString("s", "a");
+		ct.putLongArray("la", new long[] {1});
+		ct.put("d", ListTag.ofDoubles(1.5, 2.5));
+		ct.freeze();
+		assertTrue(ct.getIntTag("x").isFrozen());
+		assertThrowsUnsupportedOperationException(() -> ct.getIntTag("x").setValue(2));
+		assertThrowsUnsupportedOperationException(() -> ct.getStringTag("s").setValue("b"));
+		assertThrowsUnsupportedOperationException(() -> ct.getLongArrayTag("la").setValue(new long[0]));
+		assertThrowsUnsupportedOperationException(() -> ct.getListTag("d").asDoubleTagList().get(0).setValue(3));
+		assertEquals(5000, ct.getInt("x"));
+		assertEquals(1.5, ct.getListTag("d").asDoubleTagList().get(0).asDouble());
+
+		// clones hand out modifiable leaves without affecting the frozen original
+		CompoundTag copy = ct.clone();
+		copy.getIntTag("x").setValue(2);
+		assertEquals(5000, ct.getInt("x"));
+		assertEquals(2, copy.getInt("x"));
+	}
+
+	public void testCloneOfFrozen_putKeepsInstance() {
+		CompoundTag frozen = new CompoundTag();
+		frozen.putInt("x", 1);
+		frozen.freeze();
+		CompoundTag copy = frozen.clone();
+		ListTag<IntTag> list = new ListTag<>(IntTag.class);
+		copy.put("l", list);
+		assertSame(list, copy.get("l"));
+		list.addInt(5);
+		assertEquals(1, copy.getListTag("l").size());
+		assertFalse(frozen.containsKey("l"));
+
+		CompoundTag copy2 = frozen.clone();
+		copy2.remove("nope");
+		IntTag x = copy2.getIntTag("x");
+		assertNotSame(frozen.getIntTag("x"), x);
+		assertSame(x, copy2.getIntTag("x"));
+	}
+
+	public void testFrozenHashCode_arraysAreNotCached() {
+		CompoundTag a = new CompoundTag();
+		a.putIntArray("ia", new int[] {1, 2});
+		a.putString("s", "a");
+		CompoundTag b = a.clone();
+		a.freeze();
+		b.freeze();
+		assertEquals(a, b);
+		int hash = a.hashCode();
+		// the array itself can't be protected, a changed array must be reflected by hashCode and equals
+		a.getIntArrayTag("ia").getValue()[0] = 7;
+		assertFalse(hash == a.hashCode());
+		assertFalse(a.equals(b));
+		b.getIntArrayTag("ia").getValue()[0] = 7;
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+	}
+
+	public void testFreezeObservedCompoundTag() {
+		CompoundTag ct = new CompoundTag();
+		ObservedCompoundTag observed = new ObservedCompoundTag(ct);
+		observed.freeze();
+		assertTrue(ct.isFrozen());
+		assertTrue(observed.isFrozen());
+	}
 }
@@ -1,7 +1,11 @@
 package io.github.ensgijs.nbt.tag;
 
 import io.github.ensgijs.nbt.NbtTestCase;
+import io.github.ensgijs.nbt.io.BinaryNbtDeserializer;
+import io.github.ensgijs.nbt.io.CompressionType;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Arrays;
 
 public class IntTagTest extends NbtTestCase {
@@ -56,4 +60,32 @@ public class IntTagTest extends NbtTestCase {
 		assertTrue(0 > new IntTag(5).compareTo(new IntTag(7)));
 		assertThrowsRuntimeException(() -> new IntTag(5).compareTo(null), NullPointerException.class);
 	}
+
+	public void testShared() {
+		assertSame(IntTag.valueOf(-128), IntTag.valueOf(-128));
+		assertSame(IntTag.valueOf(1024), IntTag.valueOf(1024));
+		assertNotSame(IntTag.valueOf(1025), IntTag.valueOf(1025));
+		assertTrue(IntTag.valueOf(0).isShared());
+		assertFalse(new IntTag(0).isShared());
+		assertFalse(IntTag.valueOf(Integer.MAX_VALUE).isShared());
+		assertEquals(new IntTag(42), IntTag.valueOf(42));
+		assertEquals(new IntTag(42).hashCode(), IntTag.valueOf(42).hashCode());
+		assertThrowsUnsupportedOperationException(() -> IntTag.valueOf(5).setValue(6));
+		assertEquals(5, IntTag.valueOf(5).asInt());
+	}
+
+	public void testDeserializeShared() throws IOException {
+		CompoundTag ct = new CompoundTag();
+		ct.putInt("small", 3);
+		ct.putInt("big", 1 << 20);
+		ct.putByte("b", (byte) 1);
+		byte[] data = serialize(ct);
+		CompoundTag shared = (CompoundTag) new BinaryNbtDeserializer(CompressionType.NONE, false, true)
+				.fromStream(new ByteArrayInputStream(data)).getTag();
+		assertEquals(ct, shared);
+		assertSame(IntTag.valueOf(3), shared.getIntTag("small"));
+		assertFalse(shared.getIntTag("big").isShared());
+		assertSame(ByteTag.valueOf(true), shared.getByteTag("b"));
+		assertFalse(((CompoundTag) deserialize(data)).getIntTag("small").isShared());
+	}
 }
@@ -510,4 +510,68 @@ public class ListTagTest extends NbtTestCase {
 		assertEquals("A quick dog almost jumps over the lazy dog",
 				tag.stream().map(StringTag::getValue).collect(Collectors.joining(" ")));
 	}
+
+	public void testFreeze() {
+		ListTag<IntTag> ints = ListTag.ofInts(1, 2, 3).freeze();
+		assertTrue(ints.isFrozen());
+		assertThrowsUnsupportedOperationException(() -> ints.addInt(4));
+		assertThrowsUnsupportedOperationException(() -> ints.add(new IntTag(4)));
+		assertThrowsUnsupportedOperationException(() -> ints.remove(0));
+		assertThrowsUnsupportedOperationException(() -> ints.set(0, new IntTag(4)));
+		assertThrowsUnsupportedOperationException(() -> ints.sort(Comparator.reverseOrder()));
+		assertThrowsUnsupportedOperationException(() -> ints.iterator().remove());
+		assertThrowsUnsupportedOperationException(() -> ints.subList(0, 2).clear());
+		assertThrowsUnsupportedOperationException(ints::clear);
+		assertEquals(2, ints.getInt(1));
+		assertEquals(new IntTag(2), ints.get(1));
+		assertEquals(3, ints.size());
+
+		ListTag<IntTag> copy = ints.clone();
+		assertFalse(copy.isFrozen());
+		copy.addInt(4);
+		copy.get(0).setValue(10);
+		assertEquals(1, ints.getInt(0));
+		assertEquals(3, ints.size());
+	}
+
+	public void testCloneOfFrozenIsCopyOnWrite() {
+		ListTag<CompoundTag> list = new ListTag<>(CompoundTag.class);
+		CompoundTag a = new CompoundTag();
+		a.putString("id", "a");
+		list.add(a);
+		list.freeze();
+		assertTrue(a.isFrozen());
+
+		ListTag<CompoundTag> copy = list.clone();
+		assertEquals(1, copy.size());
+		assertEquals(CompoundTag.class, copy.getTypeClass());
+		assertEquals(list, copy);
+		CompoundTag copyA = copy.get(0);
+		assertNotSame(a, copyA);
+		copyA.putString("id", "b");
+		copy.add(new CompoundTag());
+		assertEquals("a", list.get(0).getString("id"));
+		assertEquals(1, list.size());
+	}
+
+	public void testFrozenHashCodeAndEquals() {
+		ListTag<StringTag> a = ListTag.ofStrings(List.of("a", "b"));
+		ListTag<StringTag> b = ListTag.ofStrings(List.of("a", "c"));
+		int unfrozenHash = a.hashCode();
+		a.freeze();
+		b.freeze();
+		assertEquals(unfrozenHash, a.hashCode());
+		assertEquals(a.hashCode(), a.clone().hashCode());
+		assertFalse(a.equals(b));
+		assertTrue(a.equals(ListTag.ofStrings(List.of("a", "b")).freeze()));
+		assertTrue(a.equals(ListTag.ofStrings(List.of("a", "b"))));
+
+		// array contents can still change, so such lists must not cache their hash
+		ListTag<IntArrayTag> arrays = new ListTag<>(IntArrayTag.class);
+		arrays.add(new IntArrayTag(1, 2));
+		arrays.freeze();
+		int hash = arrays.hashCode();
+		arrays.get(0).getValue()[0] = 5;
+		assertFalse(hash == arrays.hashCode());
+	}
 }
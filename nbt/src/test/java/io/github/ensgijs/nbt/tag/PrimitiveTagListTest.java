@@ -0,0 +1,104 @@
+package io.github.ensgijs.nbt.tag;
+
+import io.github.ensgijs.nbt.NbtTestCase;
+
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class PrimitiveTagListTest extends NbtTestCase {
+
+	public void testPrimitiveAccessors() {
+		ListTag<DoubleTag> list = ListTag.ofDoubles(1.5, -2.25, 3);
+		PrimitiveTagList<?> values = (PrimitiveTagList<?>) invokeGetValue(list);
+		assertEquals(-2.25, list.getDouble(1));
+		assertEquals(-2, list.getInt(1));
+		assertEquals(1.5f, list.getFloat(0));
+		assertArrayEquals(new double[] {1.5, -2.25, 3}, list.toDoubleArray(), 0);
+		assertEquals(Objects.hash(DoubleTag.class.hashCode(), Arrays.asList(
+				new DoubleTag(1.5), new DoubleTag(-2.25), new DoubleTag(3)).hashCode()), list.hashCode());
+		assertSame(values, invokeGetValue(list));
+		assertThrowsRuntimeException(() -> list.getDouble(3), IndexOutOfBoundsException.class);
+	}
+
+	public void testMaterializedTagsAreRetainedAndObserved() {
+		ListTag<IntTag> list = ListTag.ofInts(1, 2, 3);
+		IntTag second = list.get(1);
+		assertSame(second, list.get(1));
+		second.setValue(20);
+		assertEquals(20, list.getInt(1));
+		assertArrayEquals(new int[] {1, 20, 3}, list.toIntArray());
+
+		IntTag added = new IntTag(4);
+		list.add(added);
+		assertSame(added, list.get(3));
+		added.setValue(40);
+		assertEquals(40, list.getLong(3));
+
+		assertEquals(new IntTag(1), list.remove(0));
+		assertArrayEquals(new int[] {20, 3, 40}, list.toIntArray());
+		assertSame(second, list.get(0));
+		assertEquals(new IntTag(3), list.set(1, new IntTag(30)));
+		assertEquals(30, list.getInt(1));
+	}
+
+	public void testPrimitiveAdd() {
+		ListTag<LongTag> list = ListTag.ofLongs();
+		for (long i = 0; i < 10; i++) {
+			list.addLong(i * Integer.MAX_VALUE);
+		}
+		assertEquals(10, list.size());
+		assertEquals(9L * Integer.MAX_VALUE, list.getLong(9));
+		assertTrue(invokeGetValue(list) instanceof PrimitiveTagList.OfLong);
+		assertThrowsRuntimeException(() -> list.addInt(1), IllegalArgumentException.class);
+		assertThrowsRuntimeException(() -> list.asTypedList(IntTag.class).add(new IntTag(1)), ClassCastException.class);
+		assertEquals(10, list.size());
+		list.clear();
+		assertTrue(list.isEmpty());
+		list.addLong(7);
+		assertEquals(new LongTag(7), list.get(0));
+	}
+
+	public void testEqualsMatchesTagBackedLists() {
+		ListTag<FloatTag> primitive = ListTag.ofFloats(1f, Float.NaN, -0f);
+		ListTag<FloatTag> tags = new ListTag<>(FloatTag.class);
+		tags.add(new FloatTag(1f));
+		tags.add(new FloatTag(Float.NaN));
+		tags.add(new FloatTag(-0f));
+		assertEquals(tags, primitive);
+		assertEquals(primitive, tags);
+		assertEquals(tags.hashCode(), primitive.hashCode());
+		assertEquals(primitive, ListTag.ofFloats(1f, Float.NaN, -0f));
+		assertFalse(primitive.equals(ListTag.ofFloats(1f, Float.NaN, 0f)));
+		assertFalse(ListTag.ofBytes((byte) 1).equals(ListTag.ofShorts((short) 1)));
+	}
+
+	public void testClone() {
+		ListTag<ShortTag> list = ListTag.ofShorts((short) 1, (short) 2);
+		list.get(0).setValue((short) 10);
+		ListTag<ShortTag> copy = list.clone();
+		assertEquals(list, copy);
+		assertNotSame(list.get(0), copy.get(0));
+		copy.addShort((short) 3);
+		assertEquals(2, list.size());
+		assertEquals(ShortTag.class, copy.getTypeClass());
+	}
+
+	public void testSerializeDeserialize() {
+		for (ListTag<?> list : List.of(
+				ListTag.ofBytes((byte) 1, (byte) -1),
+				ListTag.ofShorts((short) 300, Short.MIN_VALUE),
+				ListTag.ofInts(Integer.MAX_VALUE, 5),
+				ListTag.ofLongs(Long.MIN_VALUE),
+				ListTag.ofFloats(1.25f),
+				ListTag.ofDoubles(Math.PI, Double.NEGATIVE_INFINITY))) {
+			ListTag<?> read = (ListTag<?>) deserialize(serialize(list));
+			assertTrue(invokeGetValue(read) instanceof PrimitiveTagList);
+			assertEquals(list, read);
+			assertEquals(list.getTypeClass(), read.getTypeClass());
+
+			ListTag<?> tagBacked = new ListTag<>(new ArrayList<>(list));
+			assertTrue(Arrays.equals(serialize(tagBacked), serialize(list)));
+		}
+	}
+}
@@ -57,4 +57,13 @@ public class ShortTagTest extends NbtTestCase {
 		assertTrue(0 > new ShortTag((short) 5).compareTo(new ShortTag((short) 7)));
 		assertThrowsRuntimeException(() -> new ShortTag((short) 5).compareTo(null), NullPointerException.class);
 	}
+
+	public void testShared() {
+		assertSame(ShortTag.valueOf((short) -128), ShortTag.valueOf((short) -128));
+		assertSame(ShortTag.valueOf((short) 1024), ShortTag.valueOf((short) 1024));
+		assertNotSame(ShortTag.valueOf((short) 1025), ShortTag.valueOf((short) 1025));
+		assertFalse(ShortTag.valueOf((short) -129).isShared());
+		assertThrowsUnsupportedOperationException(() -> ShortTag.valueOf((short) 7).setValue((short) 8));
+		assertEquals(7, ShortTag.valueOf((short) 7).asShort());
+	}
 }
@@ -0,0 +1,148 @@
+package io.github.ensgijs.nbt.util;
+
+import io.github.ensgijs.nbt.NbtTestCase;
+import io.github.ensgijs.nbt.io.BinaryNbtHelpers;
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.TextNbtHelpers;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.IntTag;
+import io.github.ensgijs.nbt.util.BinaryNbtPatcher.Result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class BinaryNbtPatcherTest extends NbtTestCase {
+    private static final String SAMPLE = "{xPos:3,zPos:-2,name:\"chunk\"," +
+            "block_entities:[{id:\"chest\",x:50,y:64,z:-20},{id:\"sign\",x:63,y:70,z:-17}]," +
+            "structures:{References:{village:[L;12884901890,7],mine:[L;]},starts:{}}," +
+            "Pos:[1.5d,64.0d,-3.25d],Pointers:[I;1,2,3],Flags:[B;1,2]}";
+
+    private static byte[] toBytes(String snbt) throws IOException {
+        return BinaryNbtHelpers.serializeAsBytes(new NamedTag("", expected(snbt)), CompressionType.NONE);
+    }
+
+    private static CompoundTag fromBytes(byte[] bytes) throws IOException {
+        return (CompoundTag) BinaryNbtHelpers.deserializeBytes(bytes, CompressionType.NONE).getTag();
+    }
+
+    private static CompoundTag expected(String snbt) throws IOException {
+        return (CompoundTag) TextNbtHelpers.fromTextNbt(snbt).getTag();
+    }
+
+    public void testPatch_namedAndWildcardPaths() throws IOException {
+        BinaryNbtPatcher<int[]> patcher = BinaryNbtPatcher.<int[]>builder()
+                .on("xPos", (field, delta) -> field.setInt(field.getInt() + delta[0]))
+                .on("block_entities[*].x", (field, delta) -> field.setInt(field.getInt() + 16 * delta[0]))
+                .on("structures.References.*[*]", (field, delta) -> field.setLong(field.getLong() + delta[0]))
+                .on("Pos[2]", (field, delta) -> field.setDouble(field.getDouble() * 2))
+                .on("Pointers[1]", (field, delta) -> field.setInt(20))
+                .build();
+        byte[] bytes = toBytes(SAMPLE);
+        int length = bytes.length;
+        assertEquals(Result.PATCHED, patcher.patch(bytes, new int[] {1}));
+        assertEquals(length, bytes.length);
+
+        CompoundTag expected = expected(SAMPLE);
+        expected.putInt("xPos", 4);
+        expected.getCompoundList("block_entities").get(0).putInt("x", 66);
+        expected.getCompoundList("block_entities").get(1).putInt("x", 79);
+        expected.getCompoundTag("structures").getCompoundTag("References").putLongArray("village", new long[] {12884901891L, 8L});
+        expected.getListTag("Pos").asDoubleTagList().get(2).setValue(-6.5);
+        expected.putIntArray("Pointers", new int[] {1, 20, 3});
+        assertEquals(expected, fromBytes(bytes));
+    }
+
+    public void testPatch_unchangedValuesAreNotReported() throws IOException {
+        BinaryNbtPatcher<Void> patcher = BinaryNbtPatcher.<Void>builder()
+                .on("xPos", (field, ctx) -> field.setInt(3))
+                .on("name", (field, ctx) -> fail("strings are not fixed width"))
+                .on("missing.x", (field, ctx) -> fail("doesn't exist"))
+                .build();
+        byte[] bytes = toBytes(SAMPLE);
+        byte[] original = bytes.clone();
+        assertEquals(Result.UNCHANGED, patcher.patch(bytes, null));
+        assertArrayEquals(original, bytes);
+    }
+
+    public void testPatch_treeModeLeavesDataUntouched() throws IOException {
+        BinaryNbtPatcher<Boolean> patcher = BinaryNbtPatcher.<Boolean>builder()
+                .on("xPos", (field, ctx) -> field.setInt(100))
+                .on("block_entities[*].z", (field, removeNegative) -> {
+                    if (removeNegative && field.getInt() < 0) field.requireTreeMode();
+                })
+                .build();
+        byte[] bytes = toBytes(SAMPLE);
+        byte[] original = bytes.clone();
+        assertEquals(Result.NEEDS_TREE_MODE, patcher.patch(bytes, true));
+        assertArrayEquals(original, bytes);
+        assertEquals(Result.PATCHED, patcher.patch(bytes, false));
+        assertEquals(100, fromBytes(bytes).getInt("xPos"));
+    }
+
+    public void testPatch_treeModeIfPresent() throws IOException {
+        BinaryNbtPatcher<Boolean> patcher = BinaryNbtPatcher.<Boolean>builder()
+                .on("zPos", (field, ctx) -> field.setInt(0))
+                .treeModeIfPresent("structures.starts.*")
+                .treeModeIfPresent("structures.References.*", discard -> discard)
+                .build();
+        byte[] bytes = toBytes(SAMPLE);
+        assertEquals(Result.NEEDS_TREE_MODE, patcher.patch(bytes, true));
+        assertEquals(Result.PATCHED, patcher.patch(bytes, false));
+
+        byte[] withStart = toBytes(SAMPLE.replace("starts:{}", "starts:{village:{id:\"village\"}}"));
+        assertEquals(Result.NEEDS_TREE_MODE, patcher.patch(withStart, false));
+    }
+
+    public void testOnEach_seesEveryFixedWidthValue() throws IOException {
+        List<String> paths = new ArrayList<>();
+        BinaryNbtPatcher<Void> patcher = BinaryNbtPatcher.<Void>builder()
+                .onEach((field, ctx) -> {
+                    paths.add(field.path());
+                    if (field.type() == IntTag.ID && "y".equals(field.name())) field.setInt(0);
+                })
+                .build();
+        byte[] bytes = toBytes(SAMPLE);
+        assertEquals(Result.PATCHED, patcher.patch(bytes, null));
+        assertTrue(paths.contains("xPos"));
+        assertTrue(paths.contains("block_entities[1].y"));
+        assertTrue(paths.contains("structures.References.village[1]"));
+        assertTrue(paths.contains("Pos[0]"));
+        assertTrue(paths.contains("Flags[1]"));
+        assertEquals(0, fromBytes(bytes).getCompoundList("block_entities").get(1).getInt("y"));
+    }
+
+    public void testField_typeMismatchThrows() throws IOException {
+        BinaryNbtPatcher<Void> patcher = BinaryNbtPatcher.<Void>builder()
+                .on("xPos", (field, ctx) -> field.setLong(1))
+                .build();
+        assertThrowsException(() -> patcher.patch(toBytes(SAMPLE), null), IllegalStateException.class);
+    }
+
+    public void testBuilder_rejectsInvalidPatterns() {
+        assertThrowsIllegalArgumentException(() -> BinaryNbtPatcher.<Void>builder().on("", (f, c) -> {}));
+        assertThrowsIllegalArgumentException(() -> BinaryNbtPatcher.<Void>builder().on("a..b", (f, c) -> {}));
+        assertThrowsIllegalArgumentException(() -> BinaryNbtPatcher.<Void>builder().on("a[1", (f, c) -> {}));
+        assertThrowsIllegalArgumentException(() -> BinaryNbtPatcher.<Void>builder().on("a[x]", (f, c) -> {}));
+    }
+
+    public void testScan_appliesToCopy() throws IOException {
+        BinaryNbtPatcher<Void> patcher = BinaryNbtPatcher.<Void>builder()
+                .on("zPos", (field, ctx) -> field.setInt(9))
+                .build();
+        byte[] bytes = toBytes(SAMPLE);
+        byte[] original = bytes.clone();
+        BinaryNbtPatcher.Changes changes = patcher.scan(bytes, 0, bytes.length, null);
+        assertEquals(Result.PATCHED, changes.result());
+        assertArrayEquals(original, bytes);
+
+        byte[] shifted = new byte[bytes.length + 5];
+        System.arraycopy(bytes, 0, shifted, 5, bytes.length);
+        assertEquals(Result.PATCHED, changes.applyTo(shifted, 5));
+        assertEquals(9, fromBytes(Arrays.copyOfRange(shifted, 5, shifted.length)).getInt("zPos"));
+    }
+}
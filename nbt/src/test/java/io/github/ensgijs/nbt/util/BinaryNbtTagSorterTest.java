@@ -3,9 +3,15 @@ package io.github.ensgijs.nbt.util;
 import io.github.ensgijs.nbt.NbtTestCase;
 import io.github.ensgijs.nbt.io.*;
 import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.Tag;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
@@ -13,9 +19,16 @@ import static org.junit.Assert.*;
 public class BinaryNbtTagSorterTest extends NbtTestCase {
     private static final HexFormat HEX_FORMATTER = HexFormat.ofDelimiter(" ").withUpperCase();
 
+    /** Sorts keys as they are written; BinaryNbtSerializer now sorts with BinaryNbtTagSorter itself. */
+    private static byte[] serializeSortedKeys(Tag<?> tag) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BigEndianNbtOutputStream(out, true).writeTag(new NamedTag(null, tag), Tag.DEFAULT_MAX_DEPTH);
+        return out.toByteArray();
+    }
+
     private void validateNbt(String filename) throws IOException {
         CompoundTag tag = (CompoundTag) deserializeFromFile(filename).getTag();
-        byte[] controlOrdered = serialize(tag, true);
+        byte[] controlOrdered = serializeSortedKeys(tag);
         byte[] controlUnordered = serialize(tag, false);
 
 //        System.out.println("\nINPUT(TEXT NBT)");
@@ -39,6 +52,82 @@ public class BinaryNbtTagSorterTest extends NbtTestCase {
 //        CompoundTag tagOut = (CompoundTag) assertThrowsNoException(() -> BinaryNbtHelpers.deserializeBytes(actual, CompressionType.NONE)).getTag();
 //        assertEquals(tag, tagOut);
         assertArrayEquals(controlOrdered, actual);
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        new BinaryNbtTagSorter().sort(controlUnordered, streamed);
+        assertArrayEquals(controlOrdered, streamed.toByteArray());
+
+        ByteBuffer buffer = ByteBuffer.allocate(controlUnordered.length + 3);
+        buffer.put((byte) 42);
+        new BinaryNbtTagSorter().sort(controlUnordered, buffer);
+        assertEquals(controlUnordered.length + 1, buffer.position());
+        assertArrayEquals(controlOrdered, Arrays.copyOfRange(buffer.array(), 1, buffer.position()));
+
+        assertArrayEquals(controlOrdered, SharedBinaryNbtTagSorter.DEFAULT.sort(controlUnordered));
+        assertArrayEquals(controlOrdered, serialize(tag, true));
+    }
+
+    public void testSort_nonAsciiNamesSortLikeStrings() throws IOException {
+        CompoundTag tag = new CompoundTag();
+        for (String name : new String[] {"z", "\u00e9", "a", "\u0000", "a\u0000", "\ud83d\ude00", "\uffff", "\u4e2d", "", "A"}) {
+            tag.putInt(name, name.length());
+        }
+        byte[] controlOrdered = serializeSortedKeys(tag);
+        assertArrayEquals(controlOrdered, new BinaryNbtTagSorter().sort(serialize(tag, false)));
+        assertArrayEquals(controlOrdered, serialize(tag, true));
+    }
+
+    public void testSort_lengthLimitedInput() throws IOException {
+        CompoundTag tag = (CompoundTag) deserializeFromFile("text_nbt_samples/little_of_everything.snbt").getTag();
+        byte[] unordered = serialize(tag, false);
+        byte[] padded = Arrays.copyOf(unordered, unordered.length + 100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryNbtTagSorter().sort(padded, unordered.length, out);
+        assertArrayEquals(serializeSortedKeys(tag), out.toByteArray());
+    }
+
+    public void testReleaseTokens() throws IOException {
+        BinaryNbtTagSorter sorter = new BinaryNbtTagSorter();
+        byte[] unordered = serialize(deserializeFromFile("1_20_4/region/r.0.0/0299.11.9.snbt").getTag(), false);
+        byte[] sorted = sorter.sort(unordered);
+        assertTrue(sorter.tokenPoolSize() > 16);
+        sorter.releaseTokens(16);
+        assertEquals(16, sorter.tokenPoolSize());
+        sorter.releaseTokens(0);
+        assertEquals(0, sorter.tokenPoolSize());
+        assertArrayEquals(sorted, sorter.sort(unordered));
+    }
+
+    public void testSharedSorter_threadSafe() throws Exception {
+        SharedBinaryNbtTagSorter shared = new SharedBinaryNbtTagSorter(32);
+        List<byte[]> inputs = new ArrayList<>();
+        List<byte[]> expected = new ArrayList<>();
+        for (String file : new String[] {"1_20_4/region/r.0.0/0299.11.9.snbt", "text_nbt_samples/named_item.snbt",
+                "text_nbt_samples/little_of_everything.snbt"}) {
+            Tag<?> tag = deserializeFromFile(file).getTag();
+            inputs.add(serialize(tag, false));
+            expected.add(serializeSortedKeys(tag));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        int k = i % inputs.size();
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        shared.sort(inputs.get(k), out);
+                        assertArrayEquals(expected.get(k), out.toByteArray());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
     }
 
     public void _testBugProbe() throws IOException {
@@ -1,6 +1,9 @@
 package io.github.ensgijs.nbt.util;
 
 import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringWriter;
 import static io.github.ensgijs.nbt.util.JsonPrettyPrinter.prettyPrintJson;
 
 public class JsonPrettyPrinterTest extends TestCase {
@@ -351,4 +354,27 @@ public class JsonPrettyPrinterTest extends TestCase {
                 {"a": 1, "b": 2,}""";
         assertEquals(expected, prettyPrintJson(json));
     }
+
+    public void testPrettyPrintingWriter_matchesPrettyPrintJson() throws IOException {
+        StringBuilder sb = new StringBuilder("{\"list\":[");
+        for (int i = 0; i < 300; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"i\":").append(i).append(",\"s\":\"a, \\\"[b]\\\" {}").append(" ".repeat(i % 7))
+                    .append("\",\"e\":{},\"a\":[I;").append(i).append(',').append(i * 31).append("],\"n\":[[],[1,2],,]}");
+        }
+        sb.append("],\"x\":'q}\\'\n',\"y\":[L;1,2,3]}");
+        String json = sb.toString();
+        for (int max : new int[] {0, 16, 40, 120}) {
+            String expected = prettyPrintJson(json, max);
+            for (int chunk : new int[] {1, 3, 64, 10000}) {
+                StringWriter out = new StringWriter();
+                JsonPrettyPrinter.PrettyPrintingWriter writer = JsonPrettyPrinter.prettyPrintingWriter(out, max);
+                for (int i = 0; i < json.length(); i += chunk) {
+                    writer.write(json, i, Math.min(chunk, json.length() - i));
+                }
+                writer.finish();
+                assertEquals("max=" + max + " chunk=" + chunk, expected, out.toString());
+            }
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package io.github.ensgijs.nbt.util;
+
+import io.github.ensgijs.nbt.NbtTestCase;
+import io.github.ensgijs.nbt.io.BinaryNbtHelpers;
+import io.github.ensgijs.nbt.io.CompressionType;
+import io.github.ensgijs.nbt.io.NamedTag;
+import io.github.ensgijs.nbt.io.TextNbtParser;
+import io.github.ensgijs.nbt.tag.CompoundTag;
+import io.github.ensgijs.nbt.tag.ListTag;
+import io.github.ensgijs.nbt.tag.StringTag;
+import io.github.ensgijs.nbt.tag.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+public class NbtFingerprintTest extends NbtTestCase {
+
+    private static NbtFingerprint fingerprint(String snbt) {
+        return NbtFingerprint.of(TextNbtParser.parseInline(snbt));
+    }
+
+    private void assertBinaryMatchesTree(Tag<?> tag) throws IOException {
+        NbtFingerprint expected = NbtFingerprint.of(tag);
+        for (boolean sort : new boolean[] {false, true}) {
+            byte[] bytes = BinaryNbtHelpers.serializeAsBytes(new NamedTag("name", tag), CompressionType.NONE, sort);
+            assertEquals(expected, NbtFingerprint.ofBinary(bytes));
+        }
+        byte[] gzipped = BinaryNbtHelpers.serializeAsBytes(new NamedTag("", tag), CompressionType.GZIP);
+        assertEquals(expected, NbtFingerprint.ofBinary(new ByteArrayInputStream(gzipped), CompressionType.GZIP));
+    }
+
+    public void testBinaryMatchesTree() throws IOException {
+        for (String file : new String[] {
+                "text_nbt_samples/little_of_everything.snbt",
+                "text_nbt_samples/named_item.snbt",
+                "mca_palettes/block_states-1.20.4-6entries.snbt",
+                "1_20_4/region/r.0.0/0299.11.9.snbt"}) {
+            assertBinaryMatchesTree(deserializeFromFile(file).getTag());
+        }
+        CompoundTag strings = new CompoundTag();
+        strings.putString("s", "\u0000 \u00e9 \u4e2d \ud83d\ude00");
+        strings.putByteArray("\u00e9", new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertBinaryMatchesTree(strings);
+        assertBinaryMatchesTree(new StringTag("x".repeat(1000)));
+    }
+
+    public void testCompoundEntryOrderDoesNotMatter() {
+        assertEquals(fingerprint("{a:1,b:{x:[1,2],y:\"s\"},c:[{p:1b,q:2b}]}"),
+                fingerprint("{c:[{q:2b,p:1b}],b:{y:\"s\",x:[1,2]},a:1}"));
+    }
+
+    public void testContentChangesChangeTheFingerprint() {
+        NbtFingerprint base = fingerprint("{a:1,b:{x:[1,2],y:\"s\"}}");
+        assertFalse(base.equals(fingerprint("{a:2,b:{x:[1,2],y:\"s\"}}")));
+        assertFalse(base.equals(fingerprint("{a:1L,b:{x:[1,2],y:\"s\"}}")));
+        assertFalse(base.equals(fingerprint("{a:1,b:{x:[2,1],y:\"s\"}}")));
+        assertFalse(base.equals(fingerprint("{a:1,b:{x:[1,2],z:\"s\"}}")));
+        assertFalse(base.equals(fingerprint("{a:1,b:{x:[1,2]},y:\"s\"}")));
+        assertFalse(base.equals(fingerprint("{a:1,b:{x:[1,2],y:\"s\"},c:{}}")));
+        // swapping values between keys
+        assertFalse(fingerprint("{a:1,b:2}").equals(fingerprint("{a:2,b:1}")));
+        // duplicated entries don't cancel out
+        assertFalse(fingerprint("{a:{x:1,y:1},b:{}}").equals(fingerprint("{a:{},b:{}}")));
+        assertFalse(fingerprint("[B;1,2]").equals(fingerprint("[1b,2b]")));
+        assertFalse(fingerprint("\"ab\"").equals(fingerprint("\"a\"")));
+    }
+
+    public void testEmptyListsFingerprintTheSame() {
+        CompoundTag a = new CompoundTag();
+        a.put("list", new ListTag<>(StringTag.class));
+        CompoundTag b = new CompoundTag();
+        b.put("list", ListTag.createUnchecked(CompoundTag.class));
+        assertEquals(NbtFingerprint.of(a), NbtFingerprint.of(b));
+    }
+
+    public void testNaNsAreEqual() {
+        assertEquals(NbtFingerprint.of(ListTag.ofFloats(Float.NaN)),
+                NbtFingerprint.of(ListTag.ofFloats(Float.intBitsToFloat(0x7fc00001))));
+    }
+
+    public void testToString() {
+        assertEquals("0000000000000001ffffffffffffffff", new NbtFingerprint(1, -1).toString());
+        assertEquals(new NbtFingerprint(1, -1), new NbtFingerprint(1, -1));
+        assertEquals(new NbtFingerprint(1, -1).hashCode(), new NbtFingerprint(1, -1).hashCode());
+    }
+}